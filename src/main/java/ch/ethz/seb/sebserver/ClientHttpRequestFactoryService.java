@@ -18,9 +18,14 @@ import java.security.cert.CertificateException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
+import javax.annotation.PreDestroy;
 import javax.net.ssl.SSLContext;
 
+import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpHost;
 import org.apache.http.auth.AuthScope;
@@ -28,14 +33,22 @@ import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.CredentialsProvider;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
 import org.apache.http.conn.ssl.TrustAllStrategy;
 import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.client.HttpClients;
 import org.apache.http.impl.client.ProxyAuthenticationStrategy;
 import org.apache.http.ssl.SSLContextBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.core.env.Environment;
@@ -52,7 +65,13 @@ import ch.ethz.seb.sebserver.gbl.profile.GuiProfile;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import io.micrometer.core.instrument.MeterRegistry;
 
+/** Provides ClientHttpRequestFactory instances for all outgoing HTTP calls of SEB Server.
+ *
+ * All ClientHttpRequestFactory instances share one pooled HttpClient per destination setup, that is one for
+ * direct connections and one for each proxy and proxy credentials. Connections are kept alive and reused across
+ * the callers. */
 @Lazy
 @Service
 @WebServiceProfile
@@ -64,25 +83,55 @@ public class ClientHttpRequestFactoryService {
     private static final Collection<String> DEV_PROFILES = Arrays.asList("dev-gui", "test", "demo", "dev-ws");
     private static final Collection<String> PROD_PROFILES = Arrays.asList("prod-gui", "prod-ws");
 
+    private static final String DIRECT_POOL_NAME = "direct";
+    private static final String PROXY_POOL_NAME_PREFIX = "proxy-";
+    private static final String TLS_POOL_KEY_PREFIX = "tls:";
+    private static final String PLAIN_POOL_KEY_PREFIX = "plain:";
+
     private final int connectTimeout;
     private final int connectionRequestTimeout;
     private final int readTimeout;
+    private final int maxConnections;
+    private final int maxConnectionsPerRoute;
+    private final long keepAlive;
+    private final long idleTimeout;
+    private final boolean compression;
 
     private final Environment environment;
     private final ClientCredentialService clientCredentialService;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, HttpClientPool> pools = new ConcurrentHashMap<>();
 
     public ClientHttpRequestFactoryService(
             final Environment environment,
             final ClientCredentialService clientCredentialService,
+            final ObjectProvider<MeterRegistry> meterRegistry,
             @Value("${sebserver.http.client.connect-timeout:15000}") final int connectTimeout,
             @Value("${sebserver.http.client.connection-request-timeout:20000}") final int connectionRequestTimeout,
-            @Value("${sebserver.http.client.read-timeout:30000}") final int readTimeout) {
+            @Value("${sebserver.http.client.read-timeout:30000}") final int readTimeout,
+            @Value("${sebserver.http.client.pool.max-connections:200}") final int maxConnections,
+            @Value("${sebserver.http.client.pool.max-connections-per-route:50}") final int maxConnectionsPerRoute,
+            @Value("${sebserver.http.client.pool.keep-alive:30000}") final long keepAlive,
+            @Value("${sebserver.http.client.pool.idle-timeout:60000}") final long idleTimeout,
+            @Value("${sebserver.http.client.compression:true}") final boolean compression) {
 
         this.environment = environment;
         this.clientCredentialService = clientCredentialService;
+        this.meterRegistry = meterRegistry.getIfAvailable();
         this.connectTimeout = connectTimeout;
         this.connectionRequestTimeout = connectionRequestTimeout;
         this.readTimeout = readTimeout;
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        this.keepAlive = keepAlive;
+        this.idleTimeout = idleTimeout;
+        this.compression = compression;
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        this.pools.values().forEach(HttpClientPool::close);
+        this.pools.clear();
     }
 
     public Result<ClientHttpRequestFactory> getClientHttpRequestFactory() {
@@ -106,11 +155,14 @@ public class ClientHttpRequestFactoryService {
      * not following redirects on redirect responses.
      *
      * @return ClientHttpRequestFactory bean for development profiles
+     * @throws IOException
+     * @throws FileNotFoundException
+     * @throws CertificateException
      * @throws KeyStoreException
      * @throws NoSuchAlgorithmException
      * @throws KeyManagementException */
-    private ClientHttpRequestFactory clientHttpRequestFactory(final ProxyData proxy)
-            throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException {
+    private ClientHttpRequestFactory clientHttpRequestFactory(final ProxyData proxy) throws KeyManagementException,
+            NoSuchAlgorithmException, KeyStoreException, CertificateException, FileNotFoundException, IOException {
 
         if (log.isDebugEnabled()) {
             log.debug("Initialize ClientHttpRequestFactory with insecure ClientHttpRequestFactory for development");
@@ -123,8 +175,7 @@ public class ClientHttpRequestFactoryService {
             }
 
             final HttpComponentsClientHttpRequestFactory factory =
-                    new HttpComponentsClientHttpRequestFactory();
-            factory.setHttpClient(this.createProxiedClient(proxy, null));
+                    new HttpComponentsClientHttpRequestFactory(getPooledClient(proxy, false));
             factory.setBufferRequestBody(false);
             factory.setConnectionRequestTimeout(this.connectionRequestTimeout);
             factory.setConnectTimeout(this.connectTimeout);
@@ -134,7 +185,7 @@ public class ClientHttpRequestFactoryService {
         } else {
 
             final HttpComponentsClientHttpRequestFactory devClientHttpRequestFactory =
-                    new HttpComponentsClientHttpRequestFactory();
+                    new HttpComponentsClientHttpRequestFactory(getPooledClient(null, false));
 
             devClientHttpRequestFactory.setBufferRequestBody(false);
             devClientHttpRequestFactory.setConnectionRequestTimeout(this.connectionRequestTimeout);
@@ -160,6 +211,111 @@ public class ClientHttpRequestFactoryService {
             log.debug("Initialize with secure ClientHttpRequestFactory for production");
         }
 
+        if (proxy != null) {
+
+            if (log.isDebugEnabled()) {
+                log.debug("Initialize ClientHttpRequestFactory with proxy: {}", proxy);
+            }
+
+            return new HttpComponentsClientHttpRequestFactory(getPooledClient(proxy, true));
+        } else {
+
+            final HttpComponentsClientHttpRequestFactory factory =
+                    new HttpComponentsClientHttpRequestFactory(getPooledClient(null, true));
+
+            factory.setConnectionRequestTimeout(this.connectionRequestTimeout);
+            factory.setConnectTimeout(this.connectTimeout);
+            factory.setReadTimeout(this.readTimeout);
+
+            return factory;
+        }
+    }
+
+    /** Gets the shared pooled HttpClient for the given proxy or for direct connections if there is no proxy.
+     * The pool is created on first use and is identified by the proxy host, port and credentials. A pool is
+     * never closed before shutdown since the HttpClient might still be referenced by a ClientHttpRequestFactory
+     * in use. If the credentials of a proxy change, a new pool is created and the idle connections of the pool
+     * with the old credentials are evicted after the idle timeout.
+     *
+     * @param proxy the proxy data or null for direct connections
+     * @param tls indicates if outgoing calls are secured with the TLS setup of the production profiles
+     * @return the shared pooled HttpClient */
+    private synchronized HttpClient getPooledClient(final ProxyData proxy, final boolean tls)
+            throws KeyManagementException, NoSuchAlgorithmException, KeyStoreException, CertificateException,
+            FileNotFoundException, IOException {
+
+        final String poolName = (proxy != null)
+                ? PROXY_POOL_NAME_PREFIX + proxy.proxyName + ":" + proxy.proxyPort + proxyFingerprint(proxy)
+                : DIRECT_POOL_NAME;
+        final String poolKey = ((tls) ? TLS_POOL_KEY_PREFIX : PLAIN_POOL_KEY_PREFIX) + poolName;
+
+        final HttpClientPool existing = this.pools.get(poolKey);
+        if (existing != null) {
+            return existing.getHttpClient();
+        }
+
+        log.info("Create HTTP client pool: {}", poolName);
+
+        final SSLConnectionSocketFactory sslSocketFactory = (tls)
+                ? new SSLConnectionSocketFactory(createSSLContext())
+                : SSLConnectionSocketFactory.getSystemSocketFactory();
+        final Registry<ConnectionSocketFactory> socketFactoryRegistry = RegistryBuilder
+                .<ConnectionSocketFactory> create()
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .register("https", sslSocketFactory)
+                .build();
+
+        final HttpClientPool pool = new HttpClientPool(
+                poolName,
+                socketFactoryRegistry,
+                this.meterRegistry);
+        pool.connectionManager.setMaxTotal(this.maxConnections);
+        pool.connectionManager.setDefaultMaxPerRoute(this.maxConnectionsPerRoute);
+        pool.connectionManager.setValidateAfterInactivity((int) Constants.SECOND_IN_MILLIS * 2);
+
+        final HttpClientBuilder clientBuilder = (proxy != null)
+                ? createProxiedClientBuilder(proxy)
+                : (tls) ? HttpClients.custom() : HttpClients.custom().useSystemProperties();
+
+        clientBuilder
+                .setConnectionManager(pool.connectionManager)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictExpiredConnections()
+                .evictIdleConnections(this.idleTimeout, TimeUnit.MILLISECONDS);
+
+        if (!this.compression) {
+            clientBuilder.disableContentCompression();
+        }
+
+        pool.setHttpClient(clientBuilder.build());
+        this.pools.put(poolKey, pool);
+        return pool.getHttpClient();
+    }
+
+    /** Uses the keep-alive time the server sends with the response but not longer than the configured
+     * keep-alive time that is also used if the server sends none. */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            final long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE
+                    .getKeepAliveDuration(response, context);
+            return (serverKeepAlive > 0) ? Math.min(serverKeepAlive, this.keepAlive) : this.keepAlive;
+        };
+    }
+
+    private String proxyFingerprint(final ProxyData proxy) {
+        if (proxy == null || proxy.clientCredentials == null) {
+            return StringUtils.EMPTY;
+        }
+
+        // the pool name is also used for logging and metrics, so only a digest of the credentials is taken
+        return "#" + DigestUtils.sha256Hex(
+                Utils.toString(proxy.clientCredentials.clientId) + Constants.LIST_SEPARATOR
+                        + Utils.toString(proxy.clientCredentials.secret));
+    }
+
+    private SSLContext createSSLContext() throws KeyManagementException, NoSuchAlgorithmException,
+            KeyStoreException, CertificateException, FileNotFoundException, IOException {
+
         final String truststoreFilePath = this.environment
                 .getProperty("server.ssl.trust-store", "");
 
@@ -205,30 +361,10 @@ public class ClientHttpRequestFactoryService {
                     .build();
         }
 
-        if (proxy != null) {
-
-            if (log.isDebugEnabled()) {
-                log.debug("Initialize ClientHttpRequestFactory with proxy: {}", proxy);
-            }
-
-            final HttpClient client = createProxiedClient(proxy, sslContext);
-            return new HttpComponentsClientHttpRequestFactory(client);
-        } else {
-
-            final HttpClient client = HttpClients.custom()
-                    .setSSLContext(sslContext)
-                    .build();
-            final HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(client);
-
-            factory.setConnectionRequestTimeout(this.connectionRequestTimeout);
-            factory.setConnectTimeout(this.connectTimeout);
-            factory.setReadTimeout(this.readTimeout);
-
-            return factory;
-        }
+        return sslContext;
     }
 
-    private HttpClient createProxiedClient(final ProxyData proxy, final SSLContext sslContext) {
+    private HttpClientBuilder createProxiedClientBuilder(final ProxyData proxy) {
 
         final HttpHost httpHost = new HttpHost(
                 proxy.proxyName,
@@ -261,11 +397,7 @@ public class ClientHttpRequestFactoryService {
             clientBuilder.setDefaultCredentialsProvider(credsProvider);
         }
 
-        if (sslContext != null) {
-            clientBuilder.setSSLContext(sslContext);
-        }
-
-        return clientBuilder.build();
+        return clientBuilder;
     }
 
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.config.Registry;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+/** A pooled HttpClient that is shared by all callers of the same destination setup (direct or over a specific
+ * proxy with specific credentials). The underlying connection pool exports its state and the connection lease times as metrics if a
+ * MeterRegistry is available. */
+final class HttpClientPool {
+
+    private static final Logger log = LoggerFactory.getLogger(HttpClientPool.class);
+
+    static final String METRIC_PREFIX = "sebserver.http.client.pool";
+
+    final String name;
+    final MeteredConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    HttpClientPool(
+            final String name,
+            final Registry<ConnectionSocketFactory> socketFactoryRegistry,
+            final MeterRegistry meterRegistry) {
+
+        this.name = name;
+        this.connectionManager = new MeteredConnectionManager(name, socketFactoryRegistry, meterRegistry);
+    }
+
+    CloseableHttpClient getHttpClient() {
+        return this.httpClient;
+    }
+
+    void setHttpClient(final CloseableHttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    void close() {
+        log.info("Close HTTP client pool: {} {}", this.name, this.connectionManager.getTotalStats());
+        try {
+            if (this.httpClient != null) {
+                this.httpClient.close();
+            }
+        } catch (final IOException e) {
+            log.warn("Failed to close HTTP client of pool: {}", this.name, e);
+        }
+        this.connectionManager.shutdown();
+        this.connectionManager.removeMeters();
+    }
+
+    /** Connection manager that measures the time a connection is leased from the pool and the time
+     * a caller had to wait for a free connection */
+    static final class MeteredConnectionManager extends PoolingHttpClientConnectionManager {
+
+        private final MeterRegistry meterRegistry;
+        private final List<Meter> meters = new ArrayList<>();
+        private final Map<HttpClientConnection, Long> leaseStartTimes = new ConcurrentHashMap<>();
+        private final Timer leaseTime;
+        private final Timer leaseWaitTime;
+
+        MeteredConnectionManager(
+                final String poolName,
+                final Registry<ConnectionSocketFactory> socketFactoryRegistry,
+                final MeterRegistry meterRegistry) {
+
+            super(socketFactoryRegistry);
+            this.meterRegistry = meterRegistry;
+
+            if (meterRegistry == null) {
+                this.leaseTime = null;
+                this.leaseWaitTime = null;
+                return;
+            }
+
+            final Tags tags = Tags.of("pool", poolName);
+            this.meters.add(Gauge.builder(METRIC_PREFIX + ".leased", this, m -> m.getTotalStats().getLeased())
+                    .description("Connections that are currently in use")
+                    .tags(tags)
+                    .register(meterRegistry));
+            this.meters.add(Gauge.builder(METRIC_PREFIX + ".available", this, m -> m.getTotalStats().getAvailable())
+                    .description("Idle connections that are kept alive within the pool")
+                    .tags(tags)
+                    .register(meterRegistry));
+            this.meters.add(Gauge.builder(METRIC_PREFIX + ".pending", this, m -> m.getTotalStats().getPending())
+                    .description("Requests that are waiting for a free connection")
+                    .tags(tags)
+                    .register(meterRegistry));
+            this.meters.add(Gauge.builder(METRIC_PREFIX + ".max", this, m -> m.getTotalStats().getMax())
+                    .description("Maximal number of connections of the pool")
+                    .tags(tags)
+                    .register(meterRegistry));
+
+            this.leaseTime = Timer.builder(METRIC_PREFIX + ".lease")
+                    .description("Time a connection is leased from the pool")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.leaseWaitTime = Timer.builder(METRIC_PREFIX + ".lease.wait")
+                    .description("Time waited for a free connection of the pool")
+                    .tags(tags)
+                    .register(meterRegistry);
+            this.meters.add(this.leaseTime);
+            this.meters.add(this.leaseWaitTime);
+        }
+
+        @Override
+        public ConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+            final ConnectionRequest request = super.requestConnection(route, state);
+            if (this.leaseTime == null) {
+                return request;
+            }
+
+            final long requestTime = System.nanoTime();
+            return new ConnectionRequest() {
+
+                @Override
+                public HttpClientConnection get(final long timeout, final TimeUnit timeUnit)
+                        throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+
+                    final HttpClientConnection connection = request.get(timeout, timeUnit);
+                    final long leaseStart = System.nanoTime();
+                    MeteredConnectionManager.this.leaseWaitTime.record(
+                            leaseStart - requestTime,
+                            TimeUnit.NANOSECONDS);
+                    MeteredConnectionManager.this.leaseStartTimes.put(connection, leaseStart);
+                    return connection;
+                }
+
+                @Override
+                public boolean cancel() {
+                    return request.cancel();
+                }
+            };
+        }
+
+        @Override
+        public void releaseConnection(
+                final HttpClientConnection managedConn,
+                final Object state,
+                final long keepalive,
+                final TimeUnit timeUnit) {
+
+            try {
+                super.releaseConnection(managedConn, state, keepalive, timeUnit);
+            } finally {
+                final Long leaseStart = this.leaseStartTimes.remove(managedConn);
+                if (leaseStart != null) {
+                    this.leaseTime.record(System.nanoTime() - leaseStart, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+
+        void removeMeters() {
+            if (this.meterRegistry != null) {
+                this.meters.forEach(this.meterRegistry::remove);
+            }
+            this.meters.clear();
+            this.leaseStartTimes.clear();
+        }
+    }
+
+}
@@ -246,10 +246,12 @@ public final class API {
 
     public static final String SEB_CLIENT_EVENT_ENDPOINT = "/seb-client-event";
     public static final String SEB_CLIENT_EVENT_SEARCH_PATH_SEGMENT = "/search";
+    public static final String SEB_CLIENT_EVENT_TEXT_SEARCH_PATH_SEGMENT = "/search/text";
     public static final String SEB_CLIENT_EVENT_EXPORT_PATH_SEGMENT = "/export";
     public static final String SEB_CLIENT_EVENT_EXPORT_TYPE = "exportType";
     public static final String SEB_CLIENT_EVENT_EXPORT_INCLUDE_CONNECTIONS = "includeConnectionDetails";
     public static final String SEB_CLIENT_EVENT_EXPORT_INCLUDE_EXAMS = "includeExamDetails";
+    public static final String SEB_CLIENT_EVENT_EXPORT_GZIP = "gzip";
     public static final String SEB_CLIENT_EVENT_EXTENDED_PAGE_ENDPOINT = SEB_CLIENT_EVENT_ENDPOINT
             + SEB_CLIENT_EVENT_SEARCH_PATH_SEGMENT;
 
@@ -9,8 +9,12 @@
 package ch.ethz.seb.sebserver.gbl.async;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.AsyncConfigurer;
@@ -24,11 +28,37 @@ import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 @EnableScheduling
 public class AsyncServiceSpringConfig implements AsyncConfigurer {
 
+    private static final Logger log = LoggerFactory.getLogger(AsyncServiceSpringConfig.class);
+
     public static final String EXECUTOR_BEAN_NAME = "AsyncServiceExecutorBean";
 
-    /** This ThreadPool is used for internal long-running background tasks */
+    /** Indicates if the async service and exam API executors shall run tasks on virtual threads.
+     * This only takes effect on a JVM that supports virtual threads (21+) */
+    @Value("${sebserver.async.virtual-threads.enabled:false}")
+    private boolean virtualThreadsEnabled;
+    @Value("${sebserver.async.virtual-threads.max-concurrency:200}")
+    private int asyncServiceMaxConcurrency;
+    @Value("${sebserver.async.virtual-threads.exam-api.max-concurrency:2000}")
+    private int examAPIMaxConcurrency;
+    /** The time in milliseconds to wait for running background tasks on virtual threads on shutdown */
+    @Value("${sebserver.async.virtual-threads.await-termination:30000}")
+    private long awaitTermination;
+
+    /** This ThreadPool is used for internal long-running background tasks.
+     * If virtual threads are enabled, the tasks run on virtual threads with a bounded concurrency instead.
+     * This is where blocking I/O to LMS and SPS is done, so many tasks can wait for responses without
+     * occupying a platform thread each */
     @Bean(name = EXECUTOR_BEAN_NAME)
     public Executor threadPoolTaskExecutor() {
+        if (useVirtualThreads()) {
+            log.info("Use virtual threads for async service with max concurrency: {}",
+                    this.asyncServiceMaxConcurrency);
+            return new VirtualThreadExecutor(
+                    "asyncService-",
+                    this.asyncServiceMaxConcurrency,
+                    this.awaitTermination);
+        }
+
         final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(7);
         executor.setMaxPoolSize(42);
@@ -47,6 +77,13 @@ public class AsyncServiceSpringConfig implements AsyncConfigurer {
      * when up to 1000 - 2000 clients connect at nearly the same time (start of an exam) */
     @Bean(name = EXAM_API_EXECUTOR_BEAN_NAME)
     public Executor examAPIThreadPoolTaskExecutor() {
+        if (useVirtualThreads()) {
+            log.info("Use virtual threads for exam API with max concurrency: {}",
+                    this.examAPIMaxConcurrency);
+            // like the thread pool, running exam API tasks are not awaited on shutdown
+            return new VirtualThreadExecutor("examService-", this.examAPIMaxConcurrency, 0);
+        }
+
         final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
         executor.setCorePoolSize(200);
         executor.setMaxPoolSize(2000);
@@ -75,6 +112,24 @@ public class AsyncServiceSpringConfig implements AsyncConfigurer {
         return executor;
     }
 
+    public static final String BATCH_ACTION_EXECUTOR_BEAN_NAME = "batchActionThreadPoolTaskExecutor";
+
+    /** This ThreadPool is used to process the single entities of batch actions in parallel.
+     * The parallelism per batch action is bounded by the batch action service itself.
+     * If there is no free thread, the entity is processed by the thread of the batch action process */
+    @Bean(name = BATCH_ACTION_EXECUTOR_BEAN_NAME)
+    public Executor batchActionThreadPoolTaskExecutor() {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(8);
+        executor.setMaxPoolSize(24);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("batchAction-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
     @Bean
     public ThreadPoolTaskScheduler threadPoolTaskScheduler() {
         final ThreadPoolTaskScheduler threadPoolTaskScheduler = new ThreadPoolTaskScheduler();
@@ -94,4 +149,18 @@ public class AsyncServiceSpringConfig implements AsyncConfigurer {
         return new AsyncExceptionHandler();
     }
 
+    private boolean useVirtualThreads() {
+        if (!this.virtualThreadsEnabled) {
+            return false;
+        }
+
+        if (!VirtualThreadExecutor.isSupported()) {
+            log.warn("Virtual threads are enabled but not supported by this JVM ({}). Use thread pools instead",
+                    System.getProperty("java.version"));
+            return false;
+        }
+
+        return true;
+    }
+
 }
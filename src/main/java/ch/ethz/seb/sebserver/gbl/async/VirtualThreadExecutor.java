@@ -0,0 +1,171 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.gbl.async;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+
+/** An Executor that runs every task within its own virtual thread and bounds the number of concurrently
+ * running tasks with a semaphore instead of a thread pool size. Tasks that exceed the limit wait within
+ * their virtual thread, which does not block a platform thread.
+ * <p>
+ * Virtual threads are only available on JVMs from version 21 on. Since SEB Server is still built for
+ * Java 17, the virtual thread factory is looked up by reflection. Use isSupported to check for support
+ * before creating a VirtualThreadExecutor.
+ * <p>
+ * Virtual threads do not keep the JVM alive. On shutdown, no new tasks are accepted and the running tasks
+ * are either awaited for the given time or interrupted, like a thread pool does. */
+public final class VirtualThreadExecutor implements Executor, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadExecutor.class);
+
+    private final String name;
+    private final ThreadFactory threadFactory;
+    private final Semaphore concurrencyLimit;
+    private final long awaitTermination;
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean shutdown = false;
+
+    /** Creates a new VirtualThreadExecutor
+     *
+     * @param name the name prefix for the virtual threads
+     * @param maxConcurrency the maximal number of tasks that run concurrently
+     * @param awaitTermination the time in milliseconds to wait for running tasks on shutdown.
+     *            If this is 0 or less, running tasks are interrupted on shutdown
+     * @throws IllegalStateException if virtual threads are not supported by the running JVM */
+    public VirtualThreadExecutor(final String name, final int maxConcurrency, final long awaitTermination) {
+        this.name = name;
+        this.threadFactory = createVirtualThreadFactory(name);
+        this.concurrencyLimit = new Semaphore(Math.max(1, maxConcurrency));
+        this.awaitTermination = awaitTermination;
+    }
+
+    /** Indicates if virtual threads are supported by the running JVM
+     *
+     * @return true if virtual threads are supported by the running JVM */
+    public static boolean isSupported() {
+        try {
+            Thread.class.getMethod("ofVirtual");
+            return true;
+        } catch (final NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        if (this.shutdown) {
+            throw new RejectedExecutionException("Executor has been shut down: " + this.name);
+        }
+
+        final Thread thread = this.threadFactory.newThread(() -> {
+            try {
+                runWithinLimit(task);
+            } finally {
+                this.threads.remove(Thread.currentThread());
+            }
+        });
+
+        this.threads.add(thread);
+        thread.start();
+    }
+
+    private void runWithinLimit(final Runnable task) {
+        try {
+            this.concurrencyLimit.acquire();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Interrupted while waiting for execution slot of: {}", this.name);
+            return;
+        }
+
+        try {
+            task.run();
+        } finally {
+            this.concurrencyLimit.release();
+        }
+    }
+
+    /** Stops accepting new tasks and waits for the running tasks to finish for the configured time
+     * or interrupts them if no waiting time is configured. */
+    @Override
+    public void destroy() {
+        this.shutdown = true;
+
+        if (this.awaitTermination <= 0) {
+            this.threads.forEach(Thread::interrupt);
+            return;
+        }
+
+        log.info("Shutdown {} and wait for {} running tasks", this.name, this.threads.size());
+
+        final long deadline = Utils.getMillisecondsNow() + this.awaitTermination;
+        for (final Thread thread : new ArrayList<>(this.threads)) {
+            final long wait = deadline - Utils.getMillisecondsNow();
+            if (wait <= 0) {
+                break;
+            }
+            try {
+                thread.join(wait);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        if (!this.threads.isEmpty()) {
+            log.warn("Shutdown {} with {} unfinished tasks", this.name, this.threads.size());
+        }
+    }
+
+    /** Get the number of tasks that are running or waiting for an execution slot
+     *
+     * @return the number of tasks that are running or waiting for an execution slot */
+    public int getActiveTasks() {
+        return this.threads.size();
+    }
+
+    /** Get the number of tasks that currently can start without waiting for another task to finish
+     *
+     * @return the number of available execution slots */
+    public int getAvailableSlots() {
+        return this.concurrencyLimit.availablePermits();
+    }
+
+    private static ThreadFactory createVirtualThreadFactory(final String name) {
+        try {
+
+            // Thread.ofVirtual().name(name, 0).factory()
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Object namedBuilder = builderType
+                    .getMethod("name", String.class, long.class)
+                    .invoke(builder, name, 0L);
+            final Method factory = builderType.getMethod("factory");
+            return (ThreadFactory) factory.invoke(namedBuilder);
+
+        } catch (final Exception e) {
+            throw new IllegalStateException("Virtual threads are not supported by this JVM", e);
+        }
+    }
+
+}
@@ -32,6 +32,8 @@ public final class Page<T> {
     public static final String ATTR_SORT = "sort";
     public static final String ATTR_COMPLETE = "complete";
     public static final String ATTR_CONTENT = "content";
+    public static final String ATTR_CURSOR = "cursor";
+    public static final String ATTR_NEXT_CURSOR = "next_cursor";
 
     @Schema(description = "The number of available pages for the specified page size.")
     @JsonProperty(ATTR_NUMBER_OF_PAGES)
@@ -58,6 +60,11 @@ public final class Page<T> {
     @JsonProperty(ATTR_COMPLETE)
     public final boolean complete;
 
+    @Schema(description = "The opaque cursor to get the next page with if the page was requested with a cursor. "
+            + "Null if there is no next page or the page was not requested with a cursor.", nullable = true)
+    @JsonProperty(ATTR_NEXT_CURSOR)
+    public final String nextCursor;
+
     @JsonCreator
     public Page(
             @JsonProperty(value = ATTR_NUMBER_OF_PAGES, required = true) final int numberOfPages,
@@ -65,7 +72,8 @@ public final class Page<T> {
             @JsonProperty(value = ATTR_PAGE_SIZE, required = true) final int pageSize,
             @JsonProperty(ATTR_SORT) final String sort,
             @JsonProperty(ATTR_CONTENT) final Collection<T> content,
-            @JsonProperty(ATTR_COMPLETE) final boolean complet) {
+            @JsonProperty(ATTR_COMPLETE) final boolean complet,
+            @JsonProperty(ATTR_NEXT_CURSOR) final String nextCursor) {
 
         this.numberOfPages = numberOfPages;
         this.pageNumber = pageNumber;
@@ -73,6 +81,18 @@ public final class Page<T> {
         this.pageSize = pageSize;
         this.sort = sort;
         this.complete = complet;
+        this.nextCursor = nextCursor;
+    }
+
+    public Page(
+            final int numberOfPages,
+            final int pageNumber,
+            final int pageSize,
+            final String sort,
+            final Collection<T> content,
+            final boolean complet) {
+
+        this(numberOfPages, pageNumber, pageSize, sort, content, complet, null);
     }
 
     public Page(
@@ -88,6 +108,7 @@ public final class Page<T> {
         this.pageSize = pageSize;
         this.sort = sort;
         this.complete = true;
+        this.nextCursor = null;
     }
 
     public int getNumberOfPages() {
@@ -106,6 +127,10 @@ public final class Page<T> {
         return this.complete;
     }
 
+    public String getNextCursor() {
+        return this.nextCursor;
+    }
+
     public Collection<T> getContent() {
         return this.content;
     }
@@ -126,6 +151,8 @@ public final class Page<T> {
         builder.append(this.pageSize);
         builder.append(", sort=");
         builder.append(this.sort);
+        builder.append(", nextCursor=");
+        builder.append(this.nextCursor);
         builder.append(", content=");
         builder.append(this.content);
         builder.append("]");
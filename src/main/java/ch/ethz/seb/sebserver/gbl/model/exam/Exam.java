@@ -61,6 +61,10 @@ public final class Exam implements GrantEntity {
     public static final String ADDITIONAL_ATTR_SIGNATURE_KEY_SALT = "SIGNATURE_KEY_SALT";
     /** Comma separated String value that defines allowed SEB version from linked Exam Configuration */
     public static final String ADDITIONAL_ATTR_ALLOWED_SEB_VERSIONS = "ALLOWED_SEB_VERSIONS";
+    /** This attribute name is used to mark exams which client events have been moved to the client event archive */
+    public static final String ADDITIONAL_ATTR_CLIENT_EVENTS_ARCHIVED = "CLIENT_EVENTS_ARCHIVED";
+    /** This attribute name is used to store the name of the archive file that holds the client events of an exam */
+    public static final String ADDITIONAL_ATTR_CLIENT_EVENTS_ARCHIVE_FILE = "CLIENT_EVENTS_ARCHIVE_FILE";
 
     public enum ExamStatus {
         UP_COMING,
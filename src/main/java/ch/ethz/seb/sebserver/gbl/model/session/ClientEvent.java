@@ -40,6 +40,8 @@ public class ClientEvent implements Entity {
     public static final String FILTER_ATTR_SERVER_TIME_FROM_TO = "serverTimeFromTo";
 
     public static final String FILTER_ATTR_TEXT = Domain.CLIENT_EVENT.ATTR_TEXT;
+    /** Filter for a text search on the event text that makes use of the full-text index if available */
+    public static final String FILTER_ATTR_TEXT_SEARCH = "textSearch";
     private static final Set<Integer> NOTIFICATION_EVENTS = new HashSet<>();
 
     public enum EventType {
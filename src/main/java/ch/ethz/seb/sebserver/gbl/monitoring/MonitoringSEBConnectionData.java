@@ -29,6 +29,7 @@ public class MonitoringSEBConnectionData {
     public static final String ATTR_STATUS_MAPPING = "sm";
     public static final String ATTR_CLIENT_GROUP_MAPPING = "cgm";
     public static final String ATTR_ISSUE_MAPPING = "im";
+    public static final String ATTR_PENDING_NOTIFICATIONS = "pn";
 
     @JsonProperty(ATTR_CONNECTIONS)
     public final Collection<? extends ClientMonitoringDataView> monitoringData;
@@ -42,29 +43,36 @@ public class MonitoringSEBConnectionData {
     @JsonProperty(ATTR_ISSUE_MAPPING)
     public final int[] connectionPerIssue;
 
+    @JsonProperty(ATTR_PENDING_NOTIFICATIONS)
+    public final int connectionsWithPendingNotification;
+
 
     @JsonCreator
     public MonitoringSEBConnectionData(
             @JsonProperty(ATTR_CONNECTIONS) final Collection<ClientMonitoringData> connections,
             @JsonProperty(ATTR_STATUS_MAPPING) final int[] connectionsPerStatus,
             @JsonProperty(ATTR_ISSUE_MAPPING) final int[] connectionPerIssue,
-            @JsonProperty(ATTR_CLIENT_GROUP_MAPPING) final Map<Long, Integer> connectionsPerClientGroup) {
+            @JsonProperty(ATTR_CLIENT_GROUP_MAPPING) final Map<Long, Integer> connectionsPerClientGroup,
+            @JsonProperty(ATTR_PENDING_NOTIFICATIONS) final int connectionsWithPendingNotification) {
 
         this.monitoringData = connections;
         this.connectionsPerStatus = connectionsPerStatus;
         this.connectionPerIssue = connectionPerIssue;
         this.connectionsPerClientGroup = connectionsPerClientGroup;
+        this.connectionsWithPendingNotification = connectionsWithPendingNotification;
     }
 
     public MonitoringSEBConnectionData(
             final int[] connectionsPerStatus,
             final Map<Long, Integer> connectionsPerClientGroup,
             final int[] connectionsPerIssue,
+            final int connectionsWithPendingNotification,
             final Collection<? extends ClientMonitoringDataView> connections) {
 
         this.connectionsPerStatus = connectionsPerStatus;
         this.connectionsPerClientGroup = connectionsPerClientGroup;
         this.connectionPerIssue = connectionsPerIssue;
+        this.connectionsWithPendingNotification = connectionsWithPendingNotification;
         this.monitoringData = connections;
     }
 
@@ -76,6 +84,10 @@ public class MonitoringSEBConnectionData {
         return this.connectionsPerStatus;
     }
 
+    public int getConnectionsWithPendingNotification() {
+        return this.connectionsWithPendingNotification;
+    }
+
     @JsonIgnore
     public int getNumberOfConnection(final ConnectionStatus status) {
         if (this.connectionsPerStatus == null || this.connectionsPerStatus.length <= status.code) {
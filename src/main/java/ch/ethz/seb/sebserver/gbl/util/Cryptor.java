@@ -13,6 +13,7 @@ import static org.springframework.security.crypto.util.EncodingUtils.subArray;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.security.PrivateKey;
 import java.security.cert.Certificate;
 
@@ -36,6 +37,8 @@ import org.springframework.security.crypto.keygen.BytesKeyGenerator;
 import org.springframework.security.crypto.keygen.KeyGenerators;
 import org.springframework.stereotype.Service;
 
+import ch.ethz.seb.sebserver.gbl.Constants;
+
 /** Cryptor dealing with internal encryption and decryption. */
 @Lazy
 @Service
@@ -43,10 +46,24 @@ public class Cryptor {
 
     private static final Logger log = LoggerFactory.getLogger(Cryptor.class);
 
+    private static final int IV_LENGTH = 16;
+    private static final int SALT_LENGTH = 16;
+    private static final int GCM_TAG_LENGTH = 128;
+    private static final String AES_GCM_ALGORITHM = "AES/GCM/NoPadding";
+    private static final int DEFAULT_KEY_CACHE_MAX_SIZE = 1000;
+
     private final CharSequence internalPWD;
+    /** Cache of the keys derived from the internal password, used for decryption with the internal password */
+    private final DerivedKeyCache keyCache;
 
     public Cryptor(final Environment environment) {
         this.internalPWD = environment.getProperty("sebserver.webservice.internalSecret");
+        final Integer maxSize = environment.getProperty("sebserver.cryptor.keycache.max-size", Integer.class);
+        final Long lifetime = environment.getProperty("sebserver.cryptor.keycache.lifetime", Long.class);
+        this.keyCache = new DerivedKeyCache(
+                this.internalPWD,
+                (maxSize != null) ? maxSize : DEFAULT_KEY_CACHE_MAX_SIZE,
+                (lifetime != null) ? lifetime : Constants.HOUR_IN_MILLIS);
     }
 
     /** Use this to encrypt a text with the internal password
@@ -62,7 +79,21 @@ public class Cryptor {
      * @param text The cipher text to decrypt with the internal password
      * @return the plain text */
     public Result<CharSequence> decrypt(final CharSequence text) {
-        return decrypt(text, this.internalPWD);
+        if (this.internalPWD == null || text == null || text.length() <= SALT_LENGTH) {
+            return decrypt(text, this.internalPWD);
+        }
+
+        return Result.tryCatch(() -> {
+            final int cipherTextLength = text.length() - SALT_LENGTH;
+            return decrypt(
+                    text.subSequence(0, cipherTextLength),
+                    this.keyCache.getKey(text.subSequence(cipherTextLength, text.length())));
+        });
+    }
+
+    /** Drops all cached keys that are derived from the internal password */
+    public void clearKeyCache() {
+        this.keyCache.clear();
     }
 
     public Result<PKCS12KeyStoreSpi> createNewEmptyKeyStore() {
@@ -169,6 +200,21 @@ public class Cryptor {
         });
     }
 
+    /** Decrypts a hex encoded AES/GCM cipher text with the given key. The cipher text has the same format
+     * as the one of Spring's Encryptors.delux, a 16 byte IV followed by the encrypted data. */
+    static CharSequence decrypt(final CharSequence cipherText, final SecretKey secretKey) throws Exception {
+        final byte[] cipherBytes = Hex.decode(cipherText);
+        final Cipher cipher = Cipher.getInstance(AES_GCM_ALGORITHM);
+        cipher.init(
+                Cipher.DECRYPT_MODE,
+                secretKey,
+                new GCMParameterSpec(GCM_TAG_LENGTH, subArray(cipherBytes, 0, IV_LENGTH)));
+
+        return new String(
+                cipher.doFinal(subArray(cipherBytes, IV_LENGTH, cipherBytes.length)),
+                StandardCharsets.UTF_8);
+    }
+
     public static Result<CharSequence> decryptASK(
             final CharSequence cipherText,
             final CharSequence secret,
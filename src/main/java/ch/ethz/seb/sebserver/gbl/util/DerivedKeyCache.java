@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.gbl.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.security.crypto.codec.Hex;
+
+/** A bounded cache of AES keys that are derived from one secret and different salts with PBKDF2.
+ * The key derivation uses the same parameters as Spring's Encryptors.delux (PBKDF2WithHmacSHA1, 1024 iterations,
+ * 256 bit) and is the most expensive part of a decryption. Since every encrypted value has its own salt, the
+ * cache is keyed by salt and only helps for values that are decrypted repeatedly.
+ * <p>
+ * Entries expire after a given lifetime and the least recently used entry is dropped if the cache is full.
+ * The key material of dropped entries is overwritten with zeros. Note that the SecretKey instances handed
+ * out are copies and are subject to garbage collection only. */
+final class DerivedKeyCache {
+
+    static final String KEY_DERIVATION_ALGORITHM = "PBKDF2WithHmacSHA1";
+    static final int KEY_DERIVATION_ITERATIONS = 1024;
+    static final int KEY_LENGTH = 256;
+
+    private final CharSequence secret;
+    private final int maxSize;
+    private final long lifetime;
+    private final LinkedHashMap<String, Entry> cache;
+
+    DerivedKeyCache(final CharSequence secret, final int maxSize, final long lifetime) {
+        this.secret = secret;
+        this.maxSize = maxSize;
+        this.lifetime = lifetime;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    /** Get the AES key that is derived from the secret and the given hex encoded salt.
+     * Derives the key if it is not cached yet or has expired.
+     *
+     * @param salt the hex encoded salt
+     * @return the derived AES key */
+    SecretKey getKey(final CharSequence salt) {
+        if (this.maxSize <= 0) {
+            return deriveKey(this.secret, salt);
+        }
+
+        final String saltKey = salt.toString();
+        final long now = Utils.getMillisecondsNow();
+        synchronized (this.cache) {
+            final Entry entry = this.cache.get(saltKey);
+            if (entry != null && now - entry.created < this.lifetime) {
+                return new SecretKeySpec(entry.key, "AES");
+            }
+        }
+
+        // derive outside the lock since this is the expensive part
+        final SecretKey key = deriveKey(this.secret, salt);
+        synchronized (this.cache) {
+            final Entry old = this.cache.put(saltKey, new Entry(key.getEncoded(), now));
+            if (old != null) {
+                old.destroy();
+            }
+            evict(now);
+        }
+        return key;
+    }
+
+    int size() {
+        synchronized (this.cache) {
+            return this.cache.size();
+        }
+    }
+
+    /** Drops all cached keys and overwrites their key material */
+    void clear() {
+        synchronized (this.cache) {
+            this.cache.values().forEach(Entry::destroy);
+            this.cache.clear();
+        }
+    }
+
+    private void evict(final long now) {
+        final Iterator<Map.Entry<String, Entry>> iterator = this.cache.entrySet().iterator();
+        int size = this.cache.size();
+        while (iterator.hasNext()) {
+            final Entry entry = iterator.next().getValue();
+            if (size > this.maxSize || now - entry.created >= this.lifetime) {
+                entry.destroy();
+                iterator.remove();
+                size--;
+            }
+        }
+    }
+
+    static SecretKey deriveKey(final CharSequence secret, final CharSequence salt) {
+        final PBEKeySpec keySpec = new PBEKeySpec(
+                Utils.toCharArray(secret),
+                Hex.decode(salt),
+                KEY_DERIVATION_ITERATIONS,
+                KEY_LENGTH);
+        try {
+            return new SecretKeySpec(
+                    SecretKeyFactory.getInstance(KEY_DERIVATION_ALGORITHM).generateSecret(keySpec).getEncoded(),
+                    "AES");
+        } catch (final Exception e) {
+            throw new IllegalStateException("Failed to derive key: ", e);
+        } finally {
+            keySpec.clearPassword();
+        }
+    }
+
+    private static final class Entry {
+
+        final byte[] key;
+        final long created;
+
+        Entry(final byte[] key, final long created) {
+            this.key = key;
+            this.created = created;
+        }
+
+        void destroy() {
+            Arrays.fill(this.key, (byte) 0);
+        }
+    }
+
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.gbl.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/** Deduplicates concurrent loads of the same key. If a load for a key is already in flight, further callers
+ * for the same key do not load again but wait for the running load and get its result. As soon as the load
+ * has finished, the next caller for the key loads again.
+ *
+ * This is used to avoid that a lot of concurrent cache misses for the same entry all hit the persistent
+ * storage at once.
+ *
+ * @param <K> the type of the key
+ * @param <V> the type of the loaded value */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /** Loads the value for the given key with the given loader or waits for the result of a load
+     * for the same key that is already in flight.
+     *
+     * @param key the key to load the value for. If null, the loader is always used
+     * @param loader the loader that is used if there is no load in flight for the key
+     * @return the loaded value */
+    public V load(final K key, final Supplier<V> loader) {
+        if (key == null) {
+            return loader.get();
+        }
+
+        final CompletableFuture<V> future = new CompletableFuture<>();
+        final CompletableFuture<V> running = this.inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            return await(running);
+        }
+
+        try {
+            final V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (final RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            this.inFlight.remove(key, future);
+        }
+    }
+
+    private V await(final CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+}
@@ -8,15 +8,25 @@
 
 package ch.ethz.seb.sebserver.webservice;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 
 import ch.ethz.seb.sebserver.SEBServerInit;
+import ch.ethz.seb.sebserver.gbl.Constants;
+import ch.ethz.seb.sebserver.gbl.async.AsyncServiceSpringConfig;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 
@@ -30,15 +40,27 @@ public class DBIntegrityChecker {
     private final Collection<DBIntegrityCheck> checkers;
     private final boolean runIntegrityChecks;
     private final boolean tryFix;
+    private final Set<String> skipChecks;
+    private final boolean parallel;
+    private final Executor executor;
 
     public DBIntegrityChecker(
             final Collection<DBIntegrityCheck> checkers,
+            @Qualifier(AsyncServiceSpringConfig.EXECUTOR_BEAN_NAME) final Executor executor,
             @Value("${sebserver.init.database.integrity.checks:true}") final boolean runIntegrityChecks,
-            @Value("${sebserver.init.database.integrity.try-fix:true}") final boolean tryFix) {
+            @Value("${sebserver.init.database.integrity.try-fix:true}") final boolean tryFix,
+            @Value("${sebserver.init.database.integrity.checks.skip:}") final String skipChecks,
+            @Value("${sebserver.init.database.integrity.checks.parallel:false}") final boolean parallel) {
 
         this.checkers = checkers;
+        this.executor = executor;
         this.runIntegrityChecks = runIntegrityChecks;
         this.tryFix = tryFix;
+        this.skipChecks = Arrays.stream(StringUtils.split(skipChecks, Constants.LIST_SEPARATOR))
+                .map(String::trim)
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.toSet());
+        this.parallel = parallel;
     }
 
     public void checkIntegrity() {
@@ -48,7 +70,43 @@ public class DBIntegrityChecker {
             SEBServerInit.INIT_LOGGER.info("----> **** Run data-base integrity checks ****");
             SEBServerInit.INIT_LOGGER.info("---->");
 
-            this.checkers.stream().forEach(this::doCheck);
+            final Collection<DBIntegrityCheck> checks = this.checkers
+                    .stream()
+                    .filter(this::isApplicable)
+                    .collect(Collectors.toList());
+
+            if (this.parallel && checks.size() > 1) {
+                runParallel(checks);
+            } else {
+                checks.stream().forEach(this::doCheck);
+            }
+        }
+    }
+
+    private boolean isApplicable(final DBIntegrityCheck dbIntegrityCheck) {
+        if (this.skipChecks.contains(dbIntegrityCheck.name())) {
+            SEBServerInit.INIT_LOGGER.info("------> Skip check: {}", dbIntegrityCheck.name());
+            return false;
+        }
+        return true;
+    }
+
+    /** Applies the checks concurrently on the async executor. This is only enabled on explicit configuration
+     * since the checks are not independent of each other: DowngradeSEBSettingsCheck and
+     * OrientationTableDuplicatesCheck both read and delete orientation rows when trying to fix.
+     * If one of the checks fails with a WebserviceInitException, this is thrown after all checks are done. */
+    private void runParallel(final Collection<DBIntegrityCheck> checks) {
+        try {
+            CompletableFuture.allOf(checks
+                    .stream()
+                    .map(check -> CompletableFuture.runAsync(() -> doCheck(check), this.executor))
+                    .toArray(CompletableFuture[]::new))
+                    .join();
+        } catch (final CompletionException e) {
+            if (e.getCause() instanceof WebserviceInitException) {
+                throw (WebserviceInitException) e.getCause();
+            }
+            log.error("Unexpected error while trying to apply data base integrity checks: ", e.getCause());
         }
     }
 
@@ -63,9 +121,11 @@ public class DBIntegrityChecker {
                 if (applyCheck.getError() instanceof  WebserviceInitException) {
                     throw applyCheck.getError();
                 }
-                SEBServerInit.INIT_LOGGER.info("--------> Unexpected Error: {}", applyCheck.getError().getMessage());
+                SEBServerInit.INIT_LOGGER.info("--------> {} Unexpected Error: {}",
+                        dbIntegrityCheck.name(),
+                        applyCheck.getError().getMessage());
             } else {
-                SEBServerInit.INIT_LOGGER.info("--------> Result: {}", applyCheck.get());
+                SEBServerInit.INIT_LOGGER.info("--------> {} Result: {}", dbIntegrityCheck.name(), applyCheck.get());
             }
 
         } catch (final WebserviceInitException initE) {
@@ -10,6 +10,7 @@ package ch.ethz.seb.sebserver.webservice.datalayer.batis;
 
 import javax.sql.DataSource;
 
+import org.apache.ibatis.plugin.Interceptor;
 import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.mybatis.spring.SqlSessionFactoryBean;
@@ -53,6 +54,7 @@ public class BatisConfig {
     public SqlSessionFactory sqlSessionFactory(final DataSource dataSource) throws Exception {
         final SqlSessionFactoryBean factoryBean = new SqlSessionFactoryBean();
         factoryBean.setDataSource(dataSource);
+        factoryBean.setPlugins(new Interceptor[] { new RequestScopedCache.InvalidationInterceptor() });
 
         return factoryBean.getObject();
     }
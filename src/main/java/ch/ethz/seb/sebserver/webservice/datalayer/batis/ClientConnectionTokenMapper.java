@@ -13,7 +13,9 @@ import java.util.Collection;
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.ConstructorArgs;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.SelectProvider;
 import org.apache.ibatis.type.JdbcType;
 import org.mybatis.dynamic.sql.select.MyBatis3SelectModelAdapter;
@@ -37,6 +39,25 @@ public interface ClientConnectionTokenMapper {
     })
     Collection<ClientConnectionTokenRecord> selectMany(SelectStatementProvider select);
 
+    /** Count the client connections of an exam that are in one of the given states per App Signature Key hash.
+     *
+     * @param examId the exam identifier
+     * @param states the client connection states to count
+     * @return collection of App Signature Key hashes with the number of client connections */
+    @Select({ "<script>",
+            "SELECT ask, COUNT(*) AS num FROM client_connection",
+            "WHERE exam_id = #{examId} AND ask IS NOT NULL AND status IN",
+            "<foreach item='status' collection='states' open='(' separator=',' close=')'>#{status}</foreach>",
+            "GROUP BY ask",
+            "</script>" })
+    @ConstructorArgs({
+            @Arg(column = "ask", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+            @Arg(column = "num", javaType = Long.class, jdbcType = JdbcType.BIGINT)
+    })
+    Collection<SignatureHashCountRecord> countSignatureHashes(
+            @Param("examId") Long examId,
+            @Param("states") Collection<String> states);
+
     default QueryExpressionDSL<MyBatis3SelectModelAdapter<Collection<ClientConnectionTokenRecord>>> selectByExample() {
         return SelectDSL.selectWithMapper(
                 this::selectMany,
@@ -56,4 +77,15 @@ public interface ClientConnectionTokenMapper {
         }
     }
 
+    final class SignatureHashCountRecord {
+
+        public final String ask;
+        public final Long num;
+
+        public SignatureHashCountRecord(final String ask, final Long num) {
+            this.ask = ask;
+            this.num = num;
+        }
+    }
+
 }
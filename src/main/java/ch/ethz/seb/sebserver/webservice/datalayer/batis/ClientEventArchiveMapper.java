@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.equalTo;
+
+import java.math.BigDecimal;
+import java.sql.JDBCType;
+
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.DeleteProvider;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.type.JdbcType;
+import org.mybatis.dynamic.sql.SqlColumn;
+import org.mybatis.dynamic.sql.SqlTable;
+import org.mybatis.dynamic.sql.delete.DeleteDSL;
+import org.mybatis.dynamic.sql.delete.MyBatis3DeleteModelAdapter;
+import org.mybatis.dynamic.sql.delete.render.DeleteStatementProvider;
+import org.mybatis.dynamic.sql.select.MyBatis3SelectModelAdapter;
+import org.mybatis.dynamic.sql.select.QueryExpressionDSL;
+import org.mybatis.dynamic.sql.select.SelectDSL;
+import org.mybatis.dynamic.sql.select.render.SelectStatementProvider;
+import org.mybatis.dynamic.sql.util.SqlProviderAdapter;
+
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordDynamicSqlSupport;
+
+/** Mapper for the client_event_archive table that holds the client events of finished exams
+ * after the retention time. The archive table has the same event columns as client_event plus
+ * the exam and institution identifiers of the client connection the event belongs to. */
+@Mapper
+public interface ClientEventArchiveMapper {
+
+    ClientEventArchiveRecord clientEventArchiveRecord = new ClientEventArchiveRecord();
+
+    /** Get the highest client event identifier of the next batch of client events to archive for a given exam.
+     *
+     * @param examId the exam identifier
+     * @param batchSize the maximal number of client events of the batch
+     * @return the highest client event identifier of the next batch or null if there are no events left */
+    @Select("SELECT MAX(batch.id) FROM ("
+            + "SELECT e.id FROM client_event e "
+            + "INNER JOIN client_connection c ON e.client_connection_id = c.id "
+            + "WHERE c.exam_id = #{examId} "
+            + "ORDER BY e.id LIMIT #{batchSize}) batch")
+    Long nextBatchMaxId(@Param("examId") Long examId, @Param("batchSize") int batchSize);
+
+    /** Copy all client events of the given exam up to the given client event identifier to the archive table */
+    @Insert("INSERT INTO client_event_archive "
+            + "(id, exam_id, institution_id, client_connection_id, type, client_time, server_time, numeric_value, text) "
+            + "SELECT e.id, c.exam_id, c.institution_id, e.client_connection_id, e.type, "
+            + "e.client_time, e.server_time, e.numeric_value, e.text "
+            + "FROM client_event e "
+            + "INNER JOIN client_connection c ON e.client_connection_id = c.id "
+            + "WHERE c.exam_id = #{examId} AND e.id <= #{maxId}")
+    int copyToArchive(@Param("examId") Long examId, @Param("maxId") Long maxId);
+
+    /** Delete all client events of the given exam up to the given client event identifier from client_event */
+    @Delete("DELETE FROM client_event "
+            + "WHERE id <= #{maxId} "
+            + "AND client_connection_id IN (SELECT id FROM client_connection WHERE exam_id = #{examId})")
+    int deleteArchived(@Param("examId") Long examId, @Param("maxId") Long maxId);
+
+    /** Delete the next batch of client events of the given exam from client_event */
+    @Delete("DELETE FROM client_event "
+            + "WHERE client_connection_id IN (SELECT id FROM client_connection WHERE exam_id = #{examId}) "
+            + "LIMIT #{batchSize}")
+    int deleteBatchOfExam(@Param("examId") Long examId, @Param("batchSize") int batchSize);
+
+    /** Delete the next batch of archived client events of the given exam from client_event_archive */
+    @Delete("DELETE FROM client_event_archive WHERE exam_id = #{examId} LIMIT #{batchSize}")
+    int deleteArchivedBatchOfExam(@Param("examId") Long examId, @Param("batchSize") int batchSize);
+
+    @DeleteProvider(type = SqlProviderAdapter.class, method = "delete")
+    int delete(DeleteStatementProvider deleteStatement);
+
+    default DeleteDSL<MyBatis3DeleteModelAdapter<Integer>> deleteByExample() {
+        return DeleteDSL.deleteFromWithMapper(this::delete, clientEventArchiveRecord);
+    }
+
+    @SelectProvider(type = SqlProviderAdapter.class, method = "select")
+    @Options(
+            fetchSize = ClientEventExtensionMapper.EXPORT_FETCH_SIZE,
+            resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultType(ConnectionEventExportRecord.class)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = Long.class, jdbcType = JdbcType.BIGINT, id = true),
+            @Arg(column = "connection_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "type", javaType = Integer.class, jdbcType = JdbcType.INTEGER),
+            @Arg(column = "client_time", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "server_time", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "numeric_value", javaType = BigDecimal.class, jdbcType = JdbcType.DECIMAL),
+            @Arg(column = "text", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+
+            @Arg(column = "institution_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "exam_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "exam_user_session_identifier", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+            @Arg(column = "client_address", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+            @Arg(column = "connection_token", javaType = String.class, jdbcType = JdbcType.VARCHAR)
+    })
+    Cursor<ConnectionEventExportRecord> selectCursor(SelectStatementProvider select);
+
+    /** Used for streaming exports of archived client events. See ClientEventExtensionMapper.selectExportByExample
+     * NOTE: The cursor is only valid within the transaction it was opened.
+     *
+     * @return the join specification to apply further where clauses on */
+    default QueryExpressionDSL<MyBatis3SelectModelAdapter<Cursor<ConnectionEventExportRecord>>>.JoinSpecificationFinisher selectExportByExample() {
+        return SelectDSL.selectWithMapper(
+                this::selectCursor,
+
+                clientEventArchiveRecord.id,
+                clientEventArchiveRecord.clientConnectionId.as("connection_id"),
+                clientEventArchiveRecord.type,
+                clientEventArchiveRecord.clientTime.as("client_time"),
+                clientEventArchiveRecord.serverTime.as("server_time"),
+                clientEventArchiveRecord.numericValue.as("numeric_value"),
+                clientEventArchiveRecord.text,
+
+                clientEventArchiveRecord.institutionId.as("institution_id"),
+                clientEventArchiveRecord.examId.as("exam_id"),
+                ClientConnectionRecordDynamicSqlSupport.examUserSessionId.as("exam_user_session_identifier"),
+                ClientConnectionRecordDynamicSqlSupport.clientAddress.as("client_address"),
+                ClientConnectionRecordDynamicSqlSupport.connectionToken.as("connection_token"))
+
+                .from(clientEventArchiveRecord)
+
+                .join(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
+                .on(
+                        clientEventArchiveRecord.clientConnectionId,
+                        equalTo(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord.id));
+    }
+
+    final class ClientEventArchiveRecord extends SqlTable {
+
+        public final SqlColumn<Long> id = column("id", JDBCType.BIGINT);
+        public final SqlColumn<Long> examId = column("exam_id", JDBCType.BIGINT);
+        public final SqlColumn<Long> institutionId = column("institution_id", JDBCType.BIGINT);
+        public final SqlColumn<Long> clientConnectionId = column("client_connection_id", JDBCType.BIGINT);
+        public final SqlColumn<Integer> type = column("type", JDBCType.INTEGER);
+        public final SqlColumn<Long> clientTime = column("client_time", JDBCType.BIGINT);
+        public final SqlColumn<Long> serverTime = column("server_time", JDBCType.BIGINT);
+        public final SqlColumn<BigDecimal> numericValue = column("numeric_value", JDBCType.DECIMAL);
+        public final SqlColumn<String> text = column("text", JDBCType.VARCHAR);
+
+        public ClientEventArchiveRecord() {
+            super("client_event_archive");
+        }
+    }
+
+}
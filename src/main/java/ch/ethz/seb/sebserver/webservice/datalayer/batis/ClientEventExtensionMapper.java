@@ -10,13 +10,17 @@ package ch.ethz.seb.sebserver.webservice.datalayer.batis;
 
 import static org.mybatis.dynamic.sql.SqlBuilder.equalTo;
 
+import java.math.BigDecimal;
 import java.util.Collection;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.ConstructorArgs;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.SelectProvider;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 import org.apache.ibatis.type.JdbcType;
 import org.mybatis.dynamic.sql.BasicColumn;
 import org.mybatis.dynamic.sql.SqlBuilder;
@@ -28,10 +32,14 @@ import org.mybatis.dynamic.sql.util.SqlProviderAdapter;
 
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientNotificationRecordDynamicSqlSupport;
 
 @Mapper
 public interface ClientEventExtensionMapper {
 
+    /** The JDBC fetch size used for streaming export cursors */
+    int EXPORT_FETCH_SIZE = 1000;
+
     @SelectProvider(type = SqlProviderAdapter.class, method = "select")
     Long num(SelectStatementProvider selectStatement);
 
@@ -63,8 +71,72 @@ public interface ClientEventExtensionMapper {
     Collection<ConnectionEventJoinRecord> selectMany(SelectStatementProvider select);
 
     default QueryExpressionDSL<MyBatis3SelectModelAdapter<Collection<ConnectionEventJoinRecord>>>.JoinSpecificationFinisher selectByExample() {
+        return selectByExample(false);
+    }
+
+    /** Selects the client event data together with the client connection data. The exam_user_session_id is
+     * additionally selected with its plain column name so that it can be used as sort column for the whole result.
+     *
+     * @param asDerivedTable if true the statement, including all unions, is wrapped into a derived table
+     *            (see DerivedTableSelect) and sorted and paged as a whole
+     * @return the join specification to apply further where clauses on */
+    default QueryExpressionDSL<MyBatis3SelectModelAdapter<Collection<ConnectionEventJoinRecord>>>.JoinSpecificationFinisher selectByExample(
+            final boolean asDerivedTable) {
+
+        return SelectDSL.selectWithMapper(
+                select -> selectMany((asDerivedTable)
+                        ? DerivedTableSelect.of(select, ClientEventRecordDynamicSqlSupport.clientEventRecord.tableNameAtRuntime())
+                        : select),
+
+                ClientEventRecordDynamicSqlSupport.id,
+                ClientEventRecordDynamicSqlSupport.clientConnectionId.as("connection_id"),
+                ClientEventRecordDynamicSqlSupport.type,
+                ClientEventRecordDynamicSqlSupport.clientTime.as("client_time"),
+                ClientEventRecordDynamicSqlSupport.serverTime.as("server_time"),
+                ClientEventRecordDynamicSqlSupport.numericValue.as("numeric_value"),
+                ClientEventRecordDynamicSqlSupport.text,
+
+                ClientConnectionRecordDynamicSqlSupport.institutionId.as("institution_id"),
+                ClientConnectionRecordDynamicSqlSupport.examId.as("exam_id"),
+                ClientConnectionRecordDynamicSqlSupport.examUserSessionId.as("exam_user_session_identifier"),
+                ClientConnectionRecordDynamicSqlSupport.examUserSessionId)
+
+                .from(ClientEventRecordDynamicSqlSupport.clientEventRecord)
+
+                .join(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
+                .on(
+                        ClientEventRecordDynamicSqlSupport.clientEventRecord.clientConnectionId,
+                        equalTo(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord.id));
+    }
+
+    @SelectProvider(type = SqlProviderAdapter.class, method = "select")
+    @Options(fetchSize = EXPORT_FETCH_SIZE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @ResultType(ClientEventExtensionMapper.ConnectionEventExportRecord.class)
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = Long.class, jdbcType = JdbcType.BIGINT, id = true),
+            @Arg(column = "connection_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "type", javaType = Integer.class, jdbcType = JdbcType.INTEGER),
+            @Arg(column = "client_time", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "server_time", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "numeric_value", javaType = BigDecimal.class, jdbcType = JdbcType.DECIMAL),
+            @Arg(column = "text", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+
+            @Arg(column = "institution_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "exam_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "exam_user_session_identifier", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+            @Arg(column = "client_address", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+            @Arg(column = "connection_token", javaType = String.class, jdbcType = JdbcType.VARCHAR)
+    })
+    Cursor<ConnectionEventExportRecord> selectCursor(SelectStatementProvider select);
+
+    /** Used for streaming exports. Selects the client event data together with all needed client connection data
+     * in one single pass and maps the result to a forward-only cursor with streaming fetch size.
+     * NOTE: The cursor is only valid within the transaction it was opened.
+     *
+     * @return the join specification to apply further where clauses on */
+    default QueryExpressionDSL<MyBatis3SelectModelAdapter<Cursor<ConnectionEventExportRecord>>>.JoinSpecificationFinisher selectExportByExample() {
         return SelectDSL.selectWithMapper(
-                this::selectMany,
+                this::selectCursor,
 
                 ClientEventRecordDynamicSqlSupport.id,
                 ClientEventRecordDynamicSqlSupport.clientConnectionId.as("connection_id"),
@@ -76,7 +148,9 @@ public interface ClientEventExtensionMapper {
 
                 ClientConnectionRecordDynamicSqlSupport.institutionId.as("institution_id"),
                 ClientConnectionRecordDynamicSqlSupport.examId.as("exam_id"),
-                ClientConnectionRecordDynamicSqlSupport.examUserSessionId.as("exam_user_session_identifier"))
+                ClientConnectionRecordDynamicSqlSupport.examUserSessionId.as("exam_user_session_identifier"),
+                ClientConnectionRecordDynamicSqlSupport.clientAddress.as("client_address"),
+                ClientConnectionRecordDynamicSqlSupport.connectionToken.as("connection_token"))
 
                 .from(ClientEventRecordDynamicSqlSupport.clientEventRecord)
 
@@ -86,6 +160,34 @@ public interface ClientEventExtensionMapper {
                         equalTo(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord.id));
     }
 
+    @SelectProvider(type = SqlProviderAdapter.class, method = "select")
+    @ConstructorArgs({
+            @Arg(column = "id", javaType = Long.class, jdbcType = JdbcType.BIGINT, id = true),
+            @Arg(column = "client_connection_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "exam_id", javaType = Long.class, jdbcType = JdbcType.BIGINT)
+    })
+    Collection<NotificationExamRecord> selectNotificationExams(SelectStatementProvider select);
+
+    /** Selects the client notification identifiers together with the client connection and the exam
+     * they belong to. Used to (re)load pending notification indexes of many exams with one query.
+     *
+     * @return the join specification to apply further where clauses on */
+    default QueryExpressionDSL<MyBatis3SelectModelAdapter<Collection<NotificationExamRecord>>>.JoinSpecificationFinisher selectNotificationExamsByExample() {
+        return SelectDSL.selectWithMapper(
+                this::selectNotificationExams,
+
+                ClientNotificationRecordDynamicSqlSupport.id,
+                ClientNotificationRecordDynamicSqlSupport.clientConnectionId.as("client_connection_id"),
+                ClientConnectionRecordDynamicSqlSupport.examId.as("exam_id"))
+
+                .from(ClientNotificationRecordDynamicSqlSupport.clientNotificationRecord)
+
+                .join(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
+                .on(
+                        ClientNotificationRecordDynamicSqlSupport.clientNotificationRecord.clientConnectionId,
+                        equalTo(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord.id));
+    }
+
     final class ConnectionEventJoinRecord {
 
         public final Long id;
@@ -127,4 +229,68 @@ public interface ClientEventExtensionMapper {
         }
     }
 
+    final class ConnectionEventExportRecord {
+
+        public final Long id;
+        public final Long connection_id;
+        public final Integer type;
+        public final Long client_time;
+        public final Long server_time;
+        public final BigDecimal numeric_value;
+        public final String text;
+
+        public final Long institution_id;
+        public final Long exam_id;
+        public final String exam_user_session_identifier;
+        public final String client_address;
+        public final String connection_token;
+
+        public ConnectionEventExportRecord(
+                final Long id,
+                final Long connection_id,
+                final Integer type,
+                final Long client_time,
+                final Long server_time,
+                final BigDecimal numeric_value,
+                final String text,
+
+                final Long institution_id,
+                final Long exam_id,
+                final String exam_user_session_identifier,
+                final String client_address,
+                final String connection_token) {
+
+            this.id = id;
+            this.connection_id = connection_id;
+            this.type = type;
+            this.client_time = client_time;
+            this.server_time = server_time;
+            this.numeric_value = numeric_value;
+            this.text = text;
+
+            this.institution_id = institution_id;
+            this.exam_id = exam_id;
+            this.exam_user_session_identifier = exam_user_session_identifier;
+            this.client_address = client_address;
+            this.connection_token = connection_token;
+        }
+    }
+
+    final class NotificationExamRecord {
+
+        public final Long id;
+        public final Long client_connection_id;
+        public final Long exam_id;
+
+        public NotificationExamRecord(
+                final Long id,
+                final Long client_connection_id,
+                final Long exam_id) {
+
+            this.id = id;
+            this.client_connection_id = client_connection_id;
+            this.exam_id = exam_id;
+        }
+    }
+
 }
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.Collection;
+
+import org.apache.ibatis.annotations.Arg;
+import org.apache.ibatis.annotations.ConstructorArgs;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.type.JdbcType;
+
+/** Mapper for the version history of exam configurations. Only the newest historic version and the follow-up
+ * of a configuration node hold all attribute values within configuration_value. Older historic versions only
+ * hold the values that differ from the next newer version within configuration_value_delta. */
+@Mapper
+public interface ConfigurationHistoryMapper {
+
+    /** Count the attribute values within configuration_value per configuration.
+     * Configurations without values are not within the result.
+     *
+     * @param configurationIds the configuration identifiers
+     * @return collection of configuration identifiers with the number of attribute values */
+    @Select({ "<script>",
+            "SELECT configuration_id, COUNT(*) AS num FROM configuration_value",
+            "WHERE configuration_id IN",
+            "<foreach item='id' collection='configurationIds' open='(' separator=',' close=')'>#{id}</foreach>",
+            "GROUP BY configuration_id",
+            "</script>" })
+    @ConstructorArgs({
+            @Arg(column = "configuration_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "num", javaType = Long.class, jdbcType = JdbcType.BIGINT)
+    })
+    Collection<ValueCountRecord> countValues(@Param("configurationIds") Collection<Long> configurationIds);
+
+    /** Get the identifiers of configuration nodes that have more than one historic version with all
+     * attribute values. These versions can be compacted to deltas.
+     *
+     * @param limit the maximal number of configuration node identifiers
+     * @return collection of configuration node identifiers */
+    @Select("SELECT c.configuration_node_id FROM configuration c "
+            + "WHERE c.followup = 0 "
+            + "AND EXISTS (SELECT 1 FROM configuration_value v WHERE v.configuration_id = c.id) "
+            + "GROUP BY c.configuration_node_id "
+            + "HAVING COUNT(*) > 1 "
+            + "LIMIT #{limit}")
+    Collection<Long> selectNodesToCompact(@Param("limit") int limit);
+
+    /** Locks the row of the given configuration node until the end of the current transaction.
+     * Used to serialize all changes of the version history of a configuration node, also across
+     * webservice instances.
+     *
+     * @param configurationNodeId the configuration node identifier
+     * @return the configuration node identifier or null if there is no such configuration node */
+    @Select("SELECT id FROM configuration_node WHERE id = #{configurationNodeId} FOR UPDATE")
+    Long lockConfigurationNode(@Param("configurationNodeId") Long configurationNodeId);
+
+    /** Moves all attribute values of a configuration to another configuration */
+    @Update("UPDATE configuration_value SET configuration_id = #{toConfigurationId} "
+            + "WHERE configuration_id = #{fromConfigurationId}")
+    int moveValues(
+            @Param("fromConfigurationId") Long fromConfigurationId,
+            @Param("toConfigurationId") Long toConfigurationId);
+
+    @Select({ "<script>",
+            "SELECT configuration_id, configuration_attribute_id, list_index, value, removed",
+            "FROM configuration_value_delta",
+            "WHERE configuration_id IN",
+            "<foreach item='id' collection='configurationIds' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>" })
+    @ConstructorArgs({
+            @Arg(column = "configuration_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "configuration_attribute_id", javaType = Long.class, jdbcType = JdbcType.BIGINT),
+            @Arg(column = "list_index", javaType = Integer.class, jdbcType = JdbcType.INTEGER),
+            @Arg(column = "value", javaType = String.class, jdbcType = JdbcType.VARCHAR),
+            @Arg(column = "removed", javaType = Integer.class, jdbcType = JdbcType.INTEGER)
+    })
+    Collection<ValueDeltaRecord> selectDeltas(@Param("configurationIds") Collection<Long> configurationIds);
+
+    @Insert("INSERT INTO configuration_value_delta "
+            + "(configuration_id, configuration_attribute_id, list_index, value, removed) "
+            + "VALUES (#{record.configurationId}, #{record.configurationAttributeId}, #{record.listIndex}, "
+            + "#{record.value,jdbcType=VARCHAR}, #{record.removed})")
+    int insertDelta(@Param("record") ValueDeltaRecord record);
+
+    /** Copies all value deltas of a configuration to another configuration */
+    @Insert("INSERT INTO configuration_value_delta "
+            + "(configuration_id, configuration_attribute_id, list_index, value, removed) "
+            + "SELECT #{toConfigurationId}, configuration_attribute_id, list_index, value, removed "
+            + "FROM configuration_value_delta WHERE configuration_id = #{fromConfigurationId}")
+    int copyDeltas(
+            @Param("fromConfigurationId") Long fromConfigurationId,
+            @Param("toConfigurationId") Long toConfigurationId);
+
+    @Delete({ "<script>",
+            "DELETE FROM configuration_value_delta",
+            "WHERE configuration_id IN",
+            "<foreach item='id' collection='configurationIds' open='(' separator=',' close=')'>#{id}</foreach>",
+            "</script>" })
+    int deleteDeltas(@Param("configurationIds") Collection<Long> configurationIds);
+
+    final class ValueCountRecord {
+
+        public final Long configurationId;
+        public final Long num;
+
+        public ValueCountRecord(final Long configurationId, final Long num) {
+            this.configurationId = configurationId;
+            this.num = num;
+        }
+    }
+
+    final class ValueDeltaRecord {
+
+        public final Long configurationId;
+        public final Long configurationAttributeId;
+        public final Integer listIndex;
+        public final String value;
+        public final Integer removed;
+
+        public ValueDeltaRecord(
+                final Long configurationId,
+                final Long configurationAttributeId,
+                final Integer listIndex,
+                final String value,
+                final Integer removed) {
+
+            this.configurationId = configurationId;
+            this.configurationAttributeId = configurationAttributeId;
+            this.listIndex = listIndex;
+            this.value = value;
+            this.removed = removed;
+        }
+    }
+
+}
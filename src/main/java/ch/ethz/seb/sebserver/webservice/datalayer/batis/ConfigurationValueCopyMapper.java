@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.Collection;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationValueRecord;
+
+/** Mapper for set-based copies of configuration values. The values are copied within the database
+ * with one INSERT ... SELECT statement instead of loading and inserting them one by one.
+ * Also provides a multi-row upsert to write many given values with one statement. */
+@Mapper
+public interface ConfigurationValueCopyMapper {
+
+    /** Copies all attribute values of a configuration to another configuration
+     *
+     * @param institutionId the institution identifier of the configurations
+     * @param fromConfigurationId the identifier of the configuration to copy the values from
+     * @param toConfigurationId the identifier of the configuration to copy the values to
+     * @return the number of copied values */
+    @Insert("INSERT INTO configuration_value "
+            + "(institution_id, configuration_id, configuration_attribute_id, list_index, value) "
+            + "SELECT institution_id, #{toConfigurationId}, configuration_attribute_id, list_index, value "
+            + "FROM configuration_value "
+            + "WHERE institution_id = #{institutionId} AND configuration_id = #{fromConfigurationId}")
+    int copyValues(
+            @Param("institutionId") Long institutionId,
+            @Param("fromConfigurationId") Long fromConfigurationId,
+            @Param("toConfigurationId") Long toConfigurationId);
+
+    /** Copies all attribute values of a template configuration to a configuration of another
+     * configuration node, possibly of another institution.
+     *
+     * @param institutionId the institution identifier of the configuration to copy the values to
+     * @param fromConfigurationId the identifier of the template configuration to copy the values from
+     * @param toConfigurationId the identifier of the configuration to copy the values to
+     * @return the number of copied values */
+    @Insert("INSERT INTO configuration_value "
+            + "(institution_id, configuration_id, configuration_attribute_id, list_index, value) "
+            + "SELECT #{institutionId}, #{toConfigurationId}, configuration_attribute_id, list_index, value "
+            + "FROM configuration_value "
+            + "WHERE configuration_id = #{fromConfigurationId}")
+    int copyTemplateValues(
+            @Param("institutionId") Long institutionId,
+            @Param("fromConfigurationId") Long fromConfigurationId,
+            @Param("toConfigurationId") Long toConfigurationId);
+
+    /** Inserts the default values of the given configuration attributes for a configuration.
+     * If a template configuration is given, only the default values of attributes that have no value
+     * on list index 0 within the template configuration are inserted.
+     *
+     * @param institutionId the institution identifier of the configuration
+     * @param configurationId the identifier of the configuration to insert the default values for
+     * @param attributeIds the identifiers of the configuration attributes
+     * @param templateConfigurationId the identifier of the template configuration or null
+     * @return the number of inserted values */
+    @Insert({ "<script>",
+            "INSERT INTO configuration_value",
+            "(institution_id, configuration_id, configuration_attribute_id, list_index, value)",
+            "SELECT #{institutionId}, #{configurationId}, a.id, 0, a.default_value",
+            "FROM configuration_attribute a",
+            "WHERE a.id IN",
+            "<foreach item='id' collection='attributeIds' open='(' separator=',' close=')'>#{id}</foreach>",
+            "<if test='templateConfigurationId != null'>",
+            "AND NOT EXISTS (SELECT 1 FROM configuration_value t",
+            "WHERE t.configuration_id = #{templateConfigurationId}",
+            "AND t.configuration_attribute_id = a.id AND t.list_index = 0)",
+            "</if>",
+            "</script>" })
+    int insertDefaultValues(
+            @Param("institutionId") Long institutionId,
+            @Param("configurationId") Long configurationId,
+            @Param("attributeIds") Collection<Long> attributeIds,
+            @Param("templateConfigurationId") Long templateConfigurationId);
+
+    /** Inserts or updates the given attribute values with one multi-row statement.
+     * Values with an identifier update the value of the existing record, values without an identifier
+     * are inserted as new records.
+     *
+     * @param values the attribute value records to write
+     * @return the number of affected rows as reported by the database */
+    @Insert({ "<script>",
+            "INSERT INTO configuration_value",
+            "(id, institution_id, configuration_id, configuration_attribute_id, list_index, value)",
+            "VALUES",
+            "<foreach item='v' collection='values' separator=','>",
+            "(#{v.id,jdbcType=BIGINT}, #{v.institutionId,jdbcType=BIGINT}, #{v.configurationId,jdbcType=BIGINT},",
+            "#{v.configurationAttributeId,jdbcType=BIGINT}, #{v.listIndex,jdbcType=INTEGER},",
+            "#{v.value,jdbcType=VARCHAR})",
+            "</foreach>",
+            "ON DUPLICATE KEY UPDATE value = VALUES(value)",
+            "</script>" })
+    int upsertValues(@Param("values") Collection<ConfigurationValueRecord> values);
+
+}
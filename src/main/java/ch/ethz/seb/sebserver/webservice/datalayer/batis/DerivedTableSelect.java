@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.Map;
+
+import org.mybatis.dynamic.sql.select.render.SelectStatementProvider;
+
+/** Wraps a rendered select statement into a derived table: select * from (statement) alias
+ *
+ * This is used for union queries. The ORDER BY and LIMIT that is appended by the pagination applies then to the
+ * whole union and can refer to the unqualified output column names of the union. Sorting a plain union with
+ * table-qualified column names is not supported by MariaDB. */
+public final class DerivedTableSelect implements SelectStatementProvider {
+
+    private final SelectStatementProvider select;
+    private final String alias;
+
+    private DerivedTableSelect(final SelectStatementProvider select, final String alias) {
+        this.select = select;
+        this.alias = alias;
+    }
+
+    @Override
+    public Map<String, Object> getParameters() {
+        return this.select.getParameters();
+    }
+
+    @Override
+    public String getSelectStatement() {
+        return "select * from (" + this.select.getSelectStatement() + ") " + this.alias;
+    }
+
+    public static SelectStatementProvider of(final SelectStatementProvider select, final String alias) {
+        return new DerivedTableSelect(select, alias);
+    }
+
+}
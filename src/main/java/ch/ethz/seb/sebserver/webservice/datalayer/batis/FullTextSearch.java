@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+import org.mybatis.dynamic.sql.AbstractSingleValueCondition;
+
+/** Support for MariaDB/MySQL full-text search conditions on columns that have a FULLTEXT index. */
+public final class FullTextSearch {
+
+    /** Words shorter than this are not indexed by InnoDB full-text indexes (innodb_ft_min_token_size) */
+    public static final int MIN_TOKEN_SIZE = 3;
+    /** Words longer than this are not indexed by InnoDB full-text indexes (innodb_ft_max_token_size) */
+    public static final int MAX_TOKEN_SIZE = 84;
+
+    /** The words of the InnoDB default stopword list that are not shorter than MIN_TOKEN_SIZE.
+     * Stopwords are not indexed and a required stopword would never match. */
+    private static final Set<String> STOPWORDS = new HashSet<>(Arrays.asList(
+            "about", "are", "com", "for", "from", "how", "that", "the", "this", "und",
+            "was", "what", "when", "where", "who", "will", "with", "www"));
+
+    private FullTextSearch() {
+    }
+
+    /** Creates a full-text MATCH ... AGAINST condition in boolean mode that is only rendered if the
+     * given boolean mode query is not null.
+     *
+     * @param booleanModeQuery the boolean mode query. See toBooleanModeQuery
+     * @return the condition to use within a where clause */
+    public static IsMatching isMatchingWhenPresent(final String booleanModeQuery) {
+        return new IsMatching(() -> booleanModeQuery, Objects::nonNull);
+    }
+
+    /** Creates a boolean mode query from the given search text that requires all indexable words of the text.
+     * Words that are not indexed, because they are too short, too long or stopwords, are left out since they
+     * would never match. Since the full-text index only narrows down the result, the query should be combined
+     * with a LIKE condition on the whole search text to get exact matches.
+     *
+     * @param searchText the search text
+     * @return the boolean mode query or null if the text contains no indexable words */
+    public static String toBooleanModeQuery(final String searchText) {
+        if (StringUtils.isBlank(searchText)) {
+            return null;
+        }
+
+        final StringBuilder query = new StringBuilder();
+        for (final String word : searchText.split("[^\\p{L}\\p{N}_]+")) {
+            if (isIndexed(word)) {
+                if (query.length() > 0) {
+                    query.append(' ');
+                }
+                query.append('+').append(word);
+            }
+        }
+
+        return (query.length() > 0) ? query.toString() : null;
+    }
+
+    private static boolean isIndexed(final String word) {
+        return word.length() >= MIN_TOKEN_SIZE
+                && word.length() <= MAX_TOKEN_SIZE
+                && !STOPWORDS.contains(word.toLowerCase(Locale.ROOT));
+    }
+
+    public static final class IsMatching extends AbstractSingleValueCondition<String> {
+
+        private IsMatching(
+                final Supplier<String> valueSupplier,
+                final Predicate<String> predicate) {
+
+            super(valueSupplier, predicate);
+        }
+
+        @Override
+        public String renderCondition(final String columnName, final String placeholder) {
+            return "MATCH(" + columnName + ") AGAINST(" + placeholder + " IN BOOLEAN MODE)";
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.regex.Pattern;
+
+import org.mybatis.dynamic.sql.AbstractTwoValueCondition;
+
+/** Support for keyset (seek) pagination. Instead of skipping the rows of the previous pages with an OFFSET,
+ * the next page is selected with a condition on the sort column and the primary key of the last row of the
+ * previous page. This allows to use the index of the sort column and costs the same for every page. */
+public final class KeysetPagination {
+
+    private static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("[a-z_]{1,64}");
+    private static final String ID_COLUMN_NAME = "id";
+
+    private KeysetPagination() {
+    }
+
+    /** Creates a keyset condition that must be applied to the primary key (id) column of the paged table.
+     * The condition is only rendered if a keyset is given.
+     *
+     * @param keyset the keyset of the last row of the previous page or null for the first page
+     * @return the condition to use within a where clause */
+    public static IsAfter isAfterWhenPresent(final Keyset keyset) {
+        return new IsAfter(keyset);
+    }
+
+    /** The keyset of the last row of a page. The sort column must be a NOT NULL numeric column
+     * of the paged table. */
+    public static final class Keyset {
+
+        public final String sortColumn;
+        public final Long sortValue;
+        public final Long id;
+        public final boolean descending;
+
+        public Keyset(
+                final String sortColumn,
+                final Long sortValue,
+                final Long id,
+                final boolean descending) {
+
+            if (sortColumn == null || !COLUMN_NAME_PATTERN.matcher(sortColumn).matches()) {
+                throw new IllegalArgumentException("Invalid keyset sort column: " + sortColumn);
+            }
+            if (sortValue == null || id == null) {
+                throw new IllegalArgumentException("Missing keyset values");
+            }
+
+            this.sortColumn = sortColumn;
+            this.sortValue = sortValue;
+            this.id = id;
+            this.descending = descending;
+        }
+
+        public boolean isIdOnly() {
+            return ID_COLUMN_NAME.equals(this.sortColumn);
+        }
+    }
+
+    public static final class IsAfter extends AbstractTwoValueCondition<Long> {
+
+        private final Keyset keyset;
+
+        private IsAfter(final Keyset keyset) {
+            super(
+                    () -> (keyset != null) ? keyset.sortValue : null,
+                    () -> (keyset != null) ? keyset.id : null,
+                    (sortValue, id) -> keyset != null);
+
+            this.keyset = keyset;
+        }
+
+        @Override
+        public String renderCondition(
+                final String columnName,
+                final String placeholder1,
+                final String placeholder2) {
+
+            final String operator = (this.keyset.descending) ? " < " : " > ";
+            if (this.keyset.isIdOnly()) {
+                return columnName + operator + placeholder2;
+            }
+
+            // the sort column is qualified the same way as the given id column
+            final String sortColumnName = columnName.substring(0, columnName.length() - ID_COLUMN_NAME.length())
+                    + this.keyset.sortColumn;
+
+            // (sort, id) > (value, id) expanded to a form that can use a range scan on the sort column
+            return "(" + sortColumnName + ((this.keyset.descending) ? " <= " : " >= ") + placeholder1
+                    + " and (" + sortColumnName + operator + placeholder1
+                    + " or " + columnName + operator + placeholder2 + "))";
+        }
+    }
+
+}
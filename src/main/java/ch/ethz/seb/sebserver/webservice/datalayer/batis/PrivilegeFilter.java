@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+import org.mybatis.dynamic.sql.AbstractSingleValueCondition;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+
+/** Support for read privilege restrictions within SQL queries. If a user can only read the entities of a type
+ * that they own or that are assigned to them by an entity privilege, the entities of other users are filtered
+ * within the database instead of loading and filtering them afterwards. */
+public final class PrivilegeFilter {
+
+    private static final Pattern COLUMN_NAME_PATTERN = Pattern.compile("[a-z_]{1,64}");
+    private static final String ID_COLUMN_NAME = "id";
+
+    private PrivilegeFilter() {
+    }
+
+    /** Creates a condition that must be applied to the primary key (id) column of the queried table.
+     * The condition is only rendered if a user UUID is given and matches entities where the given user
+     * is the owner or has an assigned read entity privilege for. The condition takes the type of the id column
+     * it is applied to but always binds the given user UUID as parameter value.
+     *
+     * @param userUUID the UUID of the user that can only read owned or assigned entities or null for no restriction
+     * @param entityType the entity type of the queried table
+     * @param ownerColumn the name of the column that holds the UUID of the owner
+     * @param ownerListColumn the name of a column that holds a comma separated list of additional owner UUIDs
+     *            or null if there is no such column
+     * @return the condition to use within a where clause */
+    public static <T> IsOwnedOrAssigned<T> isOwnedOrAssignedWhenPresent(
+            final String userUUID,
+            final EntityType entityType,
+            final String ownerColumn,
+            final String ownerListColumn) {
+
+        return new IsOwnedOrAssigned<>(userUUID, entityType, ownerColumn, ownerListColumn);
+    }
+
+    public static final class IsOwnedOrAssigned<T> extends AbstractSingleValueCondition<T> {
+
+        private final EntityType entityType;
+        private final String ownerColumn;
+        private final String ownerListColumn;
+
+        private IsOwnedOrAssigned(
+                final String userUUID,
+                final EntityType entityType,
+                final String ownerColumn,
+                final String ownerListColumn) {
+
+            super(userUUIDValue(userUUID), Objects::nonNull);
+
+            checkColumnName(ownerColumn);
+            if (ownerListColumn != null) {
+                checkColumnName(ownerListColumn);
+            }
+
+            this.entityType = entityType;
+            this.ownerColumn = ownerColumn;
+            this.ownerListColumn = ownerListColumn;
+        }
+
+        @Override
+        public String renderCondition(final String columnName, final String placeholder) {
+            // the owner columns are qualified the same way as the given id column
+            final String qualifier = columnName.substring(0, columnName.length() - ID_COLUMN_NAME.length());
+
+            final StringBuilder condition = new StringBuilder("(")
+                    .append(qualifier).append(this.ownerColumn).append(" = ").append(placeholder);
+
+            if (this.ownerListColumn != null) {
+                condition
+                        .append(" or ")
+                        .append(qualifier).append(this.ownerListColumn)
+                        .append(" like concat('%', ").append(placeholder).append(", '%')");
+            }
+
+            return condition
+                    .append(" or ").append(columnName)
+                    .append(" in (select entity_id from entity_privilege where entity_type = '")
+                    .append(this.entityType.name())
+                    .append("' and user_uuid = ").append(placeholder)
+                    .append(" and privilege_type >= ").append(PrivilegeType.READ.key)
+                    .append("))")
+                    .toString();
+        }
+
+        /** The value is only handed over to the SQL parameter map and never used as column type value */
+        @SuppressWarnings("unchecked")
+        private static <T> Supplier<T> userUUIDValue(final String userUUID) {
+            return () -> (T) userUUID;
+        }
+
+        private static void checkColumnName(final String columnName) {
+            if (columnName == null || !COLUMN_NAME_PATTERN.matcher(columnName).matches()) {
+                throw new IllegalArgumentException("Invalid owner column: " + columnName);
+            }
+        }
+    }
+
+}
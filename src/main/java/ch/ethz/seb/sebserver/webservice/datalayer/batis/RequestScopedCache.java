@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Signature;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+
+/** A cache for single entity lookups that lives only as long as the current request.
+ * <p>
+ * The cache is bound to the attributes of the current web request or to an explicitly opened scope of the
+ * current thread. Outside of such a scope nothing is cached. Only successful lookups are cached.
+ * <p>
+ * Every insert, update or delete within the same thread invalidates the whole cache (see InvalidationInterceptor),
+ * so a lookup after a write of the same request always gets the actual data. */
+public final class RequestScopedCache {
+
+    private static final String ATTR_CACHE = RequestScopedCache.class.getName();
+    private static final ThreadLocal<Map<CacheKey, Result<?>>> SCOPE = new ThreadLocal<>();
+
+    private RequestScopedCache() {
+    }
+
+    /** Get the entity with the given type and identifier from the cache or apply the lookup and
+     * cache its result if it was successful.
+     *
+     * @param entityType the type of the entity
+     * @param id the identifier of the entity (primary key or model identifier)
+     * @param lookup the lookup function that gets the entity from the persistent storage
+     * @return the cached or looked up result */
+    @SuppressWarnings("unchecked")
+    public static <T> Result<T> memoize(
+            final EntityType entityType,
+            final Object id,
+            final Supplier<Result<T>> lookup) {
+
+        final Map<CacheKey, Result<?>> cache = getCache(true);
+        if (cache == null || id == null) {
+            return lookup.get();
+        }
+
+        final CacheKey key = new CacheKey(entityType, id);
+        final Result<T> cached = (Result<T>) cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        final Result<T> result = lookup.get();
+        if (!result.hasError()) {
+            cache.put(key, result);
+        }
+        return result;
+    }
+
+    /** Invalidates the cache of the current request or scope if there is one. */
+    public static void invalidate() {
+        final Map<CacheKey, Result<?>> cache = getCache(false);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    /** Applies the given supplier within an explicitly opened cache scope. This can be used for request
+     * processing that is done asynchronously outside of the request thread.
+     *
+     * @param supplier the supplier to apply within a cache scope
+     * @return the result of the supplier */
+    public static <T> T withinScope(final Supplier<T> supplier) {
+        if (SCOPE.get() != null) {
+            return supplier.get();
+        }
+
+        SCOPE.set(new HashMap<>());
+        try {
+            return supplier.get();
+        } finally {
+            SCOPE.remove();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<CacheKey, Result<?>> getCache(final boolean create) {
+        final Map<CacheKey, Result<?>> scope = SCOPE.get();
+        if (scope != null) {
+            return scope;
+        }
+
+        final RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+        if (requestAttributes == null) {
+            return null;
+        }
+
+        Map<CacheKey, Result<?>> cache = (Map<CacheKey, Result<?>>) requestAttributes
+                .getAttribute(ATTR_CACHE, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null && create) {
+            cache = new HashMap<>();
+            requestAttributes.setAttribute(ATTR_CACHE, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return cache;
+    }
+
+    private static final class CacheKey {
+
+        private final EntityType entityType;
+        private final Object id;
+
+        CacheKey(final EntityType entityType, final Object id) {
+            this.entityType = entityType;
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.entityType, this.id);
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof CacheKey))
+                return false;
+            final CacheKey other = (CacheKey) obj;
+            return this.entityType == other.entityType && Objects.equals(this.id, other.id);
+        }
+    }
+
+    /** MyBatis plugin that invalidates the RequestScopedCache of the current thread on every
+     * insert, update or delete statement */
+    @Intercepts({ @Signature(
+            type = Executor.class,
+            method = "update",
+            args = { MappedStatement.class, Object.class }) })
+    public static final class InvalidationInterceptor implements Interceptor {
+
+        @Override
+        public Object intercept(final Invocation invocation) throws Throwable {
+            RequestScopedCache.invalidate();
+            return invocation.proceed();
+        }
+    }
+
+}
@@ -10,7 +10,9 @@ package ch.ethz.seb.sebserver.webservice.servicelayer;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.function.BiFunction;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import org.mybatis.dynamic.sql.SqlTable;
@@ -18,6 +20,7 @@ import org.mybatis.dynamic.sql.SqlTable;
 import ch.ethz.seb.sebserver.gbl.model.Entity;
 import ch.ethz.seb.sebserver.gbl.model.Page;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
 
 /** A service to apply pagination functionality within collection results from data access layer.
  * The default implementation uses Mybatis-PageHelper to apply the pagination on SQL level where possible:
@@ -101,6 +104,35 @@ public interface PaginationService {
             final String tableName,
             final Supplier<Result<Collection<T>>> delegate);
 
+    /** Get a Page of specified domain models with cursor based pagination. In contrast to getPage this
+     * never counts all matching entries and, for tables and sort columns that supports it, uses keyset
+     * pagination instead of an OFFSET. Getting a page deep within a large result costs the same as
+     * getting the first page.
+     *
+     * NOTE: The delegate shall not filter the entities on software-level but apply the given FilterMap
+     * on SQL level. The given predicate is applied after the cursor of the next page was taken from the
+     * unfiltered entities.
+     * Keyset pagination is only used if the DAO of the given table applies the keyset of the FilterMap.
+     * For all other tables or sort columns, count free OFFSET pagination is used.
+     *
+     * @param cursor the opaque cursor of the page to get. An empty or null cursor for the first page
+     * @param pageSize the (full) size of the page
+     * @param sort the name of the sort column with a leading '-' for descending sort order
+     * @param tableName the name of the SQL table on which the pagination is applying to
+     * @param filterMap the FilterMap that is used by the delegate
+     * @param delegate a collection supplier the does the underling SQL query with specified pagination attributes
+     * @param predicate the predicate to filter the entities of the page on software-level
+     * @return Result refers to a Page of specified type of model models with the cursor for the next page
+     *         or to an exception on error case */
+    <T extends Entity> Result<Page<T>> getCursorPage(
+            final String cursor,
+            final Integer pageSize,
+            final String sort,
+            final String tableName,
+            final FilterMap filterMap,
+            final Supplier<Result<Collection<T>>> delegate,
+            final Predicate<T> predicate);
+
     /** Use this to build a current Page from a given list of objects.
      *
      * @param <T> the Type if list entities
@@ -144,4 +176,42 @@ public interface PaginationService {
                 sorted.subList(start, end));
     }
 
+    /** Use this to build a current Page from a source that knows the number of all entities and can provide
+     * a window of the sorted entities without loading all of them.
+     *
+     * @param <T> the Type if list entities
+     * @param pageNumber the number of the current page
+     * @param pageSize the size of a page
+     * @param sort the page sort flag
+     * @param numberOfEntities the number of all entities
+     * @param window a function that gives the sorted entities of the window for a given offset and limit
+     * @return current page of objects */
+    default <T> Page<T> buildPageFromWindow(
+            final Integer pageNumber,
+            final Integer pageSize,
+            final String sort,
+            final int numberOfEntities,
+            final BiFunction<Integer, Integer, List<T>> window) {
+
+        int _pageNumber = getPageNumber(pageNumber);
+        final int _pageSize = getPageSize(pageSize);
+
+        int start = (_pageNumber - 1) * _pageSize;
+        if (start >= numberOfEntities) {
+            start = 0;
+            _pageNumber = 1;
+        }
+        int numberOfPages = numberOfEntities / _pageSize;
+        if (numberOfEntities % _pageSize > 0) {
+            numberOfPages++;
+        }
+
+        return new Page<>(
+                (numberOfPages > 0) ? numberOfPages : 1,
+                _pageNumber,
+                _pageSize,
+                sort,
+                window.apply(start, _pageSize));
+    }
+
 }
@@ -8,10 +8,17 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
 import org.apache.commons.lang3.StringUtils;
@@ -22,13 +29,17 @@ import org.springframework.stereotype.Service;
 
 import com.github.pagehelper.PageHelper;
 
+import ch.ethz.seb.sebserver.gbl.api.APIMessage;
+import ch.ethz.seb.sebserver.gbl.api.APIMessage.APIMessageException;
 import ch.ethz.seb.sebserver.gbl.model.Domain;
 import ch.ethz.seb.sebserver.gbl.model.Entity;
 import ch.ethz.seb.sebserver.gbl.model.Page;
 import ch.ethz.seb.sebserver.gbl.model.PageSortOrder;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
 import ch.ethz.seb.sebserver.gbl.model.user.UserActivityLog;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination.Keyset;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationNodeRecordDynamicSqlSupport;
@@ -39,17 +50,25 @@ import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.LmsSetupRecordDyn
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.SebClientConfigRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
 
 @Lazy
 @Service
 @WebServiceProfile
 public class PaginationServiceImpl implements PaginationService {
 
+    private static final String ID_COLUMN = "id";
+    private static final String CURSOR_SEPARATOR = "|";
+    private static final Function<Entity, Long> ID_VALUE = entity -> Long.valueOf(entity.getModelId());
+
     private final int defaultPageSize;
     private final int maxPageSize;
 
     private final Map<String, Map<String, String>> sortColumnMapping;
     private final Map<String, String> defaultSortColumn;
+    /** The sort columns that supports keyset pagination per table with the function to get the sort column
+     * value from an entity. Only NOT NULL numeric columns of tables whose DAO applies the keyset of the FilterMap */
+    private final Map<String, Map<String, Function<Entity, Long>>> keysetColumns;
 
     public PaginationServiceImpl(
             @Value("${sebserver.webservice.api.pagination.defaultPageSize:10}") final int defaultPageSize,
@@ -59,7 +78,9 @@ public class PaginationServiceImpl implements PaginationService {
         this.maxPageSize = maxPageSize;
         this.sortColumnMapping = new HashMap<>();
         this.defaultSortColumn = new HashMap<>();
+        this.keysetColumns = new HashMap<>();
         initSortColumnMapping();
+        initKeysetColumns();
     }
 
     /** Use this to verify whether native sorting (on SQL level) is supported for a given orderBy column
@@ -174,6 +195,121 @@ public class PaginationServiceImpl implements PaginationService {
         });
     }
 
+    @Override
+    public <T extends Entity> Result<Page<T>> getCursorPage(
+            final String cursor,
+            final Integer pageSize,
+            final String sort,
+            final String tableName,
+            final FilterMap filterMap,
+            final Supplier<Result<Collection<T>>> delegate,
+            final Predicate<T> predicate) {
+
+        return Result.tryCatch(() -> {
+            final int _pageSize = getPageSize(pageSize);
+            final String keysetColumn = getKeysetColumn(sort, tableName);
+            final String[] cursorValues = decodeCursor(cursor, sort);
+            final int pageNumber = (cursorValues != null) ? Integer.parseInt(cursorValues[0]) : 1;
+
+            if (keysetColumn != null) {
+                final boolean descending = PageSortOrder.getSortOrder(sort) == PageSortOrder.DESCENDING;
+                if (cursorValues != null && cursorValues.length == 3) {
+                    filterMap.setKeyset(new Keyset(
+                            keysetColumn,
+                            Long.valueOf(cursorValues[1]),
+                            Long.valueOf(cursorValues[2]),
+                            descending));
+                }
+                PageHelper.startPage(1, _pageSize, false);
+                PageHelper.orderBy((ID_COLUMN.equals(keysetColumn))
+                        ? (descending) ? ID_COLUMN + " DESC" : ID_COLUMN
+                        : (descending) ? keysetColumn + " DESC, id DESC" : keysetColumn + ", id");
+            } else {
+                setPagination(pageNumber, _pageSize, sort, tableName, false);
+            }
+
+            final List<T> all = new ArrayList<>(delegate.get().getOrThrow());
+
+            // the next cursor is taken from the last entity before filtering on software-level
+            String nextCursor = null;
+            if (all.size() >= _pageSize) {
+                final T last = all.get(all.size() - 1);
+                nextCursor = (keysetColumn != null)
+                        ? encodeCursor(
+                                sort,
+                                String.valueOf(pageNumber + 1),
+                                String.valueOf(this.keysetColumns.get(tableName).get(keysetColumn).apply(last)),
+                                String.valueOf(ID_VALUE.apply(last)))
+                        : encodeCursor(sort, String.valueOf(pageNumber + 1));
+            }
+
+            return new Page<>(
+                    (nextCursor != null) ? pageNumber + 1 : pageNumber,
+                    pageNumber,
+                    _pageSize,
+                    sort,
+                    all.stream().filter(predicate).collect(Collectors.toList()),
+                    true,
+                    nextCursor);
+        });
+    }
+
+    private String getKeysetColumn(final String sort, final String tableName) {
+        final Map<String, Function<Entity, Long>> columns = this.keysetColumns.get(tableName);
+        if (columns == null) {
+            return null;
+        }
+
+        final String sortAttribute = PageSortOrder.decode(sort);
+        final String sortColumn = (StringUtils.isBlank(sortAttribute) || ID_COLUMN.equals(sortAttribute))
+                ? ID_COLUMN
+                : verifySortColumnName(sort, tableName);
+
+        return (sortColumn != null && columns.containsKey(sortColumn)) ? sortColumn : null;
+    }
+
+    private static String encodeCursor(final String sort, final String... values) {
+        final String cursor = StringUtils.defaultString(sort)
+                + CURSOR_SEPARATOR
+                + StringUtils.join(values, CURSOR_SEPARATOR);
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Decodes the given cursor to the page number and the keyset values if available.
+     * The cursor must have been created for the given sort.
+     *
+     * @param cursor the opaque cursor
+     * @param sort the sort of the requested page
+     * @return the cursor values or null if the cursor is empty (first page) */
+    private static String[] decodeCursor(final String cursor, final String sort) {
+        if (StringUtils.isBlank(cursor)) {
+            return null;
+        }
+
+        try {
+            final String[] values = StringUtils.splitPreserveAllTokens(
+                    new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8),
+                    CURSOR_SEPARATOR);
+
+            if (values.length < 2 || values.length > 4 || !StringUtils.defaultString(sort).equals(values[0])) {
+                throw new IllegalArgumentException("Cursor does not match the sort");
+            }
+            for (int i = 1; i < values.length; i++) {
+                Long.parseLong(values[i]);
+            }
+
+            final String[] result = new String[values.length - 1];
+            System.arraycopy(values, 1, result, 0, result.length);
+            return result;
+        } catch (final Exception e) {
+            throw new APIMessageException(
+                    APIMessage.ErrorMessage.ILLEGAL_API_ARGUMENT,
+                    "Invalid page cursor: " + cursor);
+        }
+    }
+
     private String verifySortColumnName(final String sort, final String columnName) {
 
         if (StringUtils.isBlank(sort)) {
@@ -198,8 +334,18 @@ public class PaginationServiceImpl implements PaginationService {
             final String sort,
             final String sortMappingName) {
 
+        return setPagination(pageNumber, pageSize, sort, sortMappingName, true);
+    }
+
+    private com.github.pagehelper.Page<Object> setPagination(
+            final Integer pageNumber,
+            final Integer pageSize,
+            final String sort,
+            final String sortMappingName,
+            final boolean count) {
+
         final com.github.pagehelper.Page<Object> startPage =
-                PageHelper.startPage(getPageNumber(pageNumber), getPageSize(pageSize), true, true, false);
+                PageHelper.startPage(getPageNumber(pageNumber), getPageSize(pageSize), count, count, false);
 
         if (StringUtils.isNotBlank(sortMappingName) && StringUtils.isNotBlank(sort)) {
             final PageSortOrder sortOrder = PageSortOrder.getSortOrder(sort);
@@ -225,8 +371,9 @@ public class PaginationServiceImpl implements PaginationService {
 
         final String institutionNameRef = "institution." + InstitutionRecordDynamicSqlSupport.name.name();
         final String lmsSetupNameRef = "lms_setup." + LmsSetupRecordDynamicSqlSupport.name.name();
-        final String clientConnectionNameRef =
-                "client_connection." + ClientConnectionRecordDynamicSqlSupport.examUserSessionId.name();
+        // client event queries select the exam_user_session_id as plain output column, since they may be a
+        // union with the client event archive that can only be sorted by the output column names
+        final String clientConnectionNameRef = ClientConnectionRecordDynamicSqlSupport.examUserSessionId.name();
 
         // define and initialize sort column mapping for...
 
@@ -419,4 +566,42 @@ public class PaginationServiceImpl implements PaginationService {
                 ClientConnection.FILTER_ATTR_SESSION_ID);
     }
 
+    private void initKeysetColumns() {
+
+        // Exam Table
+        final Map<String, Function<Entity, Long>> examKeysetMap = new HashMap<>();
+        examKeysetMap.put(ID_COLUMN, ID_VALUE);
+        this.keysetColumns.put(ExamRecordDynamicSqlSupport.examRecord.tableNameAtRuntime(), examKeysetMap);
+
+        // ClientConnection Table
+        final Map<String, Function<Entity, Long>> ccKeysetMap = new HashMap<>();
+        ccKeysetMap.put(ID_COLUMN, ID_VALUE);
+        this.keysetColumns.put(
+                ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord.tableNameAtRuntime(),
+                ccKeysetMap);
+
+        // ClientEvent Table
+        final Map<String, Function<Entity, Long>> clientEventKeysetMap = new HashMap<>();
+        clientEventKeysetMap.put(ID_COLUMN, ID_VALUE);
+        clientEventKeysetMap.put(
+                ClientEventRecordDynamicSqlSupport.clientTime.name(),
+                entity -> ((ClientEvent) entity).clientTime);
+        clientEventKeysetMap.put(
+                ClientEventRecordDynamicSqlSupport.serverTime.name(),
+                entity -> ((ClientEvent) entity).serverTime);
+        this.keysetColumns.put(
+                ClientEventRecordDynamicSqlSupport.clientEventRecord.tableNameAtRuntime(),
+                clientEventKeysetMap);
+
+        // User Activity Log Table
+        final Map<String, Function<Entity, Long>> userActivityLogKeysetMap = new HashMap<>();
+        userActivityLogKeysetMap.put(ID_COLUMN, ID_VALUE);
+        userActivityLogKeysetMap.put(
+                UserActivityLogRecordDynamicSqlSupport.timestamp.name(),
+                entity -> ((UserActivityLog) entity).timestamp);
+        this.keysetColumns.put(
+                UserActivityLogRecordDynamicSqlSupport.userActivityLogRecord.tableNameAtRuntime(),
+                userActivityLogKeysetMap);
+    }
+
 }
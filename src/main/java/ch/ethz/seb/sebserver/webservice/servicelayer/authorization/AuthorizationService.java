@@ -17,6 +17,7 @@ import java.util.Set;
 import ch.ethz.seb.sebserver.gbl.api.EntityType;
 import ch.ethz.seb.sebserver.gbl.api.authorization.Privilege;
 import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.model.GrantEntity;
 import ch.ethz.seb.sebserver.gbl.model.user.UserFeatures;
 import ch.ethz.seb.sebserver.gbl.model.user.UserInfo;
@@ -41,6 +42,15 @@ public interface AuthorizationService {
      * @return all registered Privileges */
     Collection<Privilege> getAllPrivileges();
 
+    /** Check if there is an entity privilege assigned to the given user on the given entity that implies
+     * the given privilege type.
+     *
+     * @param privilegeType The privilege type to check
+     * @param entityKey the key of the entity to check the entity privilege on
+     * @param userUUID the user identifier (UUID)
+     * @return true if there is such an entity privilege assigned to the user */
+    boolean hasEntityPrivilege(PrivilegeType privilegeType, EntityKey entityKey, String userUUID);
+
 
 
     /** Check grant on privilege type for specified EntityType and for the given user and institution.
@@ -93,6 +103,10 @@ public interface AuthorizationService {
     }
 
     /** Check grant for a given privilege type and Entity for the current user.
+     * <p>
+     * If there is no role based read grant, this also checks the entity privileges that are assigned to the
+     * current user for the specific entity. This is the same read access the SQL privilege filter of list queries
+     * applies. Modify and write grants are only given by role.
      *
      * @param privilegeType the privilege type to check
      * @param grantEntity the Entity to check the privilege grant on
@@ -100,14 +114,25 @@ public interface AuthorizationService {
     default boolean hasGrant(final PrivilegeType privilegeType, final GrantEntity grantEntity) {
         final SEBServerUser currentUser = getUserService().getCurrentUser();
         final UserInfo userInfo = currentUser.getUserInfo();
-        return hasGrant(
+        if (hasGrant(
                 privilegeType,
                 grantEntity.entityType(),
                 grantEntity.getInstitutionId(),
                 grantEntity.getOwnerId(),
                 userInfo.uuid,
                 userInfo.institutionId,
-                currentUser.getUserRoles());
+                currentUser.getUserRoles())) {
+            return true;
+        }
+
+        if (privilegeType != PrivilegeType.READ || grantEntity.getModelId() == null) {
+            return false;
+        }
+
+        return hasEntityPrivilege(
+                PrivilegeType.READ,
+                new EntityKey(grantEntity.getModelId(), grantEntity.entityType()),
+                userInfo.uuid);
     }
 
     /** Check base privilege grant and institutional privilege grant for a given privilege type
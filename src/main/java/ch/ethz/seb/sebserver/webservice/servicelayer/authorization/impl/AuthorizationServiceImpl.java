@@ -23,10 +23,12 @@ import ch.ethz.seb.sebserver.gbl.api.EntityType;
 import ch.ethz.seb.sebserver.gbl.api.authorization.Privilege;
 import ch.ethz.seb.sebserver.gbl.api.authorization.RoleTypeKey;
 import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.model.user.UserRole;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.AuthorizationService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.UserService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.EntityPrivilegeDAO;
 
 @Lazy
 @Service
@@ -34,12 +36,20 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.UserService;
 public class AuthorizationServiceImpl implements AuthorizationService {
 
     private final UserService userService;
+    private final EntityPrivilegeDAO entityPrivilegeDAO;
 
     /** Map of role based grants for specified entity types. */
     private final Map<RoleTypeKey, Privilege> privileges = new HashMap<>();
 
-    public AuthorizationServiceImpl(final UserService userService) {
+    /** The role based grants compiled to a lookup table for the grant checks */
+    private PrivilegeMatrix privilegeMatrix;
+
+    public AuthorizationServiceImpl(
+            final UserService userService,
+            final EntityPrivilegeDAO entityPrivilegeDAO) {
+
         this.userService = userService;
+        this.entityPrivilegeDAO = entityPrivilegeDAO;
     }
 
     @Override
@@ -47,6 +57,15 @@ public class AuthorizationServiceImpl implements AuthorizationService {
         return this.userService;
     }
 
+    @Override
+    public boolean hasEntityPrivilege(
+            final PrivilegeType privilegeType,
+            final EntityKey entityKey,
+            final String userUUID) {
+
+        return this.entityPrivilegeDAO.hasEntityPrivilege(userUUID, entityKey, privilegeType);
+    }
+
     @Override
     public Collection<Privilege> getAllPrivileges() {
         return Collections.unmodifiableCollection(this.privileges.values());
@@ -233,6 +252,8 @@ public class AuthorizationServiceImpl implements AuthorizationService {
                 .andForRole(UserRole.EXAM_ADMIN)
                 .withInstitutionalPrivilege(PrivilegeType.WRITE)
                 .create();
+
+        this.privilegeMatrix = new PrivilegeMatrix(this.privileges.values());
     }
 
     @Override
@@ -245,16 +266,14 @@ public class AuthorizationServiceImpl implements AuthorizationService {
             final Long userInstitutionId,
             final Set<UserRole> userRoles) {
 
-        return userRoles
-                .stream()
-                .map(role -> new RoleTypeKey(entityType, role))
-                .map(this.privileges::get)
-                .anyMatch(privilege -> (privilege != null) && privilege.hasGrant(
-                        userId,
-                        userInstitutionId,
-                        privilegeType,
-                        institutionId,
-                        ownerId));
+        return this.privilegeMatrix.hasGrant(
+                privilegeType,
+                entityType,
+                institutionId,
+                ownerId,
+                userId,
+                userInstitutionId,
+                userRoles);
     }
 
     @Override
@@ -268,12 +287,11 @@ public class AuthorizationServiceImpl implements AuthorizationService {
             return false;
         }
 
-        return currentUser.getUserRoles()
-                .stream()
-                .map(role -> new RoleTypeKey(entityType, role))
-                .map(this.privileges::get)
-                .anyMatch(privilege -> (privilege != null) && privilege.hasOwnershipPrivilege(privilegeType));
-
+        return this.privilegeMatrix.hasPrivilege(
+                entityType,
+                currentUser.getUserRoles(),
+                PrivilegeMatrix.OWNERSHIP,
+                privilegeType);
     }
 
     private PrivilegeBuilder addPrivilege(final EntityType entityType) {
@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.authorization.impl;
+
+import java.util.Collection;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import ch.ethz.seb.sebserver.gbl.Constants;
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.api.authorization.Privilege;
+import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.user.UserRole;
+
+/** A precompiled lookup table of the role based privileges. For every EntityType and UserRole, the privilege
+ * types that are implicitly granted by the base-, institutional- and ownership-privilege are stored as bit sets.
+ * A grant check is then a few array and bit operations and does not allocate anything.
+ * <p>
+ * The grant check has the same semantics as Privilege.hasGrant applied to all roles of a user. */
+final class PrivilegeMatrix {
+
+    static final int BASE = 0;
+    static final int INSTITUTIONAL = 1;
+    static final int OWNERSHIP = 2;
+
+    private static final int BITS_PER_SCOPE = 8;
+
+    /** [EntityType.ordinal][UserRole.ordinal] to the implicit privilege type bits of all three scopes */
+    private final int[][] grants;
+
+    PrivilegeMatrix(final Collection<Privilege> privileges) {
+        this.grants = new int[EntityType.values().length][UserRole.values().length];
+        for (final Privilege privilege : privileges) {
+            this.grants[privilege.roleTypeKey.entityType.ordinal()][privilege.roleTypeKey.userRole.ordinal()] =
+                    implicitBits(privilege.basePrivilege, BASE)
+                            | implicitBits(privilege.institutionalPrivilege, INSTITUTIONAL)
+                            | implicitBits(privilege.ownershipPrivilege, OWNERSHIP);
+        }
+    }
+
+    /** Indicates if the given role has the given privilege type on the given entity type within the given scope.
+     *
+     * @param entityType the entity type
+     * @param userRole the user role
+     * @param scope the scope, one of BASE, INSTITUTIONAL or OWNERSHIP
+     * @param privilegeType the privilege type to check
+     * @return true if the privilege type is granted within the scope */
+    boolean hasPrivilege(
+            final EntityType entityType,
+            final UserRole userRole,
+            final int scope,
+            final PrivilegeType privilegeType) {
+
+        return (this.grants[entityType.ordinal()][userRole.ordinal()] & bit(privilegeType, scope)) != 0;
+    }
+
+    /** Indicates if any of the given roles has the given privilege type on the given entity type within the
+     * given scope. */
+    boolean hasPrivilege(
+            final EntityType entityType,
+            final Set<UserRole> userRoles,
+            final int scope,
+            final PrivilegeType privilegeType) {
+
+        if (entityType == null || privilegeType == null || userRoles == null) {
+            return false;
+        }
+
+        for (final UserRole role : userRoles) {
+            if (hasPrivilege(entityType, role, scope, privilegeType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Check grant on privilege type for specified EntityType and for the given user and institution.
+     * See Privilege.hasGrant for the semantics. */
+    boolean hasGrant(
+            final PrivilegeType privilegeType,
+            final EntityType entityType,
+            final Long institutionId,
+            final String ownerId,
+            final String userId,
+            final Long userInstitutionId,
+            final Set<UserRole> userRoles) {
+
+        if (entityType == null || privilegeType == null || userRoles == null) {
+            return false;
+        }
+
+        final int entityTypeIndex = entityType.ordinal();
+        final int baseBit = bit(privilegeType, BASE);
+        final int institutionalBit = bit(privilegeType, INSTITUTIONAL);
+        final int ownershipBit = bit(privilegeType, OWNERSHIP);
+
+        int scopes = 0;
+        for (final UserRole role : userRoles) {
+            scopes |= this.grants[entityTypeIndex][role.ordinal()];
+        }
+
+        // Has base privilege?
+        if ((scopes & baseBit) != 0) {
+            return true;
+        }
+
+        // has institutional privilege?
+        if ((scopes & institutionalBit) != 0
+                && institutionId != null
+                && userInstitutionId != null
+                && userInstitutionId.longValue() == institutionId.longValue()) {
+            return true;
+        }
+
+        // has owner privilege?
+        return (scopes & ownershipBit) != 0 && isOwner(ownerId, userId);
+    }
+
+    static boolean isOwner(final String ownerId, final String userId) {
+        if (StringUtils.isBlank(ownerId) || StringUtils.isEmpty(userId)) {
+            return false;
+        }
+
+        int start = 0;
+        while (start <= ownerId.length()) {
+            int end = ownerId.indexOf(Constants.LIST_SEPARATOR_CHAR, start);
+            if (end < 0) {
+                end = ownerId.length();
+            }
+            if (end - start == userId.length() && ownerId.startsWith(userId, start)) {
+                return true;
+            }
+            start = end + 1;
+        }
+        return false;
+    }
+
+    private static int implicitBits(final PrivilegeType privilegeType, final int scope) {
+        int bits = 0;
+        for (final PrivilegeType type : PrivilegeType.values()) {
+            if (privilegeType != null && privilegeType.hasImplicit(type)) {
+                bits |= bit(type, scope);
+            }
+        }
+        return bits;
+    }
+
+    private static int bit(final PrivilegeType privilegeType, final int scope) {
+        return 1 << (scope * BITS_PER_SCOPE + privilegeType.ordinal());
+    }
+
+}
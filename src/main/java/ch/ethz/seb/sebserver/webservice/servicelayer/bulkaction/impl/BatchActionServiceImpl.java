@@ -8,33 +8,44 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.impl;
 
-import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.EnumMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.TaskScheduler;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import ch.ethz.seb.sebserver.gbl.Constants;
 import ch.ethz.seb.sebserver.gbl.api.API;
 import ch.ethz.seb.sebserver.gbl.api.API.BatchActionType;
 import ch.ethz.seb.sebserver.gbl.api.APIMessage;
 import ch.ethz.seb.sebserver.gbl.api.APIMessage.APIMessageException;
 import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.async.AsyncServiceSpringConfig;
 import ch.ethz.seb.sebserver.gbl.model.BatchAction;
 import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
 import ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.BatchActionExec;
 import ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.BatchActionService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.BatchActionDAO;
@@ -49,25 +60,43 @@ public class BatchActionServiceImpl implements BatchActionService {
 
     private static final Logger log = LoggerFactory.getLogger(BatchActionServiceImpl.class);
 
+    /** Maximal time between two progress checkpoints of a running batch action. A running batch action
+     * also refreshes its last update time within this interval if no entity has been completed.
+     * This must be well below the time after that a batch action is considered as abandoned (see BatchActionDAO) */
+    private static final long CHECKPOINT_INTERVAL = Constants.MINUTE_IN_MILLIS;
+
     private final BatchActionDAO batchActionDAO;
     private final UserDAO userDAO;
-    private final TaskScheduler taskScheduler;
     private final UserActivityLogDAO userActivityLogDAO;
     private final EnumMap<BatchActionType, BatchActionExec> batchExecutions;
+    private final Executor processExecutor;
+    private final Executor entityExecutor;
+    private final int maxParallelActions;
+    private final int parallelism;
+    private final int checkpointSize;
 
-    private ScheduledFuture<?> runningBatchProcess = null;
+    /** The batch actions that are currently processed by this service, mapped to their handler */
+    private final Map<Long, BatchActionHandlerImpl> runningActions = new ConcurrentHashMap<>();
 
     public BatchActionServiceImpl(
             final BatchActionDAO batchActionDAO,
             final UserDAO userDAO,
             final UserActivityLogDAO userActivityLogDAO,
             final Collection<BatchActionExec> batchExecutions,
-            final TaskScheduler taskScheduler) {
+            @Qualifier(AsyncServiceSpringConfig.EXECUTOR_BEAN_NAME) final Executor processExecutor,
+            @Qualifier(AsyncServiceSpringConfig.BATCH_ACTION_EXECUTOR_BEAN_NAME) final Executor entityExecutor,
+            @Value("${sebserver.webservice.batchaction.max-parallel-actions:3}") final int maxParallelActions,
+            @Value("${sebserver.webservice.batchaction.parallelism:4}") final int parallelism,
+            @Value("${sebserver.webservice.batchaction.checkpoint-size:20}") final int checkpointSize) {
 
         this.batchActionDAO = batchActionDAO;
         this.userDAO = userDAO;
         this.userActivityLogDAO = userActivityLogDAO;
-        this.taskScheduler = taskScheduler;
+        this.processExecutor = processExecutor;
+        this.entityExecutor = entityExecutor;
+        this.maxParallelActions = Math.max(1, maxParallelActions);
+        this.parallelism = Math.max(1, parallelism);
+        this.checkpointSize = Math.max(1, checkpointSize);
 
         this.batchExecutions = new EnumMap<>(BatchActionType.class);
         batchExecutions
@@ -150,41 +179,63 @@ public class BatchActionServiceImpl implements BatchActionService {
         processNextBatchAction();
     }
 
-    private void processNextBatchAction() {
+    /** Refreshes the last update time of all batch actions that are currently processed by this service.
+     * This is independent of the progress of the single batch actions so that a batch action with slow
+     * entities is not considered as abandoned and reserved again by another process. */
+    @Scheduled(fixedDelay = CHECKPOINT_INTERVAL, initialDelay = CHECKPOINT_INTERVAL)
+    private void heartbeat() {
+        this.runningActions.values().forEach(BatchActionHandlerImpl::heartbeat);
+    }
 
-        if (this.runningBatchProcess != null && !this.runningBatchProcess.isDone()) {
-            return;
-        }
+    /** Reserves and starts pending batch actions as long as there are free processing slots.
+     * Batch actions of institutions that have no batch action in process yet are preferred so that
+     * a large batch action of one institution cannot block the batch actions of other institutions. */
+    private synchronized void processNextBatchAction() {
 
-        try {
+        while (this.runningActions.size() < this.maxParallelActions) {
+            try {
+
+                final String processorId = UUID.randomUUID().toString();
+                log.debug("Check for pending batch action with processorId: {}", processorId);
+
+                final Result<BatchAction> next = this.batchActionDAO.getAndReserveNext(
+                        processorId,
+                        this.runningActions.values()
+                                .stream()
+                                .map(handler -> handler.batchAction.institutionId)
+                                .collect(Collectors.toSet()),
+                        new HashSet<>(this.runningActions.keySet()));
+
+                if (next.hasError()) {
+                    if (next.getError() instanceof ResourceNotFoundException) {
+                        log.debug("No pending batch action found...");
+                    } else {
+                        log.error("Failed to get next pending batch action: ", next.getError());
+                    }
+                    return;
+                }
 
-            final String processorId = UUID.randomUUID().toString();
-            log.debug("Check for pending batch action with processorId: {}", processorId);
-
-            this.batchActionDAO
-                    .getAndReserveNext(processorId)
-                    .onSuccess(action -> {
-                        this.runningBatchProcess = this.taskScheduler.schedule(
-                                new BatchActionProcess(
-                                        new BatchActionHandlerImpl(action),
-                                        this.batchExecutions.get(action.actionType),
-                                        action,
-                                        getAuthentication(action)),
-                                Instant.now());
-                    })
-                    .onError(error -> {
-                        if (error instanceof ResourceNotFoundException) {
-                            log.debug("No pending batch action found...");
-                        } else {
-                            throw new RuntimeException(error);
-                        }
-                    });
+                final BatchAction action = next.get();
+                final BatchActionHandlerImpl handler = new BatchActionHandlerImpl(action);
+                this.runningActions.put(action.id, handler);
+                this.processExecutor.execute(new BatchActionProcess(
+                        handler,
+                        this.batchExecutions.get(action.actionType),
+                        action,
+                        getAuthentication(action)));
 
-        } catch (final Exception e) {
-            log.error("Failed to schedule BatchActionProcess task: ", e);
+            } catch (final Exception e) {
+                log.error("Failed to schedule BatchActionProcess task: ", e);
+                return;
+            }
         }
     }
 
+    private void onBatchActionProcessEnd(final BatchAction batchAction) {
+        this.runningActions.remove(batchAction.id);
+        processNextBatchAction();
+    }
+
     private Authentication getAuthentication(final BatchAction action) {
         try {
             final Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
@@ -203,14 +254,17 @@ public class BatchActionServiceImpl implements BatchActionService {
         }
     }
 
-    private final static class BatchActionProcess implements Runnable {
+    private final class BatchActionProcess implements Runnable {
 
         private final BatchActionHandler batchActionHandler;
         private final BatchActionExec batchActionExec;
         private final BatchAction batchAction;
         private final Authentication authentication;
 
-        private Set<String> processingIds;
+        /** The entities that are still to process */
+        private final Queue<String> pending = new ConcurrentLinkedQueue<>();
+        /** The number of workers that are still taking entities from the pending queue */
+        private final AtomicInteger workers = new AtomicInteger();
 
         public BatchActionProcess(
                 final BatchActionHandler batchActionHandler,
@@ -230,39 +284,82 @@ public class BatchActionServiceImpl implements BatchActionService {
 
                 log.info("Starting or continuing batch action - {}", this.batchAction);
 
-                if (SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (this.authentication == null) {
-                        throw new IllegalStateException("No authentication found within batch context");
-                    }
-                    SecurityContextHolder.getContext().setAuthentication(this.authentication);
+                if (this.authentication == null) {
+                    throw new IllegalStateException("No authentication found within batch context");
                 }
 
-                this.processingIds = new HashSet<>(this.batchAction.sourceIds);
-                this.processingIds.removeAll(this.batchAction.successful);
-
-                this.processingIds
-                        .stream()
-                        .forEach(modelId -> {
+                final Set<String> processingIds = new HashSet<>(this.batchAction.sourceIds);
+                processingIds.removeAll(this.batchAction.successful);
+                this.pending.addAll(processingIds);
+
+                // The number of workers bounds the entities of this batch action that are processed at the same time.
+                // No thread waits for another, the last worker that runs out of entities finishes up the batch action
+                final int numberOfWorkers = Math.max(1, Math.min(
+                        BatchActionServiceImpl.this.parallelism,
+                        processingIds.size()));
+                this.workers.set(numberOfWorkers);
+                for (int i = 0; i < numberOfWorkers; i++) {
+                    BatchActionServiceImpl.this.entityExecutor.execute(this::processPending);
+                }
 
-                            if (log.isDebugEnabled()) {
-                                log.debug("Process batch action type: {}, id: {}",
-                                        this.batchAction.actionType,
-                                        modelId);
-                            }
+            } catch (final Exception e) {
+                log.error("Unexpected error while batch action processing. processorId: {} action: {}",
+                        this.batchAction.processorId,
+                        this.batchAction,
+                        e);
+                log.info("Skip this batch action... new batch action process will be started automatically");
+                onBatchActionProcessEnd(this.batchAction);
+            }
+        }
 
-                            this.batchActionExec
-                                    .doSingleAction(modelId, this.batchAction)
-                                    .onError(error -> this.batchActionHandler.handleError(modelId, error))
-                                    .onSuccess(this.batchActionHandler::handleSuccess);
-                        });
+        private void processPending() {
+            try {
+                String modelId;
+                while ((modelId = this.pending.poll()) != null) {
+                    processSingle(modelId);
+                }
+            } finally {
+                if (this.workers.decrementAndGet() == 0) {
+                    finish();
+                }
+            }
+        }
 
+        private void finish() {
+            try {
                 this.batchActionHandler.finishUp();
-
             } catch (final Exception e) {
-                log.error("Unexpected error while batch action processing. processorId: {} action: ",
+                log.error("Unexpected error while finish up batch action. processorId: {} action: {}",
                         this.batchAction.processorId,
-                        this.batchAction);
-                log.info("Skip this batch action... new batch action process will be started automatically");
+                        this.batchAction,
+                        e);
+            } finally {
+                onBatchActionProcessEnd(this.batchAction);
+            }
+        }
+
+        private void processSingle(final String modelId) {
+            final SecurityContext securityContext = SecurityContextHolder.getContext();
+            final Authentication previous = securityContext.getAuthentication();
+            try {
+
+                securityContext.setAuthentication(this.authentication);
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Process batch action type: {}, id: {}",
+                            this.batchAction.actionType,
+                            modelId);
+                }
+
+                this.batchActionExec
+                        .doSingleAction(modelId, this.batchAction)
+                        .onError(error -> this.batchActionHandler.handleError(modelId, error))
+                        .onSuccess(this.batchActionHandler::handleSuccess);
+
+            } catch (final Exception e) {
+                this.batchActionHandler.handleError(modelId, e);
+            } finally {
+                securityContext.setAuthentication(previous);
             }
         }
     }
@@ -276,24 +373,39 @@ public class BatchActionServiceImpl implements BatchActionService {
         void finishUp();
     }
 
+    /** Handles the results of the single entities of a batch action. Successfully processed entities are
+     * not persisted one by one but collected and persisted as a checkpoint either when the checkpoint size
+     * is reached or the checkpoint interval has passed. On restart of an abandoned batch action, only the
+     * entities since the last checkpoint are processed again.
+     *
+     * Since the entities are processed in parallel, all persistent updates of one batch action are
+     * serialized on the handler instance.
+     *
+     * The heartbeat refreshes the last update time of the batch action also if there are no successfully
+     * processed entities since the last checkpoint. */
     private final class BatchActionHandlerImpl implements BatchActionHandler {
 
         public final BatchAction batchAction;
 
+        private final List<String> pendingSuccess = new ArrayList<>();
+        private long lastCheckpoint = Utils.getMillisecondsNow();
+        private boolean finished = false;
+
         public BatchActionHandlerImpl(final BatchAction batchAction) {
             this.batchAction = batchAction;
         }
 
         @Override
-        public void handleSuccess(final EntityKey entityKey) {
-            BatchActionServiceImpl.this.batchActionDAO.setSuccessfull(
-                    this.batchAction.id,
-                    this.batchAction.processorId,
-                    entityKey.modelId);
+        public synchronized void handleSuccess(final EntityKey entityKey) {
+            this.pendingSuccess.add(entityKey.modelId);
+            if (this.pendingSuccess.size() >= BatchActionServiceImpl.this.checkpointSize ||
+                    Utils.getMillisecondsNow() - this.lastCheckpoint >= CHECKPOINT_INTERVAL) {
+                checkpoint();
+            }
         }
 
         @Override
-        public void handleError(final String modelId, final Exception error) {
+        public synchronized void handleError(final String modelId, final Exception error) {
             log.error(
                     "Failed to process single entity on batch action. ModelId: {}, action: {}, errorMessage: {}",
                     modelId,
@@ -308,7 +420,12 @@ public class BatchActionServiceImpl implements BatchActionService {
         }
 
         @Override
-        public void finishUp() {
+        public synchronized void finishUp() {
+            if (!this.pendingSuccess.isEmpty()) {
+                checkpoint();
+            }
+            this.finished = true;
+
             BatchActionServiceImpl.this.batchActionDAO
                     .finishUp(this.batchAction.id, this.batchAction.processorId, false)
                     .onSuccess(action -> log.info("Finished batch action - {}", action))
@@ -320,6 +437,27 @@ public class BatchActionServiceImpl implements BatchActionService {
                     .flatMap(BatchActionServiceImpl.this.userActivityLogDAO::logFinished)
                     .onError(error -> log.error("Failed to put audit log for batch action finish: ", error));
         }
+
+        public synchronized void heartbeat() {
+            if (!this.finished) {
+                checkpoint();
+            }
+        }
+
+        private void checkpoint() {
+            if (!this.pendingSuccess.isEmpty()) {
+                BatchActionServiceImpl.this.batchActionDAO.setSuccessfull(
+                        this.batchAction.id,
+                        this.batchAction.processorId,
+                        new ArrayList<>(this.pendingSuccess));
+                this.pendingSuccess.clear();
+            } else {
+                BatchActionServiceImpl.this.batchActionDAO.refreshLastUpdate(
+                        this.batchAction.id,
+                        this.batchAction.processorId);
+            }
+            this.lastCheckpoint = Utils.getMillisecondsNow();
+        }
     }
 
 }
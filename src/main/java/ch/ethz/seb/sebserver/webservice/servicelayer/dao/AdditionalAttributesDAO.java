@@ -49,6 +49,17 @@ public interface AdditionalAttributesDAO {
             EntityType type,
             Long entityId);
 
+    /** Use this to get all additional attribute records for a set of entities of the same type
+     * with as few queries as possible.
+     *
+     * @param type the entity type
+     * @param entityIds the entity identifiers (primary keys)
+     * @return Result refer to the collection of additional attribute records of all given entities
+     *         or to an error if happened */
+    Result<Collection<AdditionalAttributeRecord>> getAdditionalAttributes(
+            EntityType type,
+            Collection<Long> entityIds);
+
     /** Use this to get a AdditionalAttributeRecord for a specific attribute
      *
      * @param type the entity type
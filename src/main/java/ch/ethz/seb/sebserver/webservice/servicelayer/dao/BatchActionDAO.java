@@ -8,6 +8,8 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer.dao;
 
+import java.util.Collection;
+
 import ch.ethz.seb.sebserver.gbl.model.BatchAction;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.BulkActionSupportDAO;
@@ -23,6 +25,29 @@ public interface BatchActionDAO extends EntityDAO<BatchAction, BatchAction>, Bul
      * @return Result refer to the batch action to process or to an error when happened */
     Result<BatchAction> getAndReserveNext(String processId);
 
+    /** This checks if there is a pending batch action to process next and reserves it for the given processId.
+     * Pending batch actions of institutions that are not within the given set of busy institutions are preferred.
+     * Within the same preference the oldest pending batch action is taken first.
+     * Batch actions within the given set of excluded actions are never reserved, also if they seem to be abandoned.
+     * If there is no pending batch action this results with a ResourceNotFoundException.
+     *
+     * @param processId The process id to reserve a pending batch action before processing
+     * @param busyInstitutions the identifiers of institutions that currently have batch actions in process
+     * @param excludedActions the identifiers of batch actions that are currently in process on this node
+     * @return Result refer to the batch action to process or to an error when happened */
+    Result<BatchAction> getAndReserveNext(
+            String processId,
+            Collection<Long> busyInstitutions,
+            Collection<Long> excludedActions);
+
+    /** Use this to refresh the last update time of a batch action that is still in process, also if no
+     * entity has been completed since the last update. This prevents a long running batch action from
+     * being considered as abandoned.
+     *
+     * @param actionId The batch action identifier
+     * @param processId The process identifier (must match with the processId on persistent storage) */
+    void refreshLastUpdate(Long actionId, String processId);
+
     /** Use this to mark processing of a single entity of a specified batch action as successful completed.
      *
      * @param actionId The batch action identifier
@@ -30,6 +55,14 @@ public interface BatchActionDAO extends EntityDAO<BatchAction, BatchAction>, Bul
      * @param modelId The model identifier to mark as completed for the given batch action */
     void setSuccessfull(Long actionId, String processId, String modelId);
 
+    /** Use this to mark processing of a batch of entities of a specified batch action as successful completed
+     * within one update. This also refreshes the last update time of the batch action.
+     *
+     * @param actionId The batch action identifier
+     * @param processId The process identifier (must match with the processId on persistent storage)
+     * @param modelIds The model identifiers to mark as completed for the given batch action */
+    void setSuccessfull(Long actionId, String processId, Collection<String> modelIds);
+
     /** Use this to mark processing of a single entity of a specified batch action as failed.
      *
      * @param actionId The batch action identifier
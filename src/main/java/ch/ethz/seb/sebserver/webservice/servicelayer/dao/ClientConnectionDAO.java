@@ -9,6 +9,7 @@
 package ch.ethz.seb.sebserver.webservice.servicelayer.dao;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -33,6 +34,13 @@ public interface ClientConnectionDAO extends
     /** ClientConnection cache name */
     String CONNECTION_TOKENS_CACHE = "CONNECTION_TOKENS_CACHE";
 
+    /** Creates all given client connections in state CONNECTION_REQUESTED within one transaction
+     * with batched inserts. This is used to absorb a lot of concurrent SEB client handshakes at once.
+     *
+     * @param data the client connections to create. All must have a unique connection token
+     * @return Result refer to the created client connections or to an error if happened */
+    Result<Collection<ClientConnection>> createAll(Collection<ClientConnection> data);
+
     /** Get a list of all connection tokens of all connections (no matter what state)
      * of an exam.
      * <p>
@@ -209,19 +217,17 @@ public interface ClientConnectionDAO extends
      * @return Result refer to client connection records to an error when happened */
     Result<Collection<ClientConnectionRecord>> getAllActiveNotGranted(Long examId);
 
-    /** Count all known and matching ASK hashes for a given exam.
+    /** Count the client connections of a given exam that are in a security check state per ASK hash.
      *
      * @param examId The exam identifier
-     * @param signatureHash The signature hash the count
-     * @return Result refer to the signature hash count or to result when happened */
-    Result<Long> countSignatureHashes(Long examId, String signatureHash);
+     * @return Result refer to the mapping of ASK hash to the number of client connections or to an error when happened */
+    Result<Map<String, Long>> getSignatureHashCounts(Long examId);
 
-    /** Get all client connection records that don't have a SEB client version check yet
-     * and for specific exam.
+    /** Get all active client connection records of a specific exam that have reported a SEB client version.
      *
      * @param examId The exam identifier
      * @return Result refer to client connection records to the error when happened */
-    Result<Collection<ClientConnectionRecord>> getAllActiveNoSEBVersionCheck(Long examId);
+    Result<Collection<ClientConnectionRecord>> getAllActiveWithSEBVersion(Long examId);
 
     /** Get all client connection identifiers for an exam.
      *
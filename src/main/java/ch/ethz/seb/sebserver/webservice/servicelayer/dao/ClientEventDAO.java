@@ -10,6 +10,7 @@ package ch.ethz.seb.sebserver.webservice.servicelayer.dao;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 
@@ -56,11 +57,14 @@ public interface ClientEventDAO extends EntityDAO<ClientEvent, ClientEvent> {
      * @return Result refer to the list of pending notifications or to an error when happened */
     Result<List<ClientNotification>> getPendingNotifications(Long clientConnectionId);
 
-    /** Get all identifiers (PKs) of client connections of a given exam that has any pending notification
+    /** Get the identifiers of all pending notifications of the active client connections of the given exams.
+     * The result is grouped by exam identifier and within an exam by client connection identifier.
+     * Exams without any pending notification are not contained in the result.
      *
-     * @param examId the exam identifier
-     * @return Result refer to a set of identifiers of client connections or to an error when happened */
-    Result<Set<Long>> getClientConnectionIdsWithPendingNotification(Long examId);
+     * @param examIds the exam identifiers
+     * @return Result refer to a mapping of exam identifier to client connection identifier to pending notification
+     *         identifiers or to an error when happened */
+    Result<Map<Long, Map<Long, Set<Long>>>> getPendingNotificationIds(Collection<Long> examIds);
 
     /** Used to confirm a pending notification so that the notification is not pending anymore
      *
@@ -76,4 +80,23 @@ public interface ClientEventDAO extends EntityDAO<ClientEvent, ClientEvent> {
 
     Result<Collection<EntityKey>> deleteClientNotification(Set<EntityKey> keys);
 
+    /** Moves the next batch of client events of the specified exam from the live client event table
+     * to the client event archive within one transaction.
+     *
+     * @param examId the exam identifier
+     * @param batchSize the maximal number of client events to move with this batch
+     * @return Result refer to the number of archived client events or to an error when happened.
+     *         Zero means that there are no client events left for the specified exam */
+    Result<Integer> archiveNextBatch(Long examId, int batchSize);
+
+    /** Deletes the next batch of client events of the specified exam from the live client event table
+     * and, if there are none left there, from the client event archive.
+     * This is used after the client events of an exam have been written to an archive file.
+     *
+     * @param examId the exam identifier
+     * @param batchSize the maximal number of client events to delete with this batch
+     * @return Result refer to the number of deleted client events or to an error when happened.
+     *         Zero means that there are no client events left for the specified exam */
+    Result<Integer> deleteNextBatchOfExam(Long examId, int batchSize);
+
 }
@@ -34,6 +34,14 @@ public interface ClientGroupDAO extends EntityDAO<ClientGroup, ClientGroup>, Bul
             unless = "#result.hasError()")
     Result<Collection<ClientGroup>> allForExam(Long examId);
 
+    /** Creates all given client groups for a specified exam within one transaction with batched inserts.
+     * This is used to create the client groups of an exam from an exam template.
+     *
+     * @param examId the Exam identifier to create the ClientGroups for
+     * @param data the ClientGroups to create
+     * @return Result refer to the created ClientGroups or to an error if happened */
+    Result<Collection<ClientGroup>> createAll(Long examId, Collection<ClientGroup> data);
+
     @CacheEvict(
             cacheNames = CACHE_NAME_RUNNING_EXAM_CLIENT_GROUP_CACHE,
             key = "#examId")
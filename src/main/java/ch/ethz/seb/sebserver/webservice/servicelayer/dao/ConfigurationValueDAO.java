@@ -59,6 +59,20 @@ public interface ConfigurationValueDAO extends EntityDAO<ConfigurationValue, Con
      * @return the saved table values of the attribute and configuration */
     Result<ConfigurationTableValues> saveTableValues(ConfigurationTableValues value);
 
+    /** Use this to save many attribute values of a follow-up configuration at once, e.g. on import of SEB settings.
+     * All values are written within one transaction with multi-row statements. Existing values are updated and
+     * missing values are created. A null value does not change an existing value and a new value with null value
+     * gets the default value of the attribute.
+     *
+     * @param institutionId the institution identifier of the configuration
+     * @param configurationId the identifier of the follow-up configuration
+     * @param values the attribute values to save
+     * @return Result refer to the number of written values or to an error when happened */
+    Result<Integer> saveAll(
+            Long institutionId,
+            Long configurationId,
+            Collection<ConfigurationValue> values);
+
     /** Use this to (re)set the default value(s) for a configuration attributes of a given configuration entry.
      * This uses also the ExamConfigInitService to initialize table values
      *
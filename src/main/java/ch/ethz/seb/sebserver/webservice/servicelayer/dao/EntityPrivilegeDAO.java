@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.dao;
+
+import java.util.Collection;
+import java.util.Map;
+
+import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.EntityKey;
+import ch.ethz.seb.sebserver.gbl.model.user.EntityPrivilege;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+
+/** Defines functionality to access the entity privileges that are assigned to specific users.
+ * <p>
+ * The entity privileges of a user are held within an in-memory index that is loaded with one query per user
+ * and that is reloaded on login and after a maximal age. */
+public interface EntityPrivilegeDAO {
+
+    /** Get all entity privileges of the given user from the index. Loads them if they are not indexed yet.
+     *
+     * @param userUUID the UUID of the user
+     * @return Result refer to the entity privileges of the user mapped by the key of the entity or to an error
+     *         if happened */
+    Result<Map<EntityKey, EntityPrivilege>> getEntityPrivileges(String userUUID);
+
+    /** Reload the entity privileges of the given user into the index. This is used on login.
+     *
+     * @param userUUID the UUID of the user
+     * @return Result refer to the reloaded entity privileges of the user or to an error if happened */
+    Result<Map<EntityKey, EntityPrivilege>> reloadEntityPrivileges(String userUUID);
+
+    /** Load the entity privileges of all given users that are not indexed yet with as few queries as possible.
+     *
+     * @param userUUIDs the UUIDs of the users */
+    void loadEntityPrivileges(Collection<String> userUUIDs);
+
+    /** Indicates if the given user has an entity privilege on the given entity that implies the given
+     * privilege type.
+     *
+     * @param userUUID the UUID of the user
+     * @param entityKey the key of the entity
+     * @param privilegeType the privilege type to check
+     * @return true if there is such an entity privilege assigned to the user */
+    boolean hasEntityPrivilege(String userUUID, EntityKey entityKey, PrivilegeType privilegeType);
+
+    /** Remove all entity privileges of the given user.
+     *
+     * @param userUUID the UUID of the user
+     * @return Result refer to the number of deleted entity privileges or to an error if happened */
+    Result<Integer> deleteUserPrivileges(String userUUID);
+
+}
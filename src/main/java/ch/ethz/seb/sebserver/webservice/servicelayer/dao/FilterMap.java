@@ -41,6 +41,8 @@ import ch.ethz.seb.sebserver.gbl.model.session.ExtendedClientEvent;
 import ch.ethz.seb.sebserver.gbl.model.user.UserActivityLog;
 import ch.ethz.seb.sebserver.gbl.model.user.UserInfo;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.FullTextSearch;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination.Keyset;
 
 /** A Map containing various filter criteria from a certain API request.
  * This is used as a data object that can be used to collect API request parameter
@@ -53,6 +55,14 @@ public class FilterMap extends POSTMapper {
     public static final String ATTR_ADD_INSITUTION_JOIN = "ADD_INSITUTION_JOIN";
     public static final String ATTR_ADD_LMS_SETUP_JOIN = "ADD_LMS_SETUP_JOIN";
 
+    /** The keyset of the last row of the previous page for keyset pagination. This is never taken from
+     * request parameters but set by the PaginationService only. */
+    private Keyset keyset = null;
+
+    /** The UUID of the current user if the user can only read owned or assigned entities of the requested
+     * entity type. This is never taken from request parameters but set by the EntityController only. */
+    private String privilegeOwner = null;
+
     public FilterMap() {
         super(new LinkedMultiValueMap<>(), null);
     }
@@ -68,6 +78,24 @@ public class FilterMap extends POSTMapper {
                 .isPresent();
     }
 
+    public Keyset getKeyset() {
+        return this.keyset;
+    }
+
+    public FilterMap setKeyset(final Keyset keyset) {
+        this.keyset = keyset;
+        return this;
+    }
+
+    public String getPrivilegeOwner() {
+        return this.privilegeOwner;
+    }
+
+    public FilterMap setPrivilegeOwner(final String privilegeOwner) {
+        this.privilegeOwner = privilegeOwner;
+        return this;
+    }
+
     public Integer getActiveAsInt() {
         return getBooleanAsInteger(Entity.FILTER_ATTR_ACTIVE);
     }
@@ -304,6 +332,14 @@ public class FilterMap extends POSTMapper {
         return getSQLWildcard(ClientEvent.FILTER_ATTR_TEXT);
     }
 
+    public String getClientEventTextSearch() {
+        return getSQLWildcard(ClientEvent.FILTER_ATTR_TEXT_SEARCH);
+    }
+
+    public String getClientEventTextSearchQuery() {
+        return FullTextSearch.toBooleanModeQuery(getString(ClientEvent.FILTER_ATTR_TEXT_SEARCH));
+    }
+
     public Long getClientEventExamId() {
         return getLong(ExtendedClientEvent.FILTER_ATTRIBUTE_EXAM);
     }
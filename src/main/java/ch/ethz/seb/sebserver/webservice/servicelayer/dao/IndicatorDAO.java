@@ -10,6 +10,9 @@ package ch.ethz.seb.sebserver.webservice.servicelayer.dao;
 
 import java.util.Collection;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+
 import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.model.exam.Indicator;
 import ch.ethz.seb.sebserver.gbl.util.Result;
@@ -18,16 +21,51 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.BulkActionSuppor
 /** Concrete EntityDAO interface of Indicator entities */
 public interface IndicatorDAO extends EntityDAO<Indicator, Indicator>, BulkActionSupportDAO<Indicator> {
 
+    public static final String CACHE_NAME_RUNNING_EXAM_INDICATOR_CACHE = "RUNNING_EXAM_INDICATOR_CACHE";
+
     /** Get a collection of all Indicator entities for a specified exam.
      *
      * @param examId the Exam identifier to get the Indicators for
      * @return Result referring to the collection of Indicators of an Exam or to an error if happened */
     Result<Collection<Indicator>> allForExam(Long examId);
 
+    /** Get a collection of all Indicator entities for a specified running exam from the running exam
+     * indicator cache. This is only used within the session of a running exam, use allForExam otherwise.
+     *
+     * @param examId the identifier of the running Exam to get the Indicators for
+     * @return Result referring to the collection of Indicators of an Exam or to an error if happened */
+    @Cacheable(
+            cacheNames = CACHE_NAME_RUNNING_EXAM_INDICATOR_CACHE,
+            key = "#examId",
+            condition = "#examId!=null",
+            unless = "#result.hasError()")
+    Result<Collection<Indicator>> allForRunningExam(Long examId);
+
+    /** Creates all given indicators with their thresholds for a specified exam within one transaction
+     * with batched inserts. This is used to create the indicators of an exam from an exam template.
+     *
+     * @param examId the Exam identifier to create the Indicators for
+     * @param data the Indicators to create
+     * @return Result refer to the created Indicators or to an error if happened */
+    @CacheEvict(
+            cacheNames = CACHE_NAME_RUNNING_EXAM_INDICATOR_CACHE,
+            key = "#examId")
+    Result<Collection<Indicator>> createAll(Long examId, Collection<Indicator> data);
+
     /** Delete all indicators for a particular exam.
      *
      * @param examId the exam identifier
      * @return Result refer to the list of deleted indicators or to an error when happened */
+    @CacheEvict(
+            cacheNames = CACHE_NAME_RUNNING_EXAM_INDICATOR_CACHE,
+            key = "#examId")
     Result<Collection<EntityKey>> deleteAllForExam(Long examId);
 
+    @CacheEvict(
+            cacheNames = CACHE_NAME_RUNNING_EXAM_INDICATOR_CACHE,
+            key = "#examId")
+    default void evictCacheForExam(final Long examId) {
+        // just evict the cache
+    }
+
 }
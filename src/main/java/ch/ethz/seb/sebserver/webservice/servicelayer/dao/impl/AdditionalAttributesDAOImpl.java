@@ -8,7 +8,10 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
 import java.util.Optional;
 
 import org.mybatis.dynamic.sql.SqlBuilder;
@@ -35,6 +38,9 @@ public class AdditionalAttributesDAOImpl implements AdditionalAttributesDAO {
 
     private static final Logger log = LoggerFactory.getLogger(AdditionalAttributesDAOImpl.class);
 
+    /** Maximum number of entity identifiers within one IN clause */
+    private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
     private final AdditionalAttributeRecordMapper additionalAttributeRecordMapper;
 
     protected AdditionalAttributesDAOImpl(final AdditionalAttributeRecordMapper additionalAttributeRecordMapper) {
@@ -59,6 +65,36 @@ public class AdditionalAttributesDAOImpl implements AdditionalAttributesDAO {
                 .execute());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public Result<Collection<AdditionalAttributeRecord>> getAdditionalAttributes(
+            final EntityType type,
+            final Collection<Long> entityIds) {
+
+        return Result.tryCatch(() -> {
+
+            if (entityIds == null || entityIds.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            final List<Long> ids = new ArrayList<>(entityIds);
+            final List<AdditionalAttributeRecord> result = new ArrayList<>();
+            for (int i = 0; i < ids.size(); i += MAX_IN_CLAUSE_SIZE) {
+                result.addAll(this.additionalAttributeRecordMapper
+                        .selectByExample()
+                        .where(
+                                AdditionalAttributeRecordDynamicSqlSupport.entityType,
+                                SqlBuilder.isEqualTo(type.name()))
+                        .and(
+                                AdditionalAttributeRecordDynamicSqlSupport.entityId,
+                                SqlBuilder.isIn(ids.subList(i, Math.min(i + MAX_IN_CLAUSE_SIZE, ids.size()))))
+                        .build()
+                        .execute());
+            }
+            return result;
+        });
+    }
+
     @Override
     @Transactional(readOnly = true)
     public Result<AdditionalAttributeRecord> getAdditionalAttribute(
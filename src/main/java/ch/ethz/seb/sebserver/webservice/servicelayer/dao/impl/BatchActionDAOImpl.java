@@ -81,20 +81,40 @@ public class BatchActionDAOImpl implements BatchActionDAO {
     @Override
     @Transactional
     public Result<BatchAction> getAndReserveNext(final String processId) {
+        return getAndReserveNext(processId, Collections.emptyList(), Collections.emptyList());
+    }
+
+    @Override
+    @Transactional
+    public Result<BatchAction> getAndReserveNext(
+            final String processId,
+            final Collection<Long> busyInstitutions,
+            final Collection<Long> excludedActions) {
+
         return Result.tryCatch(() -> {
 
             final Long oldThreshold = Utils.getMillisecondsNow() - ABANDONED_BATCH_TIME;
-            final BatchActionRecord nextRec = this.batchActionRecordMapper.selectByExample()
+            final List<BatchActionRecord> pending = this.batchActionRecordMapper.selectByExample()
                     .where(BatchActionRecordDynamicSqlSupport.lastUpdate, isNull())
                     .or(BatchActionRecordDynamicSqlSupport.processorId, isNotLike("%" + BatchAction.FINISHED_FLAG))
+                    .orderBy(BatchActionRecordDynamicSqlSupport.id)
                     .build()
                     .execute()
                     .stream()
                     .filter(rec -> rec.getLastUpdate() == null || rec.getLastUpdate() < oldThreshold)
+                    .filter(rec -> !excludedActions.contains(rec.getId()))
+                    .collect(Collectors.toList());
+
+            final BatchActionRecord nextRec = pending
+                    .stream()
+                    .filter(rec -> !busyInstitutions.contains(rec.getInstitutionId()))
                     .findFirst()
-                    .orElseThrow(() -> new ResourceNotFoundException(
-                            EntityType.BATCH_ACTION,
-                            processId));
+                    .orElseGet(() -> pending
+                            .stream()
+                            .findFirst()
+                            .orElseThrow(() -> new ResourceNotFoundException(
+                                    EntityType.BATCH_ACTION,
+                                    processId)));
 
             final BatchActionRecord newRecord = new BatchActionRecord(
                     nextRec.getId(),
@@ -117,6 +137,12 @@ public class BatchActionDAOImpl implements BatchActionDAO {
     @Override
     @Transactional
     public void setSuccessfull(final Long actionId, final String processId, final String modelId) {
+        setSuccessfull(actionId, processId, Arrays.asList(modelId));
+    }
+
+    @Override
+    @Transactional
+    public void setSuccessfull(final Long actionId, final String processId, final Collection<String> modelIds) {
         try {
 
             final BatchActionRecord rec = this.batchActionRecordMapper.selectByPrimaryKey(actionId);
@@ -125,15 +151,12 @@ public class BatchActionDAOImpl implements BatchActionDAO {
                 throw new RuntimeException("Batch action processor id mismatch: " + processId + " " + rec);
             }
 
-            String successful = rec.getSuccessful();
-            if (StringUtils.isBlank(successful)) {
-                successful = modelId;
-            } else {
-                final Set<String> ids = new HashSet<>(Arrays.asList(StringUtils.split(
+            final Set<String> ids = new HashSet<>(modelIds);
+            final String successful = rec.getSuccessful();
+            if (StringUtils.isNotBlank(successful)) {
+                ids.addAll(Arrays.asList(StringUtils.split(
                         successful,
                         Constants.LIST_SEPARATOR)));
-                ids.add(modelId);
-                successful = StringUtils.join(ids, Constants.LIST_SEPARATOR);
             }
 
             final BatchActionRecord newRecord = new BatchActionRecord(
@@ -143,13 +166,47 @@ public class BatchActionDAOImpl implements BatchActionDAO {
                     null,
                     null,
                     null,
-                    successful,
+                    StringUtils.join(ids, Constants.LIST_SEPARATOR),
                     Utils.getMillisecondsNow(),
                     processId);
             this.batchActionRecordMapper.updateByPrimaryKeySelective(newRecord);
 
         } catch (final Exception e) {
-            log.error("Failed to mark entity successfully processed: modelId: {}, processId", modelId, e);
+            log.error("Failed to mark entities successfully processed: modelIds: {}, processId: {}",
+                    modelIds,
+                    processId,
+                    e);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void refreshLastUpdate(final Long actionId, final String processId) {
+        try {
+
+            final BatchActionRecord rec = this.batchActionRecordMapper.selectByPrimaryKey(actionId);
+
+            if (!processId.equals(rec.getProcessorId())) {
+                throw new RuntimeException("Batch action processor id mismatch: " + processId + " " + rec);
+            }
+
+            final BatchActionRecord newRecord = new BatchActionRecord(
+                    actionId,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    null,
+                    Utils.getMillisecondsNow(),
+                    processId);
+            this.batchActionRecordMapper.updateByPrimaryKeySelective(newRecord);
+
+        } catch (final Exception e) {
+            log.error("Failed to refresh last update time of batch action: actionId: {}, processId: {}",
+                    actionId,
+                    processId,
+                    e);
         }
     }
 
@@ -15,6 +15,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -25,6 +26,8 @@ import org.mybatis.dynamic.sql.SqlBuilder;
 import org.mybatis.dynamic.sql.select.MyBatis3SelectModelAdapter;
 import org.mybatis.dynamic.sql.select.QueryExpressionDSL;
 import org.mybatis.dynamic.sql.update.UpdateDSL;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
@@ -41,7 +44,10 @@ import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection.ConnectionStatus
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.BatisConfig;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientConnectionTokenMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventArchiveMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
@@ -71,28 +77,36 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
 
     private final ClientConnectionRecordMapper clientConnectionRecordMapper;
     private final ClientEventRecordMapper clientEventRecordMapper;
+    private final ClientEventArchiveMapper clientEventArchiveMapper;
     private final ClientInstructionRecordMapper clientInstructionRecordMapper;
     private final ClientIndicatorRecordMapper clientIndicatorRecordMapper;
     private final ClientNotificationRecordMapper clientNotificationRecordMapper;
     private final ClientConnectionTokenMapper clientConnectionMinMapper;
     private final CacheManager cacheManager;
+    private final SqlSessionTemplate batchSqlSessionTemplate;
+    private final ClientConnectionRecordMapper batchClientConnectionRecordMapper;
 
     protected ClientConnectionDAOImpl(
             final ClientConnectionRecordMapper clientConnectionRecordMapper,
             final ClientEventRecordMapper clientEventRecordMapper,
+            final ClientEventArchiveMapper clientEventArchiveMapper,
             final ClientInstructionRecordMapper clientInstructionRecordMapper,
             final ClientIndicatorRecordMapper clientIndicatorRecordMapper,
             final ClientNotificationRecordMapper clientNotificationRecordMapper,
             final ClientConnectionTokenMapper clientConnectionMinMapper,
-            final CacheManager cacheManager) {
+            final CacheManager cacheManager,
+            @Qualifier(BatisConfig.SQL_BATCH_SESSION_TEMPLATE) final SqlSessionTemplate batchSqlSessionTemplate) {
 
         this.clientConnectionRecordMapper = clientConnectionRecordMapper;
         this.clientEventRecordMapper = clientEventRecordMapper;
+        this.clientEventArchiveMapper = clientEventArchiveMapper;
         this.clientInstructionRecordMapper = clientInstructionRecordMapper;
         this.clientIndicatorRecordMapper = clientIndicatorRecordMapper;
         this.clientNotificationRecordMapper = clientNotificationRecordMapper;
         this.clientConnectionMinMapper = clientConnectionMinMapper;
         this.cacheManager = cacheManager;
+        this.batchSqlSessionTemplate = batchSqlSessionTemplate;
+        this.batchClientConnectionRecordMapper = batchSqlSessionTemplate.getMapper(ClientConnectionRecordMapper.class);
     }
 
     @Override
@@ -163,6 +177,9 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
                     .and(
                             ClientConnectionRecordDynamicSqlSupport.clientAddress,
                             isLikeWhenPresent(filterMap.getClientConnectionIPAddress()))
+                    .and(
+                            ClientConnectionRecordDynamicSqlSupport.id,
+                            KeysetPagination.isAfterWhenPresent(filterMap.getKeyset()))
                     .build()
                     .execute()
                     .stream()
@@ -357,34 +374,7 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
     public Result<ClientConnection> createNew(final ClientConnection data) {
         return Result.tryCatch(() -> {
 
-            final long millisecondsNow = Utils.getMillisecondsNow();
-            // NOTE: we use nanoseconds here to get a better precision to better avoid
-            //       same value of real concurrent calls on distributed systems
-            final long nanosecondsNow = System.nanoTime();
-            final ClientConnectionRecord newRecord = new ClientConnectionRecord(
-                    null,
-                    data.institutionId,
-                    data.examId,
-                    ConnectionStatus.CONNECTION_REQUESTED.name(),
-                    data.connectionToken,
-                    data.userSessionId,
-                    data.clientAddress,
-                    data.sebClientUserId,
-                    BooleanUtils.toInteger(data.vdi, 1, 0, 0),
-                    data.vdiPairToken,
-                    millisecondsNow,
-                    nanosecondsNow,
-                    data.screenProctoringGroupId,
-                    (byte) 0,
-                    data.remoteProctoringRoomId,
-                    0,
-                    Utils.truncateText(data.sebMachineName, 255),
-                    Utils.truncateText(data.sebOSName, 255),
-                    Utils.truncateText(data.sebVersion, 255),
-                    Utils.toByte(data.securityCheckGranted),
-                    data.ask,
-                    Utils.toByte(data.clientVersionGranted));
-
+            final ClientConnectionRecord newRecord = toNewRecord(data);
             this.clientConnectionRecordMapper.insert(newRecord);
             return newRecord;
         })
@@ -392,6 +382,67 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
                 .onError(TransactionHandler::rollback);
     }
 
+    @Override
+    @Transactional
+    public Result<Collection<ClientConnection>> createAll(final Collection<ClientConnection> data) {
+        return Result.<Collection<ClientConnection>> tryCatch(() -> {
+
+            if (data == null || data.isEmpty()) {
+                return Collections.<ClientConnection> emptyList();
+            }
+
+            // NOTE: the batch executor cannot provide the generated keys per record,
+            //       so the new records are selected by their connection tokens after the batch insert
+            final List<String> connectionTokens = new ArrayList<>(data.size());
+            for (final ClientConnection connection : data) {
+                this.batchClientConnectionRecordMapper.insert(toNewRecord(connection));
+                connectionTokens.add(connection.connectionToken);
+            }
+            this.batchSqlSessionTemplate.flushStatements();
+
+            return this.batchClientConnectionRecordMapper
+                    .selectByExample()
+                    .where(ClientConnectionRecordDynamicSqlSupport.connectionToken, isIn(connectionTokens))
+                    .build()
+                    .execute()
+                    .stream()
+                    .map(ClientConnectionDAOImpl::toDomainModel)
+                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .collect(Collectors.toList());
+        })
+                .onError(TransactionHandler::rollback);
+    }
+
+    private static ClientConnectionRecord toNewRecord(final ClientConnection data) {
+        final long millisecondsNow = Utils.getMillisecondsNow();
+        // NOTE: we use nanoseconds here to get a better precision to better avoid
+        //       same value of real concurrent calls on distributed systems
+        final long nanosecondsNow = System.nanoTime();
+        return new ClientConnectionRecord(
+                null,
+                data.institutionId,
+                data.examId,
+                ConnectionStatus.CONNECTION_REQUESTED.name(),
+                data.connectionToken,
+                data.userSessionId,
+                data.clientAddress,
+                data.sebClientUserId,
+                BooleanUtils.toInteger(data.vdi, 1, 0, 0),
+                data.vdiPairToken,
+                millisecondsNow,
+                nanosecondsNow,
+                data.screenProctoringGroupId,
+                (byte) 0,
+                data.remoteProctoringRoomId,
+                0,
+                Utils.truncateText(data.sebMachineName, 255),
+                Utils.truncateText(data.sebOSName, 255),
+                Utils.truncateText(data.sebVersion, 255),
+                Utils.toByte(data.securityCheckGranted),
+                data.ask,
+                Utils.toByte(data.clientVersionGranted));
+    }
+
     @Override
     @Transactional
     public Result<ClientConnection> save(final ClientConnection data) {
@@ -888,25 +939,16 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
 
     @Override
     @Transactional(readOnly = true)
-    public Result<Long> countSignatureHashes(final Long examId, final String signatureHash) {
-        return Result.tryCatch(() -> this.clientConnectionRecordMapper
-                .countByExample()
-                .where(
-                        ClientConnectionRecordDynamicSqlSupport.examId,
-                        SqlBuilder.isEqualTo(examId))
-                .and(
-                        ClientConnectionRecordDynamicSqlSupport.status,
-                        SqlBuilder.isIn(ClientConnection.SECURE_CHECK_STATES))
-                .and(
-                        ClientConnectionRecordDynamicSqlSupport.ask,
-                        SqlBuilder.isEqualTo(signatureHash))
-                .build()
-                .execute());
+    public Result<Map<String, Long>> getSignatureHashCounts(final Long examId) {
+        return Result.tryCatch(() -> this.clientConnectionMinMapper
+                .countSignatureHashes(examId, ClientConnection.SECURE_CHECK_STATES)
+                .stream()
+                .collect(Collectors.toMap(rec -> rec.ask, rec -> rec.num)));
     }
 
     @Override
     @Transactional(readOnly = true)
-    public Result<Collection<ClientConnectionRecord>> getAllActiveNoSEBVersionCheck(final Long examId) {
+    public Result<Collection<ClientConnectionRecord>> getAllActiveWithSEBVersion(final Long examId) {
         return Result.tryCatch(() -> this.clientConnectionRecordMapper
                 .selectByExample()
                 .where(
@@ -918,9 +960,6 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
                 .and(
                         ClientConnectionRecordDynamicSqlSupport.clientVersion,
                         SqlBuilder.isNotNull())
-                .and(
-                        ClientConnectionRecordDynamicSqlSupport.clientVersionGranted,
-                        SqlBuilder.isNull())
                 .build()
                 .execute());
     }
@@ -1131,6 +1170,14 @@ public class ClientConnectionDAOImpl implements ClientConnectionDAO {
                 .build()
                 .execute();
 
+        // delete all related archived client events
+        this.clientEventArchiveMapper.deleteByExample()
+                .where(
+                        ClientEventArchiveMapper.clientEventArchiveRecord.clientConnectionId,
+                        SqlBuilder.isIn(ids))
+                .build()
+                .execute();
+
         // delete all related client notifications
         this.clientNotificationRecordMapper.deleteByExample()
                 .where(
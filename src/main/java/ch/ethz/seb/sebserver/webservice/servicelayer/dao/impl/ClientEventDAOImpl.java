@@ -15,12 +15,17 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.*;
 import org.mybatis.dynamic.sql.SqlBuilder;
+import org.mybatis.dynamic.sql.select.MyBatis3SelectModelAdapter;
+import org.mybatis.dynamic.sql.select.QueryExpressionDSL;
+import org.mybatis.dynamic.sql.select.SelectDSL;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -37,8 +42,13 @@ import ch.ethz.seb.sebserver.gbl.model.session.ExtendedClientEvent;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventArchiveMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventArchiveMapper.ClientEventArchiveRecord;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventJoinRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.DerivedTableSelect;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.FullTextSearch;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordMapper;
@@ -54,16 +64,22 @@ public class ClientEventDAOImpl implements ClientEventDAO {
 
     private final ClientEventRecordMapper clientEventRecordMapper;
     private final ClientEventExtensionMapper clientEventExtensionMapper;
+    private final ClientEventArchiveMapper clientEventArchiveMapper;
     private final ClientNotificationRecordMapper clientNotificationRecordMapper;
+    private final boolean fullTextSearchEnabled;
 
     protected ClientEventDAOImpl(
             final ClientEventRecordMapper clientEventRecordMapper,
             final ClientEventExtensionMapper clientEventExtensionMapper,
-            final ClientNotificationRecordMapper clientNotificationRecordMapper) {
+            final ClientEventArchiveMapper clientEventArchiveMapper,
+            final ClientNotificationRecordMapper clientNotificationRecordMapper,
+            @Value("${sebserver.webservice.clientevent.fulltext.enabled:false}") final boolean fullTextSearchEnabled) {
 
         this.clientEventRecordMapper = clientEventRecordMapper;
         this.clientEventExtensionMapper = clientEventExtensionMapper;
+        this.clientEventArchiveMapper = clientEventArchiveMapper;
         this.clientNotificationRecordMapper = clientNotificationRecordMapper;
+        this.fullTextSearchEnabled = fullTextSearchEnabled;
     }
 
     @Override
@@ -84,15 +100,145 @@ public class ClientEventDAOImpl implements ClientEventDAO {
             final FilterMap filterMap,
             final Predicate<ClientEvent> predicate) {
 
-        return Result.tryCatch(() -> this.clientEventRecordMapper
-                .selectByExample()
-                .leftJoin(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
-                .on(
-                        ClientConnectionRecordDynamicSqlSupport.id,
-                        equalTo(ClientEventRecordDynamicSqlSupport.clientConnectionId))
-                .where(
-                        ClientConnectionRecordDynamicSqlSupport.institutionId,
-                        isEqualToWhenPresent(filterMap.getInstitutionId()))
+        return Result.tryCatch(() -> {
+
+            // archived client events are only part of the result for exam specific queries
+            // since the archive is partitioned by exam
+            final Long examId = filterMap.getClientEventExamId();
+            final boolean withArchive = examId != null;
+
+            final QueryExpressionDSL<MyBatis3SelectModelAdapter<List<ClientEventRecord>>>.QueryExpressionWhereBuilder whereClause =
+                    filterLiveEvents(SelectDSL.selectWithMapper(
+                            select -> this.clientEventRecordMapper.selectMany((withArchive)
+                                    ? DerivedTableSelect.of(
+                                            select,
+                                            ClientEventRecordDynamicSqlSupport.clientEventRecord.tableNameAtRuntime())
+                                    : select),
+                            ClientEventRecordDynamicSqlSupport.id,
+                            ClientEventRecordDynamicSqlSupport.clientConnectionId,
+                            ClientEventRecordDynamicSqlSupport.type,
+                            ClientEventRecordDynamicSqlSupport.clientTime,
+                            ClientEventRecordDynamicSqlSupport.serverTime,
+                            ClientEventRecordDynamicSqlSupport.numericValue,
+                            ClientEventRecordDynamicSqlSupport.text,
+                            ClientConnectionRecordDynamicSqlSupport.examUserSessionId)
+                            .from(ClientEventRecordDynamicSqlSupport.clientEventRecord)
+                            .leftJoin(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
+                            .on(
+                                    ClientConnectionRecordDynamicSqlSupport.id,
+                                    equalTo(ClientEventRecordDynamicSqlSupport.clientConnectionId))
+                            .where(
+                                    ClientConnectionRecordDynamicSqlSupport.institutionId,
+                                    isEqualToWhenPresent(filterMap.getInstitutionId())),
+                            filterMap)
+                                    .and(
+                                            ClientEventRecordDynamicSqlSupport.id,
+                                            KeysetPagination.isAfterWhenPresent(filterMap.getKeyset()));
+
+            if (withArchive) {
+                final ClientEventArchiveRecord archive = ClientEventArchiveMapper.clientEventArchiveRecord;
+                // columns must match the live query
+                filterArchivedEvents(whereClause
+                        .unionAll()
+                        .select(
+                                archive.id,
+                                archive.clientConnectionId,
+                                archive.type,
+                                archive.clientTime,
+                                archive.serverTime,
+                                archive.numericValue,
+                                archive.text,
+                                ClientConnectionRecordDynamicSqlSupport.examUserSessionId)
+                        .from(archive)
+                        .join(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
+                        .on(
+                                archive.clientConnectionId,
+                                equalTo(ClientConnectionRecordDynamicSqlSupport.id))
+                        .where(
+                                archive.examId,
+                                isEqualTo(examId)),
+                        filterMap)
+                                .and(
+                                        archive.id,
+                                        KeysetPagination.isAfterWhenPresent(filterMap.getKeyset()));
+            }
+
+            return whereClause
+                    .build()
+                    .execute()
+                    .stream()
+                    .map(ClientEventDAOImpl::toDomainModel)
+                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .filter(predicate)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Result<Collection<ExtendedClientEvent>> allMatchingExtended(
+            final FilterMap filterMap,
+            final Predicate<ExtendedClientEvent> predicate) {
+
+        return Result.tryCatch(() -> {
+
+            // archived client events are only part of the result for exam specific queries
+            // since the archive is partitioned by exam
+            final Long examId = filterMap.getClientEventExamId();
+            final boolean withArchive = examId != null;
+
+            final QueryExpressionDSL<MyBatis3SelectModelAdapter<Collection<ConnectionEventJoinRecord>>>.QueryExpressionWhereBuilder whereClause =
+                    filterLiveEvents(this.clientEventExtensionMapper
+                            .selectByExample(withArchive)
+                            .where(
+                                    ClientConnectionRecordDynamicSqlSupport.institutionId,
+                                    isEqualToWhenPresent(filterMap.getInstitutionId())),
+                            filterMap);
+
+            if (withArchive) {
+                final ClientEventArchiveRecord archive = ClientEventArchiveMapper.clientEventArchiveRecord;
+                // columns must match the live query
+                filterArchivedEvents(whereClause
+                        .unionAll()
+                        .select(
+                                archive.id,
+                                archive.clientConnectionId.as("connection_id"),
+                                archive.type,
+                                archive.clientTime.as("client_time"),
+                                archive.serverTime.as("server_time"),
+                                archive.numericValue.as("numeric_value"),
+                                archive.text,
+                                archive.institutionId.as("institution_id"),
+                                archive.examId.as("exam_id"),
+                                ClientConnectionRecordDynamicSqlSupport.examUserSessionId.as("exam_user_session_identifier"),
+                                ClientConnectionRecordDynamicSqlSupport.examUserSessionId)
+                        .from(archive)
+                        .join(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
+                        .on(
+                                archive.clientConnectionId,
+                                equalTo(ClientConnectionRecordDynamicSqlSupport.id))
+                        .where(
+                                archive.examId,
+                                isEqualTo(examId)),
+                        filterMap);
+            }
+
+            return whereClause
+                    .build()
+                    .execute()
+                    .stream()
+                    .map(ClientEventDAOImpl::toDomainModelExtended)
+                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .filter(predicate)
+                    .collect(Collectors.toList());
+        });
+    }
+
+    private <R> QueryExpressionDSL<R>.QueryExpressionWhereBuilder filterLiveEvents(
+            final QueryExpressionDSL<R>.QueryExpressionWhereBuilder whereClause,
+            final FilterMap filterMap) {
+
+        return whereClause
                 .and(
                         ClientConnectionRecordDynamicSqlSupport.examId,
                         isEqualToWhenPresent(filterMap.getClientEventExamId()))
@@ -123,62 +269,94 @@ public class ClientEventDAOImpl implements ClientEventDAO {
                 .and(
                         ClientEventRecordDynamicSqlSupport.text,
                         SqlBuilder.isLikeWhenPresent(filterMap.getClientEventText()))
-                .build()
-                .execute()
-                .stream()
-                .map(ClientEventDAOImpl::toDomainModel)
-                .flatMap(DAOLoggingSupport::logAndSkipOnError)
-                .filter(predicate)
-                .collect(Collectors.toList()));
+                .and(
+                        ClientEventRecordDynamicSqlSupport.text,
+                        FullTextSearch.isMatchingWhenPresent((this.fullTextSearchEnabled)
+                                ? filterMap.getClientEventTextSearchQuery()
+                                : null))
+                .and(
+                        ClientEventRecordDynamicSqlSupport.text,
+                        SqlBuilder.isLikeWhenPresent(filterMap.getClientEventTextSearch()));
     }
 
-    @Override
-    @Transactional(readOnly = true)
-    public Result<Collection<ExtendedClientEvent>> allMatchingExtended(
-            final FilterMap filterMap,
-            final Predicate<ExtendedClientEvent> predicate) {
+    private static <R> QueryExpressionDSL<R>.QueryExpressionWhereBuilder filterArchivedEvents(
+            final QueryExpressionDSL<R>.QueryExpressionWhereBuilder whereClause,
+            final FilterMap filterMap) {
 
-        return Result.tryCatch(() -> this.clientEventExtensionMapper.selectByExample()
-                .where(
-                        ClientConnectionRecordDynamicSqlSupport.institutionId,
-                        isEqualToWhenPresent(filterMap.getInstitutionId()))
+        final ClientEventArchiveRecord archive = ClientEventArchiveMapper.clientEventArchiveRecord;
+        return whereClause
                 .and(
-                        ClientConnectionRecordDynamicSqlSupport.examId,
-                        isEqualToWhenPresent(filterMap.getClientEventExamId()))
+                        archive.institutionId,
+                        isEqualToWhenPresent(filterMap.getInstitutionId()))
                 .and(
                         ClientConnectionRecordDynamicSqlSupport.examUserSessionId,
                         SqlBuilder.isLikeWhenPresent(filterMap.getSQLWildcard(ClientConnection.FILTER_ATTR_SESSION_ID)))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.clientConnectionId,
+                        archive.clientConnectionId,
                         isEqualToWhenPresent(filterMap.getClientEventConnectionId()))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.type,
+                        archive.type,
                         isEqualToWhenPresent(filterMap.getClientEventTypeId()))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.type,
+                        archive.type,
                         SqlBuilder.isNotEqualTo(EventType.REMOVED_EVENT_TYPE_LAST_PING))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.clientTime,
+                        archive.clientTime,
                         SqlBuilder.isGreaterThanOrEqualToWhenPresent(filterMap.getClientEventClientTimeFrom()))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.clientTime,
+                        archive.clientTime,
                         SqlBuilder.isLessThanOrEqualToWhenPresent(filterMap.getClientEventClientTimeTo()))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.serverTime,
+                        archive.serverTime,
                         SqlBuilder.isGreaterThanOrEqualToWhenPresent(filterMap.getClientEventServerTimeFrom()))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.serverTime,
+                        archive.serverTime,
                         SqlBuilder.isLessThanOrEqualToWhenPresent(filterMap.getClientEventServerTimeTo()))
                 .and(
-                        ClientEventRecordDynamicSqlSupport.text,
+                        archive.text,
                         SqlBuilder.isLikeWhenPresent(filterMap.getClientEventText()))
-                .build()
-                .execute()
-                .stream()
-                .map(ClientEventDAOImpl::toDomainModelExtended)
-                .flatMap(DAOLoggingSupport::logAndSkipOnError)
-                .filter(predicate)
-                .collect(Collectors.toList()));
+                .and(
+                        archive.text,
+                        SqlBuilder.isLikeWhenPresent(filterMap.getClientEventTextSearch()));
+    }
+
+    @Override
+    @Transactional
+    public Result<Integer> archiveNextBatch(final Long examId, final int batchSize) {
+        return Result.tryCatch(() -> {
+
+            final Long maxId = this.clientEventArchiveMapper.nextBatchMaxId(examId, batchSize);
+            if (maxId == null) {
+                return 0;
+            }
+
+            final int copied = this.clientEventArchiveMapper.copyToArchive(examId, maxId);
+            final int deleted = this.clientEventArchiveMapper.deleteArchived(examId, maxId);
+            if (copied != deleted) {
+                throw new IllegalStateException(
+                        "Archived client events mismatch: copied: " + copied + " deleted: " + deleted);
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Archived {} client events of exam: {}", copied, examId);
+            }
+
+            return copied;
+        })
+                .onError(TransactionHandler::rollback);
+    }
+
+    @Override
+    @Transactional
+    public Result<Integer> deleteNextBatchOfExam(final Long examId, final int batchSize) {
+        return Result.tryCatch(() -> {
+            final int deleted = this.clientEventArchiveMapper.deleteBatchOfExam(examId, batchSize);
+            if (deleted > 0) {
+                return deleted;
+            }
+            return this.clientEventArchiveMapper.deleteArchivedBatchOfExam(examId, batchSize);
+        })
+                .onError(TransactionHandler::rollback);
     }
 
     @Override
@@ -279,16 +457,16 @@ public class ClientEventDAOImpl implements ClientEventDAO {
 
     @Override
     @Transactional(readOnly = true)
-    public Result<Set<Long>> getClientConnectionIdsWithPendingNotification(final Long examId) {
-        return Result.tryCatch(() -> this.clientNotificationRecordMapper
-                .selectByExample()
-                .leftJoin(ClientConnectionRecordDynamicSqlSupport.clientConnectionRecord)
-                .on(
-                        ClientConnectionRecordDynamicSqlSupport.id,
-                        equalTo(ClientNotificationRecordDynamicSqlSupport.clientConnectionId))
+    public Result<Map<Long, Map<Long, Set<Long>>>> getPendingNotificationIds(final Collection<Long> examIds) {
+        if (examIds == null || examIds.isEmpty()) {
+            return Result.of(Collections.emptyMap());
+        }
+
+        return Result.tryCatch(() -> this.clientEventExtensionMapper
+                .selectNotificationExamsByExample()
                 .where(
                         ClientConnectionRecordDynamicSqlSupport.examId,
-                        isEqualToWhenPresent(examId))
+                        isIn(new ArrayList<>(examIds)))
                 .and(
                         ClientConnectionRecordDynamicSqlSupport.status,
                         isIn(ConnectionStatus.ACTIVE.name(), ConnectionStatus.CONNECTION_REQUESTED.name()))
@@ -298,8 +476,11 @@ public class ClientEventDAOImpl implements ClientEventDAO {
                 .build()
                 .execute()
                 .stream()
-                .map(ClientNotificationRecord::getClientConnectionId)
-                .collect(Collectors.toSet()));
+                .collect(Collectors.groupingBy(
+                        rec -> rec.exam_id,
+                        Collectors.groupingBy(
+                                rec -> rec.client_connection_id,
+                                Collectors.mapping(rec -> rec.id, Collectors.toSet())))));
     }
 
     @Override
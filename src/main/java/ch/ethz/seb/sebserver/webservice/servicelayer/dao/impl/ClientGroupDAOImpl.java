@@ -13,6 +13,7 @@ import static org.mybatis.dynamic.sql.SqlBuilder.*;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
@@ -20,6 +21,8 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.mybatis.dynamic.sql.SqlBuilder;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -32,6 +35,8 @@ import ch.ethz.seb.sebserver.gbl.model.exam.ClientGroup;
 import ch.ethz.seb.sebserver.gbl.model.exam.ClientGroupData.ClientGroupType;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.SingleFlight;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.BatisConfig;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientGroupRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientGroupRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordDynamicSqlSupport;
@@ -49,9 +54,17 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.dao.TransactionHandler;
 public class ClientGroupDAOImpl implements ClientGroupDAO {
 
     private final ClientGroupRecordMapper clientGroupRecordMapper;
+    private final SqlSessionTemplate batchSqlSessionTemplate;
+    private final ClientGroupRecordMapper batchClientGroupRecordMapper;
+    private final SingleFlight<Long, Result<Collection<ClientGroup>>> examClientGroupsLoad = new SingleFlight<>();
+
+    public ClientGroupDAOImpl(
+            final ClientGroupRecordMapper clientGroupRecordMapper,
+            @Qualifier(BatisConfig.SQL_BATCH_SESSION_TEMPLATE) final SqlSessionTemplate batchSqlSessionTemplate) {
 
-    public ClientGroupDAOImpl(final ClientGroupRecordMapper clientGroupRecordMapper) {
         this.clientGroupRecordMapper = clientGroupRecordMapper;
+        this.batchSqlSessionTemplate = batchSqlSessionTemplate;
+        this.batchClientGroupRecordMapper = batchSqlSessionTemplate.getMapper(ClientGroupRecordMapper.class);
     }
 
     @Override
@@ -139,6 +152,47 @@ public class ClientGroupDAOImpl implements ClientGroupDAO {
                 .onError(TransactionHandler::rollback);
     }
 
+    @Override
+    @Transactional
+    public Result<Collection<ClientGroup>> createAll(final Long examId, final Collection<ClientGroup> data) {
+        return Result.<Collection<ClientGroup>> tryCatch(() -> {
+
+            if (data == null || data.isEmpty()) {
+                return Collections.<ClientGroup> emptyList();
+            }
+
+            // NOTE: only the batch mappers can be used within this transaction
+            final Set<Long> existingIds = new HashSet<>(this.batchClientGroupRecordMapper
+                    .selectIdsByExample()
+                    .where(ClientGroupRecordDynamicSqlSupport.examId, isEqualTo(examId))
+                    .build()
+                    .execute());
+
+            data.forEach(clientGroup -> this.batchClientGroupRecordMapper.insert(new ClientGroupRecord(
+                    null,
+                    examId,
+                    clientGroup.name,
+                    clientGroup.type.name(),
+                    clientGroup.color,
+                    clientGroup.icon,
+                    clientGroup.getData())));
+            this.batchSqlSessionTemplate.flushStatements();
+
+            return this.batchClientGroupRecordMapper
+                    .selectByExample()
+                    .where(ClientGroupRecordDynamicSqlSupport.examId, isEqualTo(examId))
+                    .orderBy(ClientGroupRecordDynamicSqlSupport.id)
+                    .build()
+                    .execute()
+                    .stream()
+                    .filter(rec -> !existingIds.contains(rec.getId()))
+                    .map(this::toDomainModel)
+                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .collect(Collectors.toList());
+        })
+                .onError(TransactionHandler::rollback);
+    }
+
     @Override
     @Transactional
     public Result<ClientGroup> save(final ClientGroup data) {
@@ -184,9 +238,11 @@ public class ClientGroupDAOImpl implements ClientGroupDAO {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Result<Collection<ClientGroup>> allForExam(final Long examId) {
-        return Result.tryCatch(() -> this.clientGroupRecordMapper
+        // NOTE: This is called on every cache miss of the running exam client group cache.
+        //       Concurrent misses for the same exam wait for one load. There is no transaction here so that
+        //       waiting callers do not hold a database connection.
+        return this.examClientGroupsLoad.load(examId, () -> Result.tryCatch(() -> this.clientGroupRecordMapper
                 .selectByExample()
                 .where(ClientGroupRecordDynamicSqlSupport.examId, isEqualTo(examId))
                 .build()
@@ -195,7 +251,7 @@ public class ClientGroupDAOImpl implements ClientGroupDAO {
                 .map(this::toDomainModel)
                 .flatMap(DAOLoggingSupport::logAndSkipOnError)
                 .sorted()
-                .collect(Collectors.toList()));
+                .collect(Collectors.toList())));
     }
 
     @Override
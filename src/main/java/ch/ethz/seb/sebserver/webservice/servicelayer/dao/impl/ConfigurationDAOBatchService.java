@@ -11,10 +11,17 @@ package ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl;
 import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
 import static org.mybatis.dynamic.sql.SqlBuilder.isNotEqualTo;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -27,9 +34,13 @@ import org.mybatis.spring.SqlSessionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.DependsOn;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import ch.ethz.seb.sebserver.gbl.api.APIMessage.FieldValidationException;
 import ch.ethz.seb.sebserver.gbl.api.EntityType;
@@ -41,10 +52,14 @@ import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationNode;
 import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationNode.ConfigurationStatus;
 import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationTableValues;
 import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationTableValues.TableValue;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationValue;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.BatisConfig;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ConfigurationHistoryMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ConfigurationHistoryMapper.ValueDeltaRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ConfigurationValueCopyMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationAttributeRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationAttributeRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationNodeRecordDynamicSqlSupport;
@@ -60,6 +75,8 @@ import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationValue
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.DAOUserServcie;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ResourceNotFoundException;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.TransactionHandler;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.ConfigurationValueDelta.Change;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.ConfigurationValueDelta.ValueKey;
 import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.ExamConfigInitService;
 
 /** This service is internally used to implement MyBatis batch functionality for the most
@@ -74,18 +91,34 @@ class ConfigurationDAOBatchService {
 
     public static final String INITIAL_VERSION_NAME = "v0";
 
+    private static final ConfigurationValueDelta EMPTY_DELTA = new ConfigurationValueDelta(Collections.emptyMap());
+
+    /** The order of the historic versions of a configuration node from the oldest to the newest */
+    static final Comparator<ConfigurationRecord> HISTORY_ORDER = Comparator
+            .comparing(ConfigurationRecord::getVersionDate, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(ConfigurationRecord::getId);
+
+    /** The maximum number of values written with one multi-row upsert statement */
+    private static final int UPSERT_CHUNK_SIZE = 250;
+
     private final ConfigurationNodeRecordMapper batchConfigurationNodeRecordMapper;
     private final ConfigurationValueRecordMapper batchConfigurationValueRecordMapper;
     private final ConfigurationAttributeRecordMapper batchConfigurationAttributeRecordMapper;
     private final ConfigurationRecordMapper batchConfigurationRecordMapper;
+    private final ConfigurationHistoryMapper configurationHistoryMapper;
+    private final ConfigurationValueCopyMapper configurationValueCopyMapper;
     private final ExamConfigInitService examConfigInitService;
     private final SqlSessionTemplate batchSqlSessionTemplate;
     private final DAOUserServcie daoUserServcie;
+    private final TransactionTemplate transactionTemplate;
+    private final int compactionMaxNodes;
 
     protected ConfigurationDAOBatchService(
             final DAOUserServcie daoUserServcie,
             @Qualifier(BatisConfig.SQL_BATCH_SESSION_TEMPLATE) final SqlSessionTemplate batchSqlSessionTemplate,
-            final ExamConfigInitService examConfigInitService) {
+            final ExamConfigInitService examConfigInitService,
+            final PlatformTransactionManager transactionManager,
+            @Value("${sebserver.webservice.configuration.history.compaction.max-nodes:10}") final int compactionMaxNodes) {
 
         final org.apache.ibatis.session.Configuration batisConfig =
                 batchSqlSessionTemplate.getConfiguration();
@@ -110,6 +143,14 @@ class ConfigurationDAOBatchService {
             batisConfig.addMapper(ConfigurationRecordMapper.class);
         }
 
+        if (!batisConfig.hasMapper(ConfigurationHistoryMapper.class)) {
+            batisConfig.addMapper(ConfigurationHistoryMapper.class);
+        }
+
+        if (!batisConfig.hasMapper(ConfigurationValueCopyMapper.class)) {
+            batisConfig.addMapper(ConfigurationValueCopyMapper.class);
+        }
+
         this.batchConfigurationNodeRecordMapper =
                 batchSqlSessionTemplate.getMapper(ConfigurationNodeRecordMapper.class);
         this.batchConfigurationValueRecordMapper =
@@ -118,8 +159,45 @@ class ConfigurationDAOBatchService {
                 batchSqlSessionTemplate.getMapper(ConfigurationAttributeRecordMapper.class);
         this.batchConfigurationRecordMapper =
                 batchSqlSessionTemplate.getMapper(ConfigurationRecordMapper.class);
+        this.configurationHistoryMapper =
+                batchSqlSessionTemplate.getMapper(ConfigurationHistoryMapper.class);
+        this.configurationValueCopyMapper =
+                batchSqlSessionTemplate.getMapper(ConfigurationValueCopyMapper.class);
         this.batchSqlSessionTemplate = batchSqlSessionTemplate;
         this.daoUserServcie = daoUserServcie;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.compactionMaxNodes = compactionMaxNodes;
+    }
+
+    /** Compacts the version history of some configuration nodes that still have more than one historic
+     * version with all attribute values. Each configuration node is compacted within its own transaction
+     * that holds the row lock of the configuration node. Since all changes of a version history take this
+     * lock, this can run on every webservice instance in parallel. */
+    @Scheduled(
+            fixedDelayString = "${sebserver.webservice.configuration.history.compaction.interval:3600000}",
+            initialDelay = 60000)
+    public void compactHistories() {
+        if (this.compactionMaxNodes <= 0) {
+            return;
+        }
+
+        try {
+            final Collection<Long> nodeIds = this.configurationHistoryMapper
+                    .selectNodesToCompact(this.compactionMaxNodes);
+
+            for (final Long nodeId : nodeIds) {
+                this.transactionTemplate.execute(status -> compactHistory(nodeId)
+                        .onSuccess(num -> log.info(
+                                "Compacted {} historic versions of configuration node: {}", num, nodeId))
+                        .onError(error -> {
+                            log.error("Failed to compact history of configuration node: {}", nodeId, error);
+                            status.setRollbackOnly();
+                        })
+                        .getOr(0));
+            }
+        } catch (final Exception e) {
+            log.error("Failed to compact configuration histories: ", e);
+        }
     }
 
     Result<ConfigurationNode> createNewConfiguration(final ConfigurationNode data) {
@@ -188,22 +266,134 @@ class ConfigurationDAOBatchService {
                 });
     }
 
+    /** Saves the given attribute values to a follow-up configuration at once. This is used to write many values,
+     * e.g. on import of SEB settings.
+     * <p>
+     * The existing values of the configuration are loaded once and the given values are written with multi-row
+     * upserts. Existing values are updated, missing values are inserted and unchanged values are skipped.
+     * If there is more than one given value for the same attribute and list index, the last one is taken.
+     *
+     * @param institutionId the institution identifier of the configuration
+     * @param configurationId the identifier of the follow-up configuration
+     * @param values the attribute values to save
+     * @return Result refer to the number of written values or to an error when happened */
+    Result<Integer> saveValues(
+            final Long institutionId,
+            final Long configurationId,
+            final Collection<ConfigurationValue> values) {
+
+        return Result.tryCatch(() -> {
+
+            final ConfigurationRecord config = this.batchConfigurationRecordMapper
+                    .selectByPrimaryKey(configurationId);
+            if (config == null) {
+                throw new ResourceNotFoundException(EntityType.CONFIGURATION, String.valueOf(configurationId));
+            }
+            if (config.getInstitutionId().longValue() != institutionId.longValue()) {
+                throw new IllegalArgumentException("Institutional integrity constraint violation");
+            }
+            if (!BooleanUtils.toBoolean(config.getFollowup())) {
+                throw new IllegalArgumentException(
+                        "Forbidden to modify an configuration value of a none follow-up configuration");
+            }
+
+            final Map<ValueKey, ConfigurationValue> newValues = new LinkedHashMap<>();
+            values.forEach(val -> newValues.put(new ValueKey(val.attributeId, val.listIndex), val));
+
+            final Map<ValueKey, ConfigurationValueRecord> existingValues = ConfigurationValueDelta.toMap(
+                    getValueRecords(configurationId),
+                    ConfigurationDAOBatchService::valueKey);
+
+            // new values without value get the default value of the attribute
+            final Map<Long, String> defaultValues = getDefaultValues(newValues.entrySet()
+                    .stream()
+                    .filter(entry -> entry.getValue().value == null && !existingValues.containsKey(entry.getKey()))
+                    .map(entry -> entry.getKey().attributeId)
+                    .collect(Collectors.toSet()));
+
+            final List<ConfigurationValueRecord> records = new ArrayList<>(newValues.size());
+            newValues.forEach((key, val) -> {
+                final ConfigurationValueRecord existing = existingValues.get(key);
+                if (existing == null) {
+                    records.add(new ConfigurationValueRecord(
+                            null,
+                            institutionId,
+                            configurationId,
+                            key.attributeId,
+                            key.listIndex,
+                            (val.value != null) ? val.value : defaultValues.get(key.attributeId)));
+                } else if (val.value != null && !val.value.equals(existing.getValue())) {
+                    // like a single save, a null value does not change an existing value
+                    records.add(new ConfigurationValueRecord(
+                            existing.getId(),
+                            institutionId,
+                            configurationId,
+                            key.attributeId,
+                            key.listIndex,
+                            val.value));
+                }
+            });
+
+            for (int from = 0; from < records.size(); from += UPSERT_CHUNK_SIZE) {
+                final int to = Math.min(from + UPSERT_CHUNK_SIZE, records.size());
+                this.configurationValueCopyMapper.upsertValues(records.subList(from, to));
+                this.batchSqlSessionTemplate.flushStatements();
+
+                if (log.isDebugEnabled()) {
+                    log.debug("Saved {} of {} changed values of configuration: {}", to, records.size(),
+                            configurationId);
+                }
+            }
+
+            return records.size();
+        });
+    }
+
+    private Map<Long, String> getDefaultValues(final Set<Long> attributeIds) {
+        if (attributeIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        final Map<Long, String> result = new HashMap<>();
+        this.batchConfigurationAttributeRecordMapper
+                .selectByExample()
+                .where(
+                        ConfigurationAttributeRecordDynamicSqlSupport.id,
+                        SqlBuilder.isIn(new ArrayList<>(attributeIds)))
+                .build()
+                .execute()
+                .forEach(rec -> result.put(rec.getId(), rec.getDefaultValue()));
+        return result;
+    }
+
+    /** Saves the current follow-up configuration as new version to the history.
+     * <p>
+     * The newest historic version and the follow-up always hold all attribute values. Instead of copying all
+     * attribute values for the new follow-up, the attribute values of the previous newest version are taken
+     * over by the new follow-up and only the values that have been changed since are updated. The previous
+     * newest version keeps the values that differ from the new version as delta.
+     *
+     * @param configurationNodeId the configuration node identifier
+     * @return Result refer to the new follow-up configuration or to an error when happened */
     Result<Configuration> saveToHistory(final Long configurationNodeId) {
         return Result.tryCatch(() -> {
 
+            lockHistory(configurationNodeId);
+
             // get follow-up configuration...
             final ConfigurationRecord followupConfig = getFollowupConfigurationRecord(configurationNodeId);
 
             // with actual attribute values
-            final List<ConfigurationValueRecord> allValues = this.batchConfigurationValueRecordMapper
-                    .selectByExample()
-                    .where(
-                            ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                            isEqualTo(followupConfig.getId()))
-                    .build()
-                    .execute();
+            final List<ConfigurationValueRecord> allValues = getValueRecords(followupConfig.getId());
 
-            // get current versions count
+            // and the previous newest version of the history
+            final List<ConfigurationRecord> history = getHistory(configurationNodeId);
+            final ConfigurationRecord previousVersion = (history.isEmpty())
+                    ? null
+                    : history.get(history.size() - 1);
+            final List<ConfigurationValueRecord> previousValues = (previousVersion != null)
+                    ? getValueRecords(previousVersion.getId())
+                    : Collections.emptyList();
 
             // close follow-up configuration to save in history
             final ConfigurationRecord configUpdate = new ConfigurationRecord(
@@ -229,16 +419,39 @@ class ConfigurationDAOBatchService {
 
             this.batchSqlSessionTemplate.flushStatements();
 
-            // with the current attribute values
-            allValues.stream()
-                    .map(oldValRec -> new ConfigurationValueRecord(
-                            null,
-                            oldValRec.getInstitutionId(),
-                            newFollowup.getId(),
-                            oldValRec.getConfigurationAttributeId(),
-                            oldValRec.getListIndex(),
-                            oldValRec.getValue()))
-                    .forEach(this.batchConfigurationValueRecordMapper::insert);
+            if (previousValues.isEmpty()) {
+                // no previous version with attribute values, copy the current attribute values
+                allValues.stream()
+                        .map(oldValRec -> new ConfigurationValueRecord(
+                                null,
+                                oldValRec.getInstitutionId(),
+                                newFollowup.getId(),
+                                oldValRec.getConfigurationAttributeId(),
+                                oldValRec.getListIndex(),
+                                oldValRec.getValue()))
+                        .forEach(this.batchConfigurationValueRecordMapper::insert);
+            } else {
+                final Map<ValueKey, String> currentValueMap = toValueMap(allValues);
+                final Map<ValueKey, ConfigurationValueRecord> previousRecords = ConfigurationValueDelta
+                        .toMap(previousValues, ConfigurationDAOBatchService::valueKey);
+                final Map<ValueKey, String> previousValueMap = toValueMap(previousValues);
+
+                // the previous version keeps only the values that differ from the new version
+                storeDelta(
+                        previousVersion.getId(),
+                        ConfigurationValueDelta.of(currentValueMap, previousValueMap));
+
+                // and its attribute values are taken over by the new follow-up
+                this.configurationHistoryMapper.moveValues(previousVersion.getId(), newFollowup.getId());
+
+                // with the changes since the previous version
+                applyDelta(
+                        newFollowup,
+                        previousRecords,
+                        ConfigurationValueDelta.of(previousValueMap, currentValueMap));
+            }
+
+            this.batchSqlSessionTemplate.flushStatements();
 
             return this.batchConfigurationRecordMapper
                     .selectByPrimaryKey(newFollowup.getId());
@@ -300,6 +513,8 @@ class ConfigurationDAOBatchService {
     Result<Configuration> restoreToVersion(final Long configurationNodeId, final Long configId) {
         return Result.tryCatch(() -> {
 
+            lockHistory(configurationNodeId);
+
             // get requested configuration in history...
             final ConfigurationRecord config = this.batchConfigurationRecordMapper
                     .selectByExample()
@@ -315,42 +530,238 @@ class ConfigurationDAOBatchService {
                     .collect(Utils.toSingleton());
 
             // with historic attribute values
-            final List<ConfigurationValueRecord> historicValues = this.batchConfigurationValueRecordMapper
-                    .selectByExample()
-                    .where(
-                            ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                            isEqualTo(config.getId()))
-                    .build()
-                    .execute();
+            final Map<ValueKey, String> historicValues = getResolvedValues(config);
 
-            // get follow-up configuration id
+            // get follow-up configuration with current attribute values
             final ConfigurationRecord followup = getFollowupConfigurationRecord(configurationNodeId);
+            final List<ConfigurationValueRecord> currentValues = getValueRecords(followup.getId());
 
-            // delete all values of the follow-up
-            this.batchConfigurationValueRecordMapper
-                    .deleteByExample()
-                    .where(
-                            ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                            isEqualTo(followup.getId()))
-                    .build()
-                    .execute();
-
-            // restore all current values of the follow-up with historic values
-            historicValues.stream()
-                    .map(historicValRec -> new ConfigurationValueRecord(
-                            null,
-                            followup.getInstitutionId(),
-                            followup.getId(),
-                            historicValRec.getConfigurationAttributeId(),
-                            historicValRec.getListIndex(),
-                            historicValRec.getValue()))
-                    .forEach(this.batchConfigurationValueRecordMapper::insert);
+            // restore only the current values of the follow-up that differ from the historic values
+            applyDelta(
+                    followup,
+                    ConfigurationValueDelta.toMap(currentValues, ConfigurationDAOBatchService::valueKey),
+                    ConfigurationValueDelta.of(toValueMap(currentValues), historicValues));
 
             return followup;
         })
                 .flatMap(ConfigurationDAOImpl::toDomainModel);
     }
 
+    /** Compacts the version history of the given configuration node. All historic versions that hold all
+     * attribute values, except the newest, are reduced to the values that differ from the next newer version.
+     *
+     * @param configurationNodeId the configuration node identifier
+     * @return Result refer to the number of compacted versions or to an error when happened */
+    Result<Integer> compactHistory(final Long configurationNodeId) {
+        return Result.tryCatch(() -> {
+
+            // the history may have been compacted or changed by another instance while waiting for the lock
+            lockHistory(configurationNodeId);
+
+            final List<ConfigurationRecord> history = getHistory(configurationNodeId);
+            if (history.size() < 2) {
+                return 0;
+            }
+
+            final Map<Long, Long> valueCounts = getValueCounts(history);
+            final ConfigurationRecord newest = history.get(history.size() - 1);
+            if (!valueCounts.containsKey(newest.getId())) {
+                log.warn("Newest version of configuration node: {} has no values. Skip compaction",
+                        configurationNodeId);
+                return 0;
+            }
+
+            // walk from the newest to the oldest version and keep the values of the next newer version
+            int compacted = 0;
+            Map<ValueKey, String> newerValues = toValueMap(getValueRecords(newest.getId()));
+            for (int i = history.size() - 2; i >= 0; i--) {
+                final Long configId = history.get(i).getId();
+                if (valueCounts.containsKey(configId)) {
+                    final Map<ValueKey, String> values = toValueMap(getValueRecords(configId));
+                    storeDelta(configId, ConfigurationValueDelta.of(newerValues, values));
+                    this.batchConfigurationValueRecordMapper
+                            .deleteByExample()
+                            .where(
+                                    ConfigurationValueRecordDynamicSqlSupport.configurationId,
+                                    isEqualTo(configId))
+                            .build()
+                            .execute();
+                    newerValues = values;
+                    compacted++;
+                } else {
+                    getDeltas(Arrays.asList(configId))
+                            .getOrDefault(configId, EMPTY_DELTA)
+                            .applyTo(newerValues);
+                }
+            }
+
+            this.batchSqlSessionTemplate.flushStatements();
+            return compacted;
+        });
+    }
+
+    /** Get all attribute values of the given configuration. For a historic version that only holds a delta,
+     * the attribute values are resolved by applying the deltas of all newer versions in reverse order to the
+     * next newer version that holds all attribute values. */
+    private Map<ValueKey, String> getResolvedValues(final ConfigurationRecord config) {
+        if (BooleanUtils.toBoolean(config.getFollowup())) {
+            return toValueMap(getValueRecords(config.getId()));
+        }
+
+        final List<ConfigurationRecord> history = getHistory(config.getConfigurationNodeId());
+        int index = 0;
+        while (index < history.size() && !history.get(index).getId().equals(config.getId())) {
+            index++;
+        }
+        final List<ConfigurationRecord> chain = history.subList(Math.min(index, history.size()), history.size());
+        final Map<Long, Long> valueCounts = getValueCounts(chain);
+
+        // find the next version that holds all attribute values
+        final List<Long> deltaIds = new ArrayList<>();
+        Long baseId = null;
+        for (final ConfigurationRecord rec : chain) {
+            if (valueCounts.containsKey(rec.getId())) {
+                baseId = rec.getId();
+                break;
+            }
+            deltaIds.add(rec.getId());
+        }
+
+        if (baseId == null) {
+            throw new IllegalStateException(
+                    "No version with attribute values found for configuration: " + config.getId());
+        }
+
+        final Map<ValueKey, String> values = toValueMap(getValueRecords(baseId));
+        if (deltaIds.isEmpty()) {
+            return values;
+        }
+
+        final Map<Long, ConfigurationValueDelta> deltas = getDeltas(deltaIds);
+        for (int i = deltaIds.size() - 1; i >= 0; i--) {
+            deltas.getOrDefault(deltaIds.get(i), EMPTY_DELTA).applyTo(values);
+        }
+        return values;
+    }
+
+    /** Locks the version history of the given configuration node until the end of the current transaction */
+    private void lockHistory(final Long configurationNodeId) {
+        if (this.configurationHistoryMapper.lockConfigurationNode(configurationNodeId) == null) {
+            throw new ResourceNotFoundException(EntityType.CONFIGURATION_NODE, String.valueOf(configurationNodeId));
+        }
+    }
+
+    /** Get all historic versions of a configuration node ordered from the oldest to the newest */
+    private List<ConfigurationRecord> getHistory(final Long configurationNodeId) {
+        final List<ConfigurationRecord> history = this.batchConfigurationRecordMapper
+                .selectByExample()
+                .where(
+                        ConfigurationRecordDynamicSqlSupport.configurationNodeId,
+                        isEqualTo(configurationNodeId))
+                .and(
+                        ConfigurationRecordDynamicSqlSupport.followup,
+                        isEqualTo(BooleanUtils.toInteger(false)))
+                .build()
+                .execute();
+
+        history.sort(HISTORY_ORDER);
+        return history;
+    }
+
+    private Map<Long, Long> getValueCounts(final List<ConfigurationRecord> configs) {
+        return this.configurationHistoryMapper
+                .countValues(configs.stream()
+                        .map(ConfigurationRecord::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .filter(rec -> rec.num != null && rec.num > 0)
+                .collect(Collectors.toMap(rec -> rec.configurationId, rec -> rec.num));
+    }
+
+    private Map<Long, ConfigurationValueDelta> getDeltas(final List<Long> configIds) {
+        final Map<Long, Map<ValueKey, Change>> changes = new HashMap<>();
+        this.configurationHistoryMapper
+                .selectDeltas(configIds)
+                .forEach(rec -> changes
+                        .computeIfAbsent(rec.configurationId, id -> new HashMap<>())
+                        .put(
+                                new ValueKey(rec.configurationAttributeId, rec.listIndex),
+                                new Change(rec.value, BooleanUtils.toBoolean(rec.removed))));
+
+        return changes.entrySet()
+                .stream()
+                .collect(Collectors.toMap(
+                        Map.Entry::getKey,
+                        entry -> new ConfigurationValueDelta(entry.getValue())));
+    }
+
+    private void storeDelta(final Long configId, final ConfigurationValueDelta delta) {
+        delta.changes.forEach((key, change) -> this.configurationHistoryMapper.insertDelta(
+                new ValueDeltaRecord(
+                        configId,
+                        key.attributeId,
+                        key.listIndex,
+                        change.value,
+                        BooleanUtils.toInteger(change.removed))));
+    }
+
+    /** Applies the given delta to the attribute value records of the given configuration */
+    private void applyDelta(
+            final ConfigurationRecord config,
+            final Map<ValueKey, ConfigurationValueRecord> records,
+            final ConfigurationValueDelta delta) {
+
+        delta.changes.forEach((key, change) -> {
+            final ConfigurationValueRecord rec = records.get(key);
+            if (change.removed) {
+                if (rec != null) {
+                    this.batchConfigurationValueRecordMapper.deleteByPrimaryKey(rec.getId());
+                }
+            } else if (rec != null) {
+                this.batchConfigurationValueRecordMapper.updateByPrimaryKey(new ConfigurationValueRecord(
+                        rec.getId(),
+                        config.getInstitutionId(),
+                        config.getId(),
+                        key.attributeId,
+                        key.listIndex,
+                        change.value));
+            } else {
+                this.batchConfigurationValueRecordMapper.insert(new ConfigurationValueRecord(
+                        null,
+                        config.getInstitutionId(),
+                        config.getId(),
+                        key.attributeId,
+                        key.listIndex,
+                        change.value));
+            }
+        });
+    }
+
+    private List<ConfigurationValueRecord> getValueRecords(final Long configId) {
+        return this.batchConfigurationValueRecordMapper
+                .selectByExample()
+                .where(
+                        ConfigurationValueRecordDynamicSqlSupport.configurationId,
+                        isEqualTo(configId))
+                .build()
+                .execute();
+    }
+
+    private static Map<ValueKey, String> toValueMap(final List<ConfigurationValueRecord> records) {
+        final Map<ValueKey, String> result = new HashMap<>(records.size() * 2);
+        records.forEach(rec -> {
+            final ValueKey key = valueKey(rec);
+            if (!result.containsKey(key)) {
+                result.put(key, rec.getValue());
+            }
+        });
+        return result;
+    }
+
+    private static ValueKey valueKey(final ConfigurationValueRecord rec) {
+        return new ValueKey(rec.getConfigurationAttributeId(), rec.getListIndex());
+    }
+
     Result<ConfigurationNode> createCopy(
             final Long institutionId,
             final String newOwner,
@@ -492,6 +903,9 @@ class ConfigurationDAOBatchService {
                             institutionId,
                             fromConfigurationId,
                             newConfig.getId());
+                    this.configurationHistoryMapper.copyDeltas(
+                            fromConfigurationId,
+                            newConfig.getId());
                     return newConfig;
                 });
     }
@@ -501,25 +915,7 @@ class ConfigurationDAOBatchService {
             final Long fromConfigId,
             final Long toConfigId) {
 
-        this.batchConfigurationValueRecordMapper
-                .selectByExample()
-                .where(
-                        ConfigurationValueRecordDynamicSqlSupport.institutionId,
-                        isEqualTo(institutionId))
-                .and(
-                        ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                        isEqualTo(fromConfigId))
-                .build()
-                .execute()
-                .stream()
-                .map(fromRec -> new ConfigurationValueRecord(
-                        null,
-                        fromRec.getInstitutionId(),
-                        toConfigId,
-                        fromRec.getConfigurationAttributeId(),
-                        fromRec.getListIndex(),
-                        fromRec.getValue()))
-                .forEach(this.batchConfigurationValueRecordMapper::insert);
+        this.configurationValueCopyMapper.copyValues(institutionId, fromConfigId, toConfigId);
     }
 
     private ConfigurationRecord getFollowupConfigurationRecord(final Long configurationNodeId) {
@@ -709,27 +1105,37 @@ class ConfigurationDAOBatchService {
 
         return Result.tryCatch(() -> {
 
-            // go through all configuration attributes and create and store the default value
-            this.batchConfigurationAttributeRecordMapper
+            // get all configuration attributes that have a default value.
+            // filter child attributes of tables. No default value for tables. Use templates for that
+            final List<Long> attributeIds = this.batchConfigurationAttributeRecordMapper
                     .selectByExample()
                     .build()
                     .execute()
                     .stream()
-                    // filter child attributes of tables. No default value for tables. Use templates for that
                     .filter(ConfigurationDAOBatchService::filterChildAttribute)
-                    .forEach(attrRec -> this.batchConfigurationValueRecordMapper.insert(new ConfigurationValueRecord(
-                            null,
-                            configNode.institutionId,
-                            config.getId(),
-                            attrRec.getId(),
-                            0,
-                            attrRec.getDefaultValue())));
-
-            // override with template values if available
-            if (configNode.templateId == null || configNode.templateId.equals(ConfigurationNode.DEFAULT_TEMPLATE_ID)) {
+                    .map(ConfigurationAttributeRecord::getId)
+                    .collect(Collectors.toList());
+
+            final Long templateConfigId = getTemplateConfigurationId(configNode);
+
+            // create the default values of all attributes that are not defined by the template
+            if (!attributeIds.isEmpty()) {
+                this.configurationValueCopyMapper.insertDefaultValues(
+                        configNode.institutionId,
+                        config.getId(),
+                        attributeIds,
+                        templateConfigId);
+            }
+
+            if (templateConfigId == null) {
                 initAdditionalDefaultValues(configNode, config);
             } else {
-                writeTemplateValues(configNode, config);
+                // and copy the values of the template
+                this.configurationValueCopyMapper.copyTemplateValues(
+                        configNode.institutionId,
+                        templateConfigId,
+                        config.getId());
+                this.batchSqlSessionTemplate.flushStatements();
             }
 
             return configNode;
@@ -772,47 +1178,6 @@ class ConfigurationDAOBatchService {
         this.batchSqlSessionTemplate.flushStatements();
     }
 
-    private void writeTemplateValues(
-            final ConfigurationNode configNode,
-            final ConfigurationRecord config) {
-
-        final List<ConfigurationValueRecord> templateValues = getTemplateValues(configNode);
-        templateValues.forEach(templateValue -> {
-            final Long existingId = this.batchConfigurationValueRecordMapper
-                    .selectIdsByExample()
-                    .where(
-                            ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                            isEqualTo(config.getId()))
-                    .and(
-                            ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId,
-                            isEqualTo(templateValue.getConfigurationAttributeId()))
-                    .and(
-                            ConfigurationValueRecordDynamicSqlSupport.listIndex,
-                            isEqualTo(templateValue.getListIndex()))
-                    .build()
-                    .execute()
-                    .stream()
-                    .findFirst()
-                    .orElse(null);
-
-            final ConfigurationValueRecord valueRec = new ConfigurationValueRecord(
-                    existingId,
-                    configNode.institutionId,
-                    config.getId(),
-                    templateValue.getConfigurationAttributeId(),
-                    templateValue.getListIndex(),
-                    templateValue.getValue());
-
-            if (existingId != null) {
-                this.batchConfigurationValueRecordMapper.updateByPrimaryKey(valueRec);
-            } else {
-                this.batchConfigurationValueRecordMapper.insert(valueRec);
-            }
-        });
-
-        this.batchSqlSessionTemplate.flushStatements();
-    }
-
     private static boolean filterChildAttribute(final ConfigurationAttributeRecord rec) {
 
         if (rec.getParentId() == null) {
@@ -825,15 +1190,15 @@ class ConfigurationDAOBatchService {
     }
 
     /*
-     * Get values from template with configuration attribute id mapped to the value
-     * returns empty list if no template available
+     * Get the identifier of the follow-up configuration of the template of the given configuration node
+     * returns null if no template available
      */
-    private List<ConfigurationValueRecord> getTemplateValues(final ConfigurationNode configNode) {
+    private Long getTemplateConfigurationId(final ConfigurationNode configNode) {
         if (configNode.templateId == null || configNode.templateId.equals(ConfigurationNode.DEFAULT_TEMPLATE_ID)) {
-            return Collections.emptyList();
+            return null;
         }
 
-        final Long configurationId = this.batchConfigurationRecordMapper.selectByExample()
+        return this.batchConfigurationRecordMapper.selectByExample()
                 .where(ConfigurationRecordDynamicSqlSupport.configurationNodeId, isEqualTo(configNode.templateId))
                 .and(ConfigurationRecordDynamicSqlSupport.followup, isEqualTo(BooleanUtils.toIntegerObject(true)))
                 .build()
@@ -841,11 +1206,6 @@ class ConfigurationDAOBatchService {
                 .stream()
                 .collect(Utils.toSingleton())
                 .getId();
-
-        return this.batchConfigurationValueRecordMapper.selectByExample()
-                .where(ConfigurationValueRecordDynamicSqlSupport.configurationId, isEqualTo(configurationId))
-                .build()
-                .execute();
     }
 
 }
@@ -42,6 +42,8 @@ import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationNode.Configuration
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ConfigurationHistoryMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.RequestScopedCache;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationAttributeRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationNodeRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationNodeRecordMapper;
@@ -73,6 +75,7 @@ public class ConfigurationNodeDAOImpl implements ConfigurationNodeDAO {
     private final ConfigurationRecordMapper configurationRecordMapper;
     private final ConfigurationNodeRecordMapper configurationNodeRecordMapper;
     private final ConfigurationValueRecordMapper configurationValueRecordMapper;
+    private final ConfigurationHistoryMapper configurationHistoryMapper;
     private final ConfigurationDAOBatchService configurationDAOBatchService;
     private final ExamTemplateRecordMapper examTemplateRecordMapper;
     private final ViewRecordMapper viewRecordMapper;
@@ -83,6 +86,7 @@ public class ConfigurationNodeDAOImpl implements ConfigurationNodeDAO {
             final ConfigurationRecordMapper configurationRecordMapper,
             final ConfigurationNodeRecordMapper configurationNodeRecordMapper,
             final ConfigurationValueRecordMapper configurationValueRecordMapper,
+            final ConfigurationHistoryMapper configurationHistoryMapper,
             final ConfigurationAttributeRecordMapper configurationAttributeRecordMapper,
             final ConfigurationDAOBatchService ConfigurationDAOBatchService,
             final ExamTemplateRecordMapper examTemplateRecordMapper,
@@ -93,6 +97,7 @@ public class ConfigurationNodeDAOImpl implements ConfigurationNodeDAO {
         this.configurationRecordMapper = configurationRecordMapper;
         this.configurationNodeRecordMapper = configurationNodeRecordMapper;
         this.configurationValueRecordMapper = configurationValueRecordMapper;
+        this.configurationHistoryMapper = configurationHistoryMapper;
         this.configurationDAOBatchService = ConfigurationDAOBatchService;
         this.examTemplateRecordMapper = examTemplateRecordMapper;
         this.viewRecordMapper = viewRecordMapper;
@@ -108,8 +113,8 @@ public class ConfigurationNodeDAOImpl implements ConfigurationNodeDAO {
     @Override
     @Transactional(readOnly = true)
     public Result<ConfigurationNode> byPK(final Long id) {
-        return recordById(id)
-                .flatMap(ConfigurationNodeDAOImpl::toDomainModel);
+        return RequestScopedCache.memoize(EntityType.CONFIGURATION_NODE, id, () -> recordById(id)
+                .flatMap(ConfigurationNodeDAOImpl::toDomainModel));
     }
 
     @Override
@@ -288,6 +293,9 @@ public class ConfigurationNodeDAOImpl implements ConfigurationNodeDAO {
                         .build()
                         .execute();
 
+                // delete all value deltas of historic versions of the Configuration's to delete
+                this.configurationHistoryMapper.deleteDeltas(configurationIds);
+
                 // delete all Configuration's
                 this.configurationRecordMapper.deleteByExample()
                         .where(ConfigurationRecordDynamicSqlSupport.id, isIn(configurationIds))
@@ -51,6 +51,7 @@ import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationAttributeRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationAttributeRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationValueRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationValueRecordMapper;
@@ -104,30 +105,35 @@ public class ConfigurationValueDAOImpl implements ConfigurationValueDAO {
             final FilterMap filterMap,
             final Predicate<ConfigurationValue> predicate) {
 
-        return Result.tryCatch(() -> this.configurationValueRecordMapper
-                .selectByExample()
-                .where(
-                        ConfigurationValueRecordDynamicSqlSupport.institutionId,
-                        SqlBuilder.isEqualToWhenPresent(filterMap.getInstitutionId()))
-                .and(
-                        ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                        SqlBuilder.isEqualToWhenPresent(filterMap.getConfigValueConfigId()))
-                .and(
-                        ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId,
-                        SqlBuilder.isEqualToWhenPresent(filterMap.getConfigValueAttributeId()))
-                .build()
-                .execute()
-                .stream()
-                .map(ConfigurationValueDAOImpl::toDomainModel)
-                .flatMap(DAOLoggingSupport::logAndSkipOnError)
-                .filter(predicate)
-                .collect(Collectors.toList()));
+        return Result.tryCatch(() -> {
+
+            checkHoldsAllValues(filterMap.getConfigValueConfigId());
+            return this.configurationValueRecordMapper
+                    .selectByExample()
+                    .where(
+                            ConfigurationValueRecordDynamicSqlSupport.institutionId,
+                            SqlBuilder.isEqualToWhenPresent(filterMap.getInstitutionId()))
+                    .and(
+                            ConfigurationValueRecordDynamicSqlSupport.configurationId,
+                            SqlBuilder.isEqualToWhenPresent(filterMap.getConfigValueConfigId()))
+                    .and(
+                            ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId,
+                            SqlBuilder.isEqualToWhenPresent(filterMap.getConfigValueAttributeId()))
+                    .build()
+                    .execute()
+                    .stream()
+                    .map(ConfigurationValueDAOImpl::toDomainModel)
+                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .filter(predicate)
+                    .collect(Collectors.toList());
+        });
     }
 
     @Override
     public Result<String> getConfigAttributeValue(final Long configId, final Long attrId) {
         return Result.tryCatch(() -> {
 
+            checkHoldsAllValues(configId);
             final List<ConfigurationValueRecord> records = this.configurationValueRecordMapper.selectByExample()
                     .where(
                             ConfigurationValueRecordDynamicSqlSupport.configurationId,
@@ -213,27 +219,31 @@ public class ConfigurationValueDAOImpl implements ConfigurationValueDAO {
             final Long institutionId,
             final Long configurationId) {
 
-        return Result.tryCatch(() -> this.configurationValueRecordMapper
-                .selectByExample()
-                .join(ConfigurationAttributeRecordDynamicSqlSupport.configurationAttributeRecord)
-                .on(
-                        ConfigurationAttributeRecordDynamicSqlSupport.id,
-                        SqlBuilder.equalTo(ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId))
-                .where(
-                        ConfigurationValueRecordDynamicSqlSupport.institutionId,
-                        SqlBuilder.isEqualToWhenPresent(institutionId))
-                .and(
-                        ConfigurationValueRecordDynamicSqlSupport.configurationId,
-                        SqlBuilder.isEqualTo(configurationId))
-                .and(
-                        ConfigurationAttributeRecordDynamicSqlSupport.parentId,
-                        SqlBuilder.isNull())
-                .build()
-                .execute()
-                .stream()
-                .map(ConfigurationValueDAOImpl::toDomainModel)
-                .flatMap(DAOLoggingSupport::logAndSkipOnError)
-                .collect(Collectors.toList()));
+        return Result.tryCatch(() -> {
+
+            checkHoldsAllValues(configurationId);
+            return this.configurationValueRecordMapper
+                    .selectByExample()
+                    .join(ConfigurationAttributeRecordDynamicSqlSupport.configurationAttributeRecord)
+                    .on(
+                            ConfigurationAttributeRecordDynamicSqlSupport.id,
+                            SqlBuilder.equalTo(ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId))
+                    .where(
+                            ConfigurationValueRecordDynamicSqlSupport.institutionId,
+                            SqlBuilder.isEqualToWhenPresent(institutionId))
+                    .and(
+                            ConfigurationValueRecordDynamicSqlSupport.configurationId,
+                            SqlBuilder.isEqualTo(configurationId))
+                    .and(
+                            ConfigurationAttributeRecordDynamicSqlSupport.parentId,
+                            SqlBuilder.isNull())
+                    .build()
+                    .execute()
+                    .stream()
+                    .map(ConfigurationValueDAOImpl::toDomainModel)
+                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .collect(Collectors.toList());
+        });
     }
 
     @Override
@@ -357,7 +367,8 @@ public class ConfigurationValueDAOImpl implements ConfigurationValueDAO {
             final Long configurationId,
             final Long attributeId) {
 
-        return attributeRecordById(attributeId)
+        return Result.tryCatch(() -> checkHoldsAllValues(configurationId))
+                .flatMap(v -> attributeRecordById(attributeId))
                 .flatMap(this::getAttributeMapping)
                 .map(attributeMapping -> {
                     // get all values of the table
@@ -400,6 +411,7 @@ public class ConfigurationValueDAOImpl implements ConfigurationValueDAO {
 
         return Result.tryCatch(() -> {
 
+            checkHoldsAllValues(configurationId);
             final List<ConfigurationAttributeRecord> attributes = this.configurationAttributeRecordMapper
                     .selectByExample()
                     .where(
@@ -465,6 +477,18 @@ public class ConfigurationValueDAOImpl implements ConfigurationValueDAO {
                 .onError(TransactionHandler::rollback);
     }
 
+    @Override
+    @Transactional
+    public Result<Integer> saveAll(
+            final Long institutionId,
+            final Long configurationId,
+            final Collection<ConfigurationValue> values) {
+
+        return this.configurationDAOBatchService
+                .saveValues(institutionId, configurationId, values)
+                .onError(TransactionHandler::rollback);
+    }
+
     @Override
     @Transactional
     public Result<Set<EntityKey>> setDefaultValues(
@@ -654,6 +678,41 @@ public class ConfigurationValueDAOImpl implements ConfigurationValueDAO {
         });
     }
 
+    /** Only the follow-up and the newest historic version of a configuration hold all attribute values.
+     * Older historic versions only hold the values that differ from the next newer version (see
+     * ConfigurationDAOBatchService) and can only be used by restoring them.
+     *
+     * @param configurationId the configuration identifier to read values from, may be null */
+    private void checkHoldsAllValues(final Long configurationId) {
+        if (configurationId == null) {
+            return;
+        }
+
+        final ConfigurationRecord config = this.configurationRecordMapper.selectByPrimaryKey(configurationId);
+        if (config == null || BooleanUtils.toBoolean(config.getFollowup())) {
+            return;
+        }
+
+        final Optional<ConfigurationRecord> newest = this.configurationRecordMapper
+                .selectByExample()
+                .where(
+                        ConfigurationRecordDynamicSqlSupport.configurationNodeId,
+                        isEqualTo(config.getConfigurationNodeId()))
+                .and(
+                        ConfigurationRecordDynamicSqlSupport.followup,
+                        isEqualTo(BooleanUtils.toInteger(false)))
+                .build()
+                .execute()
+                .stream()
+                .max(ConfigurationDAOBatchService.HISTORY_ORDER);
+
+        if (newest.isPresent() && !newest.get().getId().equals(configurationId)) {
+            throw new IllegalArgumentException(
+                    "Forbidden to read the configuration values of an older historic configuration version. "
+                            + "Restore the version to get its values");
+        }
+    }
+
     private ConfigurationValue checkFollowUpIntegrity(final ConfigurationValue data) {
         checkFollowUp(data.configurationId);
         return data;
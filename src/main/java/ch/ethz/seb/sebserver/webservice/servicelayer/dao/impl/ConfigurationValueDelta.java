@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/** The differences between the attribute values of two configurations. Attribute values are identified by
+ * attribute identifier and list index. A delta applied to the attribute values of the configuration it was
+ * computed from results in the attribute values of the configuration it was computed to.
+ *
+ * This is used for the version history of exam configurations where a historic version only stores the
+ * values that differ from the next newer version. */
+final class ConfigurationValueDelta {
+
+    /** The changes of the delta. A change with a removed flag marks a value that does not exist */
+    final Map<ValueKey, Change> changes;
+
+    ConfigurationValueDelta(final Map<ValueKey, Change> changes) {
+        this.changes = changes;
+    }
+
+    boolean isEmpty() {
+        return this.changes.isEmpty();
+    }
+
+    /** Applies this delta to the given attribute values.
+     *
+     * @param values the attribute values to apply the changes to */
+    void applyTo(final Map<ValueKey, String> values) {
+        this.changes.forEach((key, change) -> {
+            if (change.removed) {
+                values.remove(key);
+            } else {
+                values.put(key, change.value);
+            }
+        });
+    }
+
+    /** Computes the delta that changes the attribute values from into the attribute values to.
+     *
+     * @param from the attribute values the delta applies to
+     * @param to the attribute values the delta results in
+     * @return the delta with all differences */
+    static ConfigurationValueDelta of(final Map<ValueKey, String> from, final Map<ValueKey, String> to) {
+        final Map<ValueKey, Change> changes = new HashMap<>();
+        to.forEach((key, value) -> {
+            if (!from.containsKey(key) || !Objects.equals(from.get(key), value)) {
+                changes.put(key, new Change(value, false));
+            }
+        });
+        from.keySet().forEach(key -> {
+            if (!to.containsKey(key)) {
+                changes.put(key, new Change(null, true));
+            }
+        });
+        return new ConfigurationValueDelta(changes);
+    }
+
+    /** Creates a map of attribute values by value key for the given value records.
+     * If there is more than one value for the same key, the first one is taken. */
+    static <T> Map<ValueKey, T> toMap(
+            final Collection<T> records,
+            final Function<T, ValueKey> keyFunction) {
+
+        final Map<ValueKey, T> result = new HashMap<>(records.size() * 2);
+        records.forEach(rec -> result.putIfAbsent(keyFunction.apply(rec), rec));
+        return result;
+    }
+
+    static final class ValueKey {
+
+        final long attributeId;
+        final int listIndex;
+
+        ValueKey(final Long attributeId, final Integer listIndex) {
+            this.attributeId = attributeId;
+            this.listIndex = (listIndex != null) ? listIndex : 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.attributeId) * 31 + this.listIndex;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof ValueKey)) {
+                return false;
+            }
+            final ValueKey other = (ValueKey) obj;
+            return this.attributeId == other.attributeId && this.listIndex == other.listIndex;
+        }
+
+        @Override
+        public String toString() {
+            return this.attributeId + ":" + this.listIndex;
+        }
+    }
+
+    static final class Change {
+
+        final String value;
+        final boolean removed;
+
+        Change(final String value, final boolean removed) {
+            this.value = value;
+            this.removed = removed;
+        }
+    }
+
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl;
+
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isIn;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.EntityKey;
+import ch.ethz.seb.sebserver.gbl.model.user.EntityPrivilege;
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.EntityPrivilegeRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.EntityPrivilegeRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.EntityPrivilegeRecord;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.EntityPrivilegeDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.TransactionHandler;
+
+/** EntityPrivilegeDAO with an in-memory index of the entity privileges per user.
+ * <p>
+ * The privileges of a user are loaded with one query on login or on first access and are removed from the index
+ * after the transaction that deletes the privileges of the user has been committed. Since entity privileges
+ * are assigned outside of this DAO, an indexed user is reloaded after the configured maximal age. */
+@Lazy
+@Component
+@WebServiceProfile
+public class EntityPrivilegeDAOImpl implements EntityPrivilegeDAO {
+
+    private static final Logger log = LoggerFactory.getLogger(EntityPrivilegeDAOImpl.class);
+
+    /** Max number of user UUIDs within a SQL in clause */
+    private static final int MAX_IN_CLAUSE_SIZE = 1000;
+
+    private final EntityPrivilegeRecordMapper entityPrivilegeRecordMapper;
+    private final long maxAge;
+    private final Map<String, IndexEntry> index = new ConcurrentHashMap<>();
+
+    public EntityPrivilegeDAOImpl(
+            final EntityPrivilegeRecordMapper entityPrivilegeRecordMapper,
+            @Value("${sebserver.webservice.privileges.index.max-age:60000}") final long maxAge) {
+
+        this.entityPrivilegeRecordMapper = entityPrivilegeRecordMapper;
+        this.maxAge = maxAge;
+    }
+
+    @Override
+    public Result<Map<EntityKey, EntityPrivilege>> getEntityPrivileges(final String userUUID) {
+        final IndexEntry entry = this.index.get(userUUID);
+        if (entry != null && !entry.isExpired(this.maxAge)) {
+            return Result.of(entry.privileges);
+        }
+
+        return reloadEntityPrivileges(userUUID);
+    }
+
+    @Override
+    public Result<Map<EntityKey, EntityPrivilege>> reloadEntityPrivileges(final String userUUID) {
+        return Result.tryCatch(() -> {
+
+            if (StringUtils.isBlank(userUUID)) {
+                return Collections.emptyMap();
+            }
+
+            final IndexEntry entry = new IndexEntry(this.entityPrivilegeRecordMapper
+                    .selectByExample()
+                    .where(EntityPrivilegeRecordDynamicSqlSupport.userUuid, isEqualTo(userUUID))
+                    .build()
+                    .execute()
+                    .stream()
+                    .map(EntityPrivilegeDAOImpl::toDomainModel)
+                    .collect(Collectors.toList()));
+
+            this.index.put(userUUID, entry);
+            return entry.privileges;
+        });
+    }
+
+    @Override
+    public void loadEntityPrivileges(final Collection<String> userUUIDs) {
+        if (userUUIDs == null || userUUIDs.isEmpty()) {
+            return;
+        }
+
+        final List<String> toLoad = userUUIDs
+                .stream()
+                .filter(StringUtils::isNotBlank)
+                .filter(uuid -> {
+                    final IndexEntry entry = this.index.get(uuid);
+                    return entry == null || entry.isExpired(this.maxAge);
+                })
+                .distinct()
+                .collect(Collectors.toList());
+
+        try {
+            for (int i = 0; i < toLoad.size(); i += MAX_IN_CLAUSE_SIZE) {
+                final List<String> uuids = toLoad.subList(i, Math.min(i + MAX_IN_CLAUSE_SIZE, toLoad.size()));
+                final Map<String, List<EntityPrivilege>> privileges = this.entityPrivilegeRecordMapper
+                        .selectByExample()
+                        .where(EntityPrivilegeRecordDynamicSqlSupport.userUuid, isIn(uuids))
+                        .build()
+                        .execute()
+                        .stream()
+                        .map(EntityPrivilegeDAOImpl::toDomainModel)
+                        .collect(Collectors.groupingBy(EntityPrivilege::getUserUUID));
+
+                uuids.forEach(uuid -> this.index.put(
+                        uuid,
+                        new IndexEntry(privileges.getOrDefault(uuid, Collections.emptyList()))));
+            }
+        } catch (final Exception e) {
+            log.error("Failed to load entity privileges for users: {}", toLoad, e);
+        }
+    }
+
+    @Override
+    public boolean hasEntityPrivilege(
+            final String userUUID,
+            final EntityKey entityKey,
+            final PrivilegeType privilegeType) {
+
+        final EntityPrivilege entityPrivilege = getEntityPrivileges(userUUID)
+                .onError(error -> log.error("Failed to get entity privileges for user: {}", userUUID, error))
+                .getOr(Collections.emptyMap())
+                .get(entityKey);
+
+        return entityPrivilege != null && entityPrivilege.privilegeType.hasImplicit(privilegeType);
+    }
+
+    @Override
+    @Transactional
+    public Result<Integer> deleteUserPrivileges(final String userUUID) {
+        return Result.tryCatch(() -> {
+
+            final Integer deleted = this.entityPrivilegeRecordMapper
+                    .deleteByExample()
+                    .where(EntityPrivilegeRecordDynamicSqlSupport.userUuid, isEqualTo(userUUID))
+                    .build()
+                    .execute();
+
+            afterCommit(() -> this.index.remove(userUUID));
+            return deleted;
+        })
+                .onError(TransactionHandler::rollback);
+    }
+
+    private static void afterCommit(final Runnable update) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    update.run();
+                }
+            });
+        } else {
+            update.run();
+        }
+    }
+
+    private static EntityPrivilege toDomainModel(final EntityPrivilegeRecord record) {
+        return new EntityPrivilege(
+                record.getId(),
+                EntityType.valueOf(record.getEntityType()),
+                record.getEntityId(),
+                record.getUserUuid(),
+                PrivilegeType.byKey(record.getPrivilegeType()));
+    }
+
+    private static final class IndexEntry {
+
+        final Map<EntityKey, EntityPrivilege> privileges;
+        final long loadTime;
+
+        IndexEntry(final Collection<EntityPrivilege> privileges) {
+            this(
+                    privileges.stream().collect(Collectors.toMap(
+                            p -> new EntityKey(p.entityId, p.entityType),
+                            p -> p,
+                            (p1, p2) -> p1.privilegeType.hasImplicit(p2.privilegeType) ? p1 : p2)),
+                    Utils.getMillisecondsNow());
+        }
+
+        IndexEntry(final Map<EntityKey, EntityPrivilege> privileges, final long loadTime) {
+            this.privileges = Utils.immutableMapOf(privileges);
+            this.loadTime = loadTime;
+        }
+
+        boolean isExpired(final long maxAge) {
+            return Utils.getMillisecondsNow() - this.loadTime > maxAge;
+        }
+    }
+
+}
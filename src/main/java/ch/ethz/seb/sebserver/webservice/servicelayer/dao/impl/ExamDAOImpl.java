@@ -49,6 +49,7 @@ import ch.ethz.seb.sebserver.gbl.model.exam.ScreenProctoringSettings;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.RequestScopedCache;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.AdditionalAttributeRecord;
@@ -88,9 +89,9 @@ public class ExamDAOImpl implements ExamDAO {
 
     @Override
     public Result<Exam> byPK(final Long id) {
-        return this.examRecordDAO
+        return RequestScopedCache.memoize(EntityType.EXAM, id, () -> this.examRecordDAO
                 .recordById(id)
-                .flatMap(this::toDomainModel);
+                .flatMap(this::toDomainModel));
     }
 
     @Override
@@ -751,62 +752,85 @@ public class ExamDAOImpl implements ExamDAO {
                 exam.getDescription());
     }
 
+    /** Converts all given exam records to exams within one pass. The additional attributes of all
+     * exams are loaded in bulk instead of one query per exam. */
     private Result<Collection<Exam>> toDomainModel(final Collection<ExamRecord> records) {
-        return Result.tryCatch(() -> records.stream()
-                .map(rec -> this.toDomainModel(rec).getOrThrow())
-                .collect(Collectors.toList()));
-    }
-
-    private Result<Exam> toDomainModel(final ExamRecord record) {
-
         return Result.tryCatch(() -> {
 
-            final Collection<String> supporter = (StringUtils.isNotBlank(record.getSupporter()))
-                    ? Arrays.asList(StringUtils.split(record.getSupporter(), Constants.LIST_SEPARATOR_CHAR))
-                    : null;
-
-            ExamStatus status;
-            try {
-                status = ExamStatus.valueOf(record.getStatus());
-            } catch (final Exception e) {
-                log.error("Missing exam status from data base. Set ExamStatus.UP_COMING as fallback ", e);
-                status = ExamStatus.UP_COMING;
+            if (records.isEmpty()) {
+                return Collections.emptyList();
             }
 
-            final Map<String, String> additionalAttributes = this.additionalAttributesDAO
-                    .getAdditionalAttributes(EntityType.EXAM, record.getId())
+            final Map<Long, Map<String, String>> additionalAttributes = new HashMap<>();
+            this.additionalAttributesDAO
+                    .getAdditionalAttributes(
+                            EntityType.EXAM,
+                            records.stream()
+                                    .map(ExamRecord::getId)
+                                    .collect(Collectors.toSet()))
                     .getOrThrow()
-                    .stream()
-                    .collect(Collectors.toMap(
-                            AdditionalAttributeRecord::getName,
-                            AdditionalAttributeRecord::getValue));
-
-            return new Exam(
-                    record.getId(),
-                    record.getInstitutionId(),
-                    record.getLmsSetupId(),
-                    record.getExternalId(),
-                    BooleanUtils.toBooleanObject(record.getLmsAvailable()),
-                    StringUtils.isNotBlank(record.getQuizName())
-                            ? record.getQuizName()
-                            : Constants.SQUARE_BRACE_OPEN + record.getExternalId() + Constants.SQUARE_BRACE_CLOSE,
-                    record.getQuizStartTime(),
-                    record.getQuizEndTime(),
-                    ExamType.valueOf(record.getType()),
-                    record.getOwner(),
-                    supporter,
-                    status,
-                    record.getQuitPassword(),
-                    BooleanUtils.toBooleanObject(record.getLmsSebRestriction()),
-                    record.getBrowserKeys(),
-                    BooleanUtils.toBooleanObject(record.getActive()),
-                    record.getLastupdate(),
-                    record.getExamTemplateId(),
-                    record.getLastModified(),
-                    additionalAttributes);
+                    .forEach(attr -> additionalAttributes
+                            .computeIfAbsent(attr.getEntityId(), id -> new HashMap<>())
+                            .put(attr.getName(), attr.getValue()));
+
+            return records.stream()
+                    .map(rec -> toDomainModel(
+                            rec,
+                            additionalAttributes.getOrDefault(rec.getId(), Collections.emptyMap())))
+                    .collect(Collectors.toList());
         });
     }
 
+    private Result<Exam> toDomainModel(final ExamRecord record) {
+        return Result.tryCatch(() -> toDomainModel(
+                record,
+                this.additionalAttributesDAO
+                        .getAdditionalAttributes(EntityType.EXAM, record.getId())
+                        .getOrThrow()
+                        .stream()
+                        .collect(Collectors.toMap(
+                                AdditionalAttributeRecord::getName,
+                                AdditionalAttributeRecord::getValue))));
+    }
+
+    private Exam toDomainModel(final ExamRecord record, final Map<String, String> additionalAttributes) {
+        final Collection<String> supporter = (StringUtils.isNotBlank(record.getSupporter()))
+                ? Arrays.asList(StringUtils.split(record.getSupporter(), Constants.LIST_SEPARATOR_CHAR))
+                : null;
+
+        ExamStatus status;
+        try {
+            status = ExamStatus.valueOf(record.getStatus());
+        } catch (final Exception e) {
+            log.error("Missing exam status from data base. Set ExamStatus.UP_COMING as fallback ", e);
+            status = ExamStatus.UP_COMING;
+        }
+
+        return new Exam(
+                record.getId(),
+                record.getInstitutionId(),
+                record.getLmsSetupId(),
+                record.getExternalId(),
+                BooleanUtils.toBooleanObject(record.getLmsAvailable()),
+                StringUtils.isNotBlank(record.getQuizName())
+                        ? record.getQuizName()
+                        : Constants.SQUARE_BRACE_OPEN + record.getExternalId() + Constants.SQUARE_BRACE_CLOSE,
+                record.getQuizStartTime(),
+                record.getQuizEndTime(),
+                ExamType.valueOf(record.getType()),
+                record.getOwner(),
+                supporter,
+                status,
+                record.getQuitPassword(),
+                BooleanUtils.toBooleanObject(record.getLmsSebRestriction()),
+                record.getBrowserKeys(),
+                BooleanUtils.toBooleanObject(record.getActive()),
+                record.getLastupdate(),
+                record.getExamTemplateId(),
+                record.getLastModified(),
+                additionalAttributes);
+    }
+
     private Result<ExamRecord> saveAdditionalAttributes(final Exam exam, final ExamRecord rec) {
         return Result.tryCatch(() -> {
 
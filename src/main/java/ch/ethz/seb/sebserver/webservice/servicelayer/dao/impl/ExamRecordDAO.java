@@ -41,6 +41,8 @@ import ch.ethz.seb.sebserver.gbl.model.exam.QuizData;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.PrivilegeFilter;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordMapper;
@@ -228,6 +230,16 @@ public class ExamRecordDAO {
                     .and(
                             ExamRecordDynamicSqlSupport.quizName,
                             isLikeWhenPresent(nameCriteria))
+                    .and(
+                            ExamRecordDynamicSqlSupport.id,
+                            KeysetPagination.isAfterWhenPresent(filterMap.getKeyset()))
+                    .and(
+                            ExamRecordDynamicSqlSupport.id,
+                            PrivilegeFilter.isOwnedOrAssignedWhenPresent(
+                                    filterMap.getPrivilegeOwner(),
+                                    EntityType.EXAM,
+                                    ExamRecordDynamicSqlSupport.owner.name(),
+                                    ExamRecordDynamicSqlSupport.supporter.name()))
                     .build()
                     .execute();
 
@@ -14,6 +14,7 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
@@ -21,6 +22,8 @@ import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.mybatis.dynamic.sql.SqlBuilder;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -34,6 +37,8 @@ import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.IndicatorType;
 import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.Threshold;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.SingleFlight;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.BatisConfig;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.IndicatorRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.IndicatorRecordMapper;
@@ -55,13 +60,21 @@ public class IndicatorDAOImpl implements IndicatorDAO {
 
     private final IndicatorRecordMapper indicatorRecordMapper;
     private final ThresholdRecordMapper thresholdRecordMapper;
+    private final SqlSessionTemplate batchSqlSessionTemplate;
+    private final IndicatorRecordMapper batchIndicatorRecordMapper;
+    private final ThresholdRecordMapper batchThresholdRecordMapper;
+    private final SingleFlight<Long, Result<Collection<Indicator>>> examIndicatorsLoad = new SingleFlight<>();
 
     public IndicatorDAOImpl(
             final IndicatorRecordMapper indicatorRecordMapper,
-            final ThresholdRecordMapper thresholdRecordMapper) {
+            final ThresholdRecordMapper thresholdRecordMapper,
+            @Qualifier(BatisConfig.SQL_BATCH_SESSION_TEMPLATE) final SqlSessionTemplate batchSqlSessionTemplate) {
 
         this.indicatorRecordMapper = indicatorRecordMapper;
         this.thresholdRecordMapper = thresholdRecordMapper;
+        this.batchSqlSessionTemplate = batchSqlSessionTemplate;
+        this.batchIndicatorRecordMapper = batchSqlSessionTemplate.getMapper(IndicatorRecordMapper.class);
+        this.batchThresholdRecordMapper = batchSqlSessionTemplate.getMapper(ThresholdRecordMapper.class);
     }
 
     @Override
@@ -194,6 +207,85 @@ public class IndicatorDAOImpl implements IndicatorDAO {
                 .onError(TransactionHandler::rollback);
     }
 
+    @Override
+    @Transactional
+    public Result<Collection<Indicator>> createAll(final Long examId, final Collection<Indicator> data) {
+        return Result.<Collection<Indicator>> tryCatch(() -> {
+
+            if (data == null || data.isEmpty()) {
+                return Collections.<Indicator> emptyList();
+            }
+
+            // NOTE: only the batch mappers can be used within this transaction
+            final Set<Long> existingIds = new HashSet<>(this.batchIndicatorRecordMapper
+                    .selectIdsByExample()
+                    .where(IndicatorRecordDynamicSqlSupport.examId, isEqualTo(examId))
+                    .build()
+                    .execute());
+
+            final List<Indicator> indicators = new ArrayList<>(data);
+            indicators.forEach(indicator -> this.batchIndicatorRecordMapper.insert(new IndicatorRecord(
+                    null,
+                    examId,
+                    indicator.type.name(),
+                    indicator.name,
+                    indicator.defaultColor,
+                    indicator.defaultIcon,
+                    indicator.tags)));
+            this.batchSqlSessionTemplate.flushStatements();
+
+            // NOTE: the batch executor cannot provide the generated keys per record,
+            //       so the new records are selected after the batch insert in order of creation
+            final List<IndicatorRecord> newRecords = this.batchIndicatorRecordMapper
+                    .selectByExample()
+                    .where(IndicatorRecordDynamicSqlSupport.examId, isEqualTo(examId))
+                    .orderBy(IndicatorRecordDynamicSqlSupport.id)
+                    .build()
+                    .execute()
+                    .stream()
+                    .filter(rec -> !existingIds.contains(rec.getId()))
+                    .collect(Collectors.toList());
+
+            if (newRecords.size() != indicators.size()) {
+                throw new IllegalStateException("Failed to create all indicators for exam: " + examId);
+            }
+
+            // insert thresholds
+            final List<Indicator> result = new ArrayList<>(indicators.size());
+            for (int i = 0; i < indicators.size(); i++) {
+                final IndicatorRecord record = newRecords.get(i);
+                final List<Threshold> thresholds = indicators.get(i).thresholds
+                        .stream()
+                        .filter(threshold -> threshold.value != null && threshold.color != null)
+                        .collect(Collectors.toList());
+
+                thresholds
+                        .stream()
+                        .map(threshold -> new ThresholdRecord(
+                                null,
+                                record.getId(),
+                                new BigDecimal(threshold.value),
+                                threshold.color,
+                                threshold.icon))
+                        .forEach(this.batchThresholdRecordMapper::insert);
+
+                result.add(new Indicator(
+                        record.getId(),
+                        record.getExamId(),
+                        record.getName(),
+                        IndicatorType.valueOf(record.getType()),
+                        record.getColor(),
+                        record.getIcon(),
+                        record.getTags(),
+                        thresholds));
+            }
+            this.batchSqlSessionTemplate.flushStatements();
+
+            return result;
+        })
+                .onError(TransactionHandler::rollback);
+    }
+
     @Override
     @Transactional
     public Result<Collection<EntityKey>> delete(final Set<EntityKey> all) {
@@ -225,7 +317,20 @@ public class IndicatorDAOImpl implements IndicatorDAO {
     @Override
     @Transactional(readOnly = true)
     public Result<Collection<Indicator>> allForExam(final Long examId) {
-        return Result.tryCatch(() -> this.indicatorRecordMapper.selectByExample()
+        return loadAllForExam(examId);
+    }
+
+    @Override
+    public Result<Collection<Indicator>> allForRunningExam(final Long examId) {
+        // NOTE: This is called on every cache miss of the running exam indicator cache.
+        //       Concurrent misses for the same exam wait for one load. There is no transaction here so that
+        //       waiting callers do not hold a database connection.
+        return this.examIndicatorsLoad.load(examId, () -> loadAllForExam(examId));
+    }
+
+    private Result<Collection<Indicator>> loadAllForExam(final Long examId) {
+        return Result.tryCatch(() -> this.indicatorRecordMapper
+                .selectByExample()
                 .where(IndicatorRecordDynamicSqlSupport.examId, isEqualTo(examId))
                 .build()
                 .execute()
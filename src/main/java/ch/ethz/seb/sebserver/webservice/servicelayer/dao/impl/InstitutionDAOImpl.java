@@ -35,6 +35,7 @@ import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.model.institution.Institution;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.RequestScopedCache;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.InstitutionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.InstitutionRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.InstitutionRecord;
@@ -64,8 +65,8 @@ public class InstitutionDAOImpl implements InstitutionDAO {
     @Override
     @Transactional(readOnly = true)
     public Result<Institution> byPK(final Long id) {
-        return recordById(id)
-                .flatMap(InstitutionDAOImpl::toDomainModel);
+        return RequestScopedCache.memoize(EntityType.INSTITUTION, id, () -> recordById(id)
+                .flatMap(InstitutionDAOImpl::toDomainModel));
     }
 
     @Override
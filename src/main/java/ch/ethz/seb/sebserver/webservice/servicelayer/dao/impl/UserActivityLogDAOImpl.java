@@ -45,7 +45,8 @@ import ch.ethz.seb.sebserver.gbl.model.user.UserInfo;
 import ch.ethz.seb.sebserver.gbl.model.user.UserLogActivityType;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
-import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination.Keyset;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.InstitutionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordMapper;
@@ -70,17 +71,20 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
     private final UserRecordMapper userRecordMapper;
     private final UserService userService;
     private final JSONMapper jsonMapper;
+    private final UserActivityLogWriter userActivityLogWriter;
 
     public UserActivityLogDAOImpl(
             final UserActivityLogRecordMapper userLogRecordMapper,
             final UserRecordMapper userRecordMapper,
             final UserService userService,
-            final JSONMapper jsonMapper) {
+            final JSONMapper jsonMapper,
+            final UserActivityLogWriter userActivityLogWriter) {
 
         this.userLogRecordMapper = userLogRecordMapper;
         this.userRecordMapper = userRecordMapper;
         this.userService = userService;
         this.jsonMapper = jsonMapper;
+        this.userActivityLogWriter = userActivityLogWriter;
     }
 
     @Override
@@ -111,14 +115,14 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
     public Result<UserAccount> logRegisterAccount(final UserAccount account) {
         return Result.tryCatch(() -> {
 
-            this.userLogRecordMapper.insertSelective(new UserActivityLogRecord(
+            this.userActivityLogWriter.write(new UserActivityLogRecord(
                     null,
                     account.getModelId(),
                     System.currentTimeMillis(),
                     UserLogActivityType.REGISTER.name(),
                     EntityType.USER.name(),
                     account.getModelId(),
-                    toMessage(account)));
+                    this.userActivityLogWriter.truncate(toMessage(account))));
 
             return account;
         });
@@ -357,14 +361,14 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
             final String entityId,
             final String message) {
 
-        this.userLogRecordMapper.insertSelective(new UserActivityLogRecord(
+        this.userActivityLogWriter.write(new UserActivityLogRecord(
                 null,
                 userUUID,
                 System.currentTimeMillis(),
                 activityType.name(),
                 entityType.name(),
                 entityId,
-                Utils.truncateText(message, 4000)));
+                this.userActivityLogWriter.truncate(message)));
     }
 
     @Override
@@ -422,6 +426,7 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
                 filterMap.getString(UserActivityLog.FILTER_ATTR_ACTIVITY_TYPES),
                 filterMap.getString(UserActivityLog.FILTER_ATTR_ENTITY_TYPES),
                 filterMap.getBoolean(FilterMap.ATTR_ADD_INSITUTION_JOIN),
+                filterMap.getKeyset(),
                 predicate);
     }
 
@@ -433,6 +438,7 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
             final String activityTypes,
             final String entityTypes,
             final boolean joinInstitution,
+            final Keyset keyset,
             final Predicate<UserActivityLog> predicate) {
 
         return Result.tryCatch(() -> {
@@ -484,6 +490,9 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
                     .and(
                             UserActivityLogRecordDynamicSqlSupport.entityType,
                             SqlBuilder.isInCaseInsensitiveWhenPresent(_entityTypes))
+                    .and(
+                            UserActivityLogRecordDynamicSqlSupport.id,
+                            KeysetPagination.isAfterWhenPresent(keyset))
                     .build()
                     .execute();
 
@@ -658,10 +667,7 @@ public class UserActivityLogDAOImpl implements UserActivityLogDAO {
             entityAsString = entity.toString();
         }
 
-        if (entityAsString != null && entityAsString.length() > 4000) {
-            return Utils.truncateText(entityAsString, 4000);
-        }
-        return entityAsString;
+        return this.userActivityLogWriter.truncate(entityAsString);
     }
 
 }
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import javax.annotation.PreDestroy;
+
+import org.apache.ibatis.session.ExecutorType;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.mybatis.spring.SqlSessionTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.UserActivityLogRecord;
+
+/** Writes user activity log records to the persistent storage.
+ *
+ * If asynchronous writing is enabled (default), the records are put into a bounded queue after the
+ * transaction of the caller has been committed and are written in batches by a single worker. Since there is
+ * only one worker and the queue is processed in order, the order of the records of a user is preserved.
+ * If the queue is full, the caller flushes the queue before the record is enqueued. On shutdown all
+ * pending records are written. If a batch cannot be written, the records of the batch are written one by one
+ * and each record that cannot be written either is logged as lost.
+ *
+ * If asynchronous writing is disabled, the records are written directly within the transaction of the caller. */
+@Lazy
+@Component
+@WebServiceProfile
+public class UserActivityLogWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(UserActivityLogWriter.class);
+
+    private final UserActivityLogRecordMapper userLogRecordMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final SqlSessionTemplate sqlSessionTemplate;
+    private final UserActivityLogRecordMapper batchUserLogRecordMapper;
+    private final boolean async;
+    private final int batchSize;
+    private final int maxMessageLength;
+    private final BlockingQueue<UserActivityLogRecord> queue;
+
+    public UserActivityLogWriter(
+            final UserActivityLogRecordMapper userLogRecordMapper,
+            final SqlSessionFactory sqlSessionFactory,
+            final PlatformTransactionManager transactionManager,
+            @Value("${sebserver.webservice.activitylog.async:true}") final boolean async,
+            @Value("${sebserver.webservice.activitylog.queue-size:10000}") final int queueSize,
+            @Value("${sebserver.webservice.activitylog.batch-size:500}") final int batchSize,
+            @Value("${sebserver.webservice.activitylog.message.max-length:4000}") final int maxMessageLength) {
+
+        this.userLogRecordMapper = userLogRecordMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.async = async;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxMessageLength = maxMessageLength;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueSize));
+
+        if (async) {
+            this.sqlSessionTemplate = new SqlSessionTemplate(sqlSessionFactory, ExecutorType.BATCH);
+            this.batchUserLogRecordMapper = this.sqlSessionTemplate.getMapper(UserActivityLogRecordMapper.class);
+        } else {
+            this.sqlSessionTemplate = null;
+            this.batchUserLogRecordMapper = null;
+        }
+    }
+
+    /** Truncates the given message to the configured maximal length of user activity log messages.
+     *
+     * @param message the message
+     * @return the truncated message */
+    public String truncate(final String message) {
+        return Utils.truncateText(message, this.maxMessageLength);
+    }
+
+    /** Writes the given user activity log record.
+     *
+     * @param record the user activity log record to write */
+    public void write(final UserActivityLogRecord record) {
+        if (!this.async) {
+            this.userLogRecordMapper.insert(record);
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // only log activities of transactions that have been committed
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(record);
+                }
+            });
+        } else {
+            enqueue(record);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${sebserver.webservice.activitylog.batch.interval:1000}",
+            initialDelay = 1000)
+    public void worker() {
+        if (!this.async || this.queue.isEmpty()) {
+            return;
+        }
+
+        flush();
+    }
+
+    private void enqueue(final UserActivityLogRecord record) {
+        if (this.queue.offer(record)) {
+            return;
+        }
+
+        log.warn("User activity log queue is full. Flush the queue within the calling thread");
+        flush();
+        if (!this.queue.offer(record)) {
+            writeBatch(List.of(record));
+        }
+    }
+
+    private synchronized void flush() {
+        final List<UserActivityLogRecord> records = new ArrayList<>(this.batchSize);
+        while (this.queue.drainTo(records, this.batchSize) > 0) {
+            writeBatch(records);
+            records.clear();
+        }
+    }
+
+    private void writeBatch(final List<UserActivityLogRecord> records) {
+        try {
+
+            this.transactionTemplate
+                    .execute(status -> {
+                        records.forEach(this.batchUserLogRecordMapper::insert);
+                        this.sqlSessionTemplate.flushStatements();
+                        return null;
+                    });
+
+        } catch (final Exception e) {
+            log.warn("Failed to write batch of {} user activity logs. Write them one by one. Cause: {}",
+                    records.size(),
+                    e.getMessage());
+            records.forEach(this::writeSingle);
+        }
+    }
+
+    private void writeSingle(final UserActivityLogRecord record) {
+        try {
+
+            this.transactionTemplate
+                    .execute(status -> this.userLogRecordMapper.insert(record));
+
+        } catch (final Exception e) {
+            log.error("Lost user activity log: user: {}, activity: {}, entity: {} {}, timestamp: {}, message: {}",
+                    record.getUserUuid(),
+                    record.getActivityType(),
+                    record.getEntityType(),
+                    record.getEntityId(),
+                    record.getTimestamp(),
+                    record.getMessage(),
+                    e);
+        }
+    }
+
+    @PreDestroy
+    protected void shutdown() {
+        if (this.sqlSessionTemplate == null) {
+            return;
+        }
+
+        log.info("Shutdown UserActivityLogWriter. Write pending user activity logs: {}", this.queue.size());
+        flush();
+
+        try {
+            this.sqlSessionTemplate.destroy();
+        } catch (final Exception e) {
+            log.error("Failed to close and destroy the SqlSessionTemplate: ", e);
+        }
+    }
+
+}
@@ -20,13 +20,12 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javax.validation.constraints.NotNull;
 
-import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
 import ch.ethz.seb.sebserver.gbl.model.user.*;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.*;
-import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.EntityPrivilegeRecord;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.FeaturePrivilegeRecord;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -54,11 +53,14 @@ import ch.ethz.seb.sebserver.gbl.model.EntityDependency;
 import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.PrivilegeFilter;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.RequestScopedCache;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.RoleRecord;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.UserRecord;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.impl.SEBServerUser;
 import ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.impl.BulkAction;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.DAOLoggingSupport;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.EntityPrivilegeDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.TransactionHandler;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.UserDAO;
@@ -72,20 +74,20 @@ public class UserDAOImpl implements UserDAO {
 
     private final UserRecordMapper userRecordMapper;
     private final RoleRecordMapper roleRecordMapper;
-    private final EntityPrivilegeRecordMapper entityPrivilegeRecordMapper;
+    private final EntityPrivilegeDAO entityPrivilegeDAO;
     private final FeaturePrivilegeRecordMapper featurePrivilegeRecordMapper;
     private final PasswordEncoder userPasswordEncoder;
 
     public UserDAOImpl(
             final UserRecordMapper userRecordMapper,
             final RoleRecordMapper roleRecordMapper,
-            final EntityPrivilegeRecordMapper entityPrivilegeRecordMapper,
+            final EntityPrivilegeDAO entityPrivilegeDAO,
             final FeaturePrivilegeRecordMapper featurePrivilegeRecordMapper,
             @Qualifier(WebSecurityConfig.USER_PASSWORD_ENCODER_BEAN_NAME) final PasswordEncoder userPasswordEncoder) {
 
         this.userRecordMapper = userRecordMapper;
         this.roleRecordMapper = roleRecordMapper;
-        this.entityPrivilegeRecordMapper = entityPrivilegeRecordMapper;
+        this.entityPrivilegeDAO = entityPrivilegeDAO;
         this.featurePrivilegeRecordMapper = featurePrivilegeRecordMapper;
         this.userPasswordEncoder = userPasswordEncoder;
     }
@@ -98,15 +100,16 @@ public class UserDAOImpl implements UserDAO {
     @Override
     @Transactional(readOnly = true)
     public Result<UserInfo> byPK(final Long id) {
-        return Result.tryCatch(() -> this.userRecordMapper.selectByPrimaryKey(id))
-                .flatMap(this::toDomainModel);
+        return RequestScopedCache.memoize(EntityType.USER, id, () -> Result
+                .tryCatch(() -> this.userRecordMapper.selectByPrimaryKey(id))
+                .flatMap(this::toDomainModel));
     }
 
     @Override
     @Transactional(readOnly = true)
     public Result<UserInfo> byModelId(final String modelId) {
-        return recordByUUID(modelId)
-                .flatMap(this::toDomainModel);
+        return RequestScopedCache.memoize(EntityType.USER, modelId, () -> recordByUUID(modelId)
+                .flatMap(this::toDomainModel));
     }
 
     @Override
@@ -127,6 +130,14 @@ public class UserDAOImpl implements UserDAO {
     @Transactional(readOnly = true)
     public Result<SEBServerUser> sebServerUserByUsername(final String username) {
         return recordByUsername(username)
+                .map(record -> {
+                    // (re)load the entity privileges of the user with one query on login
+                    this.entityPrivilegeDAO
+                            .reloadEntityPrivileges(record.getUuid())
+                            .onError(error -> log.error("Failed to load entity privileges for user: {}",
+                                    record.getUuid(), error));
+                    return record;
+                })
                 .flatMap(this::sebServerUserFromRecord);
     }
 
@@ -165,9 +176,7 @@ public class UserDAOImpl implements UserDAO {
                             .build()
                             .execute();
 
-            return records.stream()
-                    .map(this::toDomainModel)
-                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+            return toDomainModels(records)
                     .collect(Collectors.toList());
         });
     }
@@ -196,7 +205,7 @@ public class UserDAOImpl implements UserDAO {
                                     .where(
                                             UserRecordDynamicSqlSupport.active,
                                             isEqualToWhenPresent(filterMap.getActiveAsInt()));
-            return sqlWhereClause
+            final List<UserRecord> records = sqlWhereClause
                     .and(
                             UserRecordDynamicSqlSupport.institutionId,
                             isEqualToWhenPresent(filterMap.getInstitutionId()))
@@ -215,11 +224,17 @@ public class UserDAOImpl implements UserDAO {
                     .and(
                             UserRecordDynamicSqlSupport.language,
                             isLikeWhenPresent(filterMap.getUserLanguage()))
+                    .and(
+                            UserRecordDynamicSqlSupport.id,
+                            PrivilegeFilter.isOwnedOrAssignedWhenPresent(
+                                    filterMap.getPrivilegeOwner(),
+                                    EntityType.USER,
+                                    UserRecordDynamicSqlSupport.uuid.name(),
+                                    null))
                     .build()
-                    .execute()
-                    .stream()
-                    .map(this::toDomainModel)
-                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
+                    .execute();
+
+            return toDomainModels(records)
                     .filter(_predicate)
                     .collect(Collectors.toList());
         });
@@ -384,6 +399,11 @@ public class UserDAOImpl implements UserDAO {
                     .build()
                     .execute();
 
+            // and the entity privileges assigned to the users
+            users.forEach(rec -> this.entityPrivilegeDAO
+                    .deleteUserPrivileges(rec.getUuid())
+                    .getOrThrow());
+
             // then delete the user account
             this.userRecordMapper.deleteByExample()
                     .where(UserRecordDynamicSqlSupport.id, isIn(ids))
@@ -427,14 +447,11 @@ public class UserDAOImpl implements UserDAO {
                 return Collections.emptyList();
             }
 
-            return this.userRecordMapper.selectByExample()
+            return toDomainModels(this.userRecordMapper.selectByExample()
                     .where(InstitutionRecordDynamicSqlSupport.id, isIn(new ArrayList<>(pks)))
                     .build()
-                    .execute()
-                    .stream()
-                    .map(this::toDomainModel)
-                    .flatMap(DAOLoggingSupport::logAndSkipOnError)
-                    .collect(Collectors.toList());
+                    .execute())
+                            .collect(Collectors.toList());
         });
     }
 
@@ -523,6 +540,19 @@ public class UserDAOImpl implements UserDAO {
                 .execute();
     }
 
+    /** Maps the given user records to the domain model and loads the entity privileges of all users with as
+     * few queries as possible */
+    private Stream<UserInfo> toDomainModels(final List<UserRecord> records) {
+        this.entityPrivilegeDAO.loadEntityPrivileges(records
+                .stream()
+                .map(UserRecord::getUuid)
+                .collect(Collectors.toList()));
+
+        return records.stream()
+                .map(this::toDomainModel)
+                .flatMap(DAOLoggingSupport::logAndSkipOnError);
+    }
+
     private Result<UserInfo> toDomainModel(final UserRecord record) {
 
         return Result.tryCatch(() -> {
@@ -575,30 +605,12 @@ public class UserDAOImpl implements UserDAO {
 
 
     private Collection<EntityPrivilege> getEntityPrivileges(final String uuid) {
-        try {
-
-            return this.entityPrivilegeRecordMapper
-                    .selectByExample()
-                    .where(EntityPrivilegeRecordDynamicSqlSupport.userUuid, isEqualTo(uuid))
-                    .build()
-                    .execute()
-                    .stream()
-                    .map(this::toEntityPrivilegeModel)
-                    .collect(Collectors.toList());
-
-        } catch (final Exception e) {
-            log.error("Failed to load entity privileges for user: {}", uuid);
-            return Collections.emptyList();
-        }
-    }
-
-    private EntityPrivilege toEntityPrivilegeModel(final EntityPrivilegeRecord record) {
-        return new EntityPrivilege(
-                record.getId(),
-                EntityType.valueOf(record.getEntityType()),
-                record.getEntityId(),
-                record.getUserUuid(),
-                PrivilegeType.byKey(record.getPrivilegeType()));
+        return this.entityPrivilegeDAO
+                .getEntityPrivileges(uuid)
+                // copy the values since the UserInfo is serialized with the authentication token
+                .map(privileges -> (Collection<EntityPrivilege>) new ArrayList<>(privileges.values()))
+                .onError(error -> log.error("Failed to load entity privileges for user: {}", uuid, error))
+                .getOr(Collections.emptyList());
     }
 
     private FeaturePrivilege toFeaturePrivilegeModel(final FeaturePrivilegeRecord record) {
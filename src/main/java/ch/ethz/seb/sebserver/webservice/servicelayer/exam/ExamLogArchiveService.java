@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.exam;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.springframework.context.event.EventListener;
+
+import ch.ethz.seb.sebserver.gbl.model.session.ExtendedClientEvent;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.ExamDeletionEvent;
+
+/** Service to move the SEB client events of finished exams from the database to compressed,
+ * column oriented archive files on local disk and to query them from there. */
+public interface ExamLogArchiveService {
+
+    /** Indicates whether the archive file storage is configured or not.
+     *
+     * @return true if client events of exams can be archived to files */
+    boolean isEnabled();
+
+    /** Indicates whether the client events of the given exam are archived to a file.
+     * If so, the client events of the exam are only available from the archive file.
+     *
+     * @param examId the exam identifier
+     * @return true if the client events of the given exam are archived to a file */
+    boolean isArchived(Long examId);
+
+    /** Writes all client events of the given exam to an archive file and removes them from the database
+     * afterwards.
+     *
+     * @param examId the exam identifier
+     * @return Result refer to the number of archived client events or to an error when happened */
+    Result<Integer> archiveExam(Long examId);
+
+    /** Get the number of archived client events that matches the given filter. The filter must contain an
+     * exam filter. Blocks of the archive file that cannot contain matching events are not read and the
+     * number of matching events per block is cached for the filter since archive files never change.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @return Result refer to the number of matching client events or to an error when happened */
+    Result<Integer> countMatching(FilterMap filterMap);
+
+    /** Get a window of the archived client events that matches the given filter in identifier order.
+     * The filter must contain an exam filter. Only the blocks of the archive file that contain events of
+     * the window are read.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param offset the number of matching client events to skip
+     * @param limit the maximal number of client events to get
+     * @param descending indicates whether the events are in descending identifier order or not
+     * @return Result refer to the matching client events of the window or to an error when happened */
+    Result<List<ExtendedClientEvent>> getMatching(FilterMap filterMap, int offset, int limit, boolean descending);
+
+    /** Get all archived client events that matches the given filter. The filter must contain an exam filter.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param predicate additional predicate to filter the client events
+     * @return Result refer to all matching client events in identifier order or to an error when happened */
+    Result<Collection<ExtendedClientEvent>> allMatching(
+            FilterMap filterMap,
+            Predicate<ExtendedClientEvent> predicate);
+
+    /** Streams all archived client events that matches the given filter to the given consumer.
+     * The filter must contain an exam filter.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param consumer the consumer for the streamed event records
+     * @return Result refer to the number of streamed events or to an error when happened */
+    Result<Integer> streamMatching(
+            FilterMap filterMap,
+            Consumer<ConnectionEventExportRecord> consumer);
+
+    /** Streams all archived client events that matches the given filter to the given consumer in ascending or
+     * descending identifier order. The filter must contain an exam filter. In descending order the blocks of
+     * the archive file are read in reverse order and only one block is held in memory at a time.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param descending indicates whether the events are streamed in descending identifier order or not
+     * @param consumer the consumer for the streamed event records
+     * @return Result refer to the number of streamed events or to an error when happened */
+    Result<Integer> streamMatching(
+            FilterMap filterMap,
+            boolean descending,
+            Consumer<ConnectionEventExportRecord> consumer);
+
+    /** Deletes the archive files of deleted exams.
+     *
+     * @param event The ExamDeletionEvent reference all PKs of Exams that are going to be deleted. */
+    @EventListener(ExamDeletionEvent.class)
+    void notifyExamDeletion(ExamDeletionEvent event);
+
+}
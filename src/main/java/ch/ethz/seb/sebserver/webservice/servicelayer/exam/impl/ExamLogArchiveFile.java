@@ -0,0 +1,650 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.exam.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
+
+/** Compressed, column oriented file format for the SEB client events of one exam.
+ *
+ * The events are written in blocks of rows. Within a block each column is written separately:
+ * identifiers and timestamps are delta encoded, text is dictionary encoded per block and the numeric values
+ * are stored as unscaled decimals. Each block is GZIP compressed on its own and is self-contained with the
+ * details of all client connections of its rows, so that a single block can be read without the blocks before.
+ *
+ * An index at the end of the file holds the position, row count, identifier range and server time range of
+ * every block. With the index, readers only decompress the blocks they need: a page of events in identifier
+ * order is read from the blocks of the page only and events in reverse order are read block by block.
+ *
+ * File layout:
+ *
+ * <pre>
+ * magic (int), version (byte), exam id (long)
+ * block*: compressed length (int), GZIP compressed:
+ *         row count (varint)
+ *         connections: count (varint), per connection: id, institution id, token, session id, address
+ *         columns: id, connection, type, client time, server time, numeric value, text
+ * end of blocks: 0 (int)
+ * index: institution id (long, -1 if unknown), block count (int),
+ *        per block: position, compressed length, row count, first id, last id, min server time, max server time
+ * trailer: index position (long), magic (int)
+ * </pre>
+ */
+final class ExamLogArchiveFile {
+
+    static final int MAGIC = 0x53454241; // SEBA
+    static final byte VERSION = 2;
+    static final int DEFAULT_BLOCK_SIZE = 8192;
+    static final int NUMERIC_SCALE = 4;
+
+    private static final int HEADER_SIZE = 4 + 1 + 8;
+    private static final int TRAILER_SIZE = 8 + 4;
+    private static final int IO_BUFFER_SIZE = 64 * 1024;
+
+    private ExamLogArchiveFile() {
+    }
+
+    /** The index entry of one block of an archive file */
+    static final class BlockInfo {
+
+        final long position;
+        final int length;
+        final int rows;
+        final long firstId;
+        final long lastId;
+        /** The server time range of the block. Long.MIN_VALUE and Long.MAX_VALUE if a row has no server time */
+        final long minServerTime;
+        final long maxServerTime;
+
+        BlockInfo(
+                final long position,
+                final int length,
+                final int rows,
+                final long firstId,
+                final long lastId,
+                final long minServerTime,
+                final long maxServerTime) {
+
+            this.position = position;
+            this.length = length;
+            this.rows = rows;
+            this.firstId = firstId;
+            this.lastId = lastId;
+            this.minServerTime = minServerTime;
+            this.maxServerTime = maxServerTime;
+        }
+
+        /** Indicates whether the block may contain rows within the given server time range (null is unbounded) */
+        boolean overlapsServerTime(final Long from, final Long to) {
+            return (from == null || this.maxServerTime >= from) && (to == null || this.minServerTime <= to);
+        }
+
+        /** Indicates whether all rows of the block are within the given server time range (null is unbounded) */
+        boolean withinServerTime(final Long from, final Long to) {
+            return (from == null || this.minServerTime >= from) && (to == null || this.maxServerTime <= to);
+        }
+    }
+
+    /** The index of an archive file */
+    static final class Index {
+
+        final Long examId;
+        final Long institutionId;
+        final List<BlockInfo> blocks;
+
+        Index(final Long examId, final Long institutionId, final List<BlockInfo> blocks) {
+            this.examId = examId;
+            this.institutionId = institutionId;
+            this.blocks = Collections.unmodifiableList(blocks);
+        }
+
+        int numberOfRows() {
+            int rows = 0;
+            for (final BlockInfo block : this.blocks) {
+                rows += block.rows;
+            }
+            return rows;
+        }
+    }
+
+    /** Writes the given events to the archive file format. The events are expected to belong to the exam
+     * given at creation and are written in the order they are added. */
+    static final class Writer implements Closeable {
+
+        private final DataOutputStream out;
+        private final int blockSize;
+        private final List<ConnectionEventExportRecord> block;
+        private final List<BlockInfo> index = new ArrayList<>();
+
+        private long position = HEADER_SIZE;
+        private long institutionId = -1;
+
+        Writer(final OutputStream output, final Long examId) throws IOException {
+            this(output, examId, DEFAULT_BLOCK_SIZE);
+        }
+
+        Writer(final OutputStream output, final Long examId, final int blockSize) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(output, IO_BUFFER_SIZE));
+            this.blockSize = blockSize;
+            this.block = new ArrayList<>(blockSize);
+
+            this.out.writeInt(MAGIC);
+            this.out.writeByte(VERSION);
+            this.out.writeLong(examId);
+        }
+
+        void add(final ConnectionEventExportRecord rec) throws IOException {
+            if (this.institutionId < 0 && rec.institution_id != null) {
+                this.institutionId = rec.institution_id;
+            }
+            this.block.add(rec);
+            if (this.block.size() >= this.blockSize) {
+                writeBlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            writeBlock();
+            this.out.writeInt(0);
+            this.position += 4;
+
+            final long indexPosition = this.position;
+            this.out.writeLong(this.institutionId);
+            this.out.writeInt(this.index.size());
+            for (final BlockInfo info : this.index) {
+                this.out.writeLong(info.position);
+                this.out.writeInt(info.length);
+                this.out.writeInt(info.rows);
+                this.out.writeLong(info.firstId);
+                this.out.writeLong(info.lastId);
+                this.out.writeLong(info.minServerTime);
+                this.out.writeLong(info.maxServerTime);
+            }
+            this.out.writeLong(indexPosition);
+            this.out.writeInt(MAGIC);
+            this.out.close();
+        }
+
+        private void writeBlock() throws IOException {
+            final int size = this.block.size();
+            if (size == 0) {
+                return;
+            }
+
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (final DataOutputStream blockOut = new DataOutputStream(new BufferedOutputStream(
+                    new GZIPOutputStream(bytes, IO_BUFFER_SIZE),
+                    IO_BUFFER_SIZE))) {
+                encodeBlock(blockOut, this.block);
+            }
+
+            long minServerTime = Long.MAX_VALUE;
+            long maxServerTime = Long.MIN_VALUE;
+            for (final ConnectionEventExportRecord rec : this.block) {
+                if (rec.server_time == null) {
+                    minServerTime = Long.MIN_VALUE;
+                    maxServerTime = Long.MAX_VALUE;
+                    break;
+                }
+                minServerTime = Math.min(minServerTime, rec.server_time);
+                maxServerTime = Math.max(maxServerTime, rec.server_time);
+            }
+
+            this.index.add(new BlockInfo(
+                    this.position,
+                    bytes.size(),
+                    size,
+                    this.block.get(0).id,
+                    this.block.get(size - 1).id,
+                    minServerTime,
+                    maxServerTime));
+
+            this.out.writeInt(bytes.size());
+            bytes.writeTo(this.out);
+            this.position += 4 + bytes.size();
+
+            this.block.clear();
+        }
+
+        private static void encodeBlock(
+                final DataOutputStream out,
+                final List<ConnectionEventExportRecord> block) throws IOException {
+
+            final int size = block.size();
+            writeVarLong(out, size);
+
+            // connections of the block
+            final Map<Long, Integer> connectionIndex = new HashMap<>();
+            final List<ConnectionEventExportRecord> connections = new ArrayList<>();
+            for (final ConnectionEventExportRecord rec : block) {
+                if (!connectionIndex.containsKey(rec.connection_id)) {
+                    connectionIndex.put(rec.connection_id, connectionIndex.size());
+                    connections.add(rec);
+                }
+            }
+            writeVarLong(out, connections.size());
+            for (final ConnectionEventExportRecord rec : connections) {
+                writeVarLong(out, zigZag(rec.connection_id));
+                writeVarLong(out, zigZag(rec.institution_id != null ? rec.institution_id : -1));
+                writeString(out, rec.connection_token);
+                writeString(out, rec.exam_user_session_identifier);
+                writeString(out, rec.client_address);
+            }
+
+            // id column
+            long lastId = 0;
+            for (final ConnectionEventExportRecord rec : block) {
+                writeVarLong(out, zigZag(rec.id - lastId));
+                lastId = rec.id;
+            }
+
+            // connection column
+            for (final ConnectionEventExportRecord rec : block) {
+                writeVarLong(out, connectionIndex.get(rec.connection_id));
+            }
+
+            // type column
+            for (final ConnectionEventExportRecord rec : block) {
+                writeVarLong(out, zigZag(rec.type != null ? rec.type : -1));
+            }
+
+            // client time column
+            writePresence(out, block, rec -> rec.client_time != null);
+            long lastClientTime = 0;
+            for (final ConnectionEventExportRecord rec : block) {
+                if (rec.client_time != null) {
+                    writeVarLong(out, zigZag(rec.client_time - lastClientTime));
+                    lastClientTime = rec.client_time;
+                }
+            }
+
+            // server time column
+            writePresence(out, block, rec -> rec.server_time != null);
+            long lastServerTime = 0;
+            for (final ConnectionEventExportRecord rec : block) {
+                if (rec.server_time != null) {
+                    writeVarLong(out, zigZag(rec.server_time - lastServerTime));
+                    lastServerTime = rec.server_time;
+                }
+            }
+
+            // numeric value column
+            writePresence(out, block, rec -> rec.numeric_value != null);
+            long lastNumeric = 0;
+            for (final ConnectionEventExportRecord rec : block) {
+                if (rec.numeric_value != null) {
+                    final long unscaled = rec.numeric_value
+                            .setScale(NUMERIC_SCALE, RoundingMode.HALF_UP)
+                            .unscaledValue()
+                            .longValue();
+                    writeVarLong(out, zigZag(unscaled - lastNumeric));
+                    lastNumeric = unscaled;
+                }
+            }
+
+            // text column, dictionary encoded, 0 is null
+            final Map<String, Integer> dictionary = new HashMap<>();
+            final List<String> entries = new ArrayList<>();
+            final int[] textIndex = new int[size];
+            for (int i = 0; i < size; i++) {
+                final String text = block.get(i).text;
+                if (text == null) {
+                    textIndex[i] = 0;
+                } else {
+                    textIndex[i] = dictionary.computeIfAbsent(text, t -> {
+                        entries.add(t);
+                        return entries.size();
+                    });
+                }
+            }
+            writeVarLong(out, entries.size());
+            for (final String entry : entries) {
+                writeString(out, entry);
+            }
+            for (int i = 0; i < size; i++) {
+                writeVarLong(out, textIndex[i]);
+            }
+        }
+
+        private static void writePresence(
+                final DataOutputStream out,
+                final List<ConnectionEventExportRecord> rows,
+                final Predicate<ConnectionEventExportRecord> present) throws IOException {
+
+            int bits = 0;
+            int count = 0;
+            for (final ConnectionEventExportRecord rec : rows) {
+                if (present.test(rec)) {
+                    bits |= 1 << count;
+                }
+                if (++count == 8) {
+                    out.writeByte(bits);
+                    bits = 0;
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                out.writeByte(bits);
+            }
+        }
+    }
+
+    /** Reads all events of an archive file sequentially and gives the ones that matches the filter to the
+     * consumer in the order they were written.
+     *
+     * @param input the input stream of the archive file
+     * @param filter the filter for the events
+     * @param consumer the consumer of the matching events
+     * @return the number of matching events */
+    static int read(
+            final InputStream input,
+            final Predicate<ConnectionEventExportRecord> filter,
+            final Consumer<ConnectionEventExportRecord> consumer) throws IOException {
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(input, IO_BUFFER_SIZE));
+        final Long examId = readHeader(in);
+
+        int matches = 0;
+        int length = in.readInt();
+        while (length > 0) {
+            final byte[] data = new byte[length];
+            in.readFully(data);
+            matches += decodeBlock(data, examId, filter, consumer);
+            length = in.readInt();
+        }
+
+        return matches;
+    }
+
+    /** Reads the index of an archive file
+     *
+     * @param channel the channel of the archive file
+     * @return the index of the archive file */
+    static Index readIndex(final FileChannel channel) throws IOException {
+        final DataInputStream header = new DataInputStream(new ByteArrayInputStream(
+                readFully(channel, 0, HEADER_SIZE)));
+        final Long examId = readHeader(header);
+
+        final DataInputStream trailer = new DataInputStream(new ByteArrayInputStream(
+                readFully(channel, channel.size() - TRAILER_SIZE, TRAILER_SIZE)));
+        final long indexPosition = trailer.readLong();
+        if (trailer.readInt() != MAGIC) {
+            throw new IOException("Missing index in SEB client event archive file");
+        }
+
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(readFully(
+                channel,
+                indexPosition,
+                (int) (channel.size() - TRAILER_SIZE - indexPosition))));
+        final long institutionId = in.readLong();
+        final int count = in.readInt();
+        final List<BlockInfo> blocks = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            blocks.add(new BlockInfo(
+                    in.readLong(),
+                    in.readInt(),
+                    in.readInt(),
+                    in.readLong(),
+                    in.readLong(),
+                    in.readLong(),
+                    in.readLong()));
+        }
+
+        return new Index(examId, (institutionId >= 0) ? institutionId : null, blocks);
+    }
+
+    /** Reads the events of one block of an archive file and gives the ones that matches the filter to the
+     * consumer in the order they were written.
+     *
+     * @param channel the channel of the archive file
+     * @param index the index of the archive file
+     * @param block the block to read
+     * @param filter the filter for the events
+     * @param consumer the consumer of the matching events
+     * @return the number of matching events of the block */
+    static int readBlock(
+            final FileChannel channel,
+            final Index index,
+            final BlockInfo block,
+            final Predicate<ConnectionEventExportRecord> filter,
+            final Consumer<ConnectionEventExportRecord> consumer) throws IOException {
+
+        // skip the length of the block
+        return decodeBlock(
+                readFully(channel, block.position + 4, block.length),
+                index.examId,
+                filter,
+                consumer);
+    }
+
+    private static Long readHeader(final DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a SEB client event archive file");
+        }
+        final byte version = in.readByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported SEB client event archive file version: " + version);
+        }
+        return in.readLong();
+    }
+
+    private static byte[] readFully(final FileChannel channel, final long position, final int length)
+            throws IOException {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of SEB client event archive file");
+            }
+        }
+        return buffer.array();
+    }
+
+    private static int decodeBlock(
+            final byte[] data,
+            final Long examId,
+            final Predicate<ConnectionEventExportRecord> filter,
+            final Consumer<ConnectionEventExportRecord> consumer) throws IOException {
+
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(data), IO_BUFFER_SIZE),
+                IO_BUFFER_SIZE));
+
+        final int size = (int) readVarLong(in);
+
+        final int numberOfConnections = (int) readVarLong(in);
+        final long[] connectionIds = new long[numberOfConnections];
+        final Long[] institutionIds = new Long[numberOfConnections];
+        final String[] tokens = new String[numberOfConnections];
+        final String[] sessionIds = new String[numberOfConnections];
+        final String[] addresses = new String[numberOfConnections];
+        for (int i = 0; i < numberOfConnections; i++) {
+            connectionIds[i] = unZigZag(readVarLong(in));
+            final long institutionId = unZigZag(readVarLong(in));
+            institutionIds[i] = institutionId >= 0 ? institutionId : null;
+            tokens[i] = readString(in);
+            sessionIds[i] = readString(in);
+            addresses[i] = readString(in);
+        }
+
+        final long[] ids = new long[size];
+        long lastId = 0;
+        for (int i = 0; i < size; i++) {
+            lastId += unZigZag(readVarLong(in));
+            ids[i] = lastId;
+        }
+
+        final int[] connections = new int[size];
+        for (int i = 0; i < size; i++) {
+            connections[i] = (int) readVarLong(in);
+        }
+
+        final int[] types = new int[size];
+        for (int i = 0; i < size; i++) {
+            types[i] = (int) unZigZag(readVarLong(in));
+        }
+
+        final Long[] clientTimes = new Long[size];
+        final boolean[] clientTimePresent = readPresence(in, size);
+        long lastClientTime = 0;
+        for (int i = 0; i < size; i++) {
+            if (clientTimePresent[i]) {
+                lastClientTime += unZigZag(readVarLong(in));
+                clientTimes[i] = lastClientTime;
+            }
+        }
+
+        final Long[] serverTimes = new Long[size];
+        final boolean[] serverTimePresent = readPresence(in, size);
+        long lastServerTime = 0;
+        for (int i = 0; i < size; i++) {
+            if (serverTimePresent[i]) {
+                lastServerTime += unZigZag(readVarLong(in));
+                serverTimes[i] = lastServerTime;
+            }
+        }
+
+        final BigDecimal[] numerics = new BigDecimal[size];
+        final boolean[] numericPresent = readPresence(in, size);
+        long lastNumeric = 0;
+        for (int i = 0; i < size; i++) {
+            if (numericPresent[i]) {
+                lastNumeric += unZigZag(readVarLong(in));
+                numerics[i] = new BigDecimal(BigInteger.valueOf(lastNumeric), NUMERIC_SCALE);
+            }
+        }
+
+        final int dictionarySize = (int) readVarLong(in);
+        final String[] dictionary = new String[dictionarySize + 1];
+        for (int i = 1; i <= dictionarySize; i++) {
+            dictionary[i] = readString(in);
+        }
+
+        int matches = 0;
+        for (int i = 0; i < size; i++) {
+            final String text = dictionary[(int) readVarLong(in)];
+            final int con = connections[i];
+            final ConnectionEventExportRecord rec = new ConnectionEventExportRecord(
+                    ids[i],
+                    connectionIds[con],
+                    (types[i] >= 0) ? types[i] : null,
+                    clientTimes[i],
+                    serverTimes[i],
+                    numerics[i],
+                    text,
+                    institutionIds[con],
+                    examId,
+                    sessionIds[con],
+                    addresses[con],
+                    tokens[con]);
+
+            if (filter.test(rec)) {
+                consumer.accept(rec);
+                matches++;
+            }
+        }
+
+        return matches;
+    }
+
+    private static boolean[] readPresence(final DataInputStream in, final int size) throws IOException {
+        final boolean[] result = new boolean[size];
+        int bits = 0;
+        for (int i = 0; i < size; i++) {
+            if (i % 8 == 0) {
+                bits = in.readUnsignedByte();
+            }
+            result[i] = (bits & (1 << (i % 8))) != 0;
+        }
+        return result;
+    }
+
+    static long zigZag(final long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(final long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static void writeVarLong(final DataOutputStream out, final long value) throws IOException {
+        long v = value;
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    static long readVarLong(final DataInputStream in) throws IOException {
+        long result = 0;
+        int shift = 0;
+        while (shift < 64) {
+            final int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of SEB client event archive file");
+            }
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new IOException("Malformed variable length number in SEB client event archive file");
+    }
+
+    // strings are written as length + 1 followed by the UTF-8 bytes, 0 is null
+    private static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    private static String readString(final DataInputStream in) throws IOException {
+        final int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        final byte[] bytes = new byte[length - 1];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+}
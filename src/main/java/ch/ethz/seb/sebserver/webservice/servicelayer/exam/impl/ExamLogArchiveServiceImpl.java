@@ -0,0 +1,474 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.exam.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.EventType;
+import ch.ethz.seb.sebserver.gbl.model.session.ExtendedClientEvent;
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.AdditionalAttributesDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.ExamDeletionEvent;
+import ch.ethz.seb.sebserver.webservice.servicelayer.exam.ExamLogArchiveService;
+
+@Lazy
+@Service
+@WebServiceProfile
+public class ExamLogArchiveServiceImpl implements ExamLogArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamLogArchiveServiceImpl.class);
+
+    private static final String FILE_PREFIX = "exam_";
+    private static final String FILE_SUFFIX = ".sebevents";
+    private static final String TMP_FILE_SUFFIX = ".tmp";
+    private static final int CHUNK_SIZE = 10000;
+    private static final int MAX_CACHED_FILTERS = 100;
+
+    private final SEBClientEventExportTransactionHandler sebClientEventExportTransactionHandler;
+    private final ClientEventDAO clientEventDAO;
+    private final AdditionalAttributesDAO additionalAttributesDAO;
+    private final Path archiveDir;
+    private final Set<Long> archivedExams = ConcurrentHashMap.newKeySet();
+    /** The number of matching events per block of the archive file for an exam and filter */
+    private final Map<String, int[]> blockMatchesCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, int[]>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, int[]> eldest) {
+                    return size() > MAX_CACHED_FILTERS;
+                }
+            });
+
+    public ExamLogArchiveServiceImpl(
+            final SEBClientEventExportTransactionHandler sebClientEventExportTransactionHandler,
+            final ClientEventDAO clientEventDAO,
+            final AdditionalAttributesDAO additionalAttributesDAO,
+            @Value("${sebserver.webservice.clientevent.archive.files.path:}") final String archivePath) {
+
+        this.sebClientEventExportTransactionHandler = sebClientEventExportTransactionHandler;
+        this.clientEventDAO = clientEventDAO;
+        this.additionalAttributesDAO = additionalAttributesDAO;
+        this.archiveDir = StringUtils.isNotBlank(archivePath) ? Paths.get(archivePath) : null;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return this.archiveDir != null;
+    }
+
+    @Override
+    public boolean isArchived(final Long examId) {
+        if (examId == null || !isEnabled()) {
+            return false;
+        }
+        if (this.archivedExams.contains(examId)) {
+            return true;
+        }
+
+        final boolean archived = this.additionalAttributesDAO
+                .getAdditionalAttribute(EntityType.EXAM, examId, Exam.ADDITIONAL_ATTR_CLIENT_EVENTS_ARCHIVE_FILE)
+                .map(rec -> Files.exists(this.archiveDir.resolve(rec.getValue())))
+                .getOr(false);
+
+        if (archived) {
+            this.archivedExams.add(examId);
+        }
+        return archived;
+    }
+
+    @Override
+    public Result<Integer> archiveExam(final Long examId) {
+        return Result.tryCatch(() -> {
+
+            if (!isEnabled()) {
+                throw new IllegalStateException("No SEB client event archive file path configured");
+            }
+
+            int archived = 0;
+            if (!isArchived(examId)) {
+                archived = writeArchiveFile(examId);
+            }
+
+            // the archive file is in use from now on. Remove the client events of the exam from the database
+            int deleted = CHUNK_SIZE;
+            while (deleted > 0) {
+                deleted = this.clientEventDAO
+                        .deleteNextBatchOfExam(examId, CHUNK_SIZE)
+                        .getOrThrow();
+            }
+
+            return archived;
+        });
+    }
+
+    @Override
+    public Result<Integer> countMatching(final FilterMap filterMap) {
+        return Result.tryCatch(() -> {
+            final Long examId = filterMap.getClientEventExamId();
+            if (!isArchived(examId)) {
+                return 0;
+            }
+
+            try (final FileChannel channel = FileChannel.open(archiveFile(examId), StandardOpenOption.READ)) {
+                return Arrays.stream(getBlockMatches(channel, ExamLogArchiveFile.readIndex(channel), filterMap))
+                        .sum();
+            }
+        });
+    }
+
+    @Override
+    public Result<List<ExtendedClientEvent>> getMatching(
+            final FilterMap filterMap,
+            final int offset,
+            final int limit,
+            final boolean descending) {
+
+        return Result.tryCatch(() -> {
+            final Long examId = filterMap.getClientEventExamId();
+            final List<ExtendedClientEvent> result = new ArrayList<>();
+            if (!isArchived(examId) || limit <= 0) {
+                return result;
+            }
+
+            try (final FileChannel channel = FileChannel.open(archiveFile(examId), StandardOpenOption.READ)) {
+                final ExamLogArchiveFile.Index index = ExamLogArchiveFile.readIndex(channel);
+                final int[] blockMatches = getBlockMatches(channel, index, filterMap);
+                final Predicate<ConnectionEventExportRecord> filter = toFilter(filterMap);
+
+                int skip = offset;
+                final int numberOfBlocks = index.blocks.size();
+                for (int i = 0; i < numberOfBlocks && result.size() < limit; i++) {
+                    final int blockNum = (descending) ? numberOfBlocks - 1 - i : i;
+                    // blocks before the window are skipped by their number of matching events
+                    if (skip >= blockMatches[blockNum]) {
+                        skip -= blockMatches[blockNum];
+                        continue;
+                    }
+
+                    final List<ConnectionEventExportRecord> matches = new ArrayList<>(blockMatches[blockNum]);
+                    ExamLogArchiveFile.readBlock(channel, index, index.blocks.get(blockNum), filter, matches::add);
+                    if (descending) {
+                        Collections.reverse(matches);
+                    }
+
+                    final int end = Math.min(matches.size(), skip + limit - result.size());
+                    for (int j = skip; j < end; j++) {
+                        result.add(toDomainModel(matches.get(j)));
+                    }
+                    skip = 0;
+                }
+            }
+
+            return result;
+        });
+    }
+
+    @Override
+    public Result<Collection<ExtendedClientEvent>> allMatching(
+            final FilterMap filterMap,
+            final Predicate<ExtendedClientEvent> predicate) {
+
+        final List<ExtendedClientEvent> result = new ArrayList<>();
+        return streamMatching(filterMap, rec -> {
+            final ExtendedClientEvent event = toDomainModel(rec);
+            if (predicate.test(event)) {
+                result.add(event);
+            }
+        })
+                .map(count -> result);
+    }
+
+    @Override
+    public Result<Integer> streamMatching(
+            final FilterMap filterMap,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        return Result.tryCatch(() -> {
+            final Long examId = filterMap.getClientEventExamId();
+            if (!isArchived(examId)) {
+                return 0;
+            }
+
+            try (final InputStream in = Files.newInputStream(archiveFile(examId))) {
+                return ExamLogArchiveFile.read(in, toFilter(filterMap), consumer);
+            }
+        });
+    }
+
+    @Override
+    public Result<Integer> streamMatching(
+            final FilterMap filterMap,
+            final boolean descending,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        if (!descending) {
+            return streamMatching(filterMap, consumer);
+        }
+
+        return Result.tryCatch(() -> {
+            final Long examId = filterMap.getClientEventExamId();
+            if (!isArchived(examId)) {
+                return 0;
+            }
+
+            final Long serverTimeFrom = filterMap.getClientEventServerTimeFrom();
+            final Long serverTimeTo = filterMap.getClientEventServerTimeTo();
+            final Predicate<ConnectionEventExportRecord> filter = toFilter(filterMap);
+
+            int count = 0;
+            try (final FileChannel channel = FileChannel.open(archiveFile(examId), StandardOpenOption.READ)) {
+                final ExamLogArchiveFile.Index index = ExamLogArchiveFile.readIndex(channel);
+                for (int i = index.blocks.size() - 1; i >= 0; i--) {
+                    final ExamLogArchiveFile.BlockInfo block = index.blocks.get(i);
+                    if (!block.overlapsServerTime(serverTimeFrom, serverTimeTo)) {
+                        continue;
+                    }
+
+                    final List<ConnectionEventExportRecord> matches = new ArrayList<>(block.rows);
+                    ExamLogArchiveFile.readBlock(channel, index, block, filter, matches::add);
+                    Collections.reverse(matches);
+                    matches.forEach(consumer);
+                    count += matches.size();
+                }
+            }
+
+            return count;
+        });
+    }
+
+    @Override
+    public void notifyExamDeletion(final ExamDeletionEvent event) {
+        if (!isEnabled()) {
+            return;
+        }
+
+        for (final Long examId : event.ids) {
+            try {
+
+                this.archivedExams.remove(examId);
+                final String cacheKeyPrefix = examId + ":";
+                synchronized (this.blockMatchesCache) {
+                    this.blockMatchesCache.keySet().removeIf(key -> key.startsWith(cacheKeyPrefix));
+                }
+
+                final Path file = archiveFile(examId);
+                Files.deleteIfExists(file.resolveSibling(file.getFileName() + TMP_FILE_SUFFIX));
+                if (Files.deleteIfExists(file)) {
+                    log.info("Deleted SEB client event archive file of deleted exam {}: {}", examId, file);
+                }
+
+            } catch (final Exception e) {
+                log.error("Failed to delete SEB client event archive file of exam: {}", examId, e);
+            }
+        }
+    }
+
+    /** Get the number of matching events per block of the archive file. Blocks out of the filtered server time
+     * range are not read. Without criteria that must be checked row by row, the number of events of a block
+     * that is fully within the server time range is taken from the index. */
+    private int[] getBlockMatches(
+            final FileChannel channel,
+            final ExamLogArchiveFile.Index index,
+            final FilterMap filterMap) throws IOException {
+
+        final String cacheKey = index.examId + ":"
+                + filterMap.getInstitutionId() + ":"
+                + filterMap.getClientEventServerTimeFrom() + ":"
+                + filterMap.getClientEventServerTimeTo() + ":"
+                + rowFilterCriteria(filterMap);
+        final int[] cached = this.blockMatchesCache.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        final Long serverTimeFrom = filterMap.getClientEventServerTimeFrom();
+        final Long serverTimeTo = filterMap.getClientEventServerTimeTo();
+        final Long institutionId = filterMap.getInstitutionId();
+        final boolean institutionMatches = institutionId == null || institutionId.equals(index.institutionId);
+        final boolean serverTimeFilterOnly = rowFilterCriteria(filterMap)
+                .stream()
+                .allMatch(Objects::isNull);
+        final Predicate<ConnectionEventExportRecord> filter = toFilter(filterMap);
+
+        final int[] result = new int[index.blocks.size()];
+        for (int i = 0; i < result.length; i++) {
+            final ExamLogArchiveFile.BlockInfo block = index.blocks.get(i);
+            if (!institutionMatches || !block.overlapsServerTime(serverTimeFrom, serverTimeTo)) {
+                result[i] = 0;
+            } else if (serverTimeFilterOnly && block.withinServerTime(serverTimeFrom, serverTimeTo)) {
+                result[i] = block.rows;
+            } else {
+                result[i] = ExamLogArchiveFile.readBlock(channel, index, block, filter, rec -> {
+                });
+            }
+        }
+
+        this.blockMatchesCache.put(cacheKey, result);
+        return result;
+    }
+
+    private int writeArchiveFile(final Long examId) throws IOException {
+        final Path file = archiveFile(examId);
+        final Path tmpFile = file.resolveSibling(file.getFileName() + TMP_FILE_SUFFIX);
+        Files.createDirectories(this.archiveDir);
+
+        final FilterMap filterMap = new FilterMap()
+                .putIfAbsent(ExtendedClientEvent.FILTER_ATTRIBUTE_EXAM, String.valueOf(examId));
+
+        int count = 0;
+        try (final OutputStream out = Files.newOutputStream(tmpFile);
+                final ExamLogArchiveFile.Writer writer = new ExamLogArchiveFile.Writer(out, examId)) {
+
+            final Consumer<ConnectionEventExportRecord> consumer = rec -> {
+                try {
+                    writer.add(rec);
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+
+            // archived client events first since they are older than the live ones
+            count += writeAll(filterMap, true, consumer);
+            count += writeAll(filterMap, false, consumer);
+        }
+
+        Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.additionalAttributesDAO.saveAdditionalAttribute(
+                EntityType.EXAM,
+                examId,
+                Exam.ADDITIONAL_ATTR_CLIENT_EVENTS_ARCHIVE_FILE,
+                file.getFileName().toString())
+                .getOrThrow();
+        this.archivedExams.add(examId);
+
+        log.info("Archived {} SEB client events of exam {} to file: {}", count, examId, file);
+
+        return count;
+    }
+
+    private int writeAll(
+            final FilterMap filterMap,
+            final boolean archived,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        final Long[] lastId = new Long[1];
+        final Consumer<ConnectionEventExportRecord> keysetConsumer = rec -> {
+            lastId[0] = rec.id;
+            consumer.accept(rec);
+        };
+
+        int count = 0;
+        int streamed = CHUNK_SIZE;
+        while (streamed == CHUNK_SIZE) {
+            streamed = (archived)
+                    ? this.sebClientEventExportTransactionHandler
+                            .streamNextArchivedChunk(filterMap, lastId[0], false, CHUNK_SIZE, keysetConsumer)
+                            .getOrThrow()
+                    : this.sebClientEventExportTransactionHandler
+                            .streamNextChunk(filterMap, lastId[0], false, CHUNK_SIZE, keysetConsumer)
+                            .getOrThrow();
+            count += streamed;
+        }
+        return count;
+    }
+
+    private Path archiveFile(final Long examId) {
+        return this.archiveDir.resolve(FILE_PREFIX + examId + FILE_SUFFIX);
+    }
+
+    // the filter criteria that are applied to the archived events row by row and cannot be answered by the
+    // index of the archive file, see toFilter
+    private static List<Object> rowFilterCriteria(final FilterMap filterMap) {
+        return Arrays.asList(
+                filterMap.getString(ClientConnection.FILTER_ATTR_SESSION_ID),
+                filterMap.getClientEventConnectionId(),
+                filterMap.getClientEventTypeId(),
+                filterMap.getClientEventClientTimeFrom(),
+                filterMap.getClientEventClientTimeTo(),
+                filterMap.getString(ClientEvent.FILTER_ATTR_TEXT),
+                filterMap.getString(ClientEvent.FILTER_ATTR_TEXT_SEARCH));
+    }
+
+    private static Predicate<ConnectionEventExportRecord> toFilter(final FilterMap filterMap) {
+        final Long institutionId = filterMap.getInstitutionId();
+        final String sessionId = filterMap.getString(ClientConnection.FILTER_ATTR_SESSION_ID);
+        final Long connectionId = filterMap.getClientEventConnectionId();
+        final Integer typeId = filterMap.getClientEventTypeId();
+        final Long clientTimeFrom = filterMap.getClientEventClientTimeFrom();
+        final Long clientTimeTo = filterMap.getClientEventClientTimeTo();
+        final Long serverTimeFrom = filterMap.getClientEventServerTimeFrom();
+        final Long serverTimeTo = filterMap.getClientEventServerTimeTo();
+        final String text = filterMap.getString(ClientEvent.FILTER_ATTR_TEXT);
+        final String textSearch = filterMap.getString(ClientEvent.FILTER_ATTR_TEXT_SEARCH);
+
+        return rec -> (institutionId == null || institutionId.equals(rec.institution_id))
+                && (sessionId == null || StringUtils.containsIgnoreCase(rec.exam_user_session_identifier, sessionId))
+                && (connectionId == null || connectionId.equals(rec.connection_id))
+                && (typeId == null || typeId.equals(rec.type))
+                && (clientTimeFrom == null || (rec.client_time != null && rec.client_time >= clientTimeFrom))
+                && (clientTimeTo == null || (rec.client_time != null && rec.client_time <= clientTimeTo))
+                && (serverTimeFrom == null || (rec.server_time != null && rec.server_time >= serverTimeFrom))
+                && (serverTimeTo == null || (rec.server_time != null && rec.server_time <= serverTimeTo))
+                && (text == null || StringUtils.containsIgnoreCase(rec.text, text))
+                && (textSearch == null || StringUtils.containsIgnoreCase(rec.text, textSearch));
+    }
+
+    private static ExtendedClientEvent toDomainModel(final ConnectionEventExportRecord rec) {
+        return new ExtendedClientEvent(
+                rec.institution_id,
+                rec.exam_id,
+                rec.exam_user_session_identifier,
+                rec.id,
+                rec.connection_id,
+                (rec.type != null) ? EventType.byId(rec.type) : EventType.UNKNOWN,
+                rec.client_time,
+                rec.server_time,
+                (rec.numeric_value != null) ? rec.numeric_value.doubleValue() : null,
+                rec.text);
+    }
+
+}
@@ -12,6 +12,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.joda.time.DateTime;
@@ -144,8 +145,7 @@ public class ExamTemplateServiceImpl implements ExamTemplateService {
                     return exam;
                 }
 
-                examTemplate.clientGroupTemplates
-                        .forEach(it -> createClientGroupFromTemplate(it, exam));
+                createClientGroupsFromTemplate(examTemplate.clientGroupTemplates, exam);
             }
 
             return exam;
@@ -334,46 +334,59 @@ public class ExamTemplateServiceImpl implements ExamTemplateService {
                     return exam;
                 }
 
-                examTemplate.indicatorTemplates
-                        .forEach(it -> createIndicatorFromTemplate(it, exam));
+                createIndicatorsFromTemplate(examTemplate.indicatorTemplates, exam);
             }
 
             return exam;
         }).onError(error -> log.error("Failed to create indicators defined by template for exam: ", error));
     }
 
-    private void createIndicatorFromTemplate(final IndicatorTemplate template, final Exam exam) {
+    private void createIndicatorsFromTemplate(final Collection<IndicatorTemplate> templates, final Exam exam) {
+        if (templates == null || templates.isEmpty()) {
+            return;
+        }
+
         this.indicatorDAO
-                .createNew(new Indicator(
-                        null,
-                        exam.id,
-                        template.name,
-                        template.type,
-                        template.defaultColor,
-                        template.defaultIcon,
-                        template.tags,
-                        template.thresholds))
-                .onError(error -> log.error("Failed to automatically create indicator from template: {} for exam: {}",
-                        template,
+                .createAll(exam.id, templates
+                        .stream()
+                        .map(template -> new Indicator(
+                                null,
+                                exam.id,
+                                template.name,
+                                template.type,
+                                template.defaultColor,
+                                template.defaultIcon,
+                                template.tags,
+                                template.thresholds))
+                        .collect(Collectors.toList()))
+                .onError(error -> log.error("Failed to automatically create indicators from template: {} for exam: {}",
+                        templates,
                         exam,
                         error));
     }
 
-    private void createClientGroupFromTemplate(final ClientGroupTemplate template, final Exam exam) {
+    private void createClientGroupsFromTemplate(final Collection<ClientGroupTemplate> templates, final Exam exam) {
+        if (templates == null || templates.isEmpty()) {
+            return;
+        }
+
         this.clientGroupDAO
-                .createNew(new ClientGroup(
-                        null,
-                        exam.id,
-                        template.name,
-                        template.type,
-                        template.color,
-                        template.icon,
-                        template.ipRangeStart,
-                        template.ipRangeEnd,
-                        template.clientOS))
+                .createAll(exam.id, templates
+                        .stream()
+                        .map(template -> new ClientGroup(
+                                null,
+                                exam.id,
+                                template.name,
+                                template.type,
+                                template.color,
+                                template.icon,
+                                template.ipRangeStart,
+                                template.ipRangeEnd,
+                                template.clientOS))
+                        .collect(Collectors.toList()))
                 .onError(
-                        error -> log.error("Failed to automatically create client group from template: {} for exam: {}",
-                                template,
+                        error -> log.error("Failed to automatically create client groups from template: {} for exam: {}",
+                                templates,
                                 exam,
                                 error));
     }
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
@@ -31,14 +32,17 @@ import ch.ethz.seb.sebserver.gbl.api.APIMessage;
 import ch.ethz.seb.sebserver.gbl.api.EntityType;
 import ch.ethz.seb.sebserver.gbl.model.EntityKey;
 import ch.ethz.seb.sebserver.gbl.model.EntityProcessingReport;
+import ch.ethz.seb.sebserver.gbl.model.Domain;
 import ch.ethz.seb.sebserver.gbl.model.EntityProcessingReport.ErrorEntry;
 import ch.ethz.seb.sebserver.gbl.model.Page;
+import ch.ethz.seb.sebserver.gbl.model.PageSortOrder;
 import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.ExportType;
 import ch.ethz.seb.sebserver.gbl.model.user.UserRole;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ClientConnectionRecord;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ClientEventRecord;
@@ -46,6 +50,7 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.PaginationService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.impl.SEBServerUser;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.exam.ExamLogArchiveService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.exam.SEBClientEventAdminService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.exam.SEBClientEventExporter;
 
@@ -56,20 +61,25 @@ public class SEBClientEventAdminServiceImpl implements SEBClientEventAdminServic
 
     private static final Logger log = LoggerFactory.getLogger(SEBClientEventAdminServiceImpl.class);
 
+    private static final int EXPORT_CHUNK_SIZE = 10000;
+
     private final PaginationService paginationService;
     private final ClientEventDAO clientEventDAO;
     private final SEBClientEventExportTransactionHandler sebClientEventExportTransactionHandler;
+    private final ExamLogArchiveService examLogArchiveService;
     private final EnumMap<ExportType, SEBClientEventExporter> exporter;
 
     public SEBClientEventAdminServiceImpl(
             final PaginationService paginationService,
             final ClientEventDAO clientEventDAO,
             final SEBClientEventExportTransactionHandler sebClientEventExportTransactionHandler,
+            final ExamLogArchiveService examLogArchiveService,
             final Collection<SEBClientEventExporter> exporter) {
 
         this.paginationService = paginationService;
         this.clientEventDAO = clientEventDAO;
         this.sebClientEventExportTransactionHandler = sebClientEventExportTransactionHandler;
+        this.examLogArchiveService = examLogArchiveService;
 
         this.exporter = new EnumMap<>(ExportType.class);
         exporter.forEach(exp -> this.exporter.putIfAbsent(exp.exportType(), exp));
@@ -116,13 +126,26 @@ public class SEBClientEventAdminServiceImpl implements SEBClientEventAdminServic
 
         try {
 
-            new exportRunner(
-                    this.exporter.get(exportType),
-                    includeConnectionDetails,
-                    includeExamDetails,
-                    new Pager(filterMap, sort),
-                    output)
-                            .run(currentUser);
+            // client events of exams archived to a file are always exported in identifier order
+            if (isKeysetSort(sort) || this.examLogArchiveService.isArchived(filterMap.getClientEventExamId())) {
+                new KeysetExportRunner(
+                        this.exporter.get(exportType),
+                        includeConnectionDetails,
+                        includeExamDetails,
+                        filterMap,
+                        Domain.CLIENT_EVENT.ATTR_SERVER_TIME.equals(PageSortOrder.decode(sort)),
+                        PageSortOrder.getSortOrder(sort) == PageSortOrder.DESCENDING,
+                        output)
+                                .run(currentUser);
+            } else {
+                new exportRunner(
+                        this.exporter.get(exportType),
+                        includeConnectionDetails,
+                        includeExamDetails,
+                        new Pager(filterMap, sort),
+                        output)
+                                .run(currentUser);
+            }
         } catch (final Exception e) {
             log.error("Unexpected error during export SEB logs: ", e);
         } finally {
@@ -140,6 +163,169 @@ public class SEBClientEventAdminServiceImpl implements SEBClientEventAdminServic
 
     }
 
+    // For these sort criteria the export can use keyset pagination. Server time is not strictly in identifier
+    // order since events are stored in batches, so server time sort uses the server time with the identifier
+    // as tie breaker as key.
+    private static boolean isKeysetSort(final String sort) {
+        final String sortAttr = PageSortOrder.decode(sort);
+        return StringUtils.isBlank(sortAttr)
+                || Domain.CLIENT_EVENT.ATTR_ID.equals(sortAttr)
+                || Domain.CLIENT_EVENT.ATTR_SERVER_TIME.equals(sortAttr);
+    }
+
+    /** Streams the export with keyset pagination on the client event identifier or on server time and identifier.
+     * Each chunk is streamed from a database cursor that also joins the needed connection details in the same query.
+     * Exam details are only fetched once per exam. This runs in linear time of the number of exported events. */
+    private class KeysetExportRunner {
+
+        private final SEBClientEventExporter exporter;
+        private final boolean includeConnectionDetails;
+        private final boolean includeExamDetails;
+        private final FilterMap filterMap;
+        private final boolean serverTimeOrder;
+        private final boolean descending;
+        private final OutputStream output;
+
+        private final Map<Long, Exam> examCache;
+        private final Map<Long, ClientConnectionRecord> connectionCache;
+
+        private Long lastId = null;
+        private Long lastServerTime = null;
+
+        public KeysetExportRunner(
+                final SEBClientEventExporter exporter,
+                final boolean includeConnectionDetails,
+                final boolean includeExamDetails,
+                final FilterMap filterMap,
+                final boolean serverTimeOrder,
+                final boolean descending,
+                final OutputStream output) {
+
+            this.exporter = exporter;
+            this.includeConnectionDetails = includeConnectionDetails;
+            this.includeExamDetails = includeExamDetails;
+            this.filterMap = filterMap;
+            this.serverTimeOrder = serverTimeOrder;
+            this.descending = descending;
+            this.output = output;
+
+            this.connectionCache = new HashMap<>();
+            this.examCache = new HashMap<>();
+        }
+
+        public void run(final SEBServerUser currentUser) {
+
+            final EnumSet<UserRole> userRoles = currentUser.getUserRoles();
+            final boolean isSupporterOnly = userRoles.size() == 1 && userRoles.contains(UserRole.EXAM_SUPPORTER);
+            final String userUUID = currentUser.uuid();
+
+            // first stream header line
+            this.exporter.streamHeader(this.output, this.includeConnectionDetails, this.includeExamDetails);
+
+            if (SEBClientEventAdminServiceImpl.this.examLogArchiveService
+                    .isArchived(this.filterMap.getClientEventExamId())) {
+                streamArchiveFile(isSupporterOnly, userUUID);
+                return;
+            }
+
+            // then stream chunk by chunk until the last chunk is not full anymore.
+            // Archived events are older than the live ones and are streamed in the same order
+            if (this.descending) {
+                streamAll(false, isSupporterOnly, userUUID);
+                streamAll(true, isSupporterOnly, userUUID);
+            } else {
+                streamAll(true, isSupporterOnly, userUUID);
+                streamAll(false, isSupporterOnly, userUUID);
+            }
+        }
+
+        private void streamArchiveFile(final boolean isSupporterOnly, final String userUUID) {
+            SEBClientEventAdminServiceImpl.this.examLogArchiveService
+                    .streamMatching(
+                            this.filterMap,
+                            this.descending,
+                            rec -> streamRecord(rec, isSupporterOnly, userUUID))
+                    .getOrThrow();
+        }
+
+        private void streamAll(final boolean archived, final boolean isSupporterOnly, final String userUUID) {
+            final SEBClientEventExportTransactionHandler handler =
+                    SEBClientEventAdminServiceImpl.this.sebClientEventExportTransactionHandler;
+
+            this.lastId = null;
+            this.lastServerTime = null;
+            int streamed = EXPORT_CHUNK_SIZE;
+            while (streamed == EXPORT_CHUNK_SIZE) {
+                streamed = (archived)
+                        ? handler.streamNextArchivedChunk(
+                                this.filterMap,
+                                this.lastId,
+                                this.serverTimeOrder,
+                                this.lastServerTime,
+                                this.descending,
+                                EXPORT_CHUNK_SIZE,
+                                rec -> streamRecord(rec, isSupporterOnly, userUUID))
+                                .getOrThrow()
+                        : handler.streamNextChunk(
+                                this.filterMap,
+                                this.lastId,
+                                this.serverTimeOrder,
+                                this.lastServerTime,
+                                this.descending,
+                                EXPORT_CHUNK_SIZE,
+                                rec -> streamRecord(rec, isSupporterOnly, userUUID))
+                                .getOrThrow();
+            }
+        }
+
+        private void streamRecord(
+                final ConnectionEventExportRecord rec,
+                final boolean isSupporterOnly,
+                final String userUUID) {
+
+            this.lastId = rec.id;
+            this.lastServerTime = rec.server_time;
+
+            final Exam exam = getExam(rec.exam_id);
+            if (isSupporterOnly && (exam == null || !exam.isOwner(userUUID))) {
+                return;
+            }
+
+            this.exporter.streamData(
+                    this.output,
+                    new ClientEventRecord(
+                            rec.id,
+                            rec.connection_id,
+                            rec.type,
+                            rec.client_time,
+                            rec.server_time,
+                            rec.numeric_value,
+                            rec.text),
+                    this.includeConnectionDetails ? getConnection(rec) : null,
+                    this.includeExamDetails ? exam : null);
+        }
+
+        private ClientConnectionRecord getConnection(final ConnectionEventExportRecord rec) {
+            return this.connectionCache.computeIfAbsent(rec.connection_id, id -> new ClientConnectionRecord(
+                    id, rec.institution_id, rec.exam_id, null, rec.connection_token,
+                    rec.exam_user_session_identifier, rec.client_address, null, null, null,
+                    null, null, null, null, null, null, null, null, null, null, null, null));
+        }
+
+        private Exam getExam(final Long examId) {
+            if (!this.examCache.containsKey(examId)) {
+                SEBClientEventAdminServiceImpl.this.sebClientEventExportTransactionHandler
+                        .examById(examId)
+                        .onSuccess(e -> this.examCache.put(examId, e))
+                        .onError(error -> log.error("Failed to get Exam for id: {}",
+                                examId,
+                                error));
+            }
+
+            return this.examCache.get(examId);
+        }
+    }
+
     private class exportRunner {
 
         private final SEBClientEventExporter exporter;
@@ -136,16 +136,11 @@ public class SEBClientEventCSVExporter implements SEBClientEventExporter {
 
         builder.append(Constants.CARRIAGE_RETURN);
 
+        // NOTE: no flush per data line here, the output is flushed by the caller when the export is done
         try {
             output.write(Utils.toByteArray(builder));
         } catch (final IOException e) {
-            log.error("Failed to stream header: ", e);
-        } finally {
-            try {
-                output.flush();
-            } catch (final IOException e) {
-                e.printStackTrace();
-            }
+            log.error("Failed to stream data: ", e);
         }
     }
 
@@ -9,12 +9,20 @@
 package ch.ethz.seb.sebserver.webservice.servicelayer.exam.impl;
 
 import static org.mybatis.dynamic.sql.SqlBuilder.equalTo;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
 import static org.mybatis.dynamic.sql.SqlBuilder.isEqualToWhenPresent;
 
 import java.util.Collection;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 
+import org.apache.ibatis.cursor.Cursor;
+import org.mybatis.dynamic.sql.SortSpecification;
 import org.mybatis.dynamic.sql.SqlBuilder;
+import org.mybatis.dynamic.sql.SqlColumn;
+import org.mybatis.dynamic.sql.select.MyBatis3SelectModelAdapter;
+import org.mybatis.dynamic.sql.select.QueryExpressionDSL;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -24,6 +32,11 @@ import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventArchiveMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventArchiveMapper.ClientEventArchiveRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.FullTextSearch;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientConnectionRecordMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
@@ -39,17 +52,26 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
 public class SEBClientEventExportTransactionHandler {
 
     private final ClientEventRecordMapper clientEventRecordMapper;
+    private final ClientEventExtensionMapper clientEventExtensionMapper;
+    private final ClientEventArchiveMapper clientEventArchiveMapper;
     private final ClientConnectionRecordMapper clientConnectionRecordMapper;
     private final ExamDAO examDAO;
+    private final boolean fullTextSearchEnabled;
 
     public SEBClientEventExportTransactionHandler(
             final ClientEventRecordMapper clientEventRecordMapper,
+            final ClientEventExtensionMapper clientEventExtensionMapper,
+            final ClientEventArchiveMapper clientEventArchiveMapper,
             final ClientConnectionRecordMapper clientConnectionRecordMapper,
-            final ExamDAO examDAO) {
+            final ExamDAO examDAO,
+            @Value("${sebserver.webservice.clientevent.fulltext.enabled:false}") final boolean fullTextSearchEnabled) {
 
         this.clientEventRecordMapper = clientEventRecordMapper;
+        this.clientEventExtensionMapper = clientEventExtensionMapper;
+        this.clientEventArchiveMapper = clientEventArchiveMapper;
         this.clientConnectionRecordMapper = clientConnectionRecordMapper;
         this.examDAO = examDAO;
+        this.fullTextSearchEnabled = fullTextSearchEnabled;
     }
 
     @Transactional(readOnly = true)
@@ -96,10 +118,305 @@ public class SEBClientEventExportTransactionHandler {
                 .and(
                         ClientEventRecordDynamicSqlSupport.text,
                         SqlBuilder.isLikeWhenPresent(filterMap.getClientEventText()))
+                .and(
+                        ClientEventRecordDynamicSqlSupport.text,
+                        FullTextSearch.isMatchingWhenPresent(textSearchQuery(filterMap)))
+                .and(
+                        ClientEventRecordDynamicSqlSupport.text,
+                        SqlBuilder.isLikeWhenPresent(filterMap.getClientEventTextSearch()))
                 .build()
                 .execute());
     }
 
+    /** Streams the next chunk of client events that matches the given filter to the given consumer.
+     * This uses keyset pagination on the client event identifier. The chunk starts right after the given
+     * event identifier (the last event identifier of the previous chunk) and is streamed from a
+     * database cursor within one read-only transaction. The connection details are joined in the same query.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param lastId the event identifier of the last event of the previous chunk or null for the first chunk
+     * @param descending indicates whether the events are ordered by descending identifier or not
+     * @param chunkSize the maximum number of events to stream with this chunk
+     * @param consumer the consumer for the streamed event records
+     * @return Result refer to the number of streamed events or to an error when happened */
+    @Transactional(readOnly = true)
+    public Result<Integer> streamNextChunk(
+            final FilterMap filterMap,
+            final Long lastId,
+            final boolean descending,
+            final int chunkSize,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        return streamNextChunk(filterMap, lastId, false, null, descending, chunkSize, consumer);
+    }
+
+    /** Streams the next chunk of client events that matches the given filter to the given consumer.
+     * If serverTimeOrder is set, this uses keyset pagination on the server time and the event identifier
+     * as tie breaker, otherwise it uses keyset pagination on the event identifier only.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param lastId the event identifier of the last event of the previous chunk or null for the first chunk
+     * @param serverTimeOrder indicates whether the events are ordered by server time and identifier
+     * @param lastServerTime the server time of the last event of the previous chunk or null for the first chunk
+     * @param descending indicates whether the events are ordered descending or not
+     * @param chunkSize the maximum number of events to stream with this chunk
+     * @param consumer the consumer for the streamed event records
+     * @return Result refer to the number of streamed events or to an error when happened */
+    @Transactional(readOnly = true)
+    public Result<Integer> streamNextChunk(
+            final FilterMap filterMap,
+            final Long lastId,
+            final boolean serverTimeOrder,
+            final Long lastServerTime,
+            final boolean descending,
+            final int chunkSize,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        return Result.tryCatch(() -> {
+
+            final QueryExpressionDSL<MyBatis3SelectModelAdapter<Cursor<ConnectionEventExportRecord>>>.QueryExpressionWhereBuilder whereClause =
+                    this.clientEventExtensionMapper
+                            .selectExportByExample()
+                            .where(
+                                    ClientConnectionRecordDynamicSqlSupport.institutionId,
+                                    isEqualToWhenPresent(filterMap.getInstitutionId()));
+
+            if (serverTimeOrder && lastId != null && lastServerTime != null) {
+                // (server_time, id) > (lastServerTime, lastId), the first part lets the database use a range scan
+                whereClause
+                        .and(
+                                ClientEventRecordDynamicSqlSupport.serverTime,
+                                (descending)
+                                        ? SqlBuilder.isLessThanOrEqualTo(lastServerTime)
+                                        : SqlBuilder.isGreaterThanOrEqualTo(lastServerTime))
+                        .and(
+                                ClientEventRecordDynamicSqlSupport.serverTime,
+                                (descending)
+                                        ? SqlBuilder.isLessThan(lastServerTime)
+                                        : SqlBuilder.isGreaterThan(lastServerTime),
+                                SqlBuilder.or(
+                                        ClientEventRecordDynamicSqlSupport.id,
+                                        (descending)
+                                                ? SqlBuilder.isLessThan(lastId)
+                                                : SqlBuilder.isGreaterThan(lastId)));
+            } else if (!serverTimeOrder) {
+                whereClause.and(
+                        ClientEventRecordDynamicSqlSupport.id,
+                        (descending)
+                                ? SqlBuilder.isLessThanWhenPresent(lastId)
+                                : SqlBuilder.isGreaterThanWhenPresent(lastId));
+            }
+
+            int count = 0;
+            try (final Cursor<ConnectionEventExportRecord> cursor = whereClause
+                    .and(
+                            ClientConnectionRecordDynamicSqlSupport.examId,
+                            isEqualToWhenPresent(filterMap.getClientEventExamId()))
+                    .and(
+                            ClientConnectionRecordDynamicSqlSupport.examUserSessionId,
+                            SqlBuilder.isLikeWhenPresent(
+                                    filterMap.getSQLWildcard(ClientConnection.FILTER_ATTR_SESSION_ID)))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.clientConnectionId,
+                            isEqualToWhenPresent(filterMap.getClientEventConnectionId()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.type,
+                            isEqualToWhenPresent(filterMap.getClientEventTypeId()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.type,
+                            SqlBuilder.isNotEqualTo(5)) //  formerly defined as EventType.LAST_PING
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.clientTime,
+                            SqlBuilder.isGreaterThanOrEqualToWhenPresent(filterMap.getClientEventClientTimeFrom()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.clientTime,
+                            SqlBuilder.isLessThanOrEqualToWhenPresent(filterMap.getClientEventClientTimeTo()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.serverTime,
+                            SqlBuilder.isGreaterThanOrEqualToWhenPresent(filterMap.getClientEventServerTimeFrom()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.serverTime,
+                            SqlBuilder.isLessThanOrEqualToWhenPresent(filterMap.getClientEventServerTimeTo()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.text,
+                            SqlBuilder.isLikeWhenPresent(filterMap.getClientEventText()))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.text,
+                            FullTextSearch.isMatchingWhenPresent(textSearchQuery(filterMap)))
+                    .and(
+                            ClientEventRecordDynamicSqlSupport.text,
+                            SqlBuilder.isLikeWhenPresent(filterMap.getClientEventTextSearch()))
+                    .orderBy(orderBy(
+                            ClientEventRecordDynamicSqlSupport.serverTime,
+                            ClientEventRecordDynamicSqlSupport.id,
+                            serverTimeOrder,
+                            descending))
+                    .limit(chunkSize)
+                    .build()
+                    .execute()) {
+
+                for (final ConnectionEventExportRecord rec : cursor) {
+                    consumer.accept(rec);
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    /** Streams the next chunk of archived client events of the exam given by the filter to the given consumer.
+     * Works the same as streamNextChunk but on the client event archive. Since the archive is partitioned
+     * by exam, this needs an exam filter and streams nothing if there is none.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param lastId the event identifier of the last event of the previous chunk or null for the first chunk
+     * @param descending indicates whether the events are ordered by descending identifier or not
+     * @param chunkSize the maximum number of events to stream with this chunk
+     * @param consumer the consumer for the streamed event records
+     * @return Result refer to the number of streamed events or to an error when happened */
+    @Transactional(readOnly = true)
+    public Result<Integer> streamNextArchivedChunk(
+            final FilterMap filterMap,
+            final Long lastId,
+            final boolean descending,
+            final int chunkSize,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        return streamNextArchivedChunk(filterMap, lastId, false, null, descending, chunkSize, consumer);
+    }
+
+    /** Streams the next chunk of archived client events of the exam given by the filter to the given consumer.
+     * Works the same as streamNextChunk with server time order but on the client event archive.
+     *
+     * @param filterMap the FilterMap containing the filter criteria
+     * @param lastId the event identifier of the last event of the previous chunk or null for the first chunk
+     * @param serverTimeOrder indicates whether the events are ordered by server time and identifier
+     * @param lastServerTime the server time of the last event of the previous chunk or null for the first chunk
+     * @param descending indicates whether the events are ordered descending or not
+     * @param chunkSize the maximum number of events to stream with this chunk
+     * @param consumer the consumer for the streamed event records
+     * @return Result refer to the number of streamed events or to an error when happened */
+    @Transactional(readOnly = true)
+    public Result<Integer> streamNextArchivedChunk(
+            final FilterMap filterMap,
+            final Long lastId,
+            final boolean serverTimeOrder,
+            final Long lastServerTime,
+            final boolean descending,
+            final int chunkSize,
+            final Consumer<ConnectionEventExportRecord> consumer) {
+
+        final Long examId = filterMap.getClientEventExamId();
+        if (examId == null) {
+            return Result.of(0);
+        }
+
+        final ClientEventArchiveRecord archive = ClientEventArchiveMapper.clientEventArchiveRecord;
+        return Result.tryCatch(() -> {
+
+            final QueryExpressionDSL<MyBatis3SelectModelAdapter<Cursor<ConnectionEventExportRecord>>>.QueryExpressionWhereBuilder whereClause =
+                    this.clientEventArchiveMapper
+                            .selectExportByExample()
+                            .where(
+                                    archive.examId,
+                                    isEqualTo(examId));
+
+            if (serverTimeOrder && lastId != null && lastServerTime != null) {
+                whereClause
+                        .and(
+                                archive.serverTime,
+                                (descending)
+                                        ? SqlBuilder.isLessThanOrEqualTo(lastServerTime)
+                                        : SqlBuilder.isGreaterThanOrEqualTo(lastServerTime))
+                        .and(
+                                archive.serverTime,
+                                (descending)
+                                        ? SqlBuilder.isLessThan(lastServerTime)
+                                        : SqlBuilder.isGreaterThan(lastServerTime),
+                                SqlBuilder.or(
+                                        archive.id,
+                                        (descending)
+                                                ? SqlBuilder.isLessThan(lastId)
+                                                : SqlBuilder.isGreaterThan(lastId)));
+            } else if (!serverTimeOrder) {
+                whereClause.and(
+                        archive.id,
+                        (descending)
+                                ? SqlBuilder.isLessThanWhenPresent(lastId)
+                                : SqlBuilder.isGreaterThanWhenPresent(lastId));
+            }
+
+            int count = 0;
+            try (final Cursor<ConnectionEventExportRecord> cursor = whereClause
+                    .and(
+                            archive.institutionId,
+                            isEqualToWhenPresent(filterMap.getInstitutionId()))
+                    .and(
+                            ClientConnectionRecordDynamicSqlSupport.examUserSessionId,
+                            SqlBuilder.isLikeWhenPresent(
+                                    filterMap.getSQLWildcard(ClientConnection.FILTER_ATTR_SESSION_ID)))
+                    .and(
+                            archive.clientConnectionId,
+                            isEqualToWhenPresent(filterMap.getClientEventConnectionId()))
+                    .and(
+                            archive.type,
+                            isEqualToWhenPresent(filterMap.getClientEventTypeId()))
+                    .and(
+                            archive.type,
+                            SqlBuilder.isNotEqualTo(5)) //  formerly defined as EventType.LAST_PING
+                    .and(
+                            archive.clientTime,
+                            SqlBuilder.isGreaterThanOrEqualToWhenPresent(filterMap.getClientEventClientTimeFrom()))
+                    .and(
+                            archive.clientTime,
+                            SqlBuilder.isLessThanOrEqualToWhenPresent(filterMap.getClientEventClientTimeTo()))
+                    .and(
+                            archive.serverTime,
+                            SqlBuilder.isGreaterThanOrEqualToWhenPresent(filterMap.getClientEventServerTimeFrom()))
+                    .and(
+                            archive.serverTime,
+                            SqlBuilder.isLessThanOrEqualToWhenPresent(filterMap.getClientEventServerTimeTo()))
+                    .and(
+                            archive.text,
+                            SqlBuilder.isLikeWhenPresent(filterMap.getClientEventText()))
+                    .and(
+                            archive.text,
+                            SqlBuilder.isLikeWhenPresent(filterMap.getClientEventTextSearch()))
+                    .orderBy(orderBy(archive.serverTime, archive.id, serverTimeOrder, descending))
+                    .limit(chunkSize)
+                    .build()
+                    .execute()) {
+
+                for (final ConnectionEventExportRecord rec : cursor) {
+                    consumer.accept(rec);
+                    count++;
+                }
+            }
+            return count;
+        });
+    }
+
+    // the full-text condition needs the FULLTEXT index on client_event.text that is only created on demand
+    private String textSearchQuery(final FilterMap filterMap) {
+        return (this.fullTextSearchEnabled) ? filterMap.getClientEventTextSearchQuery() : null;
+    }
+
+    private static SortSpecification[] orderBy(
+            final SqlColumn<Long> serverTime,
+            final SqlColumn<Long> id,
+            final boolean serverTimeOrder,
+            final boolean descending) {
+
+        if (serverTimeOrder) {
+            return (descending)
+                    ? new SortSpecification[] { serverTime.descending(), id.descending() }
+                    : new SortSpecification[] { serverTime, id };
+        }
+        return (descending)
+                ? new SortSpecification[] { id.descending() }
+                : new SortSpecification[] { id };
+    }
+
     @Transactional(readOnly = true)
     public Result<ClientConnectionRecord> clientConnectionById(final Long id) {
         return Result.tryCatch(() -> this.clientConnectionRecordMapper.selectByPrimaryKey(id));
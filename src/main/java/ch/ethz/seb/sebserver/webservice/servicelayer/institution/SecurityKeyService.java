@@ -79,6 +79,16 @@ public interface SecurityKeyService {
      * @param record The ClientConnectionRecord of the specific SEB client connection */
     void updateAppSignatureKeyGrant(ClientConnectionRecord record);
 
+    /** Notifies the change of the App Signature Key hash of a SEB client connection that is in a security check
+     * state. This updates the in-memory App Signature Key grant state of the exam, so that further grant
+     * decisions for the exam need no query to the persistent storage.
+     *
+     * @param examId The exam identifier of the SEB client connection
+     * @param previousHash The App Signature Key hash the connection was counted with before or null
+     * @param signatureHash The App Signature Key hash the connection is counted with now or null if the connection
+     *            is not in a security check state anymore */
+    void notifyConnectionSignatureHash(Long examId, String previousHash, String signatureHash);
+
     /** Delete a given security key form the registry.
      *
      * @param keyId The security key registry entry identifier
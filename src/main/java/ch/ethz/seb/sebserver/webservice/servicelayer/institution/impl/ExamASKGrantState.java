@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.institution.impl;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+
+import ch.ethz.seb.sebserver.gbl.model.institution.SecurityCheckResult;
+import ch.ethz.seb.sebserver.gbl.model.institution.SecurityKey;
+
+/** The in-memory App Signature Key (ASK) grant state of one exam. Holds the registered ASK grants that
+ * apply to the exam (exam grants and global grants of the institution) and a histogram of the ASK hashes
+ * of all client connections of the exam that are in a security check state.
+ * <p>
+ * With this state a grant decision for a given ASK hash is a map lookup and needs no query to the
+ * persistent storage. The histogram is updated on connection handshake and close and the whole state
+ * is reloaded from persistent storage periodically to include changes of other webservice instances. */
+final class ExamASKGrantState {
+
+    final Long examId;
+    final Long institutionId;
+    final long loadTime;
+
+    private final int numericalTrustThreshold;
+    private final Map<String, SecurityCheckResult> registeredKeys;
+    private final Map<String, Integer> signatureHashCount;
+
+    ExamASKGrantState(
+            final Long examId,
+            final Long institutionId,
+            final Collection<SecurityKey> registeredKeys,
+            final Map<String, Long> signatureHashCount,
+            final int numericalTrustThreshold,
+            final long loadTime) {
+
+        this.examId = examId;
+        this.institutionId = institutionId;
+        this.numericalTrustThreshold = numericalTrustThreshold;
+        this.loadTime = loadTime;
+
+        final Map<String, SecurityCheckResult> keys = new HashMap<>();
+        registeredKeys.stream()
+                .filter(key -> key.key != null)
+                .forEach(key -> keys.merge(
+                        String.valueOf(key.key),
+                        toCheckResult(key),
+                        ExamASKGrantState::mergeCheckResult));
+        this.registeredKeys = Map.copyOf(keys);
+
+        this.signatureHashCount = new ConcurrentHashMap<>();
+        signatureHashCount.forEach((hash, count) -> {
+            if (hash != null && count != null && count > 0) {
+                this.signatureHashCount.put(hash, count.intValue());
+            }
+        });
+    }
+
+    /** Applies the App Signature Key check for the given ASK hash.
+     * If there are registered grants for the ASK hash, the result refers to these grants. Otherwise the
+     * numerical check is applied, that grants the ASK hash if more connections than the numerical trust
+     * threshold of the exam have the same ASK hash.
+     *
+     * @param signatureHash the ASK hash of a client connection
+     * @return SecurityCheckResult the result of the check */
+    SecurityCheckResult check(final String signatureHash) {
+        if (StringUtils.isBlank(signatureHash)) {
+            return SecurityCheckResult.NO_GRANT;
+        }
+
+        final SecurityCheckResult registered = this.registeredKeys.get(signatureHash);
+        if (registered != null) {
+            return registered;
+        }
+
+        final int matches = this.signatureHashCount.getOrDefault(signatureHash, 0);
+        if (matches <= 0) {
+            return SecurityCheckResult.NO_GRANT;
+        }
+        return new SecurityCheckResult(false, false, matches > this.numericalTrustThreshold);
+    }
+
+    /** Notifies the change of the ASK hash of a client connection that is in a security check state.
+     *
+     * @param previousHash the ASK hash the connection was counted with before or null if it was not counted
+     * @param signatureHash the ASK hash the connection is counted with now or null if it is not counted anymore */
+    void connectionSignatureHashChanged(final String previousHash, final String signatureHash) {
+        if (StringUtils.equals(previousHash, signatureHash)) {
+            return;
+        }
+
+        if (StringUtils.isNotBlank(previousHash)) {
+            this.signatureHashCount.computeIfPresent(previousHash, (hash, count) -> (count <= 1) ? null : count - 1);
+        }
+        if (StringUtils.isNotBlank(signatureHash)) {
+            this.signatureHashCount.merge(signatureHash, 1, Integer::sum);
+        }
+    }
+
+    int getSignatureHashCount(final String signatureHash) {
+        return this.signatureHashCount.getOrDefault(signatureHash, 0);
+    }
+
+    // NOTE: exam grants are reported as global granted and global grants as exam granted.
+    //       This is the same mapping as the one of the former registry lookup and is kept for compatibility
+    private static SecurityCheckResult toCheckResult(final SecurityKey key) {
+        return new SecurityCheckResult(key.examId != null, key.examId == null, false);
+    }
+
+    private static SecurityCheckResult mergeCheckResult(final SecurityCheckResult r1, final SecurityCheckResult r2) {
+        return new SecurityCheckResult(
+                r1.globalGranted || r2.globalGranted,
+                r1.examGranted || r2.examGranted,
+                false);
+    }
+
+}
@@ -13,12 +13,15 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.bouncycastle.util.encoders.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
@@ -55,17 +58,23 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
     private final ExamSessionCacheService examSessionCacheService;
     private final SecurityKeyRegistryDAO securityKeyRegistryDAO;
     private final AdditionalAttributesDAO additionalAttributesDAO;
+    private final long grantStateMaxAge;
+
+    /** The in-memory App Signature Key grant states of exams, mapped by exam identifier */
+    private final Map<Long, ExamASKGrantState> examGrantStates = new ConcurrentHashMap<>();
 
     public SecurityKeyServiceImpl(
             final ClientConnectionDAO clientConnectionDAO,
             final ExamSessionCacheService examSessionCacheService,
             final SecurityKeyRegistryDAO securityKeyRegistryDAO,
-            final AdditionalAttributesDAO additionalAttributesDAO) {
+            final AdditionalAttributesDAO additionalAttributesDAO,
+            @Value("${sebserver.webservice.api.exam.ask.grant-state.max-age:10000}") final long grantStateMaxAge) {
 
         this.clientConnectionDAO = clientConnectionDAO;
         this.examSessionCacheService = examSessionCacheService;
         this.securityKeyRegistryDAO = securityKeyRegistryDAO;
         this.additionalAttributesDAO = additionalAttributesDAO;
+        this.grantStateMaxAge = grantStateMaxAge;
     }
 
     @Override
@@ -134,7 +143,8 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
                         institutionId,
                         KeyType.APP_SIGNATURE_KEY,
                         cc.ask,
-                        tag, null, null)).getOrThrow());
+                        tag, null, null)).getOrThrow())
+                .onSuccess(this::evictGrantStates);
     }
 
     @Override
@@ -163,7 +173,8 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
                         institutionId,
                         KeyType.APP_SIGNATURE_KEY,
                         cc.ask,
-                        tag, examId, null)).getOrThrow());
+                        tag, examId, null)).getOrThrow())
+                .onSuccess(this::evictGrantStates);
     }
 
     @Override
@@ -212,6 +223,23 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
         }
     }
 
+    @Override
+    public void notifyConnectionSignatureHash(
+            final Long examId,
+            final String previousHash,
+            final String signatureHash) {
+
+        if (examId == null) {
+            return;
+        }
+
+        // only update a loaded state. A state that is loaded later on already contains the change
+        final ExamASKGrantState grantState = this.examGrantStates.get(examId);
+        if (grantState != null) {
+            grantState.connectionSignatureHashChanged(previousHash, signatureHash);
+        }
+    }
+
     @Override
     public Result<EntityKey> deleteSecurityKeyGrant(final Long keyId) {
         return Result.tryCatch(() -> {
@@ -219,6 +247,7 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
 
             final String grantedKeyHash = String.valueOf(key);
             this.securityKeyRegistryDAO.delete(keyId).getOrThrow();
+            evictGrantStates(key);
             this.clientConnectionDAO.getSecurityKeyConnectionRecords(key.examId)
                     .getOrThrow()
                     .stream()
@@ -264,6 +293,11 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
             log.debug("Apply app-signature-key check for connection: {}", connectionToken);
         }
 
+        if (examId != null) {
+            return getGrantState(institutionId, examId)
+                    .map(grantState -> grantState.check(hashedSignatureKey));
+        }
+
         return this.securityKeyRegistryDAO
                 .getAll(institutionId, examId, KeyType.APP_SIGNATURE_KEY)
                 .map(all -> {
@@ -272,8 +306,9 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
                             .filter(key -> Utils.isEqualsWithEmptyCheck(String.valueOf(key.key), hashedSignatureKey))
                             .collect(Collectors.toList());
 
+                    // if there is no exam known yet, no numerical check can be applied
                     if (matches.isEmpty()) {
-                        return numericalCheck(examId, hashedSignatureKey);
+                        return SecurityCheckResult.NO_GRANT;
                     } else {
                         return new SecurityCheckResult(
                                 matches.stream()
@@ -285,35 +320,54 @@ public class SecurityKeyServiceImpl implements SecurityKeyService {
                 });
     }
 
-    private SecurityCheckResult numericalCheck(
-            final Long examId,
-            final String hashedSignature) {
-
-        if (log.isDebugEnabled()) {
-            log.debug("Apply numerical security check update for exam {}", examId);
-        }
-
-        // if there is no exam known yet, no numerical check can be applied
-        if (examId == null) {
-            return SecurityCheckResult.NO_GRANT;
+    private Result<ExamASKGrantState> getGrantState(final Long institutionId, final Long examId) {
+        final ExamASKGrantState grantState = this.examGrantStates.get(examId);
+        if (grantState != null
+                && Objects.equals(grantState.institutionId, institutionId)
+                && Utils.getMillisecondsNow() - grantState.loadTime < this.grantStateMaxAge) {
+            return Result.of(grantState);
         }
 
-        try {
+        return loadGrantState(institutionId, examId)
+                .onSuccess(state -> {
+                    // drop expired states, also the ones of exams that are not running anymore
+                    this.examGrantStates
+                            .values()
+                            .removeIf(s -> state.loadTime - s.loadTime >= this.grantStateMaxAge);
+                    this.examGrantStates.put(examId, state);
+                });
+    }
 
-            final int numericalTrustThreshold = getNumericalTrustThreshold(examId);
-            final Long matches = this.clientConnectionDAO
-                    .countSignatureHashes(examId, hashedSignature)
-                    .getOr(0L);
+    private Result<ExamASKGrantState> loadGrantState(final Long institutionId, final Long examId) {
+        return Result.tryCatch(() -> {
 
-            if (matches <= 0) {
-                return SecurityCheckResult.NO_GRANT;
-            } else {
-                return new SecurityCheckResult(false, false, matches > numericalTrustThreshold);
+            if (log.isDebugEnabled()) {
+                log.debug("Load app-signature-key grant state for exam: {}", examId);
             }
 
-        } catch (final Exception e) {
-            log.error("Unexpected error while trying to apply numerical app signature key check: ", e);
-            return SecurityCheckResult.NO_GRANT;
+            final long loadTime = Utils.getMillisecondsNow();
+            return new ExamASKGrantState(
+                    examId,
+                    institutionId,
+                    this.securityKeyRegistryDAO
+                            .getAll(institutionId, examId, KeyType.APP_SIGNATURE_KEY)
+                            .getOrThrow(),
+                    this.clientConnectionDAO
+                            .getSignatureHashCounts(examId)
+                            .getOrThrow(),
+                    getNumericalTrustThreshold(examId),
+                    loadTime);
+        });
+    }
+
+    private void evictGrantStates(final SecurityKey key) {
+        if (key.examId != null) {
+            this.examGrantStates.remove(key.examId);
+        } else {
+            // a global grant applies to all exams of the institution
+            this.examGrantStates
+                    .values()
+                    .removeIf(state -> Objects.equals(state.institutionId, key.institutionId));
         }
     }
 
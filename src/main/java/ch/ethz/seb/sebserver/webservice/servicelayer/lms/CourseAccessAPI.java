@@ -76,6 +76,12 @@ public interface CourseAccessAPI {
     /** Clears the underling caches if there are some for a particular implementation. */
     void clearCourseCache();
 
+    /** Releases the underling caches if there are some for a particular implementation.
+     * This is used when the LMS Setup has been changed or removed and the instance is not used anymore. */
+    default void dispose() {
+        clearCourseCache();
+    }
+
     /** Convert an anonymous or temporary examineeUserId, sent by the SEB Client on LMS login,
      * to LMS examinee account details by requesting them on the LMS API with the given examineeUserId
      *
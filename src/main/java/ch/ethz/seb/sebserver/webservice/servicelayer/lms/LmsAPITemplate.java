@@ -75,8 +75,4 @@ public interface LmsAPITemplate extends CourseAccessAPI, SEBRestrictionAPI {
      * @return the underling {@link LmsSetup } configuration for this LmsAPITemplate */
     LmsSetup lmsSetup();
 
-    default void dispose() {
-        clearCourseCache();
-    }
-
 }
@@ -9,13 +9,16 @@
 package ch.ethz.seb.sebserver.webservice.servicelayer.lms.impl;
 
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.ehcache.config.CacheConfiguration;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.cache.jcache.JCacheCache;
 
 import ch.ethz.seb.sebserver.gbl.Constants;
 import ch.ethz.seb.sebserver.gbl.model.exam.QuizData;
@@ -23,49 +26,62 @@ import ch.ethz.seb.sebserver.gbl.model.exam.QuizData;
 /** This implements an overall short time cache for QuizData objects for all implementing
  * instances. It uses EH-Cache with a short time to live about 1 - 2 minutes.
  * </p>
- * The QuizData are stored with a key composed from the id of the key
+ * Each LMS Setup has its own cache partition, an EH-Cache named QUIZ_DATA_CACHE_{lmsSetupId} that is created
+ * on first use with the size and time to live of the QUIZ_DATA_CACHE_PARTITION configuration, the per LMS Setup
+ * budget. Therefore LMS Setups do not compete for the same capacity. The partition is destroyed when the
+ * instance is disposed because the LMS Setup has been changed or removed.
+ * </p>
+ * The QuizData are stored with a key composed from the id of the quiz, the LMS Setup and the current cache
+ * generation. Clearing the cache just starts a new generation, the entries of former generations are not
+ * accessed anymore and expire or get evicted within the partition of the LMS Setup.
  * </p>
  * The EH-Cache can be configured in file ehcache.xml **/
 public abstract class AbstractCachedCourseAccess {
 
     private static final Logger log = LoggerFactory.getLogger(AbstractCachedCourseAccess.class);
 
-    /** The cache name of the overall short time EH-Cache */
+    /** The cache name of the overall short time EH-Cache. This is used if no cache partition can be created */
     public static final String CACHE_NAME_QUIZ_DATA = "QUIZ_DATA_CACHE";
+    /** The cache name of the configuration template of the cache partitions of the LMS Setups */
+    public static final String CACHE_NAME_QUIZ_DATA_PARTITION = "QUIZ_DATA_CACHE_PARTITION";
 
-    private final Cache cache;
+    private final CacheManager cacheManager;
+    /** The generation starts with a unique value so that a new instance for the same LMS Setup
+     * never sees the entries of a former instance */
+    private final AtomicLong generation = new AtomicLong(System.nanoTime());
+    private volatile Cache cache;
+    private volatile javax.cache.Cache<String, QuizData> partition;
 
     protected AbstractCachedCourseAccess(final CacheManager cacheManager) {
-        this.cache = cacheManager.getCache(CACHE_NAME_QUIZ_DATA);
+        this.cacheManager = cacheManager;
     }
 
-    /** Used to clear the entire cache */
+    /** Used to clear the entire cache of the LMS Setup */
     public void clearCourseCache() {
-        final Object nativeCache = this.cache.getNativeCache();
-        if (nativeCache instanceof javax.cache.Cache) {
-            try {
-                final String suffix = Constants.UNDERLINE.toString() + getLmsSetupId();
-                final Set<String> keysToRemove = new HashSet<>();
-                @SuppressWarnings({ "unchecked" })
-                final javax.cache.Cache<String, QuizData> _cache =
-                        (javax.cache.Cache<String, QuizData>) this.cache.getNativeCache();
-                for (final javax.cache.Cache.Entry<String, QuizData> entry : _cache) {
-                    if (entry.getKey().endsWith(suffix)) {
-                        keysToRemove.add(entry.getKey());
-                    }
-                }
+        final long newGeneration = this.generation.incrementAndGet();
+        if (log.isDebugEnabled()) {
+            log.debug("Clear quiz data cache of LMS Setup: {} new generation: {}", getLmsSetupId(), newGeneration);
+        }
+    }
 
-                if (!keysToRemove.isEmpty()) {
-                    synchronized (this.cache) {
-                        _cache.removeAll(keysToRemove);
-                    }
-                }
-            } catch (final Exception e) {
-                log.error("Failed to clear particular LMS Setup cache: ", e);
-                this.cache.clear();
+    /** Used to release the cache partition of the LMS Setup if the LMS Setup has been changed or removed.
+     * A later access creates a new partition */
+    public void dispose() {
+        clearCourseCache();
+        final javax.cache.Cache<String, QuizData> partition = this.partition;
+        this.partition = null;
+        this.cache = null;
+        if (partition == null || partition.isClosed()) {
+            return;
+        }
+
+        try {
+            partition.getCacheManager().destroyCache(partition.getName());
+            if (log.isDebugEnabled()) {
+                log.debug("Destroyed quiz data cache partition: {}", partition.getName());
             }
-        } else {
-            this.cache.clear();
+        } catch (final Exception e) {
+            log.warn("Failed to destroy quiz data cache partition: {}", partition.getName(), e);
         }
     }
 
@@ -74,7 +90,7 @@ public abstract class AbstractCachedCourseAccess {
      * @param id The quiz id - this is the raw quiz id not the cache key. The cache key is composed internally
      * @return the QuizData corresponding the given id or null if there is no such data in cache */
     protected QuizData getFromCache(final String id) {
-        return this.cache.get(createCacheKey(id), QuizData.class);
+        return getCache().get(createCacheKey(id), QuizData.class);
     }
 
     /** Puts the given QuizData to the cache.
@@ -93,7 +109,7 @@ public abstract class AbstractCachedCourseAccess {
             log.trace("Put to cache: {} : {}", createCacheKey, quizData);
         }
 
-        this.cache.put(createCacheKey, quizData);
+        getCache().put(createCacheKey, quizData);
     }
 
     /** Put all QuizData to short time cache.
@@ -104,7 +120,8 @@ public abstract class AbstractCachedCourseAccess {
         if (quizData == null || quizData.isEmpty()) {
             return quizData;
         }
-        quizData.stream().forEach(q -> this.cache.put(createCacheKey(q.id), q));
+        final Cache cache = getCache();
+        quizData.stream().forEach(q -> cache.put(createCacheKey(q.id), q));
         return quizData;
     }
 
@@ -116,7 +133,7 @@ public abstract class AbstractCachedCourseAccess {
             log.trace("Evict from cache: {}", createCacheKey);
         }
 
-        this.cache.evict(createCacheKey);
+        getCache().evict(createCacheKey);
     }
 
     /** Get the LMS setup identifier that is wrapped within the implementing template.
@@ -126,7 +143,67 @@ public abstract class AbstractCachedCourseAccess {
     protected abstract Long getLmsSetupId();
 
     private final String createCacheKey(final String id) {
-        return id + Constants.UNDERLINE + getLmsSetupId();
+        return id + Constants.UNDERLINE + getLmsSetupId() + Constants.UNDERLINE + this.generation.get();
+    }
+
+    private Cache getCache() {
+        Cache cache = this.cache;
+        final javax.cache.Cache<String, QuizData> partition = this.partition;
+        // the partition may have been destroyed by another instance of the same LMS Setup
+        if (cache == null || (partition != null && partition.isClosed())) {
+            cache = getCachePartition();
+            this.cache = cache;
+        }
+        return cache;
+    }
+
+    /** Get the cache partition of the LMS Setup or create it if it not already exists.
+     * If no partition can be created, the overall cache is used.
+     * NOTE: The partition is not wrapped by the Spring CacheManager since that would keep a reference to the
+     * partition after it has been destroyed */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Cache getCachePartition() {
+        final Cache overallCache = this.cacheManager.getCache(CACHE_NAME_QUIZ_DATA);
+        final Cache partitionTemplate = this.cacheManager.getCache(CACHE_NAME_QUIZ_DATA_PARTITION);
+        if (overallCache == null ||
+                partitionTemplate == null ||
+                !(partitionTemplate.getNativeCache() instanceof javax.cache.Cache)) {
+            return overallCache;
+        }
+
+        final String partitionName = CACHE_NAME_QUIZ_DATA + Constants.UNDERLINE + getLmsSetupId();
+        try {
+
+            final javax.cache.Cache<String, QuizData> template =
+                    (javax.cache.Cache<String, QuizData>) partitionTemplate.getNativeCache();
+            final javax.cache.CacheManager nativeCacheManager = template.getCacheManager();
+
+            javax.cache.Cache<String, QuizData> partition;
+            synchronized (AbstractCachedCourseAccess.class) {
+                partition = nativeCacheManager.getCache(partitionName, String.class, QuizData.class);
+                if (partition == null) {
+                    final CacheConfiguration<String, QuizData> templateConfig = template
+                            .unwrap(org.ehcache.Cache.class)
+                            .getRuntimeConfiguration();
+
+                    partition = nativeCacheManager.createCache(
+                            partitionName,
+                            Eh107Configuration.fromEhcacheCacheConfiguration(CacheConfigurationBuilder
+                                    .newCacheConfigurationBuilder(
+                                            String.class,
+                                            QuizData.class,
+                                            templateConfig.getResourcePools())
+                                    .withExpiry(templateConfig.getExpiryPolicy())));
+                }
+            }
+
+            this.partition = partition;
+            return new JCacheCache((javax.cache.Cache) partition);
+
+        } catch (final Exception e) {
+            log.error("Failed to create quiz data cache partition: {}. Use overall cache instead", partitionName, e);
+            return overallCache;
+        }
     }
 
 }
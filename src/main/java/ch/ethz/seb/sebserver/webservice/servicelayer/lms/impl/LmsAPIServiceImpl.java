@@ -79,7 +79,8 @@ public class LmsAPIServiceImpl implements LmsAPIService {
         this.templateFactories = new EnumMap<>(factories);
     }
 
-    /** Listen to LmsSetupChangeEvent to release an affected LmsAPITemplate from cache
+    /** Listen to LmsSetupChangeEvent to release an affected LmsAPITemplate from cache.
+     * This is also used when a LmsSetup has been deleted.
      *
      * @param event the event holding the changed LmsSetup */
     @EventListener
@@ -97,7 +98,7 @@ public class LmsAPIServiceImpl implements LmsAPIService {
                 new CacheKey(lmsSetup.getModelId(), 0));
 
         if (removedTemplate != null) {
-            removedTemplate.clearCourseCache();
+            removedTemplate.dispose();
         }
         this.quizLookupService.clear(lmsSetup.institutionId);
     }
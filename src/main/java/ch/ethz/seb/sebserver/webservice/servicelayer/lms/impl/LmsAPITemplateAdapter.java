@@ -305,6 +305,18 @@ public class LmsAPITemplateAdapter implements LmsAPITemplate {
         }
     }
 
+    @Override
+    public void dispose() {
+        if (this.courseAccessAPI != null) {
+
+            if (log.isDebugEnabled()) {
+                log.debug("Dispose course access for LMSSetup: {}", lmsSetup());
+            }
+
+            this.courseAccessAPI.dispose();
+        }
+    }
+
     @Override
     public Result<ExamineeAccountDetails> getExamineeAccountDetails(final String examineeUserId) {
 
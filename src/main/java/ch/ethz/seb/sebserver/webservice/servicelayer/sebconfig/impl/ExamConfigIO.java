@@ -12,9 +12,8 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PipedInputStream;
-import java.io.PipedOutputStream;
 import java.io.SequenceInputStream;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
@@ -23,6 +22,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -52,7 +52,6 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.AttributeValueCon
 import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.AttributeValueConverterService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.ConfigurationFormat;
 import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.SEBConfigEncryptionService.Strategy;
-import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.ZipService;
 
 @Lazy
 @Component
@@ -75,7 +74,6 @@ public class ExamConfigIO {
     private final ConfigurationValueDAO configurationValueDAO;
     private final ConfigurationDAO configurationDAO;
     private final AttributeValueConverterService attributeValueConverterService;
-    private final ZipService zipService;
     private final Cryptor cryptor;
 
     protected ExamConfigIO(
@@ -83,14 +81,12 @@ public class ExamConfigIO {
             final ConfigurationValueDAO configurationValueDAO,
             final ConfigurationDAO configurationDAO,
             final AttributeValueConverterService attributeValueConverterService,
-            final ZipService zipService,
             final Cryptor cryptor) {
 
         this.configurationAttributeDAO = configurationAttributeDAO;
         this.configurationValueDAO = configurationValueDAO;
         this.configurationDAO = configurationDAO;
         this.attributeValueConverterService = attributeValueConverterService;
-        this.zipService = zipService;
         this.cryptor = cryptor;
     }
 
@@ -209,12 +205,17 @@ public class ExamConfigIO {
     /** This parses the XML from given InputStream with a SAX parser to avoid keeping the
      * whole XML file in memory and keep up with the streaming approach of SEB Exam Configuration
      * to avoid trouble with big SEB Exam Configuration in the future.
+     * <p>
+     * The parsed values are collected and saved after parsing all at once within one transaction
+     * with multi-row statements instead of saving each value on its own.
      *
      * @param in The InputString to constantly read the XML from
      * @param institutionId the institionId of the import
      * @param configurationId the identifier of the internal configuration to apply the imported values to */
     void importPlainXML(final InputStream in, final Long institutionId, final Long configurationId) {
         try {
+            final long startTime = Utils.getMillisecondsNow();
+
             // get all attributes and map the names to ids
             final Map<String, ConfigurationAttribute> attributeMap = this.configurationAttributeDAO
                     .allMatching(new FilterMap())
@@ -224,15 +225,14 @@ public class ExamConfigIO {
                             attr -> attr.name,
                             Function.identity()));
 
-            // the SAX handler with a ConfigValue sink that saves the values to DB
+            // the SAX handler with a ConfigValue sink that collects the values
             // and a attribute-name/id mapping function with pre-created mapping
+            final List<ConfigurationValue> values = new ArrayList<>(attributeMap.size());
             final ExamConfigXMLParser examConfigImportHandler = new ExamConfigXMLParser(
                     this.cryptor,
                     institutionId,
                     configurationId,
-                    value -> this.configurationValueDAO
-                            .save(value)
-                            .getOrThrow(),
+                    values::add,
                     attributeMap::get);
 
             // SAX parsing
@@ -240,6 +240,23 @@ public class ExamConfigIO {
             final SAXParser parser = saxParserFactory.newSAXParser();
             parser.parse(in, examConfigImportHandler);
 
+            if (log.isDebugEnabled()) {
+                log.debug("Parsed {} values of imported SEB Config XML in {} ms",
+                        values.size(),
+                        Utils.getMillisecondsNow() - startTime);
+            }
+
+            // save all values at once
+            final Integer saved = this.configurationValueDAO
+                    .saveAll(institutionId, configurationId, values)
+                    .getOrThrow();
+
+            log.info("Imported {} values ({} changed) into configuration: {} in {} ms",
+                    values.size(),
+                    saved,
+                    configurationId,
+                    Utils.getMillisecondsNow() - startTime);
+
         } catch (final ParserConfigurationException | SAXException | IOException e) {
             log.error("Unexpected error while trying to parse imported SEB Config XML: ", e);
             throw new RuntimeException(e);
@@ -269,12 +286,8 @@ public class ExamConfigIO {
                 input);
 
         if (isZipped) {
-
-            final PipedInputStream pipedIn = new PipedInputStream();
-            final PipedOutputStream pipedOut = new PipedOutputStream(pipedIn);
-            this.zipService.read(pipedOut, sequencedInput);
-
-            return pipedIn;
+            // unzip while reading, no need to pipe through an extra thread here
+            return new GZIPInputStream(sequencedInput);
         } else {
             return sequencedInput;
         }
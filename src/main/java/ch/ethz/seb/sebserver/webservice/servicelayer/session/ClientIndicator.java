@@ -32,6 +32,15 @@ public interface ClientIndicator extends IndicatorValue {
      * @param cachingEnabled defines whether indicator value caching is enabled or not. */
     void init(Indicator indicatorDefinition, Long connectionId, boolean active, boolean cachingEnabled);
 
+    /** This is used to preset a known value, e.g. restored from a session state snapshot, that is taken as
+     * initial value on initialization instead of computing it. This must be called before init and
+     * has only an effect if caching is enabled.
+     *
+     * @param value the known value to take as initial value */
+    default void presetValue(final double value) {
+        // by default the initial value is always computed
+    }
+
     /** get the indicator type */
     @JsonIgnore
     IndicatorType getType();
@@ -28,6 +28,12 @@ public interface SEBClientNotificationService {
      * @return true if there is any pending notification for the specified client connection */
     Boolean hasAnyPendingNotification(final ClientConnection clientConnection);
 
+    /** Get the number of client connections of a given exam that have any pending notification.
+     *
+     * @param examId the exam identifier
+     * @return the number of client connections of the exam with pending notifications */
+    int getPendingNotificationCount(Long examId);
+
     /** This gets a list of all pending notification for a given client connection independently
      * of it current status.
      *
@@ -37,14 +43,16 @@ public interface SEBClientNotificationService {
 
     /** This creates/register a new pending notification.
      *
-     * @param notification The ClientNotification data */
-    void newNotification(ClientNotification notification);
+     * @param notification The ClientNotification data
+     * @param examId the identifier of the exam the client connection of the notification belongs to */
+    void newNotification(ClientNotification notification, Long examId);
 
     /** This is used to confirm a pending notification from SEB client side where
      * a client event of type notification-confirm is involved
      *
-     * @param event The notification confirmation event sent by a SEB client */
-    void confirmPendingNotification(ClientEvent event);
+     * @param event The notification confirmation event sent by a SEB client
+     * @param examId the identifier of the exam the client connection of the event belongs to */
+    void confirmPendingNotification(ClientEvent event, Long examId);
 
     /** This is used to confirm a pending client notification from the SEB Server side
      *
@@ -8,10 +8,11 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer.session;
 
+import java.util.Collection;
 import java.util.List;
 
 import ch.ethz.seb.sebserver.gbl.model.exam.AllowedSEBVersion;
-import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ClientConnectionRecord;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
 
 public interface SEBClientVersionService {
 
@@ -26,8 +27,25 @@ public interface SEBClientVersionService {
             String clientVersion,
             List<AllowedSEBVersion> allowedSEBVersions);
 
-    void checkVersionAndUpdateClientConnection(
-            ClientConnectionRecord record,
-            List<AllowedSEBVersion> allowedSEBVersions);
+    /** Use this to check the SEB Version of a SEB client connection of a running exam when the SEB client reports
+     * its version on handshake. This uses the precompiled allowed SEB version policy of the exam.
+     *
+     * @param exam The running exam the SEB client connection belongs to
+     * @param clientOSName The client OS name sent by SEB client
+     * @param clientVersion The SEB version sent by SEB client
+     * @return True or false if the SEB version is allowed or not or null if the exam has no allowed SEB versions */
+    Boolean checkClientVersion(Exam exam, String clientOSName, String clientVersion);
+
+    /** Updates the precompiled allowed SEB version policy of a running exam if the allowed SEB versions
+     * of the exam have been changed. On a change, all active SEB client connections of the exam that have
+     * reported a SEB version are checked again against the new policy.
+     *
+     * @param exam The running exam */
+    void updateExamPolicy(Exam exam);
+
+    /** Removes the precompiled allowed SEB version policies of all exams that are not running anymore.
+     *
+     * @param runningExamIds The identifiers of all currently running exams */
+    void cleanupExamPolicies(Collection<Long> runningExamIds);
 
 }
@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.joda.time.DateTime;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import ch.ethz.seb.sebserver.SEBServerInit;
+import ch.ethz.seb.sebserver.SEBServerInitEvent;
+import ch.ethz.seb.sebserver.gbl.Constants;
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam.ExamStatus;
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.AdditionalAttributeRecord;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.AdditionalAttributesDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.exam.ExamLogArchiveService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamUpdateTask;
+
+/** Moves the client events of finished or archived exams from the live client_event table to the
+ * client_event_archive table after the configured retention time has passed since the end of the exam.
+ * If an archive file path is configured, the client events are moved to an archive file instead.
+ * See ExamLogArchiveService
+ *
+ * The events are moved in batches of limited size, each in its own transaction, and only a limited number of
+ * batches are processed per run to not block the exam update background task for too long. Exams that are
+ * completely moved are marked with an additional attribute and are not processed again. */
+@Lazy
+@Service
+@WebServiceProfile
+class ClientEventArchiveTask implements ExamUpdateTask {
+
+    private static final Logger log = LoggerFactory.getLogger(ClientEventArchiveTask.class);
+
+    private final ExamDAO examDAO;
+    private final ClientEventDAO clientEventDAO;
+    private final AdditionalAttributesDAO additionalAttributesDAO;
+    private final ExamLogArchiveService examLogArchiveService;
+    private final long retentionMillis;
+    private final long interval;
+    private final int batchSize;
+    private final int maxBatches;
+
+    private long lastRun = 0;
+
+    public ClientEventArchiveTask(
+            final ExamDAO examDAO,
+            final ClientEventDAO clientEventDAO,
+            final AdditionalAttributesDAO additionalAttributesDAO,
+            final ExamLogArchiveService examLogArchiveService,
+            @Value("${sebserver.webservice.clientevent.archive.retention.days:-1}") final int retentionDays,
+            @Value("${sebserver.webservice.clientevent.archive.interval:3600000}") final long interval,
+            @Value("${sebserver.webservice.clientevent.archive.batchsize:10000}") final int batchSize,
+            @Value("${sebserver.webservice.clientevent.archive.maxbatches:50}") final int maxBatches) {
+
+        this.examDAO = examDAO;
+        this.clientEventDAO = clientEventDAO;
+        this.additionalAttributesDAO = additionalAttributesDAO;
+        this.examLogArchiveService = examLogArchiveService;
+        this.retentionMillis = (retentionDays >= 0) ? retentionDays * Constants.DAY_IN_MILLIS : -1;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+    }
+
+    @EventListener(SEBServerInitEvent.class)
+    public void init() {
+        SEBServerInit.INIT_LOGGER.info("------>");
+        if (this.retentionMillis < 0) {
+            SEBServerInit.INIT_LOGGER.info("------> SEB client event archive is disabled");
+        } else {
+            SEBServerInit.INIT_LOGGER.info(
+                    "------> Activate SEB client event archive for exams ended more than {} milliseconds ago",
+                    this.retentionMillis);
+            SEBServerInit.INIT_LOGGER.info(
+                    "--------> Archive runs on an interval of {} milliseconds with max {} batches of {} events",
+                    this.interval,
+                    this.maxBatches,
+                    this.batchSize);
+            if (this.examLogArchiveService.isEnabled()) {
+                SEBServerInit.INIT_LOGGER.info("--------> Client events are archived to files");
+            }
+        }
+    }
+
+    @Override
+    public int examUpdateTaskProcessingOrder() {
+        return 100;
+    }
+
+    @Override
+    public void processExamUpdateTask() {
+        if (this.retentionMillis < 0) {
+            return;
+        }
+
+        final long now = Utils.getMillisecondsNow();
+        if (now - this.lastRun < this.interval) {
+            return;
+        }
+        this.lastRun = now;
+
+        try {
+
+            final Set<Long> alreadyArchived = this.additionalAttributesDAO
+                    .getAdditionalAttribute(EntityType.EXAM, Exam.ADDITIONAL_ATTR_CLIENT_EVENTS_ARCHIVED)
+                    .getOrThrow()
+                    .stream()
+                    .map(AdditionalAttributeRecord::getEntityId)
+                    .collect(Collectors.toSet());
+
+            final DateTime endedBefore = new DateTime(now - this.retentionMillis);
+            final Collection<Exam> exams = this.examDAO
+                    .getExamsForStatus(
+                            new FilterMap(),
+                            exam -> !alreadyArchived.contains(exam.id)
+                                    && exam.endTime != null
+                                    && exam.endTime.isBefore(endedBefore),
+                            ExamStatus.FINISHED,
+                            ExamStatus.ARCHIVED)
+                    .getOrThrow();
+
+            int batches = 0;
+            for (final Exam exam : exams) {
+                if (this.examLogArchiveService.isEnabled()) {
+                    // an archive file is written as a whole
+                    final int moved = this.examLogArchiveService
+                            .archiveExam(exam.id)
+                            .getOrThrow();
+                    batches += moved / this.batchSize + 1;
+                    markArchived(exam, now);
+                } else {
+                    while (batches < this.maxBatches) {
+                        batches++;
+                        final int moved = this.clientEventDAO
+                                .archiveNextBatch(exam.id, this.batchSize)
+                                .getOrThrow();
+
+                        if (moved < this.batchSize) {
+                            markArchived(exam, now);
+                            break;
+                        }
+                    }
+                }
+
+                if (batches >= this.maxBatches) {
+                    break;
+                }
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Client event archive run finished with {} batches", batches);
+            }
+
+        } catch (final Exception e) {
+            log.error("Failed to archive client events: ", e);
+        }
+    }
+
+    private void markArchived(final Exam exam, final long now) {
+        this.additionalAttributesDAO.saveAdditionalAttribute(
+                EntityType.EXAM,
+                exam.id,
+                Exam.ADDITIONAL_ATTR_CLIENT_EVENTS_ARCHIVED,
+                String.valueOf(now))
+                .onError(error -> log.error("Failed to mark client events of exam {} archived: ",
+                        exam.id,
+                        error));
+    }
+
+}
@@ -12,7 +12,12 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -61,6 +66,12 @@ public class ClientIndicatorFactory {
         this.enableCaching = distributedSetup ? false : enableCaching;
     }
 
+    /** Indicates if the indicator values are cached in memory. This is not the case for a distributed setup
+     * where the indicator values are shared over the persistent storage. */
+    public boolean isCachingEnabled() {
+        return this.enableCaching;
+    }
+
     public void initializeDistributedCaches(final ClientConnection clientConnection) {
         try {
 
@@ -69,7 +80,7 @@ public class ClientIndicatorFactory {
             }
 
             final Collection<Indicator> examIndicators = this.indicatorDAO
-                    .allForExam(clientConnection.examId)
+                    .allForRunningExam(clientConnection.examId)
                     .getOrThrow();
 
             boolean pingIndicatorAvailable = false;
@@ -101,6 +112,54 @@ public class ClientIndicatorFactory {
         }
     }
 
+    /** Initializes the distributed indicator value caches of all given newly created client connections
+     * with as few queries as possible. The indicators of an exam are loaded only once.
+     *
+     * @param clientConnections newly created client connections */
+    public void initializeDistributedCaches(final Collection<ClientConnection> clientConnections) {
+        try {
+
+            if (!this.distributedSetup || clientConnections.isEmpty()) {
+                return;
+            }
+
+            final Map<Long, Collection<IndicatorType>> examIndicatorTypes = new HashMap<>();
+            final Map<Long, Collection<IndicatorType>> indicatorTypes = new HashMap<>();
+            for (final ClientConnection clientConnection : clientConnections) {
+                if (clientConnection.examId == null) {
+                    continue;
+                }
+
+                indicatorTypes.put(
+                        clientConnection.id,
+                        examIndicatorTypes.computeIfAbsent(clientConnection.examId, this::getDistributedIndicatorTypes));
+            }
+
+            if (!indicatorTypes.isEmpty()) {
+                this.distributedPingCache.createIndicatorsForNewConnections(indicatorTypes);
+            }
+
+        } catch (final Exception e) {
+            log.error("Unexpected error while trying to initialize distributed indicator value caches for: {}",
+                    clientConnections,
+                    e);
+        }
+    }
+
+    private Collection<IndicatorType> getDistributedIndicatorTypes(final Long examId) {
+        final Set<IndicatorType> types = this.indicatorDAO
+                .allForRunningExam(examId)
+                .getOrThrow()
+                .stream()
+                .map(indicator -> indicator.type)
+                .collect(Collectors.toCollection(() -> EnumSet.noneOf(IndicatorType.class)));
+
+        // If there is no ping interval indicator set from the exam, we add a hidden one
+        // to at least create missing ping events and track missing state
+        types.add(IndicatorType.LAST_PING);
+        return types;
+    }
+
     public List<? extends IndicatorValue> getIndicatorValues(final ClientConnection clientConnection) {
 
         final List<ClientIndicator> result = new ArrayList<>();
@@ -111,7 +170,7 @@ public class ClientIndicatorFactory {
         try {
 
             final Collection<Indicator> examIndicators = this.indicatorDAO
-                    .allForExam(clientConnection.examId)
+                    .allForRunningExam(clientConnection.examId)
                     .getOrThrow();
 
             for (final Indicator indicatorDef : examIndicators) {
@@ -139,6 +198,18 @@ public class ClientIndicatorFactory {
     }
 
     public List<ClientIndicator> createFor(final ClientConnection clientConnection) {
+        return createFor(clientConnection, Collections.emptyMap());
+    }
+
+    /** Creates the ClientIndicators for the given client connection. The given known indicator values,
+     * e.g. restored from a session state snapshot, are taken as initial values instead of computing them.
+     *
+     * @param clientConnection the client connection to create the ClientIndicators for
+     * @param indicatorValues known indicator values mapped by indicator identifier
+     * @return the ClientIndicators of the client connection */
+    public List<ClientIndicator> createFor(
+            final ClientConnection clientConnection,
+            final Map<Long, Double> indicatorValues) {
 
         final List<ClientIndicator> result = new ArrayList<>();
         if (clientConnection.examId == null) {
@@ -148,7 +219,7 @@ public class ClientIndicatorFactory {
         try {
 
             final Collection<Indicator> examIndicators = this.indicatorDAO
-                    .allForExam(clientConnection.examId)
+                    .allForRunningExam(clientConnection.examId)
                     .getOrThrow();
 
             boolean pingIndicatorAvailable = false;
@@ -162,6 +233,11 @@ public class ClientIndicatorFactory {
                         pingIndicatorAvailable = indicatorDef.type == IndicatorType.LAST_PING;
                     }
 
+                    final Double knownValue = indicatorValues.get(indicatorDef.id);
+                    if (knownValue != null) {
+                        indicator.presetValue(knownValue);
+                    }
+
                     indicator.init(
                             indicatorDef,
                             clientConnection.id,
@@ -24,12 +24,14 @@ import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientGroupDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.IndicatorDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.RemoteProctoringRoomDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.sebconfig.ExamConfigService;
 
 /** Handles caching for exam session and defines caching for following object:
  *
  * - Running exams (examId -> Exam)
+ * - client groups and indicators of running exams (examId -> ClientGroup / Indicator, cached by the DAOs)
  * - in-memory exam configuration (examId -> InMemorySEBConfig)
  * - active client connections (connectionToken -> ClientConnectionDataInternal)
  * - client event records for last ping store (connectionToken -> ReusableClientEventRecord) */
@@ -48,6 +50,7 @@ public class ExamSessionCacheService {
 
     private final ExamDAO examDAO;
     private final ClientGroupDAO clientGroupDAO;
+    private final IndicatorDAO indicatorDAO;
     private final ClientConnectionDAO clientConnectionDAO;
     private final InternalClientConnectionDataFactory internalClientConnectionDataFactory;
     private final ExamConfigService sebExamConfigService;
@@ -55,6 +58,7 @@ public class ExamSessionCacheService {
     protected ExamSessionCacheService(
             final ExamDAO examDAO,
             final ClientGroupDAO clientGroupDAO,
+            final IndicatorDAO indicatorDAO,
             final ClientConnectionDAO clientConnectionDAO,
             final InternalClientConnectionDataFactory internalClientConnectionDataFactory,
             final ExamConfigService sebExamConfigService,
@@ -62,6 +66,7 @@ public class ExamSessionCacheService {
 
         this.examDAO = examDAO;
         this.clientGroupDAO = clientGroupDAO;
+        this.indicatorDAO = indicatorDAO;
         this.clientConnectionDAO = clientConnectionDAO;
         this.internalClientConnectionDataFactory = internalClientConnectionDataFactory;
         this.sebExamConfigService = sebExamConfigService;
@@ -88,6 +93,9 @@ public class ExamSessionCacheService {
             return null;
         }
 
+        // first load of the running exam on this node, entries that have been cached before might be outdated
+        this.clientGroupDAO.evictCacheForExam(examId);
+        this.indicatorDAO.evictCacheForExam(examId);
         return exam;
     }
 
@@ -101,6 +109,7 @@ public class ExamSessionCacheService {
         }
 
         this.clientGroupDAO.evictCacheForExam(exam.id);
+        this.indicatorDAO.evictCacheForExam(exam.id);
         return exam;
     }
 
@@ -114,6 +123,7 @@ public class ExamSessionCacheService {
         }
 
         this.clientGroupDAO.evictCacheForExam(examId);
+        this.indicatorDAO.evictCacheForExam(examId);
         return examId;
     }
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import java.util.Collections;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import ch.ethz.seb.sebserver.SEBServerInit;
+import ch.ethz.seb.sebserver.SEBServerInitEvent;
+import ch.ethz.seb.sebserver.gbl.async.AsyncRunner;
+import ch.ethz.seb.sebserver.gbl.async.AsyncService;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.SingleFlight;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientGroupDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.IndicatorDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamSessionService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamStartedEvent;
+
+/** Preloads the session caches of running exams before the SEB clients connect. This avoids that the first
+ * wave of SEB client handshakes of a running exam all miss the caches and load the same data at once.
+ *
+ * The following entries are preloaded for a running exam:
+ * - the running exam
+ * - the client groups and indicators of the exam
+ * - the connection tokens of the exam
+ * - the default exam configuration of the exam as in-memory SEB configuration
+ *
+ * The caches of an exam are preloaded when the exam has been started and for all running exams
+ * when the webservice starts up. */
+@Lazy
+@Component
+@WebServiceProfile
+public class ExamSessionCacheWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamSessionCacheWarmup.class);
+
+    private final ExamSessionService examSessionService;
+    private final ExamSessionCacheService examSessionCacheService;
+    private final ClientGroupDAO clientGroupDAO;
+    private final IndicatorDAO indicatorDAO;
+    private final AsyncRunner asyncRunner;
+    private final boolean enabled;
+    private final SingleFlight<Long, Result<Exam>> warmUpLoad = new SingleFlight<>();
+
+    public ExamSessionCacheWarmup(
+            final ExamSessionService examSessionService,
+            final ClientGroupDAO clientGroupDAO,
+            final IndicatorDAO indicatorDAO,
+            final AsyncService asyncService,
+            @Value("${sebserver.webservice.api.exam.cache.warmup:true}") final boolean enabled) {
+
+        this.examSessionService = examSessionService;
+        this.examSessionCacheService = examSessionService.getExamSessionCacheService();
+        this.clientGroupDAO = clientGroupDAO;
+        this.indicatorDAO = indicatorDAO;
+        this.asyncRunner = asyncService.getAsyncRunner();
+        this.enabled = enabled;
+    }
+
+    @EventListener(SEBServerInitEvent.class)
+    public void init() {
+        if (!this.enabled) {
+            return;
+        }
+
+        SEBServerInit.INIT_LOGGER.info("------>");
+        SEBServerInit.INIT_LOGGER.info("------> Preload session caches of running exams");
+
+        this.asyncRunner.runAsync(this::warmUpRunningExams);
+    }
+
+    @EventListener(ExamStartedEvent.class)
+    public void notifyExamStarted(final ExamStartedEvent event) {
+        if (!this.enabled) {
+            return;
+        }
+
+        // entries that have been cached before the exam was running might be outdated
+        this.examSessionCacheService.evict(event.exam.id);
+        this.examSessionCacheService.evictDefaultSEBConfig(event.exam.id);
+
+        warmUp(event.exam.id)
+                .onError(error -> log.warn("Failed to preload session caches for started exam: {}",
+                        event.exam.id,
+                        error));
+    }
+
+    /** Preloads the session caches of the given running exam. Concurrent calls for the same exam
+     * wait for the one that is already preloading.
+     *
+     * @param examId the identifier of the running exam
+     * @return Result refer to the running exam or to an error when happened */
+    public Result<Exam> warmUp(final Long examId) {
+        return this.warmUpLoad.load(examId, () -> this.examSessionService
+                .getRunningExam(examId)
+                .map(exam -> {
+
+                    if (log.isDebugEnabled()) {
+                        log.debug("Preload session caches for running exam: {}", exam.id);
+                    }
+
+                    this.clientGroupDAO
+                            .allForExam(exam.id)
+                            .getOrThrow();
+                    this.indicatorDAO
+                            .allForRunningExam(exam.id)
+                            .getOrThrow();
+                    this.examSessionService
+                            .getClientConnectionDAO()
+                            .getConnectionTokens(exam.id)
+                            .getOrThrow();
+
+                    if (this.examSessionService.hasDefaultConfigurationAttached(exam.id)) {
+                        this.examSessionCacheService.getDefaultSEBConfigForExam(exam.id, exam.institutionId);
+                    }
+
+                    return exam;
+                }));
+    }
+
+    private void warmUpRunningExams() {
+        this.examSessionService
+                .getExamDAO()
+                .allRunningExamIds()
+                .onError(error -> log.error("Failed to get running exams to preload session caches: ", error))
+                .getOr(Collections.emptyList())
+                .forEach(examId -> warmUp(examId)
+                        .onError(error -> log.warn("Failed to preload session caches for running exam: {}",
+                                examId,
+                                error)));
+    }
+
+}
@@ -62,6 +62,7 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.lms.SEBRestrictionService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamFinishedEvent;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamResetEvent;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamSessionService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientNotificationService;
 
 @Lazy
 @Service
@@ -78,6 +79,7 @@ public class ExamSessionServiceImpl implements ExamSessionService {
     private final ExamConfigurationMapDAO examConfigurationMapDAO;
     private final CacheManager cacheManager;
     private final SEBRestrictionService sebRestrictionService;
+    private final SEBClientNotificationService sebClientNotificationService;
     private final boolean checkExamSupporter;
     private final boolean distributedSetup;
     private final long distributedConnectionUpdate;
@@ -93,6 +95,7 @@ public class ExamSessionServiceImpl implements ExamSessionService {
             final IndicatorDAO indicatorDAO,
             final CacheManager cacheManager,
             final SEBRestrictionService sebRestrictionService,
+            final SEBClientNotificationService sebClientNotificationService,
             @Value("${sebserver.webservice.exam.check.supporter:false}") final boolean checkExamSupporter,
             @Value("${sebserver.webservice.distributed:false}") final boolean distributedSetup,
             @Value("${sebserver.webservice.distributed.connectionUpdate:2000}") final long distributedConnectionUpdate) {
@@ -105,6 +108,7 @@ public class ExamSessionServiceImpl implements ExamSessionService {
         this.cacheManager = cacheManager;
         this.indicatorDAO = indicatorDAO;
         this.sebRestrictionService = sebRestrictionService;
+        this.sebClientNotificationService = sebClientNotificationService;
         this.checkExamSupporter = checkExamSupporter;
         this.distributedSetup = distributedSetup;
         this.distributedConnectionUpdate = distributedConnectionUpdate;
@@ -466,6 +470,7 @@ public class ExamSessionServiceImpl implements ExamSessionService {
                     statusMapping,
                     clientGroupMapping,
                     issueMapping,
+                    this.sebClientNotificationService.getPendingNotificationCount(examId),
                     filteredConnections);
         });
     }
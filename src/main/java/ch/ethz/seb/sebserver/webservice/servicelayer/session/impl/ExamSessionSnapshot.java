@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/** A compact snapshot of the in-memory session state of the running exams of a webservice.
+ * For each running exam it holds the cached client connections with connection identifier, connection token,
+ * connection status and the current indicator values of the connection.
+ *
+ * A snapshot is written as gzip compressed binary data with a format identifier and version header.
+ * A snapshot is no source of truth and must always be reconciled with the persistent storage when restored. */
+final class ExamSessionSnapshot {
+
+    private static final int FORMAT_ID = 0x53454253;
+    private static final int FORMAT_VERSION = 1;
+
+    /** The time in milliseconds the snapshot was taken */
+    final long timestamp;
+    /** The connection states mapped by exam identifier */
+    final Map<Long, Collection<ConnectionState>> exams;
+
+    ExamSessionSnapshot(final long timestamp, final Map<Long, Collection<ConnectionState>> exams) {
+        this.timestamp = timestamp;
+        this.exams = exams;
+    }
+
+    int numberOfConnections() {
+        return this.exams.values()
+                .stream()
+                .mapToInt(Collection::size)
+                .sum();
+    }
+
+    /** Writes this snapshot to the given OutputStream. The stream is closed afterwards.
+     *
+     * @param out the OutputStream to write the snapshot to
+     * @throws IOException if the snapshot could not be written */
+    void writeTo(final OutputStream out) throws IOException {
+        try (DataOutputStream data = new DataOutputStream(new GZIPOutputStream(out))) {
+            data.writeInt(FORMAT_ID);
+            data.writeInt(FORMAT_VERSION);
+            data.writeLong(this.timestamp);
+            data.writeInt(this.exams.size());
+            for (final Map.Entry<Long, Collection<ConnectionState>> exam : this.exams.entrySet()) {
+                data.writeLong(exam.getKey());
+                data.writeInt(exam.getValue().size());
+                for (final ConnectionState connection : exam.getValue()) {
+                    data.writeLong(connection.connectionId);
+                    data.writeUTF(connection.connectionToken);
+                    data.writeUTF(connection.status);
+                    data.writeInt(connection.indicatorValues.size());
+                    for (final Map.Entry<Long, Double> value : connection.indicatorValues.entrySet()) {
+                        data.writeLong(value.getKey());
+                        data.writeDouble(value.getValue());
+                    }
+                }
+            }
+        }
+    }
+
+    /** Reads a snapshot from the given InputStream. The stream is closed afterwards.
+     *
+     * @param in the InputStream to read the snapshot from
+     * @return the snapshot
+     * @throws IOException if the snapshot could not be read or has an unknown format */
+    static ExamSessionSnapshot readFrom(final InputStream in) throws IOException {
+        try (DataInputStream data = new DataInputStream(new GZIPInputStream(in))) {
+            if (data.readInt() != FORMAT_ID) {
+                throw new IOException("Unknown exam session snapshot format");
+            }
+            final int version = data.readInt();
+            if (version != FORMAT_VERSION) {
+                throw new IOException("Unsupported exam session snapshot version: " + version);
+            }
+
+            final long timestamp = data.readLong();
+            final int numExams = data.readInt();
+            final Map<Long, Collection<ConnectionState>> exams = new HashMap<>(numExams * 2);
+            for (int i = 0; i < numExams; i++) {
+                final long examId = data.readLong();
+                final int numConnections = data.readInt();
+                final List<ConnectionState> connections = new ArrayList<>(numConnections);
+                for (int j = 0; j < numConnections; j++) {
+                    final long connectionId = data.readLong();
+                    final String connectionToken = data.readUTF();
+                    final String status = data.readUTF();
+                    final int numValues = data.readInt();
+                    final Map<Long, Double> indicatorValues = new HashMap<>(numValues * 2);
+                    for (int k = 0; k < numValues; k++) {
+                        indicatorValues.put(data.readLong(), data.readDouble());
+                    }
+                    connections.add(new ConnectionState(connectionId, connectionToken, status, indicatorValues));
+                }
+                exams.put(examId, connections);
+            }
+
+            return new ExamSessionSnapshot(timestamp, exams);
+        }
+    }
+
+    /** The state of a client connection within a snapshot */
+    static final class ConnectionState {
+
+        final long connectionId;
+        final String connectionToken;
+        /** The name of the connection status at the time the snapshot was taken */
+        final String status;
+        /** The indicator values mapped by indicator identifier */
+        final Map<Long, Double> indicatorValues;
+
+        ConnectionState(
+                final long connectionId,
+                final String connectionToken,
+                final String status,
+                final Map<Long, Double> indicatorValues) {
+
+            this.connectionId = connectionId;
+            this.connectionToken = connectionToken;
+            this.status = status;
+            this.indicatorValues = indicatorValues;
+        }
+    }
+
+}
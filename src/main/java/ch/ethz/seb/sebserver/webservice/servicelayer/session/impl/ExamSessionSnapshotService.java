@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import ch.ethz.seb.sebserver.SEBServerInit;
+import ch.ethz.seb.sebserver.SEBServerInitEvent;
+import ch.ethz.seb.sebserver.gbl.async.AsyncRunner;
+import ch.ethz.seb.sebserver.gbl.async.AsyncService;
+import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.IndicatorType;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
+import ch.ethz.seb.sebserver.gbl.monitoring.IndicatorValue;
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ClientIndicator;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamSessionService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.impl.ExamSessionSnapshot.ConnectionState;
+
+/** Writes a snapshot of the in-memory session state of the running exams to a local file periodically and
+ * on shutdown and restores it on startup. This lets a restarting webservice take over the cached client
+ * connections and indicator values of the running exams instead of rebuilding them one by one from the
+ * persistent storage as the SEB clients send their pings and events after the restart.
+ *
+ * On restore the snapshot is reconciled with the persistent storage:
+ * - A snapshot that is older than the configured max age is ignored
+ * - Only exams that are still running are restored
+ * - Only connections that still exist for the exam are restored, the connection data is loaded with one
+ * query per exam and is always taken from the persistent storage
+ * - Indicator values are only taken over if the connection status has not changed since the snapshot,
+ * the ping indicator always starts with the restore time
+ *
+ * The snapshot is disabled if no snapshot file is configured. */
+@Lazy
+@Component
+@WebServiceProfile
+public class ExamSessionSnapshotService implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ExamSessionSnapshotService.class);
+
+    private final ExamSessionService examSessionService;
+    private final ClientConnectionDAO clientConnectionDAO;
+    private final ExamSessionCacheWarmup examSessionCacheWarmup;
+    private final InternalClientConnectionDataFactory internalClientConnectionDataFactory;
+    private final ClientIndicatorFactory clientIndicatorFactory;
+    private final CacheManager cacheManager;
+    private final AsyncRunner asyncRunner;
+    private final Path snapshotFile;
+    private final long maxAge;
+
+    /** Indicates if the restore on startup has been done. Before the restore the snapshot of the former
+     * run must not be overwritten. */
+    private volatile boolean restored = false;
+
+    public ExamSessionSnapshotService(
+            final ExamSessionService examSessionService,
+            final ExamSessionCacheWarmup examSessionCacheWarmup,
+            final InternalClientConnectionDataFactory internalClientConnectionDataFactory,
+            final ClientIndicatorFactory clientIndicatorFactory,
+            final CacheManager cacheManager,
+            final AsyncService asyncService,
+            @Value("${sebserver.webservice.api.exam.snapshot.file:}") final String snapshotFile,
+            @Value("${sebserver.webservice.api.exam.snapshot.max-age:600000}") final long maxAge) {
+
+        this.examSessionService = examSessionService;
+        this.clientConnectionDAO = examSessionService.getClientConnectionDAO();
+        this.examSessionCacheWarmup = examSessionCacheWarmup;
+        this.internalClientConnectionDataFactory = internalClientConnectionDataFactory;
+        this.clientIndicatorFactory = clientIndicatorFactory;
+        this.cacheManager = cacheManager;
+        this.asyncRunner = asyncService.getAsyncRunner();
+        this.snapshotFile = StringUtils.isNotBlank(snapshotFile) ? Paths.get(snapshotFile) : null;
+        this.maxAge = maxAge;
+    }
+
+    @EventListener(SEBServerInitEvent.class)
+    public void init() {
+        if (this.snapshotFile == null) {
+            return;
+        }
+
+        SEBServerInit.INIT_LOGGER.info("------>");
+        SEBServerInit.INIT_LOGGER.info("------> Restore exam session state snapshot from: {}", this.snapshotFile);
+
+        this.asyncRunner.runAsync(this::restore);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${sebserver.webservice.api.exam.snapshot.interval:30000}",
+            initialDelay = 30000)
+    public void writeSnapshot() {
+        if (this.snapshotFile == null || !this.restored) {
+            return;
+        }
+
+        try {
+
+            final ExamSessionSnapshot snapshot = takeSnapshot();
+            final Path tmpFile = this.snapshotFile.resolveSibling(this.snapshotFile.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmpFile)) {
+                snapshot.writeTo(out);
+            }
+            Files.move(tmpFile, this.snapshotFile,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            if (log.isDebugEnabled()) {
+                log.debug("Written exam session snapshot with {} exams and {} connections",
+                        snapshot.exams.size(),
+                        snapshot.numberOfConnections());
+            }
+
+        } catch (final Exception e) {
+            log.warn("Failed to write exam session snapshot to: {}", this.snapshotFile, e);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        writeSnapshot();
+    }
+
+    private ExamSessionSnapshot takeSnapshot() {
+        final Cache cache = this.cacheManager.getCache(ExamSessionCacheService.CACHE_NAME_ACTIVE_CLIENT_CONNECTION);
+        final boolean withIndicatorValues = this.clientIndicatorFactory.isCachingEnabled();
+        final Map<Long, Collection<ConnectionState>> exams = new HashMap<>();
+
+        for (final Long examId : this.examSessionService.getExamDAO().allRunningExamIds().getOrThrow()) {
+            final Collection<String> connectionTokens = this.clientConnectionDAO
+                    .getConnectionTokens(examId)
+                    .getOr(Collections.emptyList());
+
+            final List<ConnectionState> connections = new ArrayList<>(connectionTokens.size());
+            for (final String connectionToken : connectionTokens) {
+                // only take connections that are cached already, never load one here
+                final ClientConnectionDataInternal connectionData = (cache != null)
+                        ? cache.get(connectionToken, ClientConnectionDataInternal.class)
+                        : null;
+                if (connectionData == null) {
+                    continue;
+                }
+
+                final ClientConnection clientConnection = connectionData.clientConnection;
+                connections.add(new ConnectionState(
+                        clientConnection.id,
+                        clientConnection.connectionToken,
+                        clientConnection.status.name(),
+                        withIndicatorValues
+                                ? getIndicatorValues(connectionData)
+                                : Collections.emptyMap()));
+            }
+
+            if (!connections.isEmpty()) {
+                exams.put(examId, connections);
+            }
+        }
+
+        return new ExamSessionSnapshot(Utils.getMillisecondsNow(), exams);
+    }
+
+    private Map<Long, Double> getIndicatorValues(final ClientConnectionDataInternal connectionData) {
+        final Map<Long, Double> result = new HashMap<>();
+        for (final IndicatorValue indicatorValue : connectionData.indicatorValues) {
+            if (!(indicatorValue instanceof ClientIndicator)
+                    || ((ClientIndicator) indicatorValue).getType() == IndicatorType.LAST_PING
+                    || indicatorValue.getIndicatorId() == null) {
+                continue;
+            }
+
+            final double value = indicatorValue.getValue();
+            if (!Double.isNaN(value)) {
+                result.put(indicatorValue.getIndicatorId(), value);
+            }
+        }
+        return result;
+    }
+
+    private void restore() {
+        try {
+
+            if (!Files.exists(this.snapshotFile)) {
+                SEBServerInit.INIT_LOGGER.info("--------> No exam session state snapshot found");
+                return;
+            }
+
+            final ExamSessionSnapshot snapshot;
+            try (InputStream in = Files.newInputStream(this.snapshotFile)) {
+                snapshot = ExamSessionSnapshot.readFrom(in);
+            }
+
+            final long age = Utils.getMillisecondsNow() - snapshot.timestamp;
+            if (age > this.maxAge) {
+                SEBServerInit.INIT_LOGGER.info("--------> Ignore outdated exam session state snapshot of age: {} ms",
+                        age);
+                return;
+            }
+
+            int restoredConnections = 0;
+            for (final Map.Entry<Long, Collection<ConnectionState>> exam : snapshot.exams.entrySet()) {
+                try {
+                    restoredConnections += restoreExam(exam.getKey(), exam.getValue());
+                } catch (final Exception e) {
+                    log.warn("Failed to restore exam session state snapshot for exam: {}", exam.getKey(), e);
+                }
+            }
+
+            SEBServerInit.INIT_LOGGER.info(
+                    "--------> Restored {} of {} client connections from exam session state snapshot of age: {} ms",
+                    restoredConnections,
+                    snapshot.numberOfConnections(),
+                    age);
+
+        } catch (final Exception e) {
+            log.error("Failed to restore exam session state snapshot from: {}", this.snapshotFile, e);
+        } finally {
+            this.restored = true;
+        }
+    }
+
+    private int restoreExam(final Long examId, final Collection<ConnectionState> connections) {
+        // skip exams that are not running anymore and preload the exam data the connections depend on
+        if (this.examSessionCacheWarmup.warmUp(examId).hasError()) {
+            return 0;
+        }
+
+        final Set<String> connectionTokens = new HashSet<>(this.clientConnectionDAO
+                .getConnectionTokens(examId)
+                .getOrThrow());
+        final Map<Long, ConnectionState> states = new HashMap<>();
+        connections.stream()
+                .filter(state -> connectionTokens.contains(state.connectionToken))
+                .forEach(state -> states.put(state.connectionId, state));
+
+        final Cache cache = this.cacheManager.getCache(ExamSessionCacheService.CACHE_NAME_ACTIVE_CLIENT_CONNECTION);
+        if (states.isEmpty() || cache == null) {
+            return 0;
+        }
+
+        int count = 0;
+        for (final ClientConnection clientConnection : this.clientConnectionDAO
+                .allOf(states.keySet())
+                .getOrThrow()) {
+
+            final ConnectionState state = states.get(clientConnection.id);
+            if (state == null
+                    || !examId.equals(clientConnection.examId)
+                    || !state.connectionToken.equals(clientConnection.connectionToken)) {
+                continue;
+            }
+
+            final Map<Long, Double> indicatorValues = clientConnection.status.name().equals(state.status)
+                    ? state.indicatorValues
+                    : Collections.emptyMap();
+
+            // a connection that has already been loaded since startup is up to date and is not replaced
+            if (cache.putIfAbsent(
+                    clientConnection.connectionToken,
+                    this.internalClientConnectionDataFactory.createClientConnectionData(
+                            clientConnection,
+                            indicatorValues)) == null) {
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+}
@@ -11,6 +11,7 @@ package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
@@ -51,6 +52,18 @@ public class InternalClientConnectionDataFactory {
     }
 
     public ClientConnectionDataInternal createClientConnectionData(final ClientConnection clientConnection) {
+        return createClientConnectionData(clientConnection, Collections.emptyMap());
+    }
+
+    /** Creates the internal client connection data for the given client connection with known indicator values,
+     * e.g. restored from a session state snapshot, as initial indicator values.
+     *
+     * @param clientConnection the client connection
+     * @param indicatorValues known indicator values mapped by indicator identifier
+     * @return the internal client connection data */
+    public ClientConnectionDataInternal createClientConnectionData(
+            final ClientConnection clientConnection,
+            final Map<Long, Double> indicatorValues) {
 
         ClientConnectionDataInternal result;
         if (clientConnection.status == ConnectionStatus.CLOSED
@@ -60,7 +73,7 @@ public class InternalClientConnectionDataFactory {
             result = new ClientConnectionDataInternal(
                     clientConnection,
                     () -> false,
-                    this.clientIndicatorFactory.createFor(clientConnection),
+                    this.clientIndicatorFactory.createFor(clientConnection, indicatorValues),
                     getGroupIds(clientConnection));
         } else {
 
@@ -68,7 +81,7 @@ public class InternalClientConnectionDataFactory {
                     clientConnection,
                     () -> this.sebClientNotificationService
                             .hasAnyPendingNotification(clientConnection),
-                    this.clientIndicatorFactory.createFor(clientConnection),
+                    this.clientIndicatorFactory.createFor(clientConnection, indicatorValues),
                     getGroupIds(clientConnection));
         }
 
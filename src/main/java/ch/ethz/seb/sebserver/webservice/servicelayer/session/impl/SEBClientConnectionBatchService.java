@@ -0,0 +1,275 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
+import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
+
+/** Creates new SEB client connections of concurrent handshake requests in micro batches.
+ * <p>
+ * A handshake request puts its new connection into a queue and waits for it to be created. The first waiting
+ * request that gets the batch lock becomes the leader of the next batch. The leader waits a short batch window
+ * to collect concurrent requests and then processes all queued connections at once:
+ * <ul>
+ * <li>The exam integrity check is done only once per exam and institution of the batch</li>
+ * <li>All connections are created within one transaction with batched inserts</li>
+ * <li>The distributed indicator value caches of all connections are created within one transaction</li>
+ * <li>The connection token caches are evicted only once per exam</li>
+ * </ul>
+ * Every request gets its own result. Since the batch is processed by the waiting request threads itself,
+ * no additional threads are needed and a batch holds only one database connection at a time. */
+@Lazy
+@Component
+@WebServiceProfile
+public class SEBClientConnectionBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SEBClientConnectionBatchService.class);
+
+    private final ClientConnectionDAO clientConnectionDAO;
+    private final ClientIndicatorFactory clientIndicatorFactory;
+    private final boolean enabled;
+    private final long batchWindow;
+    private final int maxBatchSize;
+    private final long timeout;
+
+    private final BlockingQueue<PendingConnection> queue = new LinkedBlockingQueue<>();
+    private final ReentrantLock batchLock = new ReentrantLock();
+
+    public SEBClientConnectionBatchService(
+            final ClientConnectionDAO clientConnectionDAO,
+            final ClientIndicatorFactory clientIndicatorFactory,
+            @Value("${sebserver.webservice.api.exam.handshake.batch.enabled:true}") final boolean enabled,
+            @Value("${sebserver.webservice.api.exam.handshake.batch.window:5}") final long batchWindow,
+            @Value("${sebserver.webservice.api.exam.handshake.batch.max-size:200}") final int maxBatchSize,
+            @Value("${sebserver.webservice.api.exam.handshake.batch.timeout:10000}") final long timeout) {
+
+        this.clientConnectionDAO = clientConnectionDAO;
+        this.clientIndicatorFactory = clientIndicatorFactory;
+        this.enabled = enabled;
+        this.batchWindow = Math.max(1, batchWindow);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.timeout = timeout;
+    }
+
+    /** Creates a new client connection in state CONNECTION_REQUESTED and initializes its distributed
+     * indicator value caches if needed.
+     *
+     * @param clientConnection the data of the new client connection with a unique connection token
+     * @param examIntegrityCheck the exam integrity check that is applied once per exam and institution of a batch.
+     *            Throws an exception if the connection is not allowed for the exam.
+     * @return Result refer to the created client connection or to an error if happened */
+    public Result<ClientConnection> createNew(
+            final ClientConnection clientConnection,
+            final Consumer<ClientConnection> examIntegrityCheck) {
+
+        if (!this.enabled) {
+            return createSingle(clientConnection, examIntegrityCheck);
+        }
+
+        return Result.tryCatch(() -> {
+
+            final PendingConnection pending = new PendingConnection(clientConnection, examIntegrityCheck);
+            this.queue.add(pending);
+
+            try {
+                return awaitResult(pending);
+            } catch (final ExecutionException e) {
+                // hand over the original error of the batch to the caller
+                throw (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e;
+            }
+        });
+    }
+
+    private ClientConnection awaitResult(final PendingConnection pending)
+            throws InterruptedException, ExecutionException {
+
+        final long deadline = Utils.getMillisecondsNow() + this.timeout;
+        while (!pending.result.isDone()) {
+            if (this.batchLock.tryLock()) {
+                try {
+                    if (!pending.result.isDone()) {
+                        processBatch();
+                    }
+                } finally {
+                    this.batchLock.unlock();
+                }
+            } else {
+                try {
+                    return pending.result.get(this.batchWindow, TimeUnit.MILLISECONDS);
+                } catch (final TimeoutException e) {
+                    // not processed yet, try to become the leader of the next batch
+                }
+            }
+
+            if (Utils.getMillisecondsNow() > deadline && this.queue.remove(pending)) {
+                throw new IllegalStateException(
+                        "Timeout while waiting for client connection creation: "
+                                + pending.clientConnection.connectionToken);
+            }
+        }
+
+        return pending.result.get();
+    }
+
+    private void processBatch() throws InterruptedException {
+        // wait a short time to collect concurrent requests if the batch is not already full
+        if (this.queue.size() < this.maxBatchSize) {
+            Thread.sleep(this.batchWindow);
+        }
+
+        final List<PendingConnection> batch = new ArrayList<>(this.maxBatchSize);
+        this.queue.drainTo(batch, this.maxBatchSize);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final long start = Utils.getMillisecondsNow();
+        try {
+
+            final List<PendingConnection> granted = checkExamIntegrity(batch);
+            if (granted.isEmpty()) {
+                return;
+            }
+
+            final Map<String, ClientConnection> created = this.clientConnectionDAO
+                    .createAll(granted
+                            .stream()
+                            .map(p -> p.clientConnection)
+                            .collect(Collectors.toList()))
+                    .getOrThrow()
+                    .stream()
+                    .collect(Collectors.toMap(cc -> cc.connectionToken, Function.identity()));
+
+            this.clientIndicatorFactory.initializeDistributedCaches(created.values());
+
+            created.values()
+                    .stream()
+                    .map(cc -> cc.examId)
+                    .filter(examId -> examId != null)
+                    .distinct()
+                    .forEach(this.clientConnectionDAO::evictConnectionTokenCache);
+
+            for (final PendingConnection pending : granted) {
+                final ClientConnection clientConnection = created.get(pending.clientConnection.connectionToken);
+                if (clientConnection != null) {
+                    pending.result.complete(clientConnection);
+                } else {
+                    pending.result.completeExceptionally(new IllegalStateException(
+                            "Client connection not created: " + pending.clientConnection.connectionToken));
+                }
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug("Created batch of {} client connections in {} ms",
+                        granted.size(),
+                        Utils.getMillisecondsNow() - start);
+            }
+
+        } catch (final Exception e) {
+            log.error("Failed to create batch of {} client connections: ", batch.size(), e);
+            batch.forEach(pending -> pending.result.completeExceptionally(e));
+        }
+    }
+
+    /** Applies the exam integrity check once per exam and institution of the batch and
+     * completes the pending connections that are not granted with the respective error */
+    private List<PendingConnection> checkExamIntegrity(final Collection<PendingConnection> batch) {
+        final Map<String, Exception> checks = new HashMap<>();
+        final List<PendingConnection> granted = new ArrayList<>(batch.size());
+        for (final PendingConnection pending : batch) {
+            final ClientConnection clientConnection = pending.clientConnection;
+            if (clientConnection.examId == null) {
+                granted.add(pending);
+                continue;
+            }
+
+            final String checkKey = clientConnection.examId + ":" + clientConnection.institutionId;
+            if (!checks.containsKey(checkKey)) {
+                try {
+                    pending.examIntegrityCheck.accept(clientConnection);
+                    checks.put(checkKey, null);
+                } catch (final Exception e) {
+                    checks.put(checkKey, e);
+                }
+            }
+
+            final Exception error = checks.get(checkKey);
+            if (error == null) {
+                granted.add(pending);
+            } else {
+                pending.result.completeExceptionally(error);
+            }
+        }
+        return granted;
+    }
+
+    private Result<ClientConnection> createSingle(
+            final ClientConnection clientConnection,
+            final Consumer<ClientConnection> examIntegrityCheck) {
+
+        return Result.tryCatch(() -> {
+
+            if (clientConnection.examId != null) {
+                examIntegrityCheck.accept(clientConnection);
+            }
+
+            final ClientConnection created = this.clientConnectionDAO
+                    .createNew(clientConnection)
+                    .getOrThrow();
+
+            if (created.examId != null) {
+                this.clientIndicatorFactory.initializeDistributedCaches(created);
+                this.clientConnectionDAO.evictConnectionTokenCache(created.examId);
+            }
+
+            return created;
+        });
+    }
+
+    private static final class PendingConnection {
+
+        final ClientConnection clientConnection;
+        final Consumer<ClientConnection> examIntegrityCheck;
+        final CompletableFuture<ClientConnection> result = new CompletableFuture<>();
+
+        PendingConnection(
+                final ClientConnection clientConnection,
+                final Consumer<ClientConnection> examIntegrityCheck) {
+
+            this.clientConnection = clientConnection;
+            this.examIntegrityCheck = examIntegrityCheck;
+        }
+    }
+
+}
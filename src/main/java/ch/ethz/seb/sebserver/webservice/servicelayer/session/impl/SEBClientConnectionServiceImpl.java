@@ -51,6 +51,7 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.exam.ExamAdminService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.institution.SecurityKeyService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamSessionService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientConnectionService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientVersionService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.impl.indicator.DistributedIndicatorValueService;
 import ch.ethz.seb.sebserver.webservice.weblayer.api.APIConstraintViolationException;
 
@@ -78,7 +79,9 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
     private final DistributedIndicatorValueService distributedPingCache;
     private final SecurityKeyService securityKeyService;
     private final SEBClientEventBatchService sebClientEventBatchService;
+    private final SEBClientConnectionBatchService sebClientConnectionBatchService;
     private final SEBClientInstructionService sebClientInstructionService;
+    private final SEBClientVersionService sebClientVersionService;
     private final JSONMapper jsonMapper;
     private final boolean isDistributedSetup;
 
@@ -91,7 +94,9 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
             final SecurityKeyService securityKeyService,
             final WebserviceInfo webserviceInfo,
             final SEBClientEventBatchService sebClientEventBatchService,
+            final SEBClientConnectionBatchService sebClientConnectionBatchService,
             final SEBClientInstructionService sebClientInstructionService,
+            final SEBClientVersionService sebClientVersionService,
             final JSONMapper jsonMapper) {
 
         this.examSessionService = examSessionService;
@@ -104,7 +109,9 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
         this.securityKeyService = securityKeyService;
         this.isDistributedSetup = webserviceInfo.isDistributed();
         this.sebClientEventBatchService = sebClientEventBatchService;
+        this.sebClientConnectionBatchService = sebClientConnectionBatchService;
         this.sebClientInstructionService = sebClientInstructionService;
+        this.sebClientVersionService = sebClientVersionService;
         this.jsonMapper = jsonMapper;
     }
 
@@ -157,15 +164,8 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
 
             final String connectionToken = createToken();
 
-            if (examId != null) {
-                checkExamIntegrity(
-                        examId,
-                        null,
-                        institutionId,
-                        connectionToken,
-                        clientAddress);
-            }
-
+            // For a new connection this only takes the client id or machine name as placeholder without any
+            // side effect. The exam integrity check is applied before the connection is created
             final String updateUserSessionId = updateUserSessionId(
                     examId,
                     null,
@@ -173,8 +173,9 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
                     sebMachineName,
                     null);
 
-            // Create ClientConnection in status CONNECTION_REQUESTED for further processing
-            final ClientConnection clientConnection = this.clientConnectionDAO.createNew(new ClientConnection(
+            // Create ClientConnection in status CONNECTION_REQUESTED for further processing.
+            // Concurrent handshakes are created in batches with one exam integrity check per exam
+            final ClientConnection clientConnection = this.sebClientConnectionBatchService.createNew(new ClientConnection(
                     null,
                     institutionId,
                     examId,
@@ -196,18 +197,15 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
                     null,
                     null,
                     null,
-                    null))
+                    null),
+                    data -> checkExamIntegrity(
+                            data.examId,
+                            null,
+                            data.institutionId,
+                            data.connectionToken,
+                            clientAddress))
                     .getOrThrow();
 
-            // initialize distributed indicator value caches if possible and needed
-            if (clientConnection.examId != null && this.isDistributedSetup) {
-                this.clientIndicatorFactory.initializeDistributedCaches(clientConnection);
-            }
-
-            if (examId != null) {
-                this.clientConnectionDAO.evictConnectionTokenCache(examId);
-            }
-
             // load client connection data into cache
             final ClientConnectionDataInternal activeClientConnection = this.examSessionService
                     .getConnectionDataInternal(connectionToken);
@@ -266,6 +264,11 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
             final String signatureHash = StringUtils.isNotBlank(appSignatureKey)
                     ? getSignatureHash(appSignatureKey, connectionToken, _examId)
                     : null;
+            final Boolean clientVersionGranted = checkClientVersion(
+                    clientConnection,
+                    _examId,
+                    clientConnection.sebOSName == null ? sebOsName : clientConnection.sebOSName,
+                    clientConnection.sebVersion == null ? sebVersion : clientConnection.sebVersion);
 
             final ClientConnection updateConnection = new ClientConnection(
                     clientConnection.id,
@@ -289,12 +292,14 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
                     applyProctoring(_examId, newStatus),
                     null,
                     signatureHash,
-                    null);
+                    clientVersionGranted);
 
             final ClientConnection updatedClientConnection = this.clientConnectionDAO
                     .save(updateConnection)
                     .getOrThrow();
 
+            notifySignatureHashChange(clientConnection, _examId, newStatus, signatureHash);
+
             // initialize distributed indicator value caches if possible and needed
             if (examId != null && this.isDistributedSetup) {
                 this.clientIndicatorFactory.initializeDistributedCaches(clientConnection);
@@ -379,7 +384,11 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
                     applyProctoring(_examId, newStatus),
                     null,
                     getSignatureHash(appSignatureKey, connectionToken, _examId),
-                    null);
+                    checkClientVersion(
+                            clientConnection,
+                            _examId,
+                            StringUtils.isNotBlank(sebOsName) ? sebOsName : clientConnection.sebOSName,
+                            StringUtils.isNotBlank(sebVersion) ? sebVersion : clientConnection.sebVersion));
 
             // ClientConnection integrity check
             if (clientConnection.institutionId == null ||
@@ -398,6 +407,8 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
                     .save(establishedClientConnection)
                     .getOrThrow();
 
+            notifySignatureHashChange(clientConnection, _examId, newStatus, establishedClientConnection.ask);
+
             // initialize distributed indicator value caches if possible and needed
             if (examId != null && this.isDistributedSetup) {
                 this.clientIndicatorFactory.initializeDistributedCaches(clientConnection);
@@ -865,11 +876,79 @@ public class SEBClientConnectionServiceImpl implements SEBClientConnectionServic
                 .isProctoringEnabled(clientConnection.examId)
                 .getOr(false);
 
-        return this.clientConnectionDAO.save(new ClientConnection(
+        final ClientConnection updatedClientConnection = this.clientConnectionDAO.save(new ClientConnection(
                 clientConnection.id, null, null, status,
                 null, null, null, null, null, null, null, null, null, null, null, null, null, null,
                 proctoringEnabled, null, null, null))
                 .getOrThrow();
+
+        notifySignatureHashChange(clientConnection, clientConnection.examId, status, null);
+        return updatedClientConnection;
+    }
+
+    /** Updates the in-memory App Signature Key grant state of the involved exam(s) with the change of
+     * a client connection. A connection is only counted for its ASK hash while it is in a security check state.
+     *
+     * @param clientConnection the client connection before the change
+     * @param examId the exam identifier after the change
+     * @param status the connection status after the change
+     * @param signatureHash the new ASK hash or null if it has not changed */
+    private void notifySignatureHashChange(
+            final ClientConnection clientConnection,
+            final Long examId,
+            final ConnectionStatus status,
+            final String signatureHash) {
+
+        final String previousHash = isSecurityCheckState(clientConnection.status)
+                ? clientConnection.ask
+                : null;
+        final String newHash = isSecurityCheckState(status)
+                ? (signatureHash != null) ? signatureHash : clientConnection.ask
+                : null;
+
+        if (Objects.equals(clientConnection.examId, examId)) {
+            this.securityKeyService.notifyConnectionSignatureHash(examId, previousHash, newHash);
+        } else {
+            this.securityKeyService.notifyConnectionSignatureHash(clientConnection.examId, previousHash, null);
+            this.securityKeyService.notifyConnectionSignatureHash(examId, null, newHash);
+        }
+    }
+
+    /** Checks the SEB client version of a client connection on handshake with the allowed SEB version policy
+     * of the exam. The check is only applied if the connection has no check result yet or if the reported
+     * SEB client version or exam has been changed.
+     *
+     * @param clientConnection the client connection before the change
+     * @param examId the exam identifier after the change
+     * @param sebOsName the SEB OS name after the change
+     * @param sebVersion the SEB client version after the change
+     * @return the SEB client version check result or null if there is nothing to change */
+    private Boolean checkClientVersion(
+            final ClientConnection clientConnection,
+            final Long examId,
+            final String sebOsName,
+            final String sebVersion) {
+
+        if (examId == null || StringUtils.isBlank(sebVersion)) {
+            return null;
+        }
+
+        if (clientConnection.clientVersionGranted != null
+                && Objects.equals(clientConnection.examId, examId)
+                && Objects.equals(clientConnection.sebOSName, sebOsName)
+                && Objects.equals(clientConnection.sebVersion, sebVersion)) {
+            return null;
+        }
+
+        final Exam exam = this.examSessionService
+                .getRunningExam(examId)
+                .getOr(null);
+
+        return this.sebClientVersionService.checkClientVersion(exam, sebOsName, sebVersion);
+    }
+
+    private static boolean isSecurityCheckState(final ConnectionStatus status) {
+        return status != null && ClientConnection.SECURE_CHECK_STATES.contains(status.name());
     }
 
     private ClientConnectionDataInternal reloadConnectionCache(
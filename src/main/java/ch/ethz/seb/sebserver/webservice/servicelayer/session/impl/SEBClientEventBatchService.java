@@ -231,11 +231,15 @@ public class SEBClientEventBatchService {
 
             switch (notification.eventType) {
                 case NOTIFICATION: {
-                    this.sebClientNotificationService.newNotification(notification);
+                    this.sebClientNotificationService.newNotification(
+                            notification,
+                            clientConnection.clientConnection.examId);
                     break;
                 }
                 case NOTIFICATION_CONFIRMED: {
-                    this.sebClientNotificationService.confirmPendingNotification(notification);
+                    this.sebClientNotificationService.confirmPendingNotification(
+                            notification,
+                            clientConnection.clientConnection.examId);
                     break;
                 }
                 default:
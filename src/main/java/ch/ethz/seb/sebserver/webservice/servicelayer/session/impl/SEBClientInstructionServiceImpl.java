@@ -14,6 +14,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -55,9 +56,21 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
     private final ClientInstructionDAO clientInstructionDAO;
     private final JSONMapper jsonMapper;
 
+    private final boolean distributed;
+
+    /** Sparse index of pending instructions. Only connection tokens that have pending instructions
+     * are mapped here, queues are removed from the index as soon as they are drained. */
     private final Map<String, SizedArrayNonBlockingQueue<ClientInstructionRecord>> instructions;
+    /** Global fast path marker. False if there are no pending instructions within the index at all */
+    private volatile boolean pending = false;
+    /** Next point in time (millis) a refresh from persistent storage is needed. Only used in distributed setup */
+    private final AtomicLong nextRefresh = new AtomicLong(0);
+    /** Identifiers of instructions that have already been delivered (or confirmed) and are deleted on persistent
+     * storage, mapped to the instruction timestamp. A refresh from persistent storage that has been running
+     * concurrently to the delete may still see such an instruction and must not put it back into the index.
+     * Entries are kept until the instruction would be inactive anyway. */
+    private final Map<Long, Long> consumed = new ConcurrentHashMap<>();
 
-    private long lastRefresh = 0;
     private long lastClean = 0;
 
     public SEBClientInstructionServiceImpl(
@@ -70,6 +83,7 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
         this.clientConnectionDAO = clientConnectionDAO;
         this.clientInstructionDAO = clientInstructionDAO;
         this.jsonMapper = jsonMapper;
+        this.distributed = webserviceInfo.isDistributed();
         this.instructions = new ConcurrentHashMap<>();
     }
 
@@ -176,13 +190,11 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
         final boolean needsConfirm = BooleanUtils.toBoolean(clientInstruction.getNeedsConfirmation());
         if (needsConfirm) {
             // add the instruction back to the queue's tail if it need a confirmation
-            final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue = this.instructions.get(connectionToken);
-            if (queue != null) {
-                queue.add(clientInstruction);
-            }
+            putToCacheIfAbsent(clientInstruction);
 
         } else {
             // otherwise remove it also from the persistent storage
+            markConsumed(clientInstruction.getId(), clientInstruction.getTimestamp());
             final Result<Void> delete = this.clientInstructionDAO.delete(clientInstruction.getId());
             if (delete.hasError()) {
                 log.error("Failed to delete SEB client instruction on persistent storage: ", delete.getError());
@@ -225,14 +237,17 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
     public void confirmInstructionDone(final String connectionToken, final String instructionConfirm) {
         try {
 
-            final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue = this.instructions.get(connectionToken);
             final Long instructionId = Long.valueOf(instructionConfirm);
+            markConsumed(instructionId, System.currentTimeMillis());
             this.clientInstructionDAO.delete(instructionId);
-            if (queue.isEmpty()) {
+
+            final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue = this.instructions.get(connectionToken);
+            if (queue == null) {
                 return;
             }
 
             queue.removeIf(instruction -> instructionId.equals(instruction.getId()));
+            removeIfEmpty(connectionToken);
 
         } catch (final Exception e) {
             log.error(
@@ -263,6 +278,7 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
                 }
 
                 cleanupCache();
+                this.consumed.values().removeIf(timestamp -> timestamp < millisNowMinusOneMinute);
 
                 this.lastClean = System.currentTimeMillis();
             }
@@ -273,46 +289,61 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
     }
 
     private ClientInstructionRecord getNextInstruction(final String connectionToken) {
-        // if we still have instruction for given connectionToken, process them first
-        final long activeTime = DateTime.now(DateTimeZone.UTC).minusMinutes(1).getMillis();
-        final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue = this.instructions.computeIfAbsent(
-                connectionToken,
-                key -> new SizedArrayNonBlockingQueue<>(INSTRUCTION_QUEUE_MAX_SIZE));
+        // fast path: nothing pending and no refresh from persistent storage needed
+        if (!this.pending && !this.distributed) {
+            return null;
+        }
+
+        // in a distributed setup, instructions of other nodes are only available on persistent storage
+        if (this.distributed) {
+            refreshFromStorage();
+            if (!this.pending) {
+                return null;
+            }
+        }
+
+        final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue = this.instructions.get(connectionToken);
+        if (queue == null) {
+            return null;
+        }
+
+        final long activeTime = System.currentTimeMillis() - Constants.MINUTE_IN_MILLIS;
         final ClientInstructionRecord nextActive = getNextActive(activeTime, queue);
-        if (nextActive != null) {
-            return nextActive;
+        if (queue.isEmpty()) {
+            removeIfEmpty(connectionToken);
         }
+        return nextActive;
+    }
 
-        // Since the queue is empty check periodically if there are active instructions on the persistent storage
+    // Refresh the cache from persistent storage if the refresh interval has passed.
+    // Only one thread will do the refresh while all others go on with the current cache state
+    private void refreshFromStorage() {
+        final long next = this.nextRefresh.get();
         final long currentTimeMillis = System.currentTimeMillis();
-        if (currentTimeMillis - this.lastRefresh > PERSISTENT_UPDATE_INTERVAL) {
-            synchronized (this) {
-                this.lastRefresh = currentTimeMillis;
-                loadInstructions()
-                        .onError(error -> log.error(
-                                "Failed load instructions from persistent storage and to refresh cache: ",
-                                error));
-
-                if (!queue.isEmpty()) {
-                    return getNextInstruction(connectionToken);
-                }
-            }
+        if (currentTimeMillis < next ||
+                !this.nextRefresh.compareAndSet(next, currentTimeMillis + PERSISTENT_UPDATE_INTERVAL)) {
+            return;
         }
 
-        return null;
+        loadInstructions()
+                .onError(error -> log.error(
+                        "Failed load instructions from persistent storage and to refresh cache: ",
+                        error));
     }
 
     private void cleanupCache() {
         // check if there are still queues in the cache, whether they are empty or not,
         // for closed or disposed client connections and remove them from cache
-        synchronized (this.instructions) {
+        if (this.instructions.isEmpty()) {
+            return;
+        }
 
-            final Result<Collection<String>> result = this.clientConnectionDAO
-                    .getInactiveConnectionTokens(this.instructions.keySet());
+        final Result<Collection<String>> result = this.clientConnectionDAO
+                .getInactiveConnectionTokens(this.instructions.keySet());
 
-            if (result.hasValue()) {
-                result.get().stream().forEach(token -> this.instructions.remove(token));
-            }
+        if (result.hasValue()) {
+            result.get().stream().forEach(this.instructions::remove);
+            updatePendingMarker();
         }
     }
 
@@ -321,24 +352,34 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
             final long activeTime,
             final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue) {
 
-        if (queue != null && !queue.isEmpty()) {
-            final ClientInstructionRecord rec = queue.poll();
-            if (rec.getTimestamp().longValue() < activeTime) {
-                return getNextActive(activeTime, queue);
-            } else {
-                return rec;
-            }
-        } else {
+        if (queue == null) {
             return null;
         }
+
+        final ClientInstructionRecord rec = queue.poll();
+        if (rec == null) {
+            return null;
+        } else if (rec.getTimestamp().longValue() < activeTime) {
+            return getNextActive(activeTime, queue);
+        } else {
+            return rec;
+        }
     }
 
     private Result<Void> loadInstructions() {
         return Result.tryCatch(() -> this.clientInstructionDAO.getAllActive()
                 .getOrThrow()
+                .stream()
+                .filter(instruction -> !this.consumed.containsKey(instruction.getId()))
                 .forEach(this::putToCacheIfAbsent));
     }
 
+    private void markConsumed(final Long instructionId, final Long timestamp) {
+        if (instructionId != null) {
+            this.consumed.put(instructionId, (timestamp != null) ? timestamp : System.currentTimeMillis());
+        }
+    }
+
     // NOTE: In a distributed setup we only fill the cache from persistent storage
     //       whereas in a none distributed setup we can put the instruction directly in the cache
     //       and store the instruction into persistent only for recovering reasons.
@@ -350,20 +391,43 @@ public class SEBClientInstructionServiceImpl implements SEBClientInstructionServ
     }
 
     private ClientInstructionRecord putToCacheIfAbsent(final ClientInstructionRecord instruction) {
-        final SizedArrayNonBlockingQueue<ClientInstructionRecord> queue = this.instructions.computeIfAbsent(
+        this.instructions.compute(
                 instruction.getConnectionToken(),
-                key -> new SizedArrayNonBlockingQueue<>(INSTRUCTION_QUEUE_MAX_SIZE));
+                (token, queue) -> {
+                    final SizedArrayNonBlockingQueue<ClientInstructionRecord> q = (queue != null)
+                            ? queue
+                            : new SizedArrayNonBlockingQueue<>(INSTRUCTION_QUEUE_MAX_SIZE);
+
+                    if (!q.contains(instruction)) {
+                        if (log.isTraceEnabled()) {
+                            log.trace("Put SEB instruction into instruction queue: {}", instruction);
+                        }
+                        q.add(instruction);
+                    }
+                    return q;
+                });
+
+        // NOTE: the marker must be set after the index has been updated
+        this.pending = true;
+        return instruction;
+    }
 
-        if (queue.contains(instruction)) {
-            return instruction;
-        }
+    private void removeIfEmpty(final String connectionToken) {
+        this.instructions.computeIfPresent(
+                connectionToken,
+                (token, queue) -> queue.isEmpty() ? null : queue);
+        updatePendingMarker();
+    }
 
-        if (log.isTraceEnabled()) {
-            log.debug("Put SEB instruction into instruction queue: {}", instruction);
+    // NOTE: the marker is reset first and then re-checked against the index to not lose a concurrent
+    //       registration that was put into the index in between
+    private void updatePendingMarker() {
+        if (this.instructions.isEmpty()) {
+            this.pending = false;
+            if (!this.instructions.isEmpty()) {
+                this.pending = true;
+            }
         }
-
-        queue.add(instruction);
-        return instruction;
     }
 
 }
@@ -8,21 +8,25 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
-import ch.ethz.seb.sebserver.webservice.servicelayer.dao.NoResourceFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-import ch.ethz.seb.sebserver.gbl.Constants;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.EventType;
@@ -31,13 +35,21 @@ import ch.ethz.seb.sebserver.gbl.model.session.ClientInstruction.InstructionType
 import ch.ethz.seb.sebserver.gbl.model.session.ClientNotification;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
 import ch.ethz.seb.sebserver.webservice.WebserviceInfo;
-import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.NoResourceFoundException;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.ExamDeletionEvent;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientInstructionService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientNotificationService;
 
+/** Maintains an in-memory index of the pending notifications per exam.
+ * The index of an exam is loaded on first access and then updated incrementally on new and confirmed
+ * notifications. The index holds the pending notification identifiers per client connection so that
+ * every update is idempotent and updates that happen while an index is (re)loaded can be replayed on
+ * the loaded data. In a distributed setup the notifications of other webservice instances are propagated
+ * by a periodic background sync that reloads all indexed exams with one query.
+ * Indexes that are not accessed anymore are dropped. */
 @Lazy
 @Service
 @WebServiceProfile
@@ -49,32 +61,39 @@ public class SEBClientNotificationServiceImpl implements SEBClientNotificationSe
     private static final String CONFIRM_INSTRUCTION_ATTR_TYPE = "type";
 
     private final ClientEventDAO clientEventDAO;
-    private final ClientConnectionDAO clientConnectionDAO;
     private final SEBClientInstructionService sebClientInstructionService;
-    private final Set<Long> pendingNotifications = new HashSet<>();
-    private final Set<Long> examUpdate = new HashSet<>();
+    private final boolean distributed;
+    private final long indexMaxIdleTime;
 
-    private long lastUpdate = 0;
-    private long updateInterval = 5 * Constants.SECOND_IN_MILLIS;
+    /** The pending notification indexes mapped by exam identifier */
+    private final Map<Long, ExamNotificationIndex> examIndexes = new ConcurrentHashMap<>();
 
     public SEBClientNotificationServiceImpl(
             final ClientEventDAO clientEventDAO,
-            final ClientConnectionDAO clientConnectionDAO,
             final SEBClientInstructionService sebClientInstructionService,
-            final WebserviceInfo webserviceInfo) {
+            final WebserviceInfo webserviceInfo,
+            @Value("${sebserver.webservice.api.exam.notification.index.max-idle:60000}") final long indexMaxIdleTime) {
 
         this.clientEventDAO = clientEventDAO;
-        this.clientConnectionDAO = clientConnectionDAO;
         this.sebClientInstructionService = sebClientInstructionService;
-        if (webserviceInfo.isDistributed()) {
-            this.updateInterval = 2 * Constants.SECOND_IN_MILLIS;
-        }
+        this.distributed = webserviceInfo.isDistributed();
+        this.indexMaxIdleTime = indexMaxIdleTime;
     }
 
     @Override
     public Boolean hasAnyPendingNotification(final ClientConnection clientConnection) {
-        updateCache(clientConnection.examId);
-        return this.pendingNotifications.contains(clientConnection.id);
+        if (clientConnection.examId == null) {
+            return false;
+        }
+        return getExamIndex(clientConnection.examId).hasPending(clientConnection.id);
+    }
+
+    @Override
+    public int getPendingNotificationCount(final Long examId) {
+        if (examId == null) {
+            return 0;
+        }
+        return getExamIndex(examId).numberOfConnections();
     }
 
     @Override
@@ -83,17 +102,14 @@ public class SEBClientNotificationServiceImpl implements SEBClientNotificationSe
     }
 
     @Override
-    public void confirmPendingNotification(final ClientEvent event) {
+    public void confirmPendingNotification(final ClientEvent event, final Long examId) {
         try {
 
-            final ClientConnection clientConnection = this.clientConnectionDAO
-                    .byPK(event.connectionId)
-                    .getOrThrow();
             final Long notificationId = (long) event.getValue();
 
-            this.clientEventDAO.getPendingNotificationByValue(clientConnection.id, notificationId)
+            this.clientEventDAO.getPendingNotificationByValue(event.connectionId, notificationId)
                     .flatMap(notification -> this.clientEventDAO.confirmPendingNotification(notification.id))
-                    .map(this::removeFromCache)
+                    .map(notification -> removeFromIndex(examId, notification))
                     .getOrThrow();
 
         } catch (final NoResourceFoundException e) {
@@ -118,18 +134,20 @@ public class SEBClientNotificationServiceImpl implements SEBClientNotificationSe
         return this.clientEventDAO.getPendingNotification(notificationId)
                 .map(notification -> this.confirmClientSide(notification, examId, connectionToken))
                 .flatMap(notification -> this.clientEventDAO.confirmPendingNotification(notificationId))
-                .map(this::removeFromCache);
+                .map(notification -> removeFromIndex(examId, notification));
     }
 
     @Override
-    public void newNotification(final ClientNotification notification) {
+    public void newNotification(final ClientNotification notification, final Long examId) {
         this.clientEventDAO.createNewNotification(notification)
-                .map(this::notifyNewNotifiaction)
+                .map(newNotification -> addToIndex(examId, newNotification))
                 .onError(error -> log.error("Failed to store new client notification: {}", notification, error));
     }
 
     @EventListener(ExamDeletionEvent.class)
     public void notifyExamDeletionEvent(final ExamDeletionEvent event) {
+        event.ids.forEach(this.examIndexes::remove);
+
         // delete all notifications for given exams
         event.ids.forEach(id -> this.clientEventDAO.getNotificationIdsForExam(id)
                 .flatMap(this.clientEventDAO::deleteClientNotification)
@@ -140,9 +158,83 @@ public class SEBClientNotificationServiceImpl implements SEBClientNotificationSe
                 .onError(error -> log.error("Failed to delete client notifications for exam: {}", id, error)));
     }
 
-    private ClientNotification notifyNewNotifiaction(final ClientNotification notification) {
-        if (notification.eventType == EventType.NOTIFICATION) {
-            this.pendingNotifications.add(notification.getConnectionId());
+    /** Drops the indexes that have not been accessed within the max idle time and loads the indexes
+     * that failed to load before. In a distributed setup all indexes are reloaded with one query to get
+     * the notifications that are created or confirmed by other webservice instances. */
+    @Scheduled(
+            fixedDelayString = "${sebserver.webservice.api.exam.notification.index.sync-interval:2000}",
+            initialDelay = 2000)
+    public void syncIndexes() {
+        final long now = Utils.getMillisecondsNow();
+        this.examIndexes
+                .values()
+                .removeIf(index -> now - index.lastAccess > this.indexMaxIdleTime);
+
+        final Map<Long, ExamNotificationIndex> toLoad = this.examIndexes
+                .entrySet()
+                .stream()
+                .filter(entry -> this.distributed || !entry.getValue().loaded)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        loadIndexes(toLoad);
+    }
+
+    private ExamNotificationIndex getExamIndex(final Long examId) {
+        ExamNotificationIndex index = this.examIndexes.get(examId);
+        if (index == null) {
+            // create the index without loading it within the map to not block other exams while loading
+            final ExamNotificationIndex newIndex = new ExamNotificationIndex();
+            index = this.examIndexes.putIfAbsent(examId, newIndex);
+            if (index == null) {
+                index = newIndex;
+                loadIndexes(Collections.singletonMap(examId, newIndex));
+            }
+        }
+
+        index.lastAccess = Utils.getMillisecondsNow();
+        return index;
+    }
+
+    /** Loads the given indexes with one query. Indexes that are currently loaded by another thread are skipped.
+     * Index updates that happen while loading are replayed on the loaded data. */
+    private void loadIndexes(final Map<Long, ExamNotificationIndex> indexes) {
+        final Map<Long, ExamNotificationIndex> loading = indexes
+                .entrySet()
+                .stream()
+                .filter(entry -> entry.getValue().beginLoad())
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+
+        if (loading.isEmpty()) {
+            return;
+        }
+
+        this.clientEventDAO
+                .getPendingNotificationIds(loading.keySet())
+                .onSuccess(pending -> loading.forEach((examId, index) -> index.endLoad(
+                        pending.getOrDefault(examId, Collections.emptyMap()))))
+                .onError(error -> {
+                    log.error("Failed to load pending notification indexes for exams: {}", loading.keySet(), error);
+                    loading.values().forEach(ExamNotificationIndex::abortLoad);
+                });
+    }
+
+    private ClientNotification addToIndex(final Long examId, final ClientNotification notification) {
+        if (notification.eventType != EventType.NOTIFICATION) {
+            return notification;
+        }
+
+        // only update an existing index. A new index is loaded with the new notification
+        final ExamNotificationIndex index = (examId != null) ? this.examIndexes.get(examId) : null;
+        if (index != null) {
+            index.add(notification.connectionId, notification.id);
+        }
+        return notification;
+    }
+
+    private ClientNotification removeFromIndex(final Long examId, final ClientNotification notification) {
+        final ExamNotificationIndex index = (examId != null) ? this.examIndexes.get(examId) : null;
+        if (index != null) {
+            index.remove(notification.connectionId, notification.id);
         }
         return notification;
     }
@@ -169,24 +261,71 @@ public class SEBClientNotificationServiceImpl implements SEBClientNotificationSe
         return notification;
     }
 
-    private ClientNotification removeFromCache(final ClientNotification notification) {
-        this.pendingNotifications.remove(notification.connectionId);
-        return notification;
-    }
+    /** The pending notification index of one exam. Holds the identifiers of the pending notifications per
+     * client connection and only contains client connections with at least one pending notification.
+     * Updates are recorded while the index is loaded and replayed on the loaded data afterwards. Since
+     * adding and removing a notification identifier is idempotent, an update that is already contained
+     * in the loaded data is not counted twice. */
+    static final class ExamNotificationIndex {
 
-    private final void updateCache(final Long examId) {
-        if (System.currentTimeMillis() - this.lastUpdate > this.updateInterval) {
-            this.examUpdate.clear();
-            this.pendingNotifications.clear();
-            this.lastUpdate = System.currentTimeMillis();
+        private volatile Map<Long, Set<Long>> pending = new ConcurrentHashMap<>();
+        private List<Consumer<Map<Long, Set<Long>>>> updatesWhileLoading = null;
+        volatile boolean loaded = false;
+        volatile long lastAccess = Utils.getMillisecondsNow();
+
+        boolean hasPending(final Long connectionId) {
+            return connectionId != null && this.pending.containsKey(connectionId);
+        }
+
+        int numberOfConnections() {
+            return this.pending.size();
+        }
+
+        void add(final Long connectionId, final Long notificationId) {
+            if (connectionId != null && notificationId != null) {
+                update(pending -> pending
+                        .computeIfAbsent(connectionId, id -> new HashSet<>())
+                        .add(notificationId));
+            }
         }
 
-        if (!this.examUpdate.contains(examId)) {
-            this.pendingNotifications.addAll(
-                    this.clientEventDAO
-                            .getClientConnectionIdsWithPendingNotification(examId)
-                            .getOr(Collections.emptySet()));
-            this.examUpdate.add(examId);
+        void remove(final Long connectionId, final Long notificationId) {
+            if (connectionId != null && notificationId != null) {
+                update(pending -> pending.computeIfPresent(connectionId, (id, ids) -> {
+                    ids.remove(notificationId);
+                    return ids.isEmpty() ? null : ids;
+                }));
+            }
+        }
+
+        synchronized boolean beginLoad() {
+            if (this.updatesWhileLoading != null) {
+                return false;
+            }
+            this.updatesWhileLoading = new ArrayList<>();
+            return true;
+        }
+
+        synchronized void endLoad(final Map<Long, Set<Long>> loadedData) {
+            final Map<Long, Set<Long>> newPending = new ConcurrentHashMap<>();
+            loadedData.forEach((connectionId, ids) -> newPending.put(connectionId, new HashSet<>(ids)));
+            if (this.updatesWhileLoading != null) {
+                this.updatesWhileLoading.forEach(update -> update.accept(newPending));
+            }
+            this.pending = newPending;
+            this.updatesWhileLoading = null;
+            this.loaded = true;
+        }
+
+        synchronized void abortLoad() {
+            this.updatesWhileLoading = null;
+        }
+
+        private synchronized void update(final Consumer<Map<Long, Set<Long>>> update) {
+            update.accept(this.pending);
+            if (this.updatesWhileLoading != null) {
+                this.updatesWhileLoading.add(update);
+            }
         }
     }
 
@@ -9,7 +9,6 @@
 package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
 
 import java.util.Collections;
-import java.util.List;
 import java.util.Objects;
 
 import org.slf4j.Logger;
@@ -17,7 +16,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
-import ch.ethz.seb.sebserver.gbl.model.exam.AllowedSEBVersion;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnectionData;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
@@ -101,7 +99,10 @@ public class SEBClientSessionServiceImpl implements SEBClientSessionService {
         this.examSessionService
                 .getExamDAO()
                 .allRunningExamIds()
-                .onSuccess(ids -> ids.stream().forEach(examId -> updateGrants(examId)))
+                .onSuccess(ids -> {
+                    ids.stream().forEach(examId -> updateGrants(examId));
+                    this.sebClientVersionService.cleanupExamPolicies(ids);
+                })
                 .onError(error -> log.error("Unexpected error while trying to updateASKGrants: ", error));
     }
 
@@ -198,21 +199,10 @@ public class SEBClientSessionServiceImpl implements SEBClientSessionService {
     }
 
     private void updateAllowedSEBVersionGrant(final Long examId) {
-        final List<AllowedSEBVersion> allowedSEBVersions = this.examSessionService
+        // SEB client versions are checked on handshake. Only if the allowed SEB versions of the exam
+        // have been changed, the active client connections are checked again
+        this.examSessionService
                 .getRunningExam(examId)
-                .map(exam -> exam.allowedSEBVersions)
-                .getOr(Collections.emptyList());
-
-        if (allowedSEBVersions != null && !allowedSEBVersions.isEmpty()) {
-            this.clientConnectionDAO
-                    .getAllActiveNoSEBVersionCheck(examId)
-                    .onError(error -> log.error(
-                            "Failed to get none SEB version checked active client connections: ",
-                            error))
-                    .getOr(Collections.emptyList())
-                    .forEach(cc -> this.sebClientVersionService.checkVersionAndUpdateClientConnection(
-                            cc,
-                            allowedSEBVersions));
-        }
+                .onSuccess(this.sebClientVersionService::updateExamPolicy);
     }
 }
@@ -9,9 +9,14 @@
 package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
 
 import java.util.Arrays;
-import java.util.HashSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -23,7 +28,9 @@ import org.springframework.stereotype.Service;
 import ch.ethz.seb.sebserver.gbl.Constants;
 import ch.ethz.seb.sebserver.gbl.model.exam.AllowedSEBVersion;
 import ch.ethz.seb.sebserver.gbl.model.exam.AllowedSEBVersion.ClientVersion;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ClientConnectionRecord;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientVersionService;
@@ -38,10 +45,14 @@ public class SEBClientVersionServiceImpl implements SEBClientVersionService {
     private final ClientConnectionDAO clientConnectionDAO;
     private final ExamSessionCacheService examSessionCacheService;
 
-    public final Set<String> knownWindowsOSTags;
-    public final Set<String> knownMacOSTags;
-    public final Set<String> knownIOSTags;
-    public final Set<String> knownRestrictedVersions;
+    /** The known tags are compiled once into a pattern per tag group that finds any of the tags of the group */
+    private final Pattern knownWindowsOSTags;
+    private final Pattern knownMacOSTags;
+    private final Pattern knownIOSTags;
+    private final Pattern knownRestrictedVersions;
+
+    /** The precompiled allowed SEB version policies of the running exams, mapped by exam identifier */
+    private final Map<Long, SEBVersionPolicy> examPolicies = new ConcurrentHashMap<>();
 
     public SEBClientVersionServiceImpl(
             final ClientConnectionDAO clientConnectionDAO,
@@ -53,18 +64,10 @@ public class SEBClientVersionServiceImpl implements SEBClientVersionService {
 
         this.clientConnectionDAO = clientConnectionDAO;
         this.examSessionCacheService = examSessionCacheService;
-        this.knownWindowsOSTags = new HashSet<>(Arrays.asList(StringUtils.split(
-                knownWindowsOSTags,
-                Constants.LIST_SEPARATOR)));
-        this.knownMacOSTags = new HashSet<>(Arrays.asList(StringUtils.split(
-                knownMacOSTags,
-                Constants.LIST_SEPARATOR)));
-        this.knownIOSTags = new HashSet<>(Arrays.asList(StringUtils.split(
-                knownIOSTags,
-                Constants.LIST_SEPARATOR)));
-        this.knownRestrictedVersions = new HashSet<>(Arrays.asList(StringUtils.split(
-                knownRestrictedVersions,
-                Constants.LIST_SEPARATOR)));
+        this.knownWindowsOSTags = compileTags(knownWindowsOSTags);
+        this.knownMacOSTags = compileTags(knownMacOSTags);
+        this.knownIOSTags = compileTags(knownIOSTags);
+        this.knownRestrictedVersions = compileTags(knownRestrictedVersions);
     }
 
     @Override
@@ -86,14 +89,77 @@ public class SEBClientVersionServiceImpl implements SEBClientVersionService {
     }
 
     @Override
-    public void checkVersionAndUpdateClientConnection(
+    public Boolean checkClientVersion(final Exam exam, final String clientOSName, final String clientVersion) {
+        if (exam == null || StringUtils.isBlank(clientVersion)) {
+            return null;
+        }
+
+        final SEBVersionPolicy policy = getPolicy(exam);
+        if (policy.isEmpty()) {
+            return null;
+        }
+
+        return policy.isAllowed(extractClientVersion(clientOSName, clientVersion));
+    }
+
+    @Override
+    public void updateExamPolicy(final Exam exam) {
+        final String source = getPolicySource(exam);
+        final SEBVersionPolicy current = this.examPolicies.get(exam.id);
+        if (current != null && Objects.equals(current.source, source)) {
+            return;
+        }
+
+        final SEBVersionPolicy policy = SEBVersionPolicy.compile(source);
+        this.examPolicies.put(exam.id, policy);
+        if (policy.isEmpty()) {
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Allowed SEB versions of exam {} changed to: {}. Check active client connections", exam.id,
+                    source);
+        }
+
+        this.clientConnectionDAO
+                .getAllActiveWithSEBVersion(exam.id)
+                .onError(error -> log.error(
+                        "Failed to get SEB version reported active client connections: ",
+                        error))
+                .getOr(Collections.emptyList())
+                .forEach(record -> checkVersionAndUpdateClientConnection(record, policy));
+    }
+
+    @Override
+    public void cleanupExamPolicies(final Collection<Long> runningExamIds) {
+        this.examPolicies.keySet().retainAll(runningExamIds);
+    }
+
+    private SEBVersionPolicy getPolicy(final Exam exam) {
+        final String source = getPolicySource(exam);
+        final SEBVersionPolicy policy = this.examPolicies.get(exam.id);
+        if (policy != null && Objects.equals(policy.source, source)) {
+            return policy;
+        }
+
+        // NOTE: a changed policy is only registered by updateExamPolicy that also checks the existing connections
+        return SEBVersionPolicy.compile(source);
+    }
+
+    private String getPolicySource(final Exam exam) {
+        return exam.additionalAttributes.get(Exam.ADDITIONAL_ATTR_ALLOWED_SEB_VERSIONS);
+    }
+
+    private void checkVersionAndUpdateClientConnection(
             final ClientConnectionRecord record,
-            final List<AllowedSEBVersion> allowedSEBVersions) {
+            final SEBVersionPolicy policy) {
+
+        final boolean granted = policy.isAllowed(extractClientVersion(
+                record.getClientOsName(),
+                record.getClientVersion()));
 
-        if (isAllowedVersion(record.getClientOsName(), record.getClientVersion(), allowedSEBVersions)) {
-            saveSecurityCheckState(record, true);
-        } else {
-            saveSecurityCheckState(record, false);
+        if (!Objects.equals(Utils.fromByteOrNull(record.getClientVersionGranted()), granted)) {
+            saveSecurityCheckState(record, granted);
         }
     }
 
@@ -108,7 +174,7 @@ public class SEBClientVersionServiceImpl implements SEBClientVersionService {
     protected ClientVersion extractClientVersion(final String clientOSName, final String clientVersion) {
         try {
             // first check if this is a known restricted version
-            if (this.knownRestrictedVersions.stream().filter(clientVersion::contains).findFirst().isPresent()) {
+            if (matches(this.knownRestrictedVersions, clientVersion)) {
                 log.warn("Found default restricted SEB client version: {}", clientVersion);
                 return null;
             }
@@ -152,13 +218,13 @@ public class SEBClientVersionServiceImpl implements SEBClientVersionService {
         final char c = clientVersion.charAt(0);
         final String osVersionText = (c >= 'A' && c <= 'Z') ? clientVersion : clientOSName;
         if (StringUtils.isNotBlank(osVersionText)) {
-            if (this.knownWindowsOSTags.stream().filter(osVersionText::contains).findFirst().isPresent()) {
+            if (matches(this.knownWindowsOSTags, osVersionText)) {
                 return AllowedSEBVersion.OS_WINDOWS_IDENTIFIER;
             }
-            if (this.knownMacOSTags.stream().filter(osVersionText::contains).findFirst().isPresent()) {
+            if (matches(this.knownMacOSTags, osVersionText)) {
                 return AllowedSEBVersion.OS_MAC_IDENTIFIER;
             }
-            if (this.knownIOSTags.stream().filter(osVersionText::contains).findFirst().isPresent()) {
+            if (matches(this.knownIOSTags, osVersionText)) {
                 return AllowedSEBVersion.OS_IOS_IDENTIFIER;
             }
         }
@@ -173,4 +239,19 @@ public class SEBClientVersionServiceImpl implements SEBClientVersionService {
                         error))
                 .onSuccess(c -> this.examSessionCacheService.evictClientConnection(record.getConnectionToken()));
     }
+
+    private static boolean matches(final Pattern tags, final String text) {
+        return tags != null && tags.matcher(text).find();
+    }
+
+    private static Pattern compileTags(final String tags) {
+        final String[] split = StringUtils.split(tags, Constants.LIST_SEPARATOR);
+        if (split == null || split.length == 0) {
+            return null;
+        }
+
+        return Pattern.compile(Arrays.stream(split)
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|")));
+    }
 }
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+
+import ch.ethz.seb.sebserver.gbl.Constants;
+import ch.ethz.seb.sebserver.gbl.model.exam.AllowedSEBVersion;
+import ch.ethz.seb.sebserver.gbl.model.exam.AllowedSEBVersion.ClientVersion;
+
+/** The precompiled allowed SEB version policy of an exam. The allowed SEB version conditions of the exam are
+ * parsed once and grouped by OS type, so that a check of a client version only matches the conditions of the
+ * same OS type.
+ *
+ * A policy is identified by the source attribute value it was compiled from. If the allowed SEB versions
+ * of the exam change, the source changes and the policy has to be compiled again. */
+final class SEBVersionPolicy {
+
+    private static final AllowedSEBVersion[] NONE = new AllowedSEBVersion[0];
+
+    /** The allowed SEB versions attribute value of the exam this policy was compiled from or null if the exam
+     * has no allowed SEB versions defined */
+    final String source;
+
+    private final AllowedSEBVersion[] windows;
+    private final AllowedSEBVersion[] mac;
+    private final AllowedSEBVersion[] ios;
+
+    private SEBVersionPolicy(
+            final String source,
+            final AllowedSEBVersion[] windows,
+            final AllowedSEBVersion[] mac,
+            final AllowedSEBVersion[] ios) {
+
+        this.source = source;
+        this.windows = windows;
+        this.mac = mac;
+        this.ios = ios;
+    }
+
+    /** Indicates if this policy has no valid allowed SEB version condition. In this case no SEB client
+     * version check shall be applied. */
+    boolean isEmpty() {
+        return this.windows.length == 0 && this.mac.length == 0 && this.ios.length == 0;
+    }
+
+    /** Indicates if the given client version matches one of the allowed SEB version conditions of this policy.
+     *
+     * @param clientVersion the client version extracted from the version and OS name sent by a SEB client
+     * @return true if the client version matches one of the allowed SEB version conditions */
+    boolean isAllowed(final ClientVersion clientVersion) {
+        if (clientVersion == null || clientVersion.osTypeString == null) {
+            return false;
+        }
+
+        final AllowedSEBVersion[] conditions = conditionsOf(clientVersion.osTypeString);
+        for (int i = 0; i < conditions.length; i++) {
+            if (conditions[i].match(clientVersion)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private AllowedSEBVersion[] conditionsOf(final String osType) {
+        switch (osType) {
+            case AllowedSEBVersion.OS_WINDOWS_IDENTIFIER:
+                return this.windows;
+            case AllowedSEBVersion.OS_MAC_IDENTIFIER:
+                return this.mac;
+            case AllowedSEBVersion.OS_IOS_IDENTIFIER:
+                return this.ios;
+            default:
+                return NONE;
+        }
+    }
+
+    /** Compiles the policy for the given allowed SEB versions attribute value of an exam.
+     * Invalid conditions are ignored the same way as for Exam.allowedSEBVersions.
+     *
+     * @param source the comma separated allowed SEB version conditions or null
+     * @return the compiled policy */
+    static SEBVersionPolicy compile(final String source) {
+        final List<AllowedSEBVersion> windows = new ArrayList<>();
+        final List<AllowedSEBVersion> mac = new ArrayList<>();
+        final List<AllowedSEBVersion> ios = new ArrayList<>();
+
+        if (StringUtils.isNotBlank(source)) {
+            for (final String condition : StringUtils.split(source, Constants.LIST_SEPARATOR)) {
+                final AllowedSEBVersion allowedSEBVersion = new AllowedSEBVersion(condition);
+                if (!allowedSEBVersion.isValidFormat) {
+                    continue;
+                }
+                switch (allowedSEBVersion.osTypeString) {
+                    case AllowedSEBVersion.OS_WINDOWS_IDENTIFIER:
+                        windows.add(allowedSEBVersion);
+                        break;
+                    case AllowedSEBVersion.OS_MAC_IDENTIFIER:
+                        mac.add(allowedSEBVersion);
+                        break;
+                    default:
+                        ios.add(allowedSEBVersion);
+                }
+            }
+        }
+
+        return new SEBVersionPolicy(
+                source,
+                windows.toArray(NONE),
+                mac.toArray(NONE),
+                ios.toArray(NONE));
+    }
+
+}
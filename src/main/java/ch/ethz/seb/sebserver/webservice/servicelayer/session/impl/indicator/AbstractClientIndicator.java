@@ -33,6 +33,7 @@ public abstract class AbstractClientIndicator implements ClientIndicator {
 
     protected boolean initialized = false;
     protected double currentValue = Double.NaN;
+    protected double presetValue = Double.NaN;
 
     protected double incidentThreshold = 0.0;
 
@@ -75,10 +76,17 @@ public abstract class AbstractClientIndicator implements ClientIndicator {
 
         }
 
-        this.currentValue = computeValueAt(Utils.getMillisecondsNow());
+        this.currentValue = (this.cachingEnabled && !Double.isNaN(this.presetValue))
+                ? this.presetValue
+                : computeValueAt(Utils.getMillisecondsNow());
         this.initialized = true;
     }
 
+    @Override
+    public void presetValue(final double value) {
+        this.presetValue = value;
+    }
+
     protected void tryRecoverIndicatorRecord() {
         this.ditributedIndicatorValueRecordId = this.distributedIndicatorValueService
                 .createIndicatorForConnection(
@@ -19,6 +19,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 import java.util.stream.Collectors;
 
+import org.mybatis.spring.SqlSessionTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -38,6 +39,7 @@ import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.IndicatorType;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
 import ch.ethz.seb.sebserver.gbl.util.Utils;
 import ch.ethz.seb.sebserver.webservice.WebserviceInfo;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.BatisConfig;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientIndicatorValueMapper;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientIndicatorValueMapper.ClientIndicatorValueRecord;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientIndicatorRecordDynamicSqlSupport;
@@ -67,6 +69,8 @@ public class DistributedIndicatorValueService implements DisposableBean {
     private final ClientIndicatorRecordMapper clientIndicatorRecordMapper;
     private final ClientIndicatorValueMapper clientIndicatorValueMapper;
     private final WebserviceInfo webserviceInfo;
+    private final SqlSessionTemplate batchSqlSessionTemplate;
+    private final ClientIndicatorRecordMapper batchClientIndicatorRecordMapper;
     long distributedUpdateInterval = 2000;
     private long updateTolerance;
 
@@ -78,12 +82,15 @@ public class DistributedIndicatorValueService implements DisposableBean {
             @Qualifier(AsyncServiceSpringConfig.EXAM_API_PING_SERVICE_EXECUTOR_BEAN_NAME) final Executor pingUpdateExecutor,
             final ClientIndicatorRecordMapper clientIndicatorRecordMapper,
             final ClientIndicatorValueMapper clientIndicatorValueMapper,
-            final WebserviceInfo webserviceInfo) {
+            final WebserviceInfo webserviceInfo,
+            @Qualifier(BatisConfig.SQL_BATCH_SESSION_TEMPLATE) final SqlSessionTemplate batchSqlSessionTemplate) {
 
         this.indicatorValueUpdateExecutor = pingUpdateExecutor;
         this.clientIndicatorRecordMapper = clientIndicatorRecordMapper;
         this.clientIndicatorValueMapper = clientIndicatorValueMapper;
         this.webserviceInfo = webserviceInfo;
+        this.batchSqlSessionTemplate = batchSqlSessionTemplate;
+        this.batchClientIndicatorRecordMapper = batchSqlSessionTemplate.getMapper(ClientIndicatorRecordMapper.class);
     }
 
     long lastUpdate() {
@@ -198,6 +205,36 @@ public class DistributedIndicatorValueService implements DisposableBean {
         }
     }
 
+    /** This creates the distributed indicator value cache records for newly created SEB connections within
+     * one transaction with batched inserts.
+     * </p>
+     * In contrast to createIndicatorForConnection this does not check if a record already exists and
+     * must therefore only be used for connections that just have been created.
+     *
+     * @param indicatorTypes the indicator types to create a record for, mapped by client connection identifier */
+    @Transactional
+    public void createIndicatorsForNewConnections(final Map<Long, Collection<IndicatorType>> indicatorTypes) {
+
+        if (!this.webserviceInfo.isDistributed()) {
+            log.warn("No distributed setup, skip createIndicatorsForNewConnections");
+            return;
+        }
+
+        if (log.isDebugEnabled()) {
+            log.debug("Create distributed indicator value caches for connections: {}", indicatorTypes.keySet());
+        }
+
+        final long now = Utils.getMillisecondsNow();
+        indicatorTypes.forEach((connectionId, types) -> types
+                .forEach(type -> this.batchClientIndicatorRecordMapper.insert(new ClientIndicatorRecord(
+                        null,
+                        connectionId,
+                        type.id,
+                        type == IndicatorType.LAST_PING ? now : 0L))));
+
+        this.batchSqlSessionTemplate.flushStatements();
+    }
+
     /** Get the distributed indicator value cache record PK for a given SEB connection and indicator if available.
      * If not existing for the specified connection and indicator this return null
      *
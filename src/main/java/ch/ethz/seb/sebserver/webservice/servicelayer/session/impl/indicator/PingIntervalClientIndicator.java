@@ -53,6 +53,11 @@ public final class PingIntervalClientIndicator extends AbstractPingIndicator {
         }
     }
 
+    @Override
+    public void presetValue(final double value) {
+        // the last ping is not taken over, the ping time of a restored connection starts with initialization
+    }
+
     @JsonIgnore
     public final boolean isHidden() {
         return this.hidden;
@@ -9,17 +9,24 @@
 package ch.ethz.seb.sebserver.webservice.weblayer.api;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.mybatis.dynamic.sql.SqlTable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
@@ -33,11 +40,14 @@ import ch.ethz.seb.sebserver.gbl.api.API;
 import ch.ethz.seb.sebserver.gbl.api.API.BulkActionType;
 import ch.ethz.seb.sebserver.gbl.api.EntityType;
 import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.Domain;
 import ch.ethz.seb.sebserver.gbl.model.EntityDependency;
 import ch.ethz.seb.sebserver.gbl.model.EntityProcessingReport;
 import ch.ethz.seb.sebserver.gbl.model.GrantEntity;
 import ch.ethz.seb.sebserver.gbl.model.Page;
+import ch.ethz.seb.sebserver.gbl.model.PageSortOrder;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.EventType;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.ExportType;
 import ch.ethz.seb.sebserver.gbl.model.session.ExtendedClientEvent;
 import ch.ethz.seb.sebserver.gbl.model.user.UserRole;
@@ -54,6 +64,7 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.UserActivityLogDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.exam.ExamLogArchiveService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.exam.SEBClientEventAdminService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.validation.BeanValidationService;
 
@@ -62,9 +73,12 @@ import ch.ethz.seb.sebserver.webservice.servicelayer.validation.BeanValidationSe
 @RequestMapping("${sebserver.webservice.api.admin.endpoint}" + API.SEB_CLIENT_EVENT_ENDPOINT)
 public class ClientEventController extends ReadonlyEntityController<ClientEvent, ClientEvent> {
 
+    private static final int EXPORT_PIPE_BUFFER_SIZE = 64 * 1024;
+
     private final ExamDAO examDao;
     private final ClientEventDAO clientEventDAO;
     private final SEBClientEventAdminService sebClientEventAdminService;
+    private final ExamLogArchiveService examLogArchiveService;
 
     protected ClientEventController(
             final AuthorizationService authorization,
@@ -74,7 +88,8 @@ public class ClientEventController extends ReadonlyEntityController<ClientEvent,
             final PaginationService paginationService,
             final BeanValidationService beanValidationService,
             final ExamDAO examDao,
-            final SEBClientEventAdminService sebClientEventAdminService) {
+            final SEBClientEventAdminService sebClientEventAdminService,
+            final ExamLogArchiveService examLogArchiveService) {
 
         super(authorization,
                 bulkActionService,
@@ -86,6 +101,7 @@ public class ClientEventController extends ReadonlyEntityController<ClientEvent,
         this.examDao = examDao;
         this.clientEventDAO = entityDAO;
         this.sebClientEventAdminService = sebClientEventAdminService;
+        this.examLogArchiveService = examLogArchiveService;
     }
 
     @RequestMapping(
@@ -110,6 +126,86 @@ public class ClientEventController extends ReadonlyEntityController<ClientEvent,
         final FilterMap filterMap = new FilterMap(allRequestParams, request.getQueryString());
         populateFilterMap(filterMap, institutionId, sort);
 
+        return getExtendedPage(filterMap, pageNumber, pageSize, sort);
+    }
+
+    /** Search for SEB client events by text. The search text is matched with the full-text index of the
+     * event text first and then exactly. All other client event filter attributes can be applied as well.
+     *
+     * GET /{api}/seb-client-event/search/text?textSearch={text}&... */
+    @RequestMapping(
+            path = API.SEB_CLIENT_EVENT_TEXT_SEARCH_PATH_SEGMENT,
+            method = RequestMethod.GET,
+            consumes = MediaType.APPLICATION_FORM_URLENCODED_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public Page<ExtendedClientEvent> searchText(
+            @RequestParam(
+                    name = API.PARAM_INSTITUTION_ID,
+                    required = true,
+                    defaultValue = UserService.USERS_INSTITUTION_AS_DEFAULT) final Long institutionId,
+            @RequestParam(name = ClientEvent.FILTER_ATTR_TEXT_SEARCH, required = true) final String textSearch,
+            @RequestParam(name = Page.ATTR_PAGE_NUMBER, required = false) final Integer pageNumber,
+            @RequestParam(name = Page.ATTR_PAGE_SIZE, required = false) final Integer pageSize,
+            @RequestParam(name = Page.ATTR_SORT, required = false) final String sort,
+            @RequestParam final MultiValueMap<String, String> allRequestParams,
+            final HttpServletRequest request) {
+
+        // at least current user must have base read access for specified entity type within its own institution
+        checkReadPrivilege(institutionId);
+
+        final FilterMap filterMap = new FilterMap(allRequestParams, request.getQueryString());
+        populateFilterMap(filterMap, institutionId, sort);
+
+        return getExtendedPage(filterMap, pageNumber, pageSize, sort);
+    }
+
+    private Page<ExtendedClientEvent> getExtendedPage(
+            final FilterMap filterMap,
+            final Integer pageNumber,
+            final Integer pageSize,
+            final String sort) {
+
+        // client events of exams that are archived to a file are paged from the archive file
+        final Long examId = filterMap.getClientEventExamId();
+        if (this.examLogArchiveService.isArchived(examId)) {
+
+            // all client events of an archive file belong to the same exam, read access is checked once
+            final boolean hasReadAccess = this.examDao
+                    .examGrantEntityByPK(examId)
+                    .map(this.authorization::hasReadGrant)
+                    .getOr(false);
+            if (!hasReadAccess) {
+                return this.paginationService.buildPageFromList(
+                        pageNumber,
+                        pageSize,
+                        sort,
+                        Collections.emptyList(),
+                        pageSort(sort));
+            }
+
+            // the archive file is in identifier order, only the events of the page are read
+            if (isIdentifierOrder(sort)) {
+                final boolean descending = PageSortOrder.DESCENDING == PageSortOrder.getSortOrder(sort);
+                return this.paginationService.buildPageFromWindow(
+                        pageNumber,
+                        pageSize,
+                        sort,
+                        this.examLogArchiveService.countMatching(filterMap).getOrThrow(),
+                        (offset, limit) -> this.examLogArchiveService
+                                .getMatching(filterMap, offset, limit, descending)
+                                .getOrThrow());
+            }
+
+            return this.paginationService.buildPageFromList(
+                    pageNumber,
+                    pageSize,
+                    sort,
+                    this.examLogArchiveService
+                            .allMatching(filterMap, event -> true)
+                            .getOrThrow(),
+                    pageSort(sort));
+        }
+
         return this.paginationService.getPage(
                 pageNumber,
                 pageSize,
@@ -158,6 +254,10 @@ public class ClientEventController extends ReadonlyEntityController<ClientEvent,
                     name = API.SEB_CLIENT_EVENT_EXPORT_INCLUDE_EXAMS,
                     required = false,
                     defaultValue = "false") final boolean includeExamDetails,
+            @RequestParam(
+                    name = API.SEB_CLIENT_EVENT_EXPORT_GZIP,
+                    required = false,
+                    defaultValue = "false") final boolean gzip,
             @RequestParam(name = Page.ATTR_SORT, required = false) final String sort,
             @RequestParam final MultiValueMap<String, String> allRequestParams,
             final HttpServletRequest request,
@@ -169,12 +269,15 @@ public class ClientEventController extends ReadonlyEntityController<ClientEvent,
         final FilterMap filterMap = new FilterMap(allRequestParams, request.getQueryString());
         populateFilterMap(filterMap, institutionId, sort);
 
-        final ServletOutputStream outputStream = response.getOutputStream();
+        final ServletOutputStream servletOutputStream = response.getOutputStream();
+        final OutputStream outputStream = (gzip)
+                ? new GZIPOutputStream(servletOutputStream, EXPORT_PIPE_BUFFER_SIZE)
+                : servletOutputStream;
         PipedOutputStream pout;
         PipedInputStream pin;
         try {
             pout = new PipedOutputStream();
-            pin = new PipedInputStream(pout);
+            pin = new PipedInputStream(pout, EXPORT_PIPE_BUFFER_SIZE);
 
             final SEBServerUser currentUser = this.authorization
                     .getUserService()
@@ -248,6 +351,49 @@ public class ClientEventController extends ReadonlyEntityController<ClientEvent,
                 .get();
     }
 
+    // all sort criteria that are not applied by pageSort keep the identifier order
+    static boolean isIdentifierOrder(final String sort) {
+        final String sortBy = PageSortOrder.decode(sort);
+        return StringUtils.isBlank(sort)
+                || !(sortBy.equals(Domain.CLIENT_EVENT.ATTR_TYPE)
+                        || sortBy.equals(Domain.CLIENT_EVENT.ATTR_CLIENT_TIME)
+                        || sortBy.equals(Domain.CLIENT_EVENT.ATTR_SERVER_TIME)
+                        || sortBy.equals(Domain.CLIENT_EVENT.ATTR_NUMERIC_VALUE)
+                        || sortBy.equals(Domain.CLIENT_EVENT.ATTR_TEXT));
+    }
+
+    static Function<Collection<ExtendedClientEvent>, List<ExtendedClientEvent>> pageSort(final String sort) {
+
+        final String sortBy = PageSortOrder.decode(sort);
+        return events -> {
+            final List<ExtendedClientEvent> list = new ArrayList<>(events);
+            if (StringUtils.isBlank(sort)) {
+                return list;
+            }
+
+            if (sortBy.equals(Domain.CLIENT_EVENT.ATTR_TYPE)) {
+                list.sort(Comparator.comparing(event -> (event.eventType != null) ? event.eventType : EventType.UNKNOWN));
+            }
+            if (sortBy.equals(Domain.CLIENT_EVENT.ATTR_CLIENT_TIME)) {
+                list.sort(Comparator.comparing(event -> (event.clientTime != null) ? event.clientTime : 0L));
+            }
+            if (sortBy.equals(Domain.CLIENT_EVENT.ATTR_SERVER_TIME)) {
+                list.sort(Comparator.comparing(event -> (event.serverTime != null) ? event.serverTime : 0L));
+            }
+            if (sortBy.equals(Domain.CLIENT_EVENT.ATTR_NUMERIC_VALUE)) {
+                list.sort(Comparator.comparing(event -> (event.numValue != null) ? event.numValue : 0d));
+            }
+            if (sortBy.equals(Domain.CLIENT_EVENT.ATTR_TEXT)) {
+                list.sort(Comparator.comparing(event -> (event.text != null) ? event.text : StringUtils.EMPTY));
+            }
+
+            if (PageSortOrder.DESCENDING == PageSortOrder.getSortOrder(sort)) {
+                Collections.reverse(list);
+            }
+            return list;
+        };
+    }
+
     @Override
     protected void checkReadPrivilege(final Long institutionId) {
         final SEBServerUser currentUser = this.authorization.getUserService().getCurrentUser();
@@ -123,6 +123,10 @@ public abstract class EntityController<T extends Entity, M extends Entity> {
      * and are of the form [domain-attribute-name]=[filter-value]. E.g.: name=abc or type=EXAM. Usually
      * filter attributes of text type are treated as SQL wildcard with %[text]% to filter all text containing
      * a given text-snippet.
+     * </p>
+     * Cursor: If the cursor parameter is given (empty for the first page), the page is selected without counting
+     * all matching entities and the page contains the cursor for the next page. For large tables and suitable
+     * sort columns, keyset pagination is used then. In this mode the page_number parameter is ignored.
      *
      * @param institutionId The institution identifier of the request.
      *            Default is the institution identifier of the institution of the current user
@@ -166,6 +170,13 @@ public abstract class EntityController<T extends Entity, M extends Entity> {
                                     "For OpenAPI 3 input please use the form: {\"columnName\":\"filterValue\"}",
                             example = "{\"name\":\"ethz\"}",
                             required = false,
+                            allowEmptyValue = true),
+                    @Parameter(
+                            name = Page.ATTR_CURSOR,
+                            description = "The opaque cursor of the page to get, taken from the next_cursor of the "
+                                    + "previous page. Use an empty cursor to get the first page in cursor mode.\n"
+                                    + "In cursor mode, no total count is calculated and the page_number is ignored.",
+                            required = false,
                             allowEmptyValue = true)
             })
     @RequestMapping(
@@ -189,6 +200,19 @@ public abstract class EntityController<T extends Entity, M extends Entity> {
         final FilterMap filterMap = new FilterMap(allRequestParams, request.getQueryString());
         populateFilterMap(filterMap, institutionId, sort);
 
+        final String cursor = filterMap.getString(Page.ATTR_CURSOR);
+        if (cursor != null) {
+            return this.paginationService.getCursorPage(
+                    cursor,
+                    pageSize,
+                    sort,
+                    getSQLTableOfEntity().tableNameAtRuntime(),
+                    filterMap,
+                    () -> this.entityDAO.allMatching(filterMap),
+                    this::hasReadAccess)
+                    .getOrThrow();
+        }
+
         final Page<T> page = this.paginationService.getPage(
                 pageNumber,
                 pageSize,
@@ -604,6 +628,12 @@ public abstract class EntityController<T extends Entity, M extends Entity> {
         // then the current users institutionId is put as a SQL filter criteria attribute to extends query performance
         if (!this.authorization.hasGrant(PrivilegeType.READ, getGrantEntityType())) {
             filterMap.putIfAbsent(API.PARAM_INSTITUTION_ID, String.valueOf(institutionId));
+
+            // If current user has also no institutional read access, the user can only read owned or assigned entities.
+            // The owner restriction is put as SQL filter criteria so that other entities are not loaded at all
+            if (!this.authorization.hasGrant(PrivilegeType.READ, getGrantEntityType(), institutionId)) {
+                filterMap.setPrivilegeOwner(this.authorization.getUserService().getCurrentUser().uuid());
+            }
         }
 
         // If sorting is on institution name we need to join the institution table
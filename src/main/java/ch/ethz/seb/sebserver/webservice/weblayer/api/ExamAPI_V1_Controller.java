@@ -45,6 +45,7 @@ import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
 import ch.ethz.seb.sebserver.gbl.model.session.RunningExamInfo;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.RequestScopedCache;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.LmsSetupDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.SEBClientConfigDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.lms.SEBRestrictionService;
@@ -96,8 +97,9 @@ public class ExamAPI_V1_Controller {
             final HttpServletRequest request,
             final HttpServletResponse response) {
 
+        // entity lookups of the handshake are cached for the processing of this request
         return CompletableFuture.supplyAsync(
-                () -> {
+                () -> RequestScopedCache.withinScope(() -> {
 
                     final POSTMapper mapper = new POSTMapper(formParams, request.getQueryString());
 
@@ -160,7 +162,7 @@ public class ExamAPI_V1_Controller {
                     }
 
                     return result;
-                },
+                }),
                 this.executor);
     }
 
@@ -141,6 +141,7 @@ public class IndicatorController extends EntityController<Indicator, Indicator>
     }
 
     private void flushExamSessionCaches(final Indicator entity) {
+        ((IndicatorDAO) this.entityDAO).evictCacheForExam(entity.examId);
         if (this.examSessionService.isExamRunning(entity.examId)) {
             this.examSessionService.flushCache(this.examSessionService.getRunningExam(entity.examId).getOrThrow());
         }
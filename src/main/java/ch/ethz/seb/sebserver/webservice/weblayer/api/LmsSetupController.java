@@ -27,11 +27,13 @@ import ch.ethz.seb.sebserver.gbl.api.POSTMapper;
 import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
 import ch.ethz.seb.sebserver.gbl.model.Domain;
 import ch.ethz.seb.sebserver.gbl.model.Entity;
+import ch.ethz.seb.sebserver.gbl.model.EntityProcessingReport;
 import ch.ethz.seb.sebserver.gbl.model.institution.LmsSetup;
 import ch.ethz.seb.sebserver.gbl.model.institution.LmsSetup.LmsType;
 import ch.ethz.seb.sebserver.gbl.model.institution.LmsSetupTestResult;
 import ch.ethz.seb.sebserver.gbl.model.institution.LmsSetupTestResult.ErrorType;
 import ch.ethz.seb.sebserver.gbl.profile.WebServiceProfile;
+import ch.ethz.seb.sebserver.gbl.util.Pair;
 import ch.ethz.seb.sebserver.gbl.util.Result;
 import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.LmsSetupRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.servicelayer.PaginationService;
@@ -149,4 +151,12 @@ public class LmsSetupController extends ActivatableEntityController<LmsSetup, Lm
         return super.notifySaved(entity);
     }
 
+    @Override
+    protected Result<Pair<LmsSetup, EntityProcessingReport>> notifyDeleted(
+            final Pair<LmsSetup, EntityProcessingReport> pair) {
+
+        this.applicationEventPublisher.publishEvent(new LmsSetupChangeEvent(pair.a));
+        return super.notifyDeleted(pair);
+    }
+
 }
@@ -0,0 +1,40 @@
+-- -----------------------------------------------------
+-- Alter Table `client_event`
+-- Composite indexes matching the log view filter shapes
+-- (connection/exam + time range) and the time based retention
+-- -----------------------------------------------------
+ALTER TABLE `client_event`
+ADD INDEX IF NOT EXISTS `eventConnectionServerTime_idx` (`client_connection_id` ASC, `server_time` ASC),
+ADD INDEX IF NOT EXISTS `eventConnectionClientTime_idx` (`client_connection_id` ASC, `client_time` ASC),
+ADD INDEX IF NOT EXISTS `eventServerTime_idx` (`server_time` ASC)
+;
+
+-- -----------------------------------------------------
+-- Alter Table `client_connection`
+-- -----------------------------------------------------
+ALTER TABLE `client_connection`
+ADD INDEX IF NOT EXISTS `connectionExamStatus_idx` (`exam_id` ASC, `status` ASC)
+;
+
+-- -----------------------------------------------------
+-- Table `client_event_archive`
+-- Holds the client events of finished exams after the retention time.
+-- Partitioned by exam since all archive queries are exam based.
+-- NOTE: partitioned tables cannot have foreign keys and the
+--       partition key must be part of the primary key
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `client_event_archive` (
+  `id` BIGINT UNSIGNED NOT NULL,
+  `exam_id` BIGINT UNSIGNED NOT NULL,
+  `institution_id` BIGINT UNSIGNED NOT NULL,
+  `client_connection_id` BIGINT UNSIGNED NOT NULL,
+  `type` INT(2) UNSIGNED NOT NULL,
+  `client_time` BIGINT UNSIGNED NOT NULL,
+  `server_time` BIGINT NOT NULL,
+  `numeric_value` DECIMAL(18,4) NULL,
+  `text` VARCHAR(512) NULL,
+  PRIMARY KEY (`id`, `exam_id`),
+  INDEX `archiveExamConnectionServerTime_idx` (`exam_id` ASC, `client_connection_id` ASC, `server_time` ASC),
+  INDEX `archiveExamServerTime_idx` (`exam_id` ASC, `server_time` ASC))
+PARTITION BY HASH (`exam_id`) PARTITIONS 32
+;
@@ -0,0 +1,9 @@
+-- -----------------------------------------------------
+-- Full-text index on the event text for the SEB log text search
+--
+-- The index is not created on startup since building it on a large client_event table blocks all writes
+-- to the table while it is built. It is created by the optional migration in config/sql/fulltext
+-- that shall be applied within a maintenance window. See sebserver.webservice.clientevent.fulltext.enabled
+-- -----------------------------------------------------
+SELECT 1
+;
@@ -0,0 +1,15 @@
+-- -----------------------------------------------------
+-- Alter Table `entity_privilege`
+-- Lookup of all privileges of a user (index loading and SQL read filter) and of all privileges on an entity
+-- -----------------------------------------------------
+ALTER TABLE `entity_privilege`
+ADD INDEX IF NOT EXISTS `entityPrivilegeUser_idx` (`user_uuid` ASC, `entity_type` ASC, `entity_id` ASC, `privilege_type` ASC),
+ADD INDEX IF NOT EXISTS `entityPrivilegeEntity_idx` (`entity_type` ASC, `entity_id` ASC)
+;
+
+-- -----------------------------------------------------
+-- Alter Table `feature_privilege`
+-- -----------------------------------------------------
+ALTER TABLE `feature_privilege`
+ADD INDEX IF NOT EXISTS `featurePrivilegeUser_idx` (`user_uuid` ASC)
+;
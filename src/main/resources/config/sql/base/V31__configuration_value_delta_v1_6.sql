@@ -0,0 +1,20 @@
+-- -----------------------------------------------------
+-- Table `configuration_value_delta`
+-- Holds the values of a historic configuration version that differ from the
+-- next newer version. A removed flag marks values that do not exist in the version.
+-- -----------------------------------------------------
+CREATE TABLE IF NOT EXISTS `configuration_value_delta` (
+  `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
+  `configuration_id` BIGINT UNSIGNED NOT NULL,
+  `configuration_attribute_id` BIGINT UNSIGNED NOT NULL,
+  `list_index` INT NOT NULL DEFAULT 0,
+  `value` VARCHAR(16000) NULL,
+  `removed` INT(1) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`),
+  INDEX `configuration_value_delta_ref_idx` (`configuration_id` ASC),
+  CONSTRAINT `configuration_value_delta_ref`
+    FOREIGN KEY (`configuration_id`)
+    REFERENCES `configuration` (`id`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+;
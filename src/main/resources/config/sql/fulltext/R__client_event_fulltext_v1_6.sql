@@ -0,0 +1,14 @@
+-- -----------------------------------------------------
+-- Alter Table `client_event`
+-- Full-text index on the event text for the SEB log text search
+--
+-- Optional maintenance migration. Building the index reads the whole client_event table and blocks
+-- writes to the table until it is finished (reads are still possible), so SEB clients cannot store
+-- events meanwhile.
+-- Apply it within a maintenance window by adding classpath:config/sql/fulltext to spring.flyway.locations
+-- and enable the full-text search with sebserver.webservice.clientevent.fulltext.enabled=true afterwards.
+-- -----------------------------------------------------
+ALTER TABLE `client_event`
+ADD FULLTEXT INDEX IF NOT EXISTS `eventText_ftx` (`text`),
+LOCK=SHARED
+;
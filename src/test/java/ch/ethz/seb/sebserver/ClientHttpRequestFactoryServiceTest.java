@@ -8,15 +8,19 @@
 
 package ch.ethz.seb.sebserver;
 
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
+import org.apache.http.client.HttpClient;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.env.Environment;
 import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
@@ -25,6 +29,7 @@ import ch.ethz.seb.sebserver.gbl.client.ClientCredentialService;
 import ch.ethz.seb.sebserver.gbl.client.ClientCredentials;
 import ch.ethz.seb.sebserver.gbl.client.ProxyData;
 import ch.ethz.seb.sebserver.gbl.util.Result;
+import io.micrometer.core.instrument.MeterRegistry;
 
 public class ClientHttpRequestFactoryServiceTest {
 
@@ -32,6 +37,8 @@ public class ClientHttpRequestFactoryServiceTest {
     Environment environment;
     @Mock
     ClientCredentialService clientCredentialService;
+    @Mock
+    ObjectProvider<MeterRegistry> meterRegistry;
 
     @Before
     public void initMocks() {
@@ -44,7 +51,8 @@ public class ClientHttpRequestFactoryServiceTest {
         final ClientHttpRequestFactoryService clientHttpRequestFactoryService = new ClientHttpRequestFactoryService(
                 this.environment,
                 this.clientCredentialService,
-                1, 1, 1);
+                this.meterRegistry,
+                1, 1, 1, 10, 5, 1000, 1000, true);
 
         final ProxyData proxyData = new ProxyData("testPoxy", 8000, new ClientCredentials("test", "test"));
 
@@ -59,6 +67,13 @@ public class ClientHttpRequestFactoryServiceTest {
         ClientHttpRequestFactory instance = clientHttpRequestFactory.get();
         assertTrue(instance instanceof HttpComponentsClientHttpRequestFactory);
 
+        // the pooled client is shared
+        assertSame(
+                ((HttpComponentsClientHttpRequestFactory) instance).getHttpClient(),
+                ((HttpComponentsClientHttpRequestFactory) clientHttpRequestFactoryService
+                        .getClientHttpRequestFactory()
+                        .get()).getHttpClient());
+
         clientHttpRequestFactory = clientHttpRequestFactoryService
                 .getClientHttpRequestFactory(proxyData);
 
@@ -84,6 +99,44 @@ public class ClientHttpRequestFactoryServiceTest {
         assertFalse(clientHttpRequestFactory.hasError());
         instance = clientHttpRequestFactory.get();
         assertTrue(instance instanceof HttpComponentsClientHttpRequestFactory);
+
+        clientHttpRequestFactoryService.shutdown();
+    }
+
+    @Test
+    public void testPoolPerProxyCredentials() {
+
+        final ClientHttpRequestFactoryService clientHttpRequestFactoryService = new ClientHttpRequestFactoryService(
+                this.environment,
+                this.clientCredentialService,
+                this.meterRegistry,
+                1, 1, 1, 10, 5, 1000, 1000, true);
+
+        final ProxyData proxyData1 = new ProxyData("testPoxy", 8000, new ClientCredentials("test1", "test1"));
+        final ProxyData proxyData2 = new ProxyData("testPoxy", 8000, new ClientCredentials("test2", "test2"));
+
+        Mockito.when(this.environment.getActiveProfiles()).thenReturn(new String[] { "dev-gui", "test" });
+        Mockito.when(this.clientCredentialService.getPlainClientSecret(Mockito.any())).thenReturn(Result.of("test"));
+
+        final HttpClient client1 = getHttpClient(clientHttpRequestFactoryService, proxyData1);
+        final HttpClient client2 = getHttpClient(clientHttpRequestFactoryService, proxyData2);
+
+        // the same proxy with other credentials gets its own pool and does not replace the existing one
+        assertNotSame(client1, client2);
+        assertSame(client1, getHttpClient(clientHttpRequestFactoryService, proxyData1));
+        assertSame(client2, getHttpClient(clientHttpRequestFactoryService, proxyData2));
+
+        clientHttpRequestFactoryService.shutdown();
+    }
+
+    private HttpClient getHttpClient(
+            final ClientHttpRequestFactoryService clientHttpRequestFactoryService,
+            final ProxyData proxyData) {
+
+        return ((HttpComponentsClientHttpRequestFactory) clientHttpRequestFactoryService
+                .getClientHttpRequestFactory(proxyData)
+                .getOrThrow())
+                        .getHttpClient();
     }
 
 }
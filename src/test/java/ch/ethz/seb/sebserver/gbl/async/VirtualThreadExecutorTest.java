@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.gbl.async;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class VirtualThreadExecutorTest {
+
+    private static final boolean VIRTUAL_THREADS_AVAILABLE = Runtime.version().feature() >= 21;
+
+    @Test
+    public void testSupportDetection() {
+        assertEquals(VIRTUAL_THREADS_AVAILABLE, VirtualThreadExecutor.isSupported());
+
+        if (!VIRTUAL_THREADS_AVAILABLE) {
+            try {
+                new VirtualThreadExecutor("test-", 1, 0);
+                fail("IllegalStateException expected");
+            } catch (final IllegalStateException e) {
+                assertEquals("Virtual threads are not supported by this JVM", e.getMessage());
+            }
+        }
+    }
+
+    @Test
+    public void testFallbackToThreadPool() {
+        final AsyncServiceSpringConfig config = new AsyncServiceSpringConfig();
+        ReflectionTestUtils.setField(config, "virtualThreadsEnabled", true);
+        ReflectionTestUtils.setField(config, "asyncServiceMaxConcurrency", 10);
+        ReflectionTestUtils.setField(config, "examAPIMaxConcurrency", 10);
+        ReflectionTestUtils.setField(config, "awaitTermination", 1000L);
+
+        final Executor executor = config.threadPoolTaskExecutor();
+        try {
+            // on a JVM without virtual threads (Java 17) the thread pool is used instead
+            if (VIRTUAL_THREADS_AVAILABLE) {
+                assertTrue(executor instanceof VirtualThreadExecutor);
+            } else {
+                assertTrue(executor instanceof ThreadPoolTaskExecutor);
+            }
+        } finally {
+            if (executor instanceof ThreadPoolTaskExecutor) {
+                ((ThreadPoolTaskExecutor) executor).shutdown();
+            } else {
+                ((VirtualThreadExecutor) executor).destroy();
+            }
+        }
+    }
+
+    @Test
+    public void testShutdownAwaitsRunningTasks() throws InterruptedException {
+        Assume.assumeTrue(VirtualThreadExecutor.isSupported());
+
+        final VirtualThreadExecutor executor = new VirtualThreadExecutor("test-", 2, 5000);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean finished = new AtomicBoolean(false);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(200);
+                finished.set(true);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        executor.destroy();
+
+        assertTrue(finished.get());
+        assertEquals(0, executor.getActiveTasks());
+        try {
+            executor.execute(() -> {
+            });
+            fail("RejectedExecutionException expected");
+        } catch (final RejectedExecutionException e) {
+            // expected after shutdown
+        }
+    }
+
+    @Test
+    public void testShutdownInterruptsRunningTasks() throws InterruptedException {
+        Assume.assumeTrue(VirtualThreadExecutor.isSupported());
+
+        final VirtualThreadExecutor executor = new VirtualThreadExecutor("test-", 2, 0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch interrupted = new CountDownLatch(1);
+        executor.execute(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (final InterruptedException e) {
+                interrupted.countDown();
+            }
+        });
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        executor.destroy();
+
+        assertTrue(interrupted.await(1, TimeUnit.SECONDS));
+    }
+
+}
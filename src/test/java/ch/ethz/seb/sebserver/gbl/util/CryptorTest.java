@@ -9,6 +9,8 @@
 package ch.ethz.seb.sebserver.gbl.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.crypto.util.EncodingUtils.subArray;
@@ -33,6 +35,9 @@ import org.springframework.security.crypto.codec.Utf8;
 import org.springframework.security.crypto.encrypt.Encryptors;
 import org.springframework.security.crypto.keygen.BytesKeyGenerator;
 import org.springframework.security.crypto.keygen.KeyGenerators;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.ethz.seb.sebserver.gbl.Constants;
 
 public class CryptorTest {
 
@@ -78,6 +83,90 @@ public class CryptorTest {
         assertEquals(clientSecret, decrypted);
     }
 
+    @Test
+    public void testDecryptWithDerivedKeyCache() {
+        final Environment envMock = mock(Environment.class);
+        when(envMock.getProperty("sebserver.webservice.internalSecret")).thenReturn("secret1");
+        when(envMock.getProperty("sebserver.cryptor.keycache.max-size", Integer.class, 1000)).thenReturn(2);
+        when(envMock.getProperty("sebserver.cryptor.keycache.lifetime", Long.class, Constants.HOUR_IN_MILLIS))
+                .thenReturn(Constants.HOUR_IN_MILLIS);
+
+        final Cryptor cryptor = new Cryptor(envMock);
+        final String clientSecret = "fbjreij39ru29305ruà££àèLöäöäü65%(/%(ç87";
+        final String encrypted1 = cryptor.encrypt(clientSecret).getOrThrow().toString();
+        final String encrypted2 = cryptor.encrypt("other").getOrThrow().toString();
+        final String encrypted3 = Cryptor.encrypt("third", "secret1").getOrThrow().toString();
+
+        // decrypt twice, once with derived key and once with cached key
+        assertEquals(clientSecret, cryptor.decrypt(encrypted1).getOrThrow().toString());
+        assertEquals(clientSecret, cryptor.decrypt(encrypted1).getOrThrow().toString());
+        assertEquals("other", cryptor.decrypt(encrypted2).getOrThrow().toString());
+        assertEquals("third", cryptor.decrypt(encrypted3).getOrThrow().toString());
+        assertEquals(clientSecret, Cryptor.decrypt(encrypted1, "secret1").getOrThrow().toString());
+
+        // wrong secret or manipulated cipher must fail with cached key too
+        final String manipulated = (encrypted1.startsWith("00") ? "11" : "00") + encrypted1.substring(2);
+        assertTrue(cryptor.decrypt(manipulated).hasError());
+        assertTrue(Cryptor.decrypt(encrypted1, "secret2").hasError());
+    }
+
+    @Test
+    public void testDerivedKeyCacheEviction() {
+        final DerivedKeyCache cache = new DerivedKeyCache("secret1", 2, Constants.HOUR_IN_MILLIS);
+        final String salt1 = KeyGenerators.string().generateKey();
+        final String salt2 = KeyGenerators.string().generateKey();
+        final String salt3 = KeyGenerators.string().generateKey();
+
+        final SecretKey key1 = cache.getKey(salt1);
+        cache.getKey(salt2);
+        cache.getKey(salt3);
+        assertEquals(2, cache.size());
+
+        // a handed out key stays valid after eviction
+        assertEquals(
+                new String(Hex.encode(DerivedKeyCache.deriveKey("secret1", salt1).getEncoded())),
+                new String(Hex.encode(key1.getEncoded())));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testDerivedKeyIsReusedPerSaltAndSecret() {
+        final Environment envMock = mock(Environment.class);
+        when(envMock.getProperty("sebserver.webservice.internalSecret")).thenReturn("secret1");
+        when(envMock.getProperty("sebserver.cryptor.keycache.max-size", Integer.class, 1000)).thenReturn(1000);
+        when(envMock.getProperty("sebserver.cryptor.keycache.lifetime", Long.class, Constants.HOUR_IN_MILLIS))
+                .thenReturn(Constants.HOUR_IN_MILLIS);
+
+        final Cryptor cryptor = new Cryptor(envMock);
+        final DerivedKeyCache keyCache = (DerivedKeyCache) ReflectionTestUtils.getField(cryptor, "keyCache");
+        final String encrypted1 = cryptor.encrypt("someClientSecret").getOrThrow().toString();
+        final String encrypted2 = cryptor.encrypt("someClientSecret").getOrThrow().toString();
+
+        // the key of a value is derived once and then reused
+        assertEquals("someClientSecret", cryptor.decrypt(encrypted1).getOrThrow().toString());
+        assertEquals(1, keyCache.size());
+        assertEquals("someClientSecret", cryptor.decrypt(encrypted1).getOrThrow().toString());
+        assertEquals(1, keyCache.size());
+
+        // a value with another salt gets its own key
+        assertEquals("someClientSecret", cryptor.decrypt(encrypted2).getOrThrow().toString());
+        assertEquals(2, keyCache.size());
+
+        // the same salt gives the same key for the same secret only
+        final String salt = KeyGenerators.string().generateKey();
+        final DerivedKeyCache cache1 = new DerivedKeyCache("secret1", 10, Constants.HOUR_IN_MILLIS);
+        final DerivedKeyCache cache2 = new DerivedKeyCache("secret2", 10, Constants.HOUR_IN_MILLIS);
+        final String key = new String(Hex.encode(cache1.getKey(salt).getEncoded()));
+        assertEquals(key, new String(Hex.encode(cache1.getKey(salt).getEncoded())));
+        assertEquals(key, new String(Hex.encode(DerivedKeyCache.deriveKey("secret1", salt).getEncoded())));
+        assertNotEquals(key, new String(Hex.encode(cache2.getKey(salt).getEncoded())));
+        assertNotEquals(
+                key,
+                new String(Hex.encode(cache1.getKey(KeyGenerators.string().generateKey()).getEncoded())));
+    }
+
     @Test
     public void askEncryptDecryptStd() throws Exception {
 
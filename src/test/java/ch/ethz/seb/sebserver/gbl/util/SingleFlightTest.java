@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.gbl.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class SingleFlightTest {
+
+    @Test
+    public void testSequentialLoads() {
+        final SingleFlight<Long, String> candidate = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("1", candidate.load(1L, () -> String.valueOf(loads.incrementAndGet())));
+        assertEquals("2", candidate.load(1L, () -> String.valueOf(loads.incrementAndGet())));
+        assertEquals("3", candidate.load(2L, () -> String.valueOf(loads.incrementAndGet())));
+    }
+
+    @Test
+    public void testConcurrentLoadsOfSameKey() throws Exception {
+        final SingleFlight<Long, String> candidate = new SingleFlight<>();
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final String[] results = new String[2];
+
+        final Thread first = new Thread(() -> results[0] = candidate.load(1L, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            try {
+                release.await();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "value";
+        }));
+        first.start();
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+
+        final Thread second = new Thread(() -> results[1] = candidate.load(1L, () -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        second.start();
+
+        // the second caller waits for the load of the first one
+        second.join(200);
+        release.countDown();
+        first.join(5000);
+        second.join(5000);
+
+        assertEquals(1, loads.get());
+        assertEquals("value", results[0]);
+        assertEquals("value", results[1]);
+    }
+
+    @Test
+    public void testFailedLoad() {
+        final SingleFlight<Long, String> candidate = new SingleFlight<>();
+        try {
+            candidate.load(1L, () -> {
+                throw new IllegalStateException("failed");
+            });
+        } catch (final IllegalStateException e) {
+            assertEquals("failed", e.getMessage());
+        }
+
+        assertEquals("value", candidate.load(1L, () -> "value"));
+    }
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class FullTextSearchTest {
+
+    @Test
+    public void testNoQuery() {
+        assertNull(FullTextSearch.toBooleanModeQuery(null));
+        assertNull(FullTextSearch.toBooleanModeQuery(" "));
+        assertFalse(FullTextSearch.isMatchingWhenPresent(null).shouldRender());
+    }
+
+    @Test
+    public void testAllWordsRequired() {
+        assertEquals("+battery +low", FullTextSearch.toBooleanModeQuery("battery low"));
+        assertEquals("+SEB +client +error", FullTextSearch.toBooleanModeQuery("SEB-client: error!"));
+    }
+
+    @Test
+    public void testWordsThatAreNotIndexedAreLeftOut() {
+        // short words
+        assertEquals("+battery", FullTextSearch.toBooleanModeQuery("is battery ok"));
+        // stopwords
+        assertEquals("+battery +low", FullTextSearch.toBooleanModeQuery("The battery is low with this"));
+        assertEquals("+server", FullTextSearch.toBooleanModeQuery("WHERE server"));
+        // too long words
+        assertEquals("+abc", FullTextSearch.toBooleanModeQuery("abc " + repeat('x', 85)));
+        // no indexed words at all
+        assertNull(FullTextSearch.toBooleanModeQuery("the is at"));
+    }
+
+    @Test
+    public void testRenderCondition() {
+        final FullTextSearch.IsMatching condition = FullTextSearch.isMatchingWhenPresent("+battery");
+        assertTrue(condition.shouldRender());
+        assertEquals(
+                "MATCH(client_event.text) AGAINST(#{p1} IN BOOLEAN MODE)",
+                condition.renderCondition("client_event.text", "#{p1}"));
+    }
+
+    private static String repeat(final char c, final int times) {
+        final StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.KeysetPagination.Keyset;
+
+public class KeysetPaginationTest {
+
+    @Test
+    public void testNoKeyset() {
+        assertFalse(KeysetPagination.isAfterWhenPresent(null).shouldRender());
+    }
+
+    @Test
+    public void testIdOnly() {
+        final KeysetPagination.IsAfter condition = KeysetPagination
+                .isAfterWhenPresent(new Keyset("id", 10L, 10L, false));
+
+        assertTrue(condition.shouldRender());
+        assertEquals("client_event.id > #{p2}", condition.renderCondition("client_event.id", "#{p1}", "#{p2}"));
+    }
+
+    @Test
+    public void testSortColumnDescending() {
+        final KeysetPagination.IsAfter condition = KeysetPagination
+                .isAfterWhenPresent(new Keyset("timestamp", 100L, 10L, true));
+
+        assertEquals(
+                "(user_activity_log.timestamp <= #{p1} and (user_activity_log.timestamp < #{p1} "
+                        + "or user_activity_log.id < #{p2}))",
+                condition.renderCondition("user_activity_log.id", "#{p1}", "#{p2}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidSortColumn() {
+        new Keyset("id; delete from exam", 1L, 1L, false);
+    }
+
+}
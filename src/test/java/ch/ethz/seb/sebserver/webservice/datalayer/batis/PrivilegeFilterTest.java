@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+
+public class PrivilegeFilterTest {
+
+    @Test
+    public void testNoRestriction() {
+        assertFalse(PrivilegeFilter
+                .isOwnedOrAssignedWhenPresent(null, EntityType.EXAM, "owner", "supporter")
+                .shouldRender());
+    }
+
+    @Test
+    public void testOwnerAndOwnerList() {
+        final PrivilegeFilter.IsOwnedOrAssigned<Long> condition = PrivilegeFilter
+                .isOwnedOrAssignedWhenPresent("user1", EntityType.EXAM, "owner", "supporter");
+
+        assertTrue(condition.shouldRender());
+        assertEquals(
+                "(exam.owner = #{p1} or exam.supporter like concat('%', #{p1}, '%') "
+                        + "or exam.id in (select entity_id from entity_privilege where entity_type = 'EXAM' "
+                        + "and user_uuid = #{p1} and privilege_type >= 2))",
+                condition.renderCondition("exam.id", "#{p1}"));
+    }
+
+    @Test
+    public void testOwnerOnlyUnqualified() {
+        final PrivilegeFilter.IsOwnedOrAssigned<Long> condition = PrivilegeFilter
+                .isOwnedOrAssignedWhenPresent("user1", EntityType.USER, "uuid", null);
+
+        assertEquals(
+                "(uuid = #{p1} or id in (select entity_id from entity_privilege where entity_type = 'USER' "
+                        + "and user_uuid = #{p1} and privilege_type >= 2))",
+                condition.renderCondition("id", "#{p1}"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidOwnerColumn() {
+        PrivilegeFilter.isOwnedOrAssignedWhenPresent("user1", EntityType.EXAM, "owner or 1=1", null);
+    }
+
+}
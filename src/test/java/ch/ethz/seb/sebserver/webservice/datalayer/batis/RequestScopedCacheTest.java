@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.datalayer.batis;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+
+public class RequestScopedCacheTest {
+
+    @Test
+    public void testNoCachingOutsideOfScope() {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> Result.of(lookups.incrementAndGet()));
+        RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> Result.of(lookups.incrementAndGet()));
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void testCachingWithinScope() {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        RequestScopedCache.withinScope(() -> {
+            assertEquals(
+                    Integer.valueOf(1),
+                    RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> Result.of(lookups.incrementAndGet()))
+                            .get());
+            assertEquals(
+                    Integer.valueOf(1),
+                    RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> Result.of(lookups.incrementAndGet()))
+                            .get());
+            assertEquals(
+                    Integer.valueOf(2),
+                    RequestScopedCache.memoize(EntityType.LMS_SETUP, 1L, () -> Result.of(lookups.incrementAndGet()))
+                            .get());
+
+            RequestScopedCache.invalidate();
+            assertEquals(
+                    Integer.valueOf(3),
+                    RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> Result.of(lookups.incrementAndGet()))
+                            .get());
+            return null;
+        });
+    }
+
+    @Test
+    public void testErrorsAreNotCached() {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        RequestScopedCache.withinScope(() -> {
+            RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> {
+                lookups.incrementAndGet();
+                return Result.ofRuntimeError("not found");
+            });
+            RequestScopedCache.memoize(EntityType.EXAM, 1L, () -> Result.of(lookups.incrementAndGet()));
+            return null;
+        });
+
+        assertEquals(2, lookups.get());
+    }
+
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.api.admin;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.ResultMatcher;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.github.pagehelper.PageHelper;
+
+import ch.ethz.seb.sebserver.gbl.api.API;
+import ch.ethz.seb.sebserver.gbl.model.Domain;
+import ch.ethz.seb.sebserver.gbl.model.Page;
+import ch.ethz.seb.sebserver.gbl.model.user.UserActivityLog;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.UserActivityLogRecord;
+import ch.ethz.seb.sebserver.webservice.servicelayer.PaginationService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.UserActivityLogDAO;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql" })
+public class CursorPaginationAPITest extends AdministrationAPIIntegrationTester {
+
+    // five logs are in the test data
+    private static final int NUMBER_OF_LOGS = 28;
+    private static final int PAGE_SIZE = 5;
+
+    @Autowired
+    private UserActivityLogRecordMapper userActivityLogRecordMapper;
+    @Autowired
+    private UserActivityLogDAO userActivityLogDAO;
+    @Autowired
+    private PaginationService paginationService;
+
+    @Before
+    public void initLogs() {
+        for (int i = 6; i <= NUMBER_OF_LOGS; i++) {
+            // three logs share the same timestamp to page over equal sort values
+            this.userActivityLogRecordMapper.insert(new UserActivityLogRecord(
+                    null,
+                    "user1",
+                    10000L + (i / 3) * 1000L,
+                    "MODIFY",
+                    "EXAM",
+                    String.format("e%02d", i),
+                    "message" + i));
+        }
+    }
+
+    @Test
+    public void testCursorPagesAreCompleteAndEqualToOffsetPages() throws Exception {
+        final String token = getSebAdminAccess();
+
+        // keyset pagination on the id, on a sort column with equal values and offset pagination as fallback
+        for (final String sort : new String[] {
+                null,
+                Domain.USER_ACTIVITY_LOG.ATTR_TIMESTAMP,
+                "-" + Domain.USER_ACTIVITY_LOG.ATTR_TIMESTAMP,
+                Domain.USER_ACTIVITY_LOG.ATTR_ENTITY_ID }) {
+
+            final List<Long> offsetIds = getAllWithOffset(token, sort);
+            assertEquals(NUMBER_OF_LOGS, offsetIds.size());
+            assertEquals("order for sort " + sort, offsetIds, getAllWithCursor(token, sort));
+        }
+
+        // the offset pagination of the user activity logs has no mapping for a descending id sort
+        final List<Long> descendingIds = getAllWithOffset(token, null);
+        Collections.reverse(descendingIds);
+        assertEquals(descendingIds, getAllWithCursor(token, "-" + Domain.USER_ACTIVITY_LOG.ATTR_ID));
+    }
+
+    @Test
+    public void testLastPageAndPageNumbers() throws Exception {
+        final String token = getSebAdminAccess();
+
+        Page<UserActivityLog> page = getPage(token, Domain.USER_ACTIVITY_LOG.ATTR_TIMESTAMP, "", PAGE_SIZE);
+        int pageNumber = 1;
+        while (page.nextCursor != null) {
+            assertEquals(pageNumber, page.pageNumber);
+            // no total count, there is just one more page known
+            assertEquals(pageNumber + 1, page.numberOfPages);
+            assertEquals(PAGE_SIZE, page.content.size());
+            page = getPage(token, Domain.USER_ACTIVITY_LOG.ATTR_TIMESTAMP, page.nextCursor, PAGE_SIZE);
+            pageNumber++;
+        }
+
+        // the last page is not full and has no next cursor
+        assertEquals(NUMBER_OF_LOGS / PAGE_SIZE + 1, pageNumber);
+        assertEquals(pageNumber, page.pageNumber);
+        assertEquals(pageNumber, page.numberOfPages);
+        assertEquals(NUMBER_OF_LOGS % PAGE_SIZE, page.content.size());
+
+        // if the last page is full there is one more empty page without next cursor
+        assertEquals(NUMBER_OF_LOGS, getAllWithCursor(token, null, 4).size());
+    }
+
+    @Test
+    public void testInvalidCursors() throws Exception {
+        final String token = getSebAdminAccess();
+        final String timestamp = Domain.USER_ACTIVITY_LOG.ATTR_TIMESTAMP;
+
+        final String cursor = getPage(token, timestamp, "", PAGE_SIZE).nextCursor;
+        assertNotNull(cursor);
+        assertNotNull(getPage(token, timestamp, cursor, PAGE_SIZE));
+
+        // no valid base64
+        assertBadRequest(token, timestamp, "no*cursor");
+        // cursor of another sort order
+        assertBadRequest(token, "-" + timestamp, cursor);
+        assertBadRequest(token, null, cursor);
+        // forged cursors
+        assertBadRequest(token, timestamp, encode(timestamp + "|2|abc|7"));
+        assertBadRequest(token, timestamp, encode(timestamp + "|2|1000|7|1|1"));
+        assertBadRequest(token, timestamp, encode(timestamp));
+        assertBadRequest(token, timestamp, encode("|2"));
+    }
+
+    @Test
+    public void testCursorPageDoesNotCount() {
+        final String tableName = UserActivityLogRecordDynamicSqlSupport.userActivityLogRecord.tableNameAtRuntime();
+        for (final String sort : new String[] {
+                Domain.USER_ACTIVITY_LOG.ATTR_TIMESTAMP,
+                Domain.USER_ACTIVITY_LOG.ATTR_ENTITY_ID }) {
+
+            final AtomicBoolean counted = new AtomicBoolean(true);
+            final FilterMap filterMap = new FilterMap();
+            final Page<UserActivityLog> page = this.paginationService.getCursorPage(
+                    "",
+                    PAGE_SIZE,
+                    sort,
+                    tableName,
+                    filterMap,
+                    () -> {
+                        counted.set(PageHelper.getLocalPage().isCount());
+                        return this.userActivityLogDAO.allMatching(filterMap);
+                    },
+                    log -> true)
+                    .getOrThrow();
+
+            assertFalse("counted for sort " + sort, counted.get());
+            assertEquals(PAGE_SIZE, page.content.size());
+            assertNotNull(page.nextCursor);
+        }
+    }
+
+    @Test
+    public void testPredicateIsAppliedAfterTheCursorIsTaken() {
+        final String tableName = UserActivityLogRecordDynamicSqlSupport.userActivityLogRecord.tableNameAtRuntime();
+
+        final List<Long> ids = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            final FilterMap filterMap = new FilterMap();
+            final Page<UserActivityLog> page = this.paginationService.getCursorPage(
+                    cursor,
+                    PAGE_SIZE,
+                    null,
+                    tableName,
+                    filterMap,
+                    () -> this.userActivityLogDAO.allMatching(filterMap),
+                    log -> log.id % 2 == 0)
+                    .getOrThrow();
+            page.content.forEach(log -> ids.add(log.id));
+            cursor = page.nextCursor;
+        }
+
+        // filtered pages still reach all entries
+        assertEquals(NUMBER_OF_LOGS / 2, ids.size());
+        assertTrue(ids.stream().allMatch(id -> id % 2 == 0));
+    }
+
+    private List<Long> getAllWithOffset(final String token, final String sort) throws Exception {
+        return getPage(token, sort, null, NUMBER_OF_LOGS * 2).content
+                .stream()
+                .map(log -> log.id)
+                .collect(Collectors.toList());
+    }
+
+    private List<Long> getAllWithCursor(final String token, final String sort) throws Exception {
+        return getAllWithCursor(token, sort, PAGE_SIZE);
+    }
+
+    private List<Long> getAllWithCursor(
+            final String token,
+            final String sort,
+            final int pageSize) throws Exception {
+
+        final List<Long> result = new ArrayList<>();
+        String cursor = "";
+        int requests = 0;
+        while (cursor != null) {
+            assertTrue("too many pages", ++requests <= NUMBER_OF_LOGS);
+            final Page<UserActivityLog> page = getPage(token, sort, cursor, pageSize);
+            assertTrue(page.content.size() <= pageSize);
+            page.content.forEach(log -> result.add(log.id));
+            cursor = page.nextCursor;
+        }
+
+        assertEquals("duplicates for sort " + sort, result.size(), new HashSet<>(result).size());
+        return result;
+    }
+
+    private Page<UserActivityLog> getPage(
+            final String token,
+            final String sort,
+            final String cursor,
+            final int pageSize) throws Exception {
+
+        return this.jsonMapper.readValue(
+                perform(token, sort, cursor, pageSize, status().isOk()),
+                new TypeReference<Page<UserActivityLog>>() {
+                });
+    }
+
+    private void assertBadRequest(final String token, final String sort, final String cursor) throws Exception {
+        perform(token, sort, cursor, PAGE_SIZE, status().isBadRequest());
+    }
+
+    private String perform(
+            final String token,
+            final String sort,
+            final String cursor,
+            final int pageSize,
+            final ResultMatcher expectedStatus) throws Exception {
+
+        final StringBuilder query = new StringBuilder("?")
+                .append(Page.ATTR_PAGE_SIZE).append("=").append(pageSize);
+        if (sort != null) {
+            query.append("&").append(Page.ATTR_SORT).append("=").append(sort);
+        }
+        if (cursor != null) {
+            query.append("&").append(Page.ATTR_CURSOR).append("=").append(cursor);
+        }
+
+        return this.mockMvc
+                .perform(get(this.endpoint + API.USER_ACTIVITY_LOG_ENDPOINT + query)
+                        .header("Authorization", "Bearer " + token)
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED_VALUE))
+                .andExpect(expectedStatus)
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+    }
+
+    private static String encode(final String cursor) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -11,21 +11,28 @@ package ch.ethz.seb.sebserver.webservice.integration.services;
 import static org.junit.Assert.*;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.context.jdbc.Sql;
 
 import ch.ethz.seb.sebserver.gbl.api.JSONMapper;
+import ch.ethz.seb.sebserver.gbl.model.Domain;
+import ch.ethz.seb.sebserver.gbl.model.Page;
 import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.IndicatorType;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection.ConnectionStatus;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientConnectionData;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent;
 import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.EventType;
+import ch.ethz.seb.sebserver.gbl.model.session.ExtendedClientEvent;
 import ch.ethz.seb.sebserver.gbl.monitoring.IndicatorValue;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ClientEventRecordDynamicSqlSupport;
 import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.PaginationService;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
 import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
@@ -44,6 +51,8 @@ public class ClientEventServiceTest extends AdministrationAPIIntegrationTester {
     @Autowired
     private ClientEventDAO clientEventDAO;
     @Autowired
+    private PaginationService paginationService;
+    @Autowired
     private SEBClientConnectionService sebClientConnectionService;
     @Autowired
     private SEBClientSessionService sebClientSessionService;
@@ -273,4 +282,82 @@ public class ClientEventServiceTest extends AdministrationAPIIntegrationTester {
         assertEquals("40", IndicatorValue.getDisplayValue(clientIndicator, IndicatorType.BATTERY_STATUS));
     }
 
+    @Test
+    public void testSortAndPageLiveAndArchivedEvents() {
+
+        final ClientConnection connection1 = this.clientConnectionDAO
+                .createNew(
+                        new ClientConnection(null, 1L, 2L, ConnectionStatus.ACTIVE, "token4", "userA",
+                                "1.1.1.1", "seb_os_name", "seb_machine_name", "seb_version", "", false,
+                                "", 1L,
+                                1L,
+                                null, null, null, false,
+                                false, null, false))
+                .getOrThrow();
+        final ClientConnection connection2 = this.clientConnectionDAO
+                .createNew(
+                        new ClientConnection(null, 1L, 2L, ConnectionStatus.ACTIVE, "token5", "userB",
+                                "1.1.1.1", "seb_os_name", "seb_machine_name", "seb_version", "", false,
+                                "", 1L,
+                                1L,
+                                null, null, null, false,
+                                false, null, false))
+                .getOrThrow();
+
+        // the first three events are archived, the last three remain live
+        for (long i = 1; i <= 6; i++) {
+            this.clientEventDAO
+                    .createNew(new ClientEvent(
+                            null,
+                            (i % 2 == 0) ? connection2.id : connection1.id,
+                            EventType.INFO_LOG,
+                            i,
+                            i * 10,
+                            null,
+                            "event" + i))
+                    .getOrThrow();
+        }
+        assertEquals(Integer.valueOf(3), this.clientEventDAO.archiveNextBatch(2L, 3).getOrThrow());
+
+        final FilterMap filterMap = new FilterMap.Builder()
+                .put(ExtendedClientEvent.FILTER_ATTRIBUTE_EXAM, "2")
+                .create();
+        final String tableName = ClientEventRecordDynamicSqlSupport.clientEventRecord.tableNameAtRuntime();
+
+        // sort over live and archived events by server time descending, paged by two
+        final String serverTimeDesc = "-" + Domain.CLIENT_EVENT.ATTR_SERVER_TIME;
+        for (int pageNumber = 1; pageNumber <= 3; pageNumber++) {
+            final Page<ClientEvent> page = this.paginationService.getPage(
+                    pageNumber,
+                    2,
+                    serverTimeDesc,
+                    tableName,
+                    () -> this.clientEventDAO.allMatching(filterMap))
+                    .getOrThrow();
+
+            assertEquals(3, page.numberOfPages);
+            assertEquals(2, page.content.size());
+            assertEquals(Long.valueOf(80 - pageNumber * 20), page.content.get(0).serverTime);
+            assertEquals(Long.valueOf(70 - pageNumber * 20), page.content.get(1).serverTime);
+        }
+
+        // sort over live and archived events by the session identifier of the connection
+        final Page<ExtendedClientEvent> page = this.paginationService.getPage(
+                1,
+                3,
+                Domain.CLIENT_CONNECTION.ATTR_EXAM_USER_SESSION_ID,
+                tableName,
+                () -> this.clientEventDAO.allMatchingExtended(filterMap, event -> true))
+                .getOrThrow();
+
+        assertEquals(2, page.numberOfPages);
+        final List<String> texts = page.content
+                .stream()
+                .map(event -> event.text)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals("[event1, event3, event5]", texts.toString());
+        assertTrue(page.content.stream().allMatch(event -> "userA".equals(event.userSessionId)));
+    }
+
 }
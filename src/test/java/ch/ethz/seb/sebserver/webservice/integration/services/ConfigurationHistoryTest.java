@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.Configuration;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationValue;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ConfigurationDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ConfigurationValueDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class ConfigurationHistoryTest extends AdministrationAPIIntegrationTester {
+
+    @Autowired
+    private ConfigurationDAO configurationDAO;
+    @Autowired
+    private ConfigurationValueDAO configurationValueDAO;
+    @Autowired
+    private ConfigurationRecordMapper configurationRecordMapper;
+
+    @Test
+    public void testOnlyVersionsWithAllValuesCanBeRead() {
+        final Configuration followup1 = this.configurationDAO.saveToHistory(1L).getOrThrow();
+        final Configuration followup2 = this.configurationDAO.saveToHistory(1L).getOrThrow();
+
+        final List<Long> history = this.configurationRecordMapper
+                .selectByExample()
+                .where(ConfigurationRecordDynamicSqlSupport.configurationNodeId, isEqualTo(1L))
+                .and(ConfigurationRecordDynamicSqlSupport.followup, isEqualTo(0))
+                .build()
+                .execute()
+                .stream()
+                .map(ConfigurationRecord::getId)
+                .sorted(Comparator.naturalOrder())
+                .collect(Collectors.toList());
+        assertEquals(3, history.size());
+        assertEquals(followup1.id, history.get(2));
+
+        final Collection<ConfigurationValue> followupValues = getValues(followup2.id).getOrThrow();
+        assertFalse(followupValues.isEmpty());
+        // the newest historic version holds all values
+        assertEquals(followupValues.size(), getValues(history.get(2)).getOrThrow().size());
+
+        // older historic versions only hold deltas and are not readable directly
+        assertTrue(getValues(history.get(0)).hasError());
+        assertTrue(getValues(history.get(1)).hasError());
+        assertTrue(this.configurationValueDAO.getTableValues(1L, history.get(0), 1L).hasError());
+
+        // but can still be restored
+        this.configurationDAO.restoreToVersion(1L, history.get(0)).getOrThrow();
+        assertEquals(followupValues.size(), getValues(followup2.id).getOrThrow().size());
+    }
+
+    private Result<Collection<ConfigurationValue>> getValues(final Long configurationId) {
+        return this.configurationValueDAO.allMatching(new FilterMap.Builder()
+                .put(ConfigurationValue.FILTER_ATTR_CONFIGURATION_ID, String.valueOf(configurationId))
+                .create());
+    }
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationValue;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationValueRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationValueRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationValueRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ConfigurationValueDAO;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class ConfigurationValueImportTest extends AdministrationAPIIntegrationTester {
+
+    private static final Long INSTITUTION_ID = 1L;
+    // the follow-up configuration of configuration node 1
+    private static final Long CONFIG_ID = 2L;
+
+    // permittedProcesses.active (default 'true') and permittedProcesses.title (default '')
+    private static final Long TABLE_ATTR_ACTIVE = 74L;
+    private static final Long TABLE_ATTR_TITLE = 76L;
+    // more table rows than fit into one upsert statement
+    private static final int TABLE_ROWS = 300;
+
+    @Autowired
+    private ConfigurationValueDAO configurationValueDAO;
+    @Autowired
+    private ConfigurationValueRecordMapper configurationValueRecordMapper;
+
+    @Test
+    public void testImportIntoConfigurationWithExistingValues() {
+        final Map<String, ConfigurationValueRecord> before = getValueRecords();
+        assertEquals("true", before.get(key(2L, 0)).getValue());
+        assertEquals("false", before.get(key(3L, 0)).getValue());
+        assertNull(before.get(key(TABLE_ATTR_ACTIVE, 1)));
+
+        // first import: insert table values in more than one statement
+        final List<ConfigurationValue> firstImport = new ArrayList<>();
+        for (int listIndex = 1; listIndex <= TABLE_ROWS; listIndex++) {
+            firstImport.add(value(TABLE_ATTR_ACTIVE, listIndex, "false"));
+            firstImport.add(value(TABLE_ATTR_TITLE, listIndex, "title" + listIndex));
+        }
+        assertEquals(
+                Integer.valueOf(2 * TABLE_ROWS),
+                this.configurationValueDAO.saveAll(INSTITUTION_ID, CONFIG_ID, firstImport).getOrThrow());
+
+        final Map<String, ConfigurationValueRecord> afterFirst = getValueRecords();
+        assertEquals(before.size() + 2 * TABLE_ROWS, afterFirst.size());
+        assertEquals("false", afterFirst.get(key(TABLE_ATTR_ACTIVE, TABLE_ROWS)).getValue());
+        assertEquals("title" + TABLE_ROWS, afterFirst.get(key(TABLE_ATTR_TITLE, TABLE_ROWS)).getValue());
+
+        // second import: mixes updates, unchanged values, null values and new table rows
+        final List<ConfigurationValue> secondImport = new ArrayList<>(Arrays.asList(
+                // update of an existing plain value
+                value(2L, 0, "false"),
+                // unchanged value
+                value(3L, 0, "false"),
+                // a null value does not change an existing value
+                value(1L, 0, null),
+                // update of an existing table value
+                value(TABLE_ATTR_TITLE, 1, "changed"),
+                // a null value of an existing table value
+                value(TABLE_ATTR_TITLE, 2, null),
+                // new table row with a value and without values that get the defaults
+                value(TABLE_ATTR_ACTIVE, TABLE_ROWS + 1, null),
+                value(TABLE_ATTR_TITLE, TABLE_ROWS + 1, "new")));
+        assertEquals(
+                Integer.valueOf(4),
+                this.configurationValueDAO.saveAll(INSTITUTION_ID, CONFIG_ID, secondImport).getOrThrow());
+
+        final Map<String, ConfigurationValueRecord> afterSecond = getValueRecords();
+        assertEquals(afterFirst.size() + 2, afterSecond.size());
+
+        // existing records are updated in place
+        assertEquals(before.get(key(2L, 0)).getId(), afterSecond.get(key(2L, 0)).getId());
+        assertEquals("false", afterSecond.get(key(2L, 0)).getValue());
+        assertEquals("false", afterSecond.get(key(3L, 0)).getValue());
+        assertEquals(before.get(key(1L, 0)).getValue(), afterSecond.get(key(1L, 0)).getValue());
+        assertEquals(
+                afterFirst.get(key(TABLE_ATTR_TITLE, 1)).getId(),
+                afterSecond.get(key(TABLE_ATTR_TITLE, 1)).getId());
+        assertEquals("changed", afterSecond.get(key(TABLE_ATTR_TITLE, 1)).getValue());
+        assertEquals("title2", afterSecond.get(key(TABLE_ATTR_TITLE, 2)).getValue());
+        assertEquals("false", afterSecond.get(key(TABLE_ATTR_ACTIVE, 1)).getValue());
+
+        // new records of the new table row
+        assertEquals("true", afterSecond.get(key(TABLE_ATTR_ACTIVE, TABLE_ROWS + 1)).getValue());
+        assertEquals("new", afterSecond.get(key(TABLE_ATTR_TITLE, TABLE_ROWS + 1)).getValue());
+        assertTrue(afterSecond.values().stream().allMatch(rec -> INSTITUTION_ID.equals(rec.getInstitutionId())));
+    }
+
+    @Test
+    public void testImportIntoNoneFollowupConfigurationFails() {
+        final String before = getValueRecords(1L).get(key(2L, 0)).getValue();
+
+        assertTrue(this.configurationValueDAO
+                .saveAll(INSTITUTION_ID, 1L, Arrays.asList(value(2L, 0, "false")))
+                .hasError());
+        assertEquals(before, getValueRecords(1L).get(key(2L, 0)).getValue());
+    }
+
+    private Map<String, ConfigurationValueRecord> getValueRecords() {
+        return getValueRecords(CONFIG_ID);
+    }
+
+    private Map<String, ConfigurationValueRecord> getValueRecords(final Long configurationId) {
+        final List<ConfigurationValueRecord> records = this.configurationValueRecordMapper
+                .selectByExample()
+                .where(ConfigurationValueRecordDynamicSqlSupport.configurationId, isEqualTo(configurationId))
+                .build()
+                .execute();
+        final Map<String, ConfigurationValueRecord> result = records
+                .stream()
+                .collect(Collectors.toMap(
+                        rec -> key(rec.getConfigurationAttributeId(), rec.getListIndex()),
+                        Function.identity()));
+        // no duplicate records of the same attribute and list index
+        assertEquals(records.size(), result.size());
+        return result;
+    }
+
+    private static ConfigurationValue value(final Long attributeId, final int listIndex, final String value) {
+        return new ConfigurationValue(null, INSTITUTION_ID, CONFIG_ID, attributeId, listIndex, value);
+    }
+
+    private static String key(final Long attributeId, final Integer listIndex) {
+        return attributeId + ":" + listIndex;
+    }
+
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.EntityKey;
+import ch.ethz.seb.sebserver.gbl.model.user.EntityPrivilege;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.EntityPrivilegeRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.EntityPrivilegeRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.EntityPrivilegeDAOImpl;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class EntityPrivilegeIndexTest extends AdministrationAPIIntegrationTester {
+
+    private static final EntityKey EXAM_1 = new EntityKey(1L, EntityType.EXAM);
+    private static final EntityKey EXAM_2 = new EntityKey(2L, EntityType.EXAM);
+
+    @Autowired
+    private EntityPrivilegeRecordMapper entityPrivilegeRecordMapper;
+
+    @Test
+    public void testIndexIsLoadedOnceAndReloaded() {
+        final EntityPrivilegeDAOImpl dao = new EntityPrivilegeDAOImpl(this.entityPrivilegeRecordMapper, 60000);
+
+        insert(EXAM_1, "user1", PrivilegeType.READ);
+        insert(EXAM_1, "user1", PrivilegeType.MODIFY);
+
+        // the higher privilege of the same entity is indexed
+        assertTrue(dao.hasEntityPrivilege("user1", EXAM_1, PrivilegeType.MODIFY));
+        assertTrue(dao.hasEntityPrivilege("user1", EXAM_1, PrivilegeType.READ));
+        assertFalse(dao.hasEntityPrivilege("user1", EXAM_1, PrivilegeType.WRITE));
+        assertFalse(dao.hasEntityPrivilege("user1", EXAM_2, PrivilegeType.READ));
+
+        // changes on the persistent storage are not seen before the user is reloaded
+        insert(EXAM_2, "user1", PrivilegeType.READ);
+        assertFalse(dao.hasEntityPrivilege("user1", EXAM_2, PrivilegeType.READ));
+
+        final Map<EntityKey, EntityPrivilege> reloaded = dao.reloadEntityPrivileges("user1").getOrThrow();
+        assertEquals(2, reloaded.size());
+        assertTrue(dao.hasEntityPrivilege("user1", EXAM_2, PrivilegeType.READ));
+    }
+
+    @Test
+    public void testIndexExpires() {
+        final EntityPrivilegeDAOImpl dao = new EntityPrivilegeDAOImpl(this.entityPrivilegeRecordMapper, -1);
+
+        assertFalse(dao.hasEntityPrivilege("user1", EXAM_1, PrivilegeType.READ));
+        insert(EXAM_1, "user1", PrivilegeType.READ);
+        assertTrue(dao.hasEntityPrivilege("user1", EXAM_1, PrivilegeType.READ));
+    }
+
+    @Test
+    public void testLoadUsersAndDeleteUserPrivileges() {
+        final EntityPrivilegeDAOImpl dao = new EntityPrivilegeDAOImpl(this.entityPrivilegeRecordMapper, 60000);
+
+        insert(EXAM_1, "user1", PrivilegeType.READ);
+        insert(EXAM_2, "user2", PrivilegeType.WRITE);
+
+        dao.loadEntityPrivileges(Arrays.asList("user1", "user2", "user3"));
+
+        assertEquals(1, dao.getEntityPrivileges("user1").getOrThrow().size());
+        assertEquals(1, dao.getEntityPrivileges("user2").getOrThrow().size());
+        assertTrue(dao.getEntityPrivileges("user3").getOrThrow().isEmpty());
+        assertTrue(dao.hasEntityPrivilege("user2", EXAM_2, PrivilegeType.MODIFY));
+
+        assertEquals(Integer.valueOf(1), dao.deleteUserPrivileges("user2").getOrThrow());
+        assertFalse(dao.hasEntityPrivilege("user2", EXAM_2, PrivilegeType.READ));
+        assertTrue(dao.hasEntityPrivilege("user1", EXAM_1, PrivilegeType.READ));
+    }
+
+    private void insert(final EntityKey entityKey, final String userUUID, final PrivilegeType privilegeType) {
+        this.entityPrivilegeRecordMapper.insert(new EntityPrivilegeRecord(
+                null,
+                entityKey.entityType.name(),
+                Long.valueOf(entityKey.modelId),
+                userUUID,
+                privilegeType.key));
+    }
+
+}
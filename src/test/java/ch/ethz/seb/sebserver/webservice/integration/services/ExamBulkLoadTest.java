@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.AdditionalAttributeRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.AdditionalAttributeRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ExamRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.AdditionalAttributesDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class ExamBulkLoadTest extends AdministrationAPIIntegrationTester {
+
+    // more exams than fit into one IN clause of the additional attributes query
+    private static final int NUMBER_OF_EXAMS = 2150;
+
+    @Autowired
+    private ExamDAO examDAO;
+    @Autowired
+    private AdditionalAttributesDAO additionalAttributesDAO;
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+    @Autowired
+    private AdditionalAttributeRecordMapper additionalAttributeRecordMapper;
+
+    private final Set<Long> examIds = new HashSet<>();
+    private final Map<Long, Map<String, String>> expectedAttributes = new HashMap<>();
+
+    @Before
+    public void initExams() {
+        // the exams of the test data, only exam 2 has additional attributes
+        this.examIds.add(1L);
+        this.examIds.add(2L);
+        this.examIds.add(3L);
+        final Map<String, String> exam2Attributes = new HashMap<>();
+        exam2Attributes.put("quiz_start_url", "https://test.lms.mockup");
+        exam2Attributes.put("SIGNATURE_KEY_SALT", "5bb758a376c45877");
+        this.expectedAttributes.put(2L, exam2Attributes);
+
+        for (int i = 0; i < NUMBER_OF_EXAMS; i++) {
+            final ExamRecord record = new ExamRecord(
+                    null, 1L, 1L, "bulkQuiz" + i, "admin", null, "MANAGED", null, null, "UP_COMING",
+                    0, 0, null, 1, null, null, "bulkQuiz" + i, null, null, 1);
+            this.examRecordMapper.insert(record);
+            final Long examId = record.getId();
+            this.examIds.add(examId);
+
+            // every third exam has one attribute and every seventh exam a second one
+            final Map<String, String> attributes = new HashMap<>();
+            if (i % 3 == 0) {
+                attributes.put("attr1", "value1_" + examId);
+            }
+            if (i % 7 == 0) {
+                attributes.put("attr2", "value2_" + examId);
+            }
+            attributes.forEach((name, value) -> this.additionalAttributeRecordMapper.insert(
+                    new AdditionalAttributeRecord(null, EntityType.EXAM.name(), examId, name, value)));
+            if (!attributes.isEmpty()) {
+                this.expectedAttributes.put(examId, attributes);
+            }
+        }
+
+        // an attribute of another entity type with the same identifier must not be assigned to the exam
+        this.additionalAttributeRecordMapper.insert(new AdditionalAttributeRecord(
+                null, EntityType.LMS_SETUP.name(), 1L, "attr1", "lmsSetupValue"));
+    }
+
+    @Test
+    public void testAdditionalAttributesOfAllExams() {
+        assertExams(this.examDAO.all(1L, true).getOrThrow());
+    }
+
+    @Test
+    public void testAdditionalAttributesOfExamsByIds() {
+        assertExams(this.examDAO.allOf(this.examIds).getOrThrow());
+    }
+
+    @Test
+    public void testAdditionalAttributesInChunks() {
+        final Collection<AdditionalAttributeRecord> records = this.additionalAttributesDAO
+                .getAdditionalAttributes(EntityType.EXAM, this.examIds)
+                .getOrThrow();
+
+        final int expectedNumber = this.expectedAttributes.values()
+                .stream()
+                .mapToInt(Map::size)
+                .sum();
+        assertEquals(expectedNumber, records.size());
+        assertEquals(
+                records.size(),
+                records.stream().map(AdditionalAttributeRecord::getId).collect(Collectors.toSet()).size());
+        assertTrue(records.stream().allMatch(rec -> EntityType.EXAM.name().equals(rec.getEntityType())));
+
+        assertTrue(this.additionalAttributesDAO
+                .getAdditionalAttributes(EntityType.EXAM, new HashSet<>())
+                .getOrThrow()
+                .isEmpty());
+    }
+
+    private void assertExams(final Collection<Exam> exams) {
+        assertEquals(this.examIds.size(), exams.size());
+        assertEquals(this.examIds, exams.stream().map(Exam::getId).collect(Collectors.toSet()));
+
+        for (final Exam exam : exams) {
+            final Map<String, String> expected = this.expectedAttributes.get(exam.id);
+            if (expected == null) {
+                assertNotNull(exam.additionalAttributes);
+                assertTrue("attributes of exam " + exam.id, exam.additionalAttributes.isEmpty());
+            } else {
+                assertEquals("attributes of exam " + exam.id, expected, exam.additionalAttributes);
+            }
+        }
+    }
+
+}
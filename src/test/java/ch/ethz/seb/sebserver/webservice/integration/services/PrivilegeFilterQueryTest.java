@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.gbl.model.user.UserInfo;
+import ch.ethz.seb.sebserver.gbl.util.Utils;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.EntityPrivilegeRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.EntityPrivilegeRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ExamRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.UserDAO;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class PrivilegeFilterQueryTest extends AdministrationAPIIntegrationTester {
+
+    private static final String SUPPORTER = "user5";
+
+    @Autowired
+    private ExamDAO examDAO;
+    @Autowired
+    private UserDAO userDAO;
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+    @Autowired
+    private EntityPrivilegeRecordMapper entityPrivilegeRecordMapper;
+
+    @Test
+    public void testExamListOfSupporterIsFilteredInSQL() {
+        // exam 2 has the supporter in the supporter list, exam 3 is assigned by entity privilege
+        this.examRecordMapper.updateByExampleSelective(new ExamRecord(
+                null, null, null, null, null, "user4," + SUPPORTER, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null))
+                .where(ExamRecordDynamicSqlSupport.id, isEqualTo(2L))
+                .build()
+                .execute();
+        insertPrivilege(EntityType.EXAM, 3L, SUPPORTER, PrivilegeType.READ);
+        // another user with an assigned privilege on exam 1
+        insertPrivilege(EntityType.EXAM, 1L, "user4", PrivilegeType.MODIFY);
+
+        assertEquals(Arrays.asList(1L, 2L, 3L), examIds(new FilterMap()));
+        assertEquals(Arrays.asList(2L, 3L), examIds(new FilterMap().setPrivilegeOwner(SUPPORTER)));
+
+        // with the institution join the columns are qualified
+        final FilterMap joinFilter = new FilterMap.Builder()
+                .put(FilterMap.ATTR_ADD_INSITUTION_JOIN, "true")
+                .create()
+                .setPrivilegeOwner(SUPPORTER);
+        assertEquals(Arrays.asList(2L, 3L), examIds(joinFilter));
+    }
+
+    @Test
+    public void testUserListOfSupporterIsFilteredInSQL() {
+        insertPrivilege(EntityType.USER, 7L, SUPPORTER, PrivilegeType.READ);
+
+        final List<String> allUsers = userUUIDs(new FilterMap());
+        assertTrue(allUsers.size() > 2);
+        assertEquals(Arrays.asList(SUPPORTER, "user7"), userUUIDs(new FilterMap().setPrivilegeOwner(SUPPORTER)));
+    }
+
+    private List<Long> examIds(final FilterMap filterMap) {
+        return this.examDAO.allMatching(filterMap, Utils.truePredicate())
+                .getOrThrow()
+                .stream()
+                .map(Exam::getId)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private List<String> userUUIDs(final FilterMap filterMap) {
+        return this.userDAO.allMatching(filterMap, Utils.truePredicate())
+                .getOrThrow()
+                .stream()
+                .map(UserInfo::getUuid)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void insertPrivilege(
+            final EntityType entityType,
+            final Long entityId,
+            final String userUUID,
+            final PrivilegeType privilegeType) {
+
+        this.entityPrivilegeRecordMapper.insert(new EntityPrivilegeRecord(
+                null,
+                entityType.name(),
+                entityId,
+                userUUID,
+                privilegeType.key));
+    }
+
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+
+import org.ehcache.config.ResourceType;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.model.exam.QuizData;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.lms.impl.AbstractCachedCourseAccess;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class QuizDataCachePartitionTest extends AdministrationAPIIntegrationTester {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Test
+    public void testPartitionIsCreatedWithBudgetAndDestroyedOnDispose() {
+        final TestCourseAccess access1 = new TestCourseAccess(this.cacheManager, 1001L);
+        final TestCourseAccess access2 = new TestCourseAccess(this.cacheManager, 1002L);
+
+        access1.put(quiz("quiz1", 1001L));
+        access2.put(quiz("quiz1", 1002L));
+        assertEquals(Long.valueOf(1001L), access1.get("quiz1").lmsSetupId);
+        assertEquals(Long.valueOf(1002L), access2.get("quiz1").lmsSetupId);
+
+        // each partition gets the per LMS Setup budget
+        final javax.cache.Cache<String, QuizData> partition = nativePartition(1001L);
+        assertNotNull(partition);
+        assertEquals(
+                getHeapSize(AbstractCachedCourseAccess.CACHE_NAME_QUIZ_DATA_PARTITION),
+                partition.unwrap(org.ehcache.Cache.class)
+                        .getRuntimeConfiguration()
+                        .getResourcePools()
+                        .getPoolForResource(ResourceType.Core.HEAP)
+                        .getSize());
+
+        // dispose destroys only the partition of the LMS Setup
+        access1.dispose();
+        assertNull(nativePartition(1001L));
+        assertNotNull(nativePartition(1002L));
+        assertEquals(Long.valueOf(1002L), access2.get("quiz1").lmsSetupId);
+
+        // a new instance of the same LMS Setup creates a new partition
+        final TestCourseAccess access1New = new TestCourseAccess(this.cacheManager, 1001L);
+        assertNull(access1New.get("quiz1"));
+        access1New.put(quiz("quiz1", 1001L));
+        assertNotNull(access1New.get("quiz1"));
+
+        // an instance whose partition was destroyed by another instance recovers
+        final TestCourseAccess access2Old = access2;
+        new TestCourseAccess(this.cacheManager, 1002L).disposeAfterAccess();
+        assertNull(access2Old.get("quiz1"));
+
+        access1New.dispose();
+        access2Old.dispose();
+    }
+
+    @SuppressWarnings("unchecked")
+    private javax.cache.Cache<String, QuizData> nativePartition(final Long lmsSetupId) {
+        final javax.cache.Cache<String, QuizData> template = (javax.cache.Cache<String, QuizData>) this.cacheManager
+                .getCache(AbstractCachedCourseAccess.CACHE_NAME_QUIZ_DATA_PARTITION)
+                .getNativeCache();
+        return template.getCacheManager().getCache(
+                AbstractCachedCourseAccess.CACHE_NAME_QUIZ_DATA + "_" + lmsSetupId,
+                String.class,
+                QuizData.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private long getHeapSize(final String cacheName) {
+        return ((javax.cache.Cache<String, QuizData>) this.cacheManager.getCache(cacheName).getNativeCache())
+                .unwrap(org.ehcache.Cache.class)
+                .getRuntimeConfiguration()
+                .getResourcePools()
+                .getPoolForResource(ResourceType.Core.HEAP)
+                .getSize();
+    }
+
+    private static QuizData quiz(final String id, final Long lmsSetupId) {
+        return new QuizData(id, 1L, lmsSetupId, null, id, null, (String) null, (String) null, null);
+    }
+
+    private static final class TestCourseAccess extends AbstractCachedCourseAccess {
+
+        private final Long lmsSetupId;
+
+        TestCourseAccess(final CacheManager cacheManager, final Long lmsSetupId) {
+            super(cacheManager);
+            this.lmsSetupId = lmsSetupId;
+        }
+
+        void put(final QuizData quizData) {
+            putToCache(quizData);
+        }
+
+        QuizData get(final String id) {
+            return getFromCache(id);
+        }
+
+        void disposeAfterAccess() {
+            getFromCache("any");
+            dispose();
+        }
+
+        @Override
+        protected Long getLmsSetupId() {
+            return this.lmsSetupId;
+        }
+    }
+
+}
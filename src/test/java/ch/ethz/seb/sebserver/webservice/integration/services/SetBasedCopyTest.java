@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+import static org.mybatis.dynamic.sql.SqlBuilder.isEqualTo;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.apache.commons.lang3.BooleanUtils;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+
+import ch.ethz.seb.sebserver.gbl.model.exam.ClientGroup;
+import ch.ethz.seb.sebserver.gbl.model.exam.ClientGroupData.ClientGroupType;
+import ch.ethz.seb.sebserver.gbl.model.exam.ClientGroupData.ClientOS;
+import ch.ethz.seb.sebserver.gbl.model.exam.ClientGroupTemplate;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.gbl.model.exam.ExamTemplate;
+import ch.ethz.seb.sebserver.gbl.model.exam.Indicator;
+import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.IndicatorType;
+import ch.ethz.seb.sebserver.gbl.model.exam.Indicator.Threshold;
+import ch.ethz.seb.sebserver.gbl.model.exam.IndicatorTemplate;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigCreationInfo;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationAttribute;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationNode;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationNode.ConfigurationStatus;
+import ch.ethz.seb.sebserver.gbl.model.sebconfig.ConfigurationNode.ConfigurationType;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationAttributeRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationValueRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ConfigurationValueRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordDynamicSqlSupport;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.ExamRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationAttributeRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ConfigurationValueRecord;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.ExamRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientGroupDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ConfigurationNodeDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamTemplateDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.FilterMap;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.IndicatorDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.exam.ExamTemplateService;
+
+/** Tests the set-based creation of exam indicators and client groups from an exam template
+ * and the set-based copies of configuration values */
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class SetBasedCopyTest extends AdministrationAPIIntegrationTester {
+
+    private static final Long EXAM_ID = 2L;
+    private static final Long TEMPLATE_NODE_ID = 1L;
+    private static final Long TEMPLATE_CONFIG_ID = 2L;
+
+    @Autowired
+    private ExamTemplateDAO examTemplateDAO;
+    @Autowired
+    private ExamTemplateService examTemplateService;
+    @Autowired
+    private ExamDAO examDAO;
+    @Autowired
+    private ExamRecordMapper examRecordMapper;
+    @Autowired
+    private IndicatorDAO indicatorDAO;
+    @Autowired
+    private ClientGroupDAO clientGroupDAO;
+    @Autowired
+    private ConfigurationNodeDAO configurationNodeDAO;
+    @Autowired
+    private ConfigurationRecordMapper configurationRecordMapper;
+    @Autowired
+    private ConfigurationValueRecordMapper configurationValueRecordMapper;
+    @Autowired
+    private ConfigurationAttributeRecordMapper configurationAttributeRecordMapper;
+
+    @Test
+    public void testCreateIndicatorsAndClientGroupsFromTemplate() {
+        final ExamTemplate examTemplate = this.examTemplateDAO.createNew(new ExamTemplate(
+                null, 1L, "copyTemplate", null, null, null, null, false,
+                Arrays.asList(
+                        new IndicatorTemplate(null, null, "tplA", IndicatorType.LAST_PING, "000001", null, null,
+                                Arrays.asList(
+                                        new Threshold(1000d, "000011", null),
+                                        new Threshold(2000d, "000012", null))),
+                        new IndicatorTemplate(null, null, "tplB", IndicatorType.ERROR_COUNT, "000002", null, null,
+                                null),
+                        new IndicatorTemplate(null, null, "tplC", IndicatorType.INFO_COUNT, "000003", null, "tag",
+                                Arrays.asList(
+                                        new Threshold(3d, "000031", null),
+                                        new Threshold(4d, "000032", null),
+                                        new Threshold(5d, "000033", null)))),
+                null,
+                null))
+                .getOrThrow();
+        this.examTemplateDAO.createNewClientGroupTemplate(new ClientGroupTemplate(
+                null, examTemplate.id, "groupA", ClientGroupType.IP_V4_RANGE, "000001", null,
+                "10.0.0.1", "10.0.0.9", null))
+                .getOrThrow();
+        this.examTemplateDAO.createNewClientGroupTemplate(new ClientGroupTemplate(
+                null, examTemplate.id, "groupB", ClientGroupType.CLIENT_OS, "000002", null,
+                null, null, ClientOS.WINDOWS))
+                .getOrThrow();
+
+        // the exam already has indicators and a client group
+        final List<Long> existingIndicators = getIndicators().stream()
+                .map(Indicator::getId)
+                .collect(Collectors.toList());
+        assertEquals(4, existingIndicators.size());
+        this.clientGroupDAO.createNew(new ClientGroup(
+                null, EXAM_ID, "existing", ClientGroupType.NONE, null, null, null, null, null))
+                .getOrThrow();
+
+        this.examRecordMapper.updateByExampleSelective(new ExamRecord(
+                null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, examTemplate.id, null, null, null, null, null))
+                .where(ExamRecordDynamicSqlSupport.id, isEqualTo(EXAM_ID))
+                .build()
+                .execute();
+        final Exam exam = this.examDAO.byPK(EXAM_ID).getOrThrow();
+        this.examTemplateService.addDefinedIndicators(exam).getOrThrow();
+        this.examTemplateService.addDefinedClientGroups(exam).getOrThrow();
+
+        // indicators and their thresholds
+        final Map<String, Indicator> indicators = getIndicators()
+                .stream()
+                .collect(Collectors.toMap(indicator -> indicator.name, Function.identity()));
+        assertEquals(7, indicators.size());
+        assertTrue(indicators.values().stream()
+                .map(Indicator::getId)
+                .collect(Collectors.toSet())
+                .containsAll(existingIndicators));
+
+        assertEquals(IndicatorType.LAST_PING, indicators.get("tplA").type);
+        assertEquals("000001", indicators.get("tplA").defaultColor);
+        assertEquals(
+                Arrays.asList("1000.0:000011", "2000.0:000012"),
+                thresholds(indicators.get("tplA")));
+        assertEquals(IndicatorType.ERROR_COUNT, indicators.get("tplB").type);
+        assertTrue(thresholds(indicators.get("tplB")).isEmpty());
+        assertEquals(IndicatorType.INFO_COUNT, indicators.get("tplC").type);
+        assertEquals("tag", indicators.get("tplC").tags);
+        assertEquals(
+                Arrays.asList("3.0:000031", "4.0:000032", "5.0:000033"),
+                thresholds(indicators.get("tplC")));
+
+        // client groups
+        final Map<String, ClientGroup> clientGroups = this.clientGroupDAO
+                .allMatching(new FilterMap.Builder()
+                        .put(ClientGroup.FILTER_ATTR_EXAM_ID, String.valueOf(EXAM_ID))
+                        .create())
+                .getOrThrow()
+                .stream()
+                .collect(Collectors.toMap(group -> group.name, Function.identity()));
+        assertEquals(3, clientGroups.size());
+        assertEquals(ClientGroupType.IP_V4_RANGE, clientGroups.get("groupA").type);
+        assertEquals("10.0.0.1", clientGroups.get("groupA").ipRangeStart);
+        assertEquals("10.0.0.9", clientGroups.get("groupA").ipRangeEnd);
+        assertEquals(ClientGroupType.CLIENT_OS, clientGroups.get("groupB").type);
+        assertEquals(ClientOS.WINDOWS, clientGroups.get("groupB").clientOS);
+    }
+
+    @Test
+    public void testCreateConfigurationFromTemplate() {
+        // the template overrides a default value, has no value for another attribute and has a second list index
+        setTemplateValue(2L, 0, "false");
+        this.configurationValueRecordMapper.deleteByExample()
+                .where(ConfigurationValueRecordDynamicSqlSupport.configurationId, isEqualTo(TEMPLATE_CONFIG_ID))
+                .and(ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId, isEqualTo(3L))
+                .build()
+                .execute();
+        this.configurationValueRecordMapper.insert(new ConfigurationValueRecord(
+                null, 1L, TEMPLATE_CONFIG_ID, 2L, 1, "second"));
+
+        final Map<String, String> templateValues = getValues(TEMPLATE_CONFIG_ID);
+        final Map<String, String> expected = new HashMap<>(templateValues);
+        this.configurationAttributeRecordMapper.selectByExample()
+                .build()
+                .execute()
+                .stream()
+                .filter(SetBasedCopyTest::hasDefaultValue)
+                .forEach(attr -> expected.putIfAbsent(key(attr.getId(), 0), attr.getDefaultValue()));
+
+        final ConfigurationNode node = this.configurationNodeDAO.createNew(new ConfigurationNode(
+                null, 1L, TEMPLATE_NODE_ID, "fromTemplate", null, ConfigurationType.EXAM_CONFIG, "user1",
+                ConfigurationStatus.CONSTRUCTION, null, null))
+                .getOrThrow();
+
+        final List<ConfigurationRecord> configs = getConfigurations(node.id);
+        assertEquals(2, configs.size());
+        final Map<String, String> initialValues = getValues(configs.get(0).getId());
+        assertEquals(expected, initialValues);
+        assertEquals("false", initialValues.get(key(2L, 0)));
+        assertEquals("second", initialValues.get(key(2L, 1)));
+        assertEquals("false", initialValues.get(key(3L, 0)));
+        // the follow-up is a copy of the initial version
+        assertEquals(initialValues, getValues(configs.get(1).getId()));
+    }
+
+    @Test
+    public void testCopyConfiguration() {
+        setTemplateValue(2L, 0, "false");
+        final Map<String, String> followupValues = getValues(TEMPLATE_CONFIG_ID);
+        final Map<String, String> initialValues = getValues(1L);
+
+        final ConfigurationNode copy = this.configurationNodeDAO.createCopy(
+                1L,
+                "user1",
+                new ConfigCreationInfo(TEMPLATE_NODE_ID, "copy", null, false, ConfigurationType.EXAM_CONFIG))
+                .getOrThrow();
+
+        // without history both versions of the copy get the values of the follow-up
+        final List<ConfigurationRecord> configs = getConfigurations(copy.id);
+        assertEquals(2, configs.size());
+        assertEquals(followupValues, getValues(configs.get(0).getId()));
+        assertEquals(followupValues, getValues(configs.get(1).getId()));
+
+        final ConfigurationNode copyWithHistory = this.configurationNodeDAO.createCopy(
+                1L,
+                "user1",
+                new ConfigCreationInfo(TEMPLATE_NODE_ID, "copyWithHistory", null, true,
+                        ConfigurationType.EXAM_CONFIG))
+                .getOrThrow();
+
+        final List<ConfigurationRecord> historyConfigs = getConfigurations(copyWithHistory.id);
+        assertEquals(2, historyConfigs.size());
+        assertEquals(initialValues, getValues(historyConfigs.get(0).getId()));
+        assertEquals(followupValues, getValues(historyConfigs.get(1).getId()));
+    }
+
+    private Collection<Indicator> getIndicators() {
+        return this.indicatorDAO
+                .allMatching(new FilterMap.Builder()
+                        .put(Indicator.FILTER_ATTR_EXAM_ID, String.valueOf(EXAM_ID))
+                        .create())
+                .getOrThrow();
+    }
+
+    private static List<String> thresholds(final Indicator indicator) {
+        return indicator.thresholds
+                .stream()
+                .map(threshold -> threshold.value + ":" + threshold.color)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+
+    private void setTemplateValue(final Long attributeId, final int listIndex, final String value) {
+        this.configurationValueRecordMapper.updateByExampleSelective(new ConfigurationValueRecord(
+                null, null, null, null, null, value))
+                .where(ConfigurationValueRecordDynamicSqlSupport.configurationId, isEqualTo(TEMPLATE_CONFIG_ID))
+                .and(ConfigurationValueRecordDynamicSqlSupport.configurationAttributeId, isEqualTo(attributeId))
+                .and(ConfigurationValueRecordDynamicSqlSupport.listIndex, isEqualTo(listIndex))
+                .build()
+                .execute();
+    }
+
+    private List<ConfigurationRecord> getConfigurations(final Long nodeId) {
+        // the initial version first, the follow-up last
+        return this.configurationRecordMapper.selectByExample()
+                .where(ConfigurationRecordDynamicSqlSupport.configurationNodeId, isEqualTo(nodeId))
+                .build()
+                .execute()
+                .stream()
+                .sorted((c1, c2) -> Integer.compare(c1.getFollowup(), c2.getFollowup()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, String> getValues(final Long configurationId) {
+        final Map<String, String> values = new HashMap<>();
+        this.configurationValueRecordMapper.selectByExample()
+                .where(ConfigurationValueRecordDynamicSqlSupport.configurationId, isEqualTo(configurationId))
+                .build()
+                .execute()
+                .forEach(rec -> {
+                    final String key = key(rec.getConfigurationAttributeId(), rec.getListIndex());
+                    assertFalse("duplicate value: " + key, values.containsKey(key));
+                    values.put(key, rec.getValue());
+                });
+        assertFalse(values.isEmpty());
+        return values;
+    }
+
+    private static boolean hasDefaultValue(final ConfigurationAttributeRecord attr) {
+        return attr.getParentId() == null || BooleanUtils.toBoolean(ConfigurationAttribute.getDependencyValue(
+                ConfigurationAttribute.DEPENDENCY_CREATE_DEFAULT_VALUE,
+                attr.getDependencies()));
+    }
+
+    private static String key(final Long attributeId, final Integer listIndex) {
+        return attributeId + ":" + listIndex;
+    }
+
+}
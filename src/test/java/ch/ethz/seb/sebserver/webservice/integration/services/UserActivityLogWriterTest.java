@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.integration.services;
+
+import static org.junit.Assert.*;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.model.user.UserLogActivityType;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.mapper.UserActivityLogRecordMapper;
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.model.UserActivityLogRecord;
+import ch.ethz.seb.sebserver.webservice.integration.api.admin.AdministrationAPIIntegrationTester;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.UserActivityLogWriter;
+
+@Sql(scripts = { "classpath:schema-test.sql", "classpath:data-test.sql", "classpath:data-test-additional.sql" })
+public class UserActivityLogWriterTest extends AdministrationAPIIntegrationTester {
+
+    @Autowired
+    private UserActivityLogRecordMapper userActivityLogRecordMapper;
+    @Autowired
+    private SqlSessionFactory sqlSessionFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    public void testBatchWriteAndFlushOnShutdown() {
+        final UserActivityLogWriter writer = createAsyncWriter();
+        final long before = countLogs();
+
+        for (int i = 0; i < 7; i++) {
+            writer.write(record(UserLogActivityType.MODIFY.name(), String.valueOf(i)));
+        }
+        // nothing is written before the worker runs
+        assertEquals(before, countLogs());
+
+        writer.worker();
+        assertEquals(before + 7, countLogs());
+
+        writer.write(record(UserLogActivityType.MODIFY.name(), "7"));
+        writer.write(record(UserLogActivityType.MODIFY.name(), "8"));
+        assertEquals(before + 7, countLogs());
+
+        // pending records are written on shutdown
+        ReflectionTestUtils.invokeMethod(writer, "shutdown");
+        assertEquals(before + 9, countLogs());
+    }
+
+    @Test
+    public void testFailedBatchIsWrittenOneByOne() {
+        final UserActivityLogWriter writer = createAsyncWriter();
+        final long before = countLogs();
+
+        writer.write(record(UserLogActivityType.MODIFY.name(), "1"));
+        // the activity type column is too short for this record
+        writer.write(record(StringUtils.repeat('X', 100), "2"));
+        writer.write(record(UserLogActivityType.MODIFY.name(), "3"));
+
+        writer.worker();
+
+        // only the invalid record is lost
+        assertEquals(before + 2, countLogs());
+
+        ReflectionTestUtils.invokeMethod(writer, "shutdown");
+    }
+
+    private UserActivityLogWriter createAsyncWriter() {
+        return new UserActivityLogWriter(
+                this.userActivityLogRecordMapper,
+                this.sqlSessionFactory,
+                this.transactionManager,
+                true,
+                10,
+                3,
+                4000);
+    }
+
+    private long countLogs() {
+        return this.userActivityLogRecordMapper
+                .countByExample()
+                .build()
+                .execute();
+    }
+
+    private static UserActivityLogRecord record(final String activityType, final String entityId) {
+        return new UserActivityLogRecord(
+                null,
+                "user1",
+                System.currentTimeMillis(),
+                activityType,
+                EntityType.EXAM.name(),
+                entityId,
+                null);
+    }
+
+}
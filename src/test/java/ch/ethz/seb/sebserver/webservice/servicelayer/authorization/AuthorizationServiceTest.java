@@ -8,6 +8,7 @@
 
 package ch.ethz.seb.sebserver.webservice.servicelayer.authorization;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -23,6 +24,7 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.api.authorization.Privilege;
 import ch.ethz.seb.sebserver.gbl.api.authorization.PrivilegeType;
 import ch.ethz.seb.sebserver.gbl.model.GrantEntity;
 import ch.ethz.seb.sebserver.gbl.model.user.UserInfo;
@@ -30,6 +32,7 @@ import ch.ethz.seb.sebserver.gbl.model.user.UserRole;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.impl.AuthorizationServiceImpl;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.impl.SEBServerUser;
 import ch.ethz.seb.sebserver.webservice.servicelayer.authorization.impl.UserServiceImpl;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.EntityPrivilegeDAO;
 
 public class AuthorizationServiceTest {
 
@@ -69,6 +72,50 @@ public class AuthorizationServiceTest {
         assertFalse(service.hasWriteGrant(otherInstitution));
     }
 
+    @Test
+    public void testAssignedEntityPrivilegeOnlyGrantsRead() {
+        final EntityPrivilegeDAO entityPrivilegeDAO = Mockito.mock(EntityPrivilegeDAO.class);
+        Mockito.when(entityPrivilegeDAO.hasEntityPrivilege(Mockito.eq("test"), Mockito.any(), Mockito.any()))
+                .thenReturn(true);
+        final AuthorizationServiceImpl service = getTestServiceWithUserWithRoles(
+                entityPrivilegeDAO,
+                UserRole.EXAM_SUPPORTER);
+
+        // an exam of another owner where the user has an assigned modify entity privilege
+        final GrantEntity exam = entityOf(EntityType.EXAM, 2L, "other");
+
+        assertTrue(service.hasReadGrant(exam));
+        assertFalse(service.hasModifyGrant(exam));
+        assertFalse(service.hasWriteGrant(exam));
+        Mockito.verify(entityPrivilegeDAO, Mockito.never())
+                .hasEntityPrivilege(Mockito.any(), Mockito.any(), Mockito.eq(PrivilegeType.MODIFY));
+    }
+
+    @Test
+    public void testCompiledGrantsMatchPrivileges() {
+        final AuthorizationServiceImpl service = getTestServiceWithUserWithRoles(UserRole.SEB_SERVER_ADMIN);
+
+        for (final Privilege privilege : service.getAllPrivileges()) {
+            for (final PrivilegeType privilegeType : PrivilegeType.values()) {
+                for (final Long institutionId : Arrays.asList(null, 1L, 2L)) {
+                    for (final String ownerId : Arrays.asList(null, "", "test", "other,test", "other")) {
+                        assertEquals(
+                                privilege + " " + privilegeType + " " + institutionId + " " + ownerId,
+                                privilege.hasGrant("test", 1L, privilegeType, institutionId, ownerId),
+                                service.hasGrant(
+                                        privilegeType,
+                                        privilege.roleTypeKey.entityType,
+                                        institutionId,
+                                        ownerId,
+                                        "test",
+                                        1L,
+                                        Collections.singleton(privilege.roleTypeKey.userRole)));
+                    }
+                }
+            }
+        }
+    }
+
     private SEBServerUser getUser(final UserRole... roles) {
         final UserInfo userInfo = new UserInfo("test", 1L, new DateTime(0, DateTimeZone.UTC), "test", "", "test",
                 "mail", true, Locale.ENGLISH,
@@ -113,12 +160,20 @@ public class AuthorizationServiceTest {
     }
 
     private AuthorizationServiceImpl getTestServiceWithUserWithRoles(final UserRole... roles) {
+        return getTestServiceWithUserWithRoles(Mockito.mock(EntityPrivilegeDAO.class), roles);
+    }
+
+    private AuthorizationServiceImpl getTestServiceWithUserWithRoles(
+            final EntityPrivilegeDAO entityPrivilegeDAO,
+            final UserRole... roles) {
+
         final SEBServerUser user = getUser(roles);
         final UserServiceImpl currentUserServiceMock = Mockito.mock(UserServiceImpl.class);
         Mockito.when(currentUserServiceMock.getCurrentUser()).thenReturn(user);
 
         final AuthorizationServiceImpl authorizationGrantService = new AuthorizationServiceImpl(
-                currentUserServiceMock);
+                currentUserServiceMock,
+                entityPrivilegeDAO);
         authorizationGrantService.init();
         return authorizationGrantService;
     }
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import ch.ethz.seb.sebserver.gbl.api.API.BatchActionType;
+import ch.ethz.seb.sebserver.gbl.api.APIMessage;
+import ch.ethz.seb.sebserver.gbl.api.EntityType;
+import ch.ethz.seb.sebserver.gbl.model.BatchAction;
+import ch.ethz.seb.sebserver.gbl.model.EntityKey;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.servicelayer.bulkaction.BatchActionExec;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.BatchActionDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ResourceNotFoundException;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.UserActivityLogDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.UserDAO;
+
+public class BatchActionServiceImplTest {
+
+    private static final String PROCESSOR_ID = "processor";
+    private static final int PARALLELISM = 4;
+
+    @Mock
+    BatchActionDAO batchActionDAO;
+    @Mock
+    UserDAO userDAO;
+    @Mock
+    UserActivityLogDAO userActivityLogDAO;
+
+    private ExecutorService entityExecutor;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        this.entityExecutor = Executors.newFixedThreadPool(8);
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken("owner", "owner"));
+    }
+
+    @After
+    public void cleanup() {
+        this.entityExecutor.shutdownNow();
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testParallelProcessing() {
+        final BatchAction action = batchAction(ids(1, 20), Collections.emptyList());
+        mockReservation(action);
+        final TestExec exec = new TestExec(10, null);
+
+        createService(exec).notifyNewBatchAction(action);
+
+        Mockito.verify(this.batchActionDAO, Mockito.timeout(5000)).finishUp(1L, PROCESSOR_ID, false);
+        assertEquals(new HashSet<>(ids(1, 20)), exec.processed.keySet());
+        // all entities are processed exactly once and not more than the parallelism at the same time
+        exec.processed.values().forEach(count -> assertEquals(1, count.get()));
+        assertTrue(exec.maxConcurrent.get() > 1);
+        assertTrue(exec.maxConcurrent.get() <= PARALLELISM);
+        assertEquals(new HashSet<>(ids(1, 20)), checkpointedIds());
+
+        // the running batch action and its institution are excluded from the next reservation
+        Mockito.verify(this.batchActionDAO).getAndReserveNext(
+                Mockito.anyString(),
+                Mockito.eq(Collections.singleton(1L)),
+                Mockito.eq(Collections.singleton(1L)));
+    }
+
+    @Test
+    public void testRestartFromCheckpoint() {
+        // the first half has been checkpointed by an abandoned process before
+        final BatchAction action = batchAction(ids(1, 20), ids(1, 10));
+        mockReservation(action);
+        final TestExec exec = new TestExec(0, null);
+
+        createService(exec).notifyNewBatchAction(action);
+
+        Mockito.verify(this.batchActionDAO, Mockito.timeout(5000)).finishUp(1L, PROCESSOR_ID, false);
+        assertEquals(new HashSet<>(ids(11, 20)), exec.processed.keySet());
+        assertEquals(new HashSet<>(ids(11, 20)), checkpointedIds());
+    }
+
+    @Test
+    public void testHeartbeatWithoutProgress() throws InterruptedException {
+        final BatchAction action = batchAction(ids(1, 2), Collections.emptyList());
+        mockReservation(action);
+        final CountDownLatch release = new CountDownLatch(1);
+        final TestExec exec = new TestExec(0, release);
+
+        final BatchActionServiceImpl service = createService(exec);
+        service.notifyNewBatchAction(action);
+
+        // no entity has been completed yet but the batch action is still alive
+        ReflectionTestUtils.invokeMethod(service, "heartbeat");
+        Mockito.verify(this.batchActionDAO).refreshLastUpdate(1L, PROCESSOR_ID);
+        Mockito.verify(this.batchActionDAO, Mockito.never())
+                .setSuccessfull(Mockito.anyLong(), Mockito.anyString(), Mockito.<Collection<String>> any());
+
+        release.countDown();
+        Mockito.verify(this.batchActionDAO, Mockito.timeout(5000)).finishUp(1L, PROCESSOR_ID, false);
+    }
+
+    private BatchActionServiceImpl createService(final BatchActionExec exec) {
+        return new BatchActionServiceImpl(
+                this.batchActionDAO,
+                this.userDAO,
+                this.userActivityLogDAO,
+                Arrays.asList(exec),
+                Runnable::run,
+                this.entityExecutor,
+                3,
+                PARALLELISM,
+                5);
+    }
+
+    private void mockReservation(final BatchAction action) {
+        Mockito.when(this.batchActionDAO.getAndReserveNext(Mockito.anyString(), Mockito.any(), Mockito.any()))
+                .thenReturn(Result.of(action))
+                .thenReturn(Result.ofError(new ResourceNotFoundException(EntityType.BATCH_ACTION, PROCESSOR_ID)));
+        Mockito.when(this.batchActionDAO.finishUp(1L, PROCESSOR_ID, false)).thenReturn(Result.of(action));
+        Mockito.when(this.batchActionDAO.byPK(1L)).thenReturn(Result.of(action));
+        Mockito.when(this.userActivityLogDAO.logFinished(action)).thenReturn(Result.of(action));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Set<String> checkpointedIds() {
+        final ArgumentCaptor<Collection<String>> captor = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(this.batchActionDAO, Mockito.atLeastOnce())
+                .setSuccessfull(Mockito.eq(1L), Mockito.eq(PROCESSOR_ID), captor.capture());
+        return captor.getAllValues()
+                .stream()
+                .flatMap(Collection::stream)
+                .collect(Collectors.toSet());
+    }
+
+    private static BatchAction batchAction(final List<String> sourceIds, final List<String> successful) {
+        return new BatchAction(
+                1L,
+                1L,
+                "owner",
+                BatchActionType.EXAM_CONFIG_STATE_CHANGE,
+                Collections.emptyMap(),
+                sourceIds,
+                successful,
+                null,
+                PROCESSOR_ID,
+                Collections.emptyMap());
+    }
+
+    private static List<String> ids(final int from, final int to) {
+        return IntStream.rangeClosed(from, to)
+                .mapToObj(String::valueOf)
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private static final class TestExec implements BatchActionExec {
+
+        final Map<String, AtomicInteger> processed = new ConcurrentHashMap<>();
+        final AtomicInteger concurrent = new AtomicInteger();
+        final AtomicInteger maxConcurrent = new AtomicInteger();
+        final long processingTime;
+        final CountDownLatch release;
+
+        TestExec(final long processingTime, final CountDownLatch release) {
+            this.processingTime = processingTime;
+            this.release = release;
+        }
+
+        @Override
+        public BatchActionType actionType() {
+            return BatchActionType.EXAM_CONFIG_STATE_CHANGE;
+        }
+
+        @Override
+        public APIMessage checkConsistency(final Map<String, String> actionAttributes) {
+            return null;
+        }
+
+        @Override
+        public Result<EntityKey> doSingleAction(final String modelId, final BatchAction batchAction) {
+            final int current = this.concurrent.incrementAndGet();
+            this.maxConcurrent.accumulateAndGet(current, Math::max);
+            try {
+                if (this.release != null) {
+                    this.release.await(5, TimeUnit.SECONDS);
+                }
+                Thread.sleep(this.processingTime);
+                this.processed.computeIfAbsent(modelId, id -> new AtomicInteger()).incrementAndGet();
+                return Result.of(new EntityKey(modelId, EntityType.CONFIGURATION_NODE));
+            } catch (final InterruptedException e) {
+                return Result.ofError(e);
+            } finally {
+                this.concurrent.decrementAndGet();
+            }
+        }
+    }
+
+}
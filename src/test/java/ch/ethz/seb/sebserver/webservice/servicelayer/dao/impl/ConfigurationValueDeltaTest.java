@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.impl.ConfigurationValueDelta.ValueKey;
+
+public class ConfigurationValueDeltaTest {
+
+    @Test
+    public void testNoChanges() {
+        final Map<ValueKey, String> values = values("1:0=true", "2:0=", "3:1=x");
+        assertTrue(ConfigurationValueDelta.of(values, new HashMap<>(values)).isEmpty());
+    }
+
+    @Test
+    public void testChangedAddedAndRemovedValues() {
+        final Map<ValueKey, String> from = values("1:0=true", "2:0=a", "3:0=x", "3:1=y");
+        final Map<ValueKey, String> to = values("1:0=false", "2:0=a", "3:0=x", "4:0=new");
+        to.put(new ValueKey(5L, 0), null);
+
+        final ConfigurationValueDelta delta = ConfigurationValueDelta.of(from, to);
+        assertEquals(4, delta.changes.size());
+        assertTrue(delta.changes.get(new ValueKey(3L, 1)).removed);
+        assertNull(delta.changes.get(new ValueKey(5L, 0)).value);
+        assertFalse(delta.changes.get(new ValueKey(5L, 0)).removed);
+
+        final Map<ValueKey, String> applied = new HashMap<>(from);
+        delta.applyTo(applied);
+        assertEquals(to, applied);
+    }
+
+    @Test
+    public void testResolveVersionChain() {
+        // v0 -> v1 -> v2 where only v2 holds all values and v0, v1 only the deltas to the next newer version
+        final Map<ValueKey, String> v0 = values("1:0=a", "2:0=b");
+        final Map<ValueKey, String> v1 = values("1:0=a", "2:0=c", "3:0=d");
+        final Map<ValueKey, String> v2 = values("1:0=e", "2:0=c", "3:0=d");
+
+        final ConfigurationValueDelta delta0 = ConfigurationValueDelta.of(v1, v0);
+        final ConfigurationValueDelta delta1 = ConfigurationValueDelta.of(v2, v1);
+        assertEquals(1, delta1.changes.size());
+
+        final Map<ValueKey, String> resolved = new HashMap<>(v2);
+        delta1.applyTo(resolved);
+        assertEquals(v1, resolved);
+        delta0.applyTo(resolved);
+        assertEquals(v0, resolved);
+    }
+
+    private static Map<ValueKey, String> values(final String... values) {
+        final Map<ValueKey, String> result = new HashMap<>();
+        for (final String value : values) {
+            final String[] keyValue = value.split("=", 2);
+            final String[] key = keyValue[0].split(":");
+            result.put(new ValueKey(Long.parseLong(key[0]), Integer.parseInt(key[1])), keyValue[1]);
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.exam.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.webservice.datalayer.batis.ClientEventExtensionMapper.ConnectionEventExportRecord;
+
+public class ExamLogArchiveFileTest {
+
+    @Test
+    public void writeAndReadAll() throws Exception {
+        final List<ConnectionEventExportRecord> events = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            events.add(new ConnectionEventExportRecord(
+                    100L + i * 3,
+                    (long) (i % 4),
+                    i % 3,
+                    1000000L + i * 10,
+                    (i == 5) ? null : 1000005L + i * 10,
+                    (i % 2 == 0) ? new BigDecimal("12.5000") : null,
+                    (i % 5 == 0) ? null : "text" + (i % 3),
+                    1L,
+                    7L,
+                    "user" + (i % 4),
+                    "127.0.0." + (i % 4),
+                    "token" + (i % 4)));
+        }
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ExamLogArchiveFile.Writer writer = new ExamLogArchiveFile.Writer(out, 7L, 10)) {
+            for (final ConnectionEventExportRecord rec : events) {
+                writer.add(rec);
+            }
+        }
+
+        final List<ConnectionEventExportRecord> result = new ArrayList<>();
+        final int count = ExamLogArchiveFile.read(
+                new ByteArrayInputStream(out.toByteArray()),
+                rec -> true,
+                result::add);
+
+        Assert.assertEquals(25, count);
+        for (int i = 0; i < events.size(); i++) {
+            final ConnectionEventExportRecord expected = events.get(i);
+            final ConnectionEventExportRecord actual = result.get(i);
+            Assert.assertEquals(expected.id, actual.id);
+            Assert.assertEquals(expected.connection_id, actual.connection_id);
+            Assert.assertEquals(expected.type, actual.type);
+            Assert.assertEquals(expected.client_time, actual.client_time);
+            Assert.assertEquals(expected.server_time, actual.server_time);
+            Assert.assertEquals(expected.numeric_value, actual.numeric_value);
+            Assert.assertEquals(expected.text, actual.text);
+            Assert.assertEquals(expected.institution_id, actual.institution_id);
+            Assert.assertEquals(expected.exam_id, actual.exam_id);
+            Assert.assertEquals(expected.exam_user_session_identifier, actual.exam_user_session_identifier);
+            Assert.assertEquals(expected.client_address, actual.client_address);
+            Assert.assertEquals(expected.connection_token, actual.connection_token);
+        }
+    }
+
+    @Test
+    public void readWithFilter() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (final ExamLogArchiveFile.Writer writer = new ExamLogArchiveFile.Writer(out, 1L)) {
+            writer.add(new ConnectionEventExportRecord(
+                    1L, 1L, 1, 1L, 1L, null, "error", 1L, 1L, "s1", null, "t1"));
+            writer.add(new ConnectionEventExportRecord(
+                    2L, 2L, 2, 2L, 2L, null, "info", 1L, 1L, "s2", null, "t2"));
+        }
+
+        final List<ConnectionEventExportRecord> result = new ArrayList<>();
+        final int count = ExamLogArchiveFile.read(
+                new ByteArrayInputStream(out.toByteArray()),
+                rec -> "info".equals(rec.text),
+                result::add);
+
+        Assert.assertEquals(1, count);
+        Assert.assertEquals(Long.valueOf(2L), result.get(0).id);
+        Assert.assertEquals("t2", result.get(0).connection_token);
+    }
+
+    @Test
+    public void readIndexAndSingleBlocks() throws Exception {
+        final Path file = Files.createTempFile("exam_7", ".sebevents");
+        try {
+            try (final OutputStream out = Files.newOutputStream(file);
+                    final ExamLogArchiveFile.Writer writer = new ExamLogArchiveFile.Writer(out, 7L, 10)) {
+                for (int i = 0; i < 25; i++) {
+                    writer.add(new ConnectionEventExportRecord(
+                            100L + i, (long) (i % 4), 1, 1000L + i, 2000L + i, null, "text" + i,
+                            3L, 7L, "user" + (i % 4), null, "token" + (i % 4)));
+                }
+            }
+
+            try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                final ExamLogArchiveFile.Index index = ExamLogArchiveFile.readIndex(channel);
+                Assert.assertEquals(Long.valueOf(7L), index.examId);
+                Assert.assertEquals(Long.valueOf(3L), index.institutionId);
+                Assert.assertEquals(3, index.blocks.size());
+                Assert.assertEquals(25, index.numberOfRows());
+
+                final ExamLogArchiveFile.BlockInfo last = index.blocks.get(2);
+                Assert.assertEquals(5, last.rows);
+                Assert.assertEquals(120L, last.firstId);
+                Assert.assertEquals(124L, last.lastId);
+                Assert.assertEquals(2020L, last.minServerTime);
+                Assert.assertEquals(2024L, last.maxServerTime);
+                Assert.assertTrue(last.overlapsServerTime(2024L, null));
+                Assert.assertFalse(last.overlapsServerTime(null, 2019L));
+                Assert.assertTrue(last.withinServerTime(2020L, 2030L));
+                Assert.assertFalse(last.withinServerTime(2021L, null));
+
+                // a single block is self-contained and is read without the blocks before
+                final List<ConnectionEventExportRecord> result = new ArrayList<>();
+                final int count = ExamLogArchiveFile.readBlock(channel, index, last, rec -> true, result::add);
+                Assert.assertEquals(5, count);
+                Assert.assertEquals(Long.valueOf(120L), result.get(0).id);
+                Assert.assertEquals(Long.valueOf(2020L), result.get(0).server_time);
+                Assert.assertEquals(Long.valueOf(1020L), result.get(0).client_time);
+                Assert.assertEquals("text20", result.get(0).text);
+                Assert.assertEquals("token0", result.get(0).connection_token);
+                Assert.assertEquals(Long.valueOf(3L), result.get(0).institution_id);
+                Assert.assertEquals(Long.valueOf(7L), result.get(0).exam_id);
+            }
+
+            // the whole file can still be read sequentially
+            try (final InputStream in = Files.newInputStream(file)) {
+                Assert.assertEquals(25, ExamLogArchiveFile.read(in, rec -> true, rec -> {
+                }));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void zigZag() {
+        Assert.assertEquals(0L, ExamLogArchiveFile.unZigZag(ExamLogArchiveFile.zigZag(0L)));
+        Assert.assertEquals(-1L, ExamLogArchiveFile.unZigZag(ExamLogArchiveFile.zigZag(-1L)));
+        Assert.assertEquals(Long.MAX_VALUE, ExamLogArchiveFile.unZigZag(ExamLogArchiveFile.zigZag(Long.MAX_VALUE)));
+        Assert.assertEquals(Long.MIN_VALUE, ExamLogArchiveFile.unZigZag(ExamLogArchiveFile.zigZag(Long.MIN_VALUE)));
+    }
+
+}
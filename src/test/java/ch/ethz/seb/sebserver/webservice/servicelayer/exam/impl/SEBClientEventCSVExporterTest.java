@@ -10,6 +10,7 @@ package ch.ethz.seb.sebserver.webservice.servicelayer.exam.impl;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Map;
@@ -91,7 +92,7 @@ public class SEBClientEventCSVExporterTest {
     }
 
     @Test
-    public void streamDataTestWithConnection() {
+    public void streamDataTestWithConnection() throws IOException {
         final ClientConnectionRecord connection = new ClientConnectionRecord(0L, 1L, 2L, "status", "token", "sessionid",
                 "clientaddress", "virtualaddress", 3, "vdi", 4L, 5L, 6L, (byte) 0, 6L, 7,
                 "seb_os_name", "seb_machine_name", "seb_version",
@@ -102,6 +103,8 @@ public class SEBClientEventCSVExporterTest {
         final BufferedOutputStream output = new BufferedOutputStream(stream);
 
         exporter.streamData(output, event, connection, null);
+        // data lines are not flushed per line, the caller flushes when the export is done
+        output.flush();
 
         final byte[] array = stream.toByteArray();
         final String string = Utils.toString(array);
@@ -112,7 +115,7 @@ public class SEBClientEventCSVExporterTest {
     }
 
     @Test
-    public void streamDataTestWithExam() {
+    public void streamDataTestWithExam() throws IOException {
 
         final Map<String, String> attrs = Stream.of(new Tuple<>(QuizData.QUIZ_ATTR_DESCRIPTION, "description"))
                 .collect(Collectors.toMap(t -> t._1, t -> t._2));
@@ -128,6 +131,7 @@ public class SEBClientEventCSVExporterTest {
         final BufferedOutputStream output = new BufferedOutputStream(stream);
 
         exporter.streamData(output, event, null, exam);
+        output.flush();
 
         final byte[] array = stream.toByteArray();
         final String string = Utils.toString(array);
@@ -138,7 +142,7 @@ public class SEBClientEventCSVExporterTest {
     }
 
     @Test
-    public void streamDataTestWithConnectionAndExam() {
+    public void streamDataTestWithConnectionAndExam() throws IOException {
 
         final Map<String, String> attrs = Stream.of(new Tuple<>(QuizData.QUIZ_ATTR_DESCRIPTION, "description"))
                 .collect(Collectors.toMap(t -> t._1, t -> t._2));
@@ -158,6 +162,7 @@ public class SEBClientEventCSVExporterTest {
         final BufferedOutputStream output = new BufferedOutputStream(stream);
 
         exporter.streamData(output, event, connection, exam);
+        output.flush();
 
         final byte[] array = stream.toByteArray();
         final String string = Utils.toString(array);
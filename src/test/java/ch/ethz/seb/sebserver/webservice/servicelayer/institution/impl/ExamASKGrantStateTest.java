@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.institution.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.gbl.model.institution.SecurityCheckResult;
+import ch.ethz.seb.sebserver.gbl.model.institution.SecurityKey;
+import ch.ethz.seb.sebserver.gbl.model.institution.SecurityKey.KeyType;
+
+public class ExamASKGrantStateTest {
+
+    @Test
+    public void testRegisteredKeys() {
+        final ExamASKGrantState state = new ExamASKGrantState(
+                1L,
+                1L,
+                Arrays.asList(
+                        new SecurityKey(1L, 1L, KeyType.APP_SIGNATURE_KEY, "hash1", "exam", 1L, null),
+                        new SecurityKey(2L, 1L, KeyType.APP_SIGNATURE_KEY, "hash2", "global", null, null),
+                        new SecurityKey(3L, 1L, KeyType.APP_SIGNATURE_KEY, "hash2", "exam", 1L, null)),
+                Collections.emptyMap(),
+                2,
+                0L);
+
+        final SecurityCheckResult hash1 = state.check("hash1");
+        assertTrue(hash1.hasAnyGrant());
+        assertTrue(hash1.globalGranted);
+        assertFalse(hash1.examGranted);
+
+        final SecurityCheckResult hash2 = state.check("hash2");
+        assertTrue(hash2.globalGranted);
+        assertTrue(hash2.examGranted);
+        assertFalse(hash2.numericallyGranted);
+
+        assertFalse(state.check("hash3").hasAnyGrant());
+        assertFalse(state.check(null).hasAnyGrant());
+    }
+
+    @Test
+    public void testNumericalCheck() {
+        final ExamASKGrantState state = new ExamASKGrantState(
+                1L,
+                1L,
+                Collections.emptyList(),
+                Map.of("hash1", 2L),
+                2,
+                0L);
+
+        assertFalse(state.check("hash1").hasAnyGrant());
+
+        state.connectionSignatureHashChanged(null, "hash1");
+        assertEquals(3, state.getSignatureHashCount("hash1"));
+        assertTrue(state.check("hash1").numericallyGranted);
+
+        // connection changes its hash
+        state.connectionSignatureHashChanged("hash1", "hash2");
+        assertEquals(2, state.getSignatureHashCount("hash1"));
+        assertEquals(1, state.getSignatureHashCount("hash2"));
+        assertFalse(state.check("hash1").hasAnyGrant());
+
+        // connections are closed
+        state.connectionSignatureHashChanged("hash2", null);
+        state.connectionSignatureHashChanged("hash2", null);
+        assertEquals(0, state.getSignatureHashCount("hash2"));
+        assertFalse(state.check("hash2").hasAnyGrant());
+    }
+
+}
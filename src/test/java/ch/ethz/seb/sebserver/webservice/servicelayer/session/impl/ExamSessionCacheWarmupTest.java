@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import ch.ethz.seb.sebserver.gbl.Constants;
+import ch.ethz.seb.sebserver.gbl.async.AsyncRunner;
+import ch.ethz.seb.sebserver.gbl.async.AsyncService;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam.ExamStatus;
+import ch.ethz.seb.sebserver.gbl.model.exam.Exam.ExamType;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientGroupDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ExamDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.IndicatorDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamSessionService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.ExamStartedEvent;
+
+public class ExamSessionCacheWarmupTest {
+
+    private static final Long RUNNING_EXAM_ID = 1L;
+    private static final Long INSTITUTION_ID = 2L;
+
+    @Mock
+    ExamSessionService examSessionService;
+    @Mock
+    ExamSessionCacheService examSessionCacheService;
+    @Mock
+    ExamDAO examDAO;
+    @Mock
+    ClientConnectionDAO clientConnectionDAO;
+    @Mock
+    ClientGroupDAO clientGroupDAO;
+    @Mock
+    IndicatorDAO indicatorDAO;
+    @Mock
+    AsyncService asyncService;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        Mockito.when(this.examSessionService.getExamSessionCacheService()).thenReturn(this.examSessionCacheService);
+        Mockito.when(this.examSessionService.getExamDAO()).thenReturn(this.examDAO);
+        Mockito.when(this.examSessionService.getClientConnectionDAO()).thenReturn(this.clientConnectionDAO);
+        // runs the given task on the calling thread
+        Mockito.when(this.asyncService.getAsyncRunner()).thenReturn(new AsyncRunner());
+
+        Mockito.when(this.examSessionService.getRunningExam(Mockito.anyLong()))
+                .thenReturn(Result.ofError(new IllegalStateException("Exam not running")));
+        Mockito.when(this.examSessionService.getRunningExam(RUNNING_EXAM_ID))
+                .thenReturn(Result.of(runningExam()));
+        Mockito.when(this.examSessionService.hasDefaultConfigurationAttached(RUNNING_EXAM_ID)).thenReturn(true);
+        Mockito.when(this.clientGroupDAO.allForExam(RUNNING_EXAM_ID)).thenReturn(Result.of(Collections.emptyList()));
+        Mockito.when(this.indicatorDAO.allForRunningExam(RUNNING_EXAM_ID))
+                .thenReturn(Result.of(Collections.emptyList()));
+        Mockito.when(this.clientConnectionDAO.getConnectionTokens(RUNNING_EXAM_ID))
+                .thenReturn(Result.of(Collections.emptyList()));
+    }
+
+    @Test
+    public void testWarmUpPreloadsTheSessionCachesOfARunningExam() {
+        final Result<Exam> result = createWarmup(true).warmUp(RUNNING_EXAM_ID);
+
+        assertEquals(RUNNING_EXAM_ID, result.getOrThrow().id);
+        Mockito.verify(this.clientGroupDAO).allForExam(RUNNING_EXAM_ID);
+        Mockito.verify(this.indicatorDAO).allForRunningExam(RUNNING_EXAM_ID);
+        Mockito.verify(this.indicatorDAO, Mockito.never()).allForExam(Mockito.any());
+        Mockito.verify(this.clientConnectionDAO).getConnectionTokens(RUNNING_EXAM_ID);
+        Mockito.verify(this.examSessionCacheService).getDefaultSEBConfigForExam(RUNNING_EXAM_ID, INSTITUTION_ID);
+    }
+
+    @Test
+    public void testWarmUpWithoutDefaultConfiguration() {
+        Mockito.when(this.examSessionService.hasDefaultConfigurationAttached(RUNNING_EXAM_ID)).thenReturn(false);
+
+        assertTrue(createWarmup(true).warmUp(RUNNING_EXAM_ID).hasValue());
+        Mockito.verify(this.indicatorDAO).allForRunningExam(RUNNING_EXAM_ID);
+        Mockito.verify(this.examSessionCacheService, Mockito.never())
+                .getDefaultSEBConfigForExam(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testWarmUpOfAnExamThatIsNotRunningLoadsNothing() {
+        assertTrue(createWarmup(true).warmUp(3L).hasError());
+
+        Mockito.verifyNoInteractions(this.clientGroupDAO, this.indicatorDAO, this.clientConnectionDAO);
+        Mockito.verify(this.examSessionCacheService, Mockito.never())
+                .getDefaultSEBConfigForExam(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    public void testExamStartedEvictsBeforePreload() {
+        createWarmup(true).notifyExamStarted(new ExamStartedEvent(runningExam()));
+
+        final InOrder inOrder = Mockito.inOrder(this.examSessionCacheService, this.indicatorDAO);
+        inOrder.verify(this.examSessionCacheService).evict(RUNNING_EXAM_ID);
+        inOrder.verify(this.indicatorDAO).allForRunningExam(RUNNING_EXAM_ID);
+        Mockito.verify(this.examSessionCacheService).evictDefaultSEBConfig(RUNNING_EXAM_ID);
+    }
+
+    @Test
+    public void testInitPreloadsAllRunningExams() {
+        Mockito.when(this.examDAO.allRunningExamIds()).thenReturn(Result.of(Arrays.asList(RUNNING_EXAM_ID, 3L)));
+
+        createWarmup(true).init();
+
+        Mockito.verify(this.examSessionService).getRunningExam(RUNNING_EXAM_ID);
+        Mockito.verify(this.examSessionService).getRunningExam(3L);
+        Mockito.verify(this.indicatorDAO).allForRunningExam(RUNNING_EXAM_ID);
+        Mockito.verify(this.indicatorDAO, Mockito.never()).allForRunningExam(3L);
+    }
+
+    @Test
+    public void testDisabledWarmupDoesNothing() {
+        final ExamSessionCacheWarmup warmup = createWarmup(false);
+        warmup.init();
+        warmup.notifyExamStarted(new ExamStartedEvent(runningExam()));
+
+        Mockito.verifyNoInteractions(this.examDAO, this.indicatorDAO, this.clientGroupDAO);
+        Mockito.verify(this.examSessionCacheService, Mockito.never()).evict(Mockito.anyLong());
+        Mockito.verify(this.examSessionService, Mockito.never()).getRunningExam(Mockito.any());
+    }
+
+    private ExamSessionCacheWarmup createWarmup(final boolean enabled) {
+        return new ExamSessionCacheWarmup(
+                this.examSessionService,
+                this.clientGroupDAO,
+                this.indicatorDAO,
+                this.asyncService,
+                enabled);
+    }
+
+    private static Exam runningExam() {
+        return new Exam(
+                RUNNING_EXAM_ID,
+                INSTITUTION_ID,
+                1L,
+                Constants.EMPTY_NOTE,
+                true,
+                Constants.EMPTY_NOTE,
+                null,
+                null,
+                ExamType.UNDEFINED,
+                null,
+                null,
+                ExamStatus.RUNNING,
+                null,
+                Boolean.FALSE,
+                null,
+                Boolean.TRUE,
+                null,
+                null,
+                null,
+                null);
+    }
+
+}
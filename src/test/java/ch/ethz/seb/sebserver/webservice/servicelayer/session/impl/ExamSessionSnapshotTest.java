@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.impl.ExamSessionSnapshot.ConnectionState;
+
+public class ExamSessionSnapshotTest {
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        final Map<Long, Double> values = new HashMap<>();
+        values.put(1L, 3.0);
+        values.put(2L, 0.5);
+
+        final Map<Long, Collection<ConnectionState>> exams = new HashMap<>();
+        exams.put(10L, Arrays.asList(
+                new ConnectionState(100L, "token1", "ACTIVE", values),
+                new ConnectionState(101L, "token2", "CLOSED", Collections.emptyMap())));
+        exams.put(11L, Collections.emptyList());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ExamSessionSnapshot(123456789L, exams).writeTo(out);
+
+        final ExamSessionSnapshot snapshot = ExamSessionSnapshot.readFrom(
+                new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(123456789L, snapshot.timestamp);
+        assertEquals(2, snapshot.exams.size());
+        assertEquals(2, snapshot.numberOfConnections());
+        assertTrue(snapshot.exams.get(11L).isEmpty());
+
+        final ConnectionState first = snapshot.exams.get(10L).iterator().next();
+        assertEquals(100L, first.connectionId);
+        assertEquals("token1", first.connectionToken);
+        assertEquals("ACTIVE", first.status);
+        assertEquals(values, first.indicatorValues);
+    }
+
+    @Test
+    public void testReadUnknownFormat() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream zip = new GZIPOutputStream(out)) {
+            zip.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 });
+        }
+
+        try {
+            ExamSessionSnapshot.readFrom(new ByteArrayInputStream(out.toByteArray()));
+            fail("Expected IOException");
+        } catch (final IOException e) {
+            assertEquals("Unknown exam session snapshot format", e.getMessage());
+        }
+    }
+
+}
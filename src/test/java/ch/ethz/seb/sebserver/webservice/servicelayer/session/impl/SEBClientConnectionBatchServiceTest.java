@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import ch.ethz.seb.sebserver.gbl.api.APIMessage.APIMessageException;
+import ch.ethz.seb.sebserver.gbl.api.APIMessage.ErrorMessage;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection.ConnectionStatus;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientConnectionDAO;
+
+public class SEBClientConnectionBatchServiceTest {
+
+    private static final int NUMBER_OF_REQUESTS = 20;
+
+    @Mock
+    ClientConnectionDAO clientConnectionDAO;
+    @Mock
+    ClientIndicatorFactory clientIndicatorFactory;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger integrityChecks = new AtomicInteger();
+    private ExecutorService executor;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+        this.executor = Executors.newFixedThreadPool(NUMBER_OF_REQUESTS);
+    }
+
+    @After
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentRequestsAreCreatedInBatches() throws Exception {
+        mockCreateAll();
+        final SEBClientConnectionBatchService service = createService(true);
+
+        final List<Result<ClientConnection>> results = runConcurrent(
+                service,
+                i -> 1L,
+                connection -> this.integrityChecks.incrementAndGet());
+
+        final Set<Long> createdIds = new HashSet<>();
+        for (final Result<ClientConnection> result : results) {
+            assertFalse(result.hasError());
+            createdIds.add(result.get().id);
+        }
+        // every request gets its own connection
+        assertEquals(NUMBER_OF_REQUESTS, createdIds.size());
+        // the connections are created in less inserts than requests and the integrity check is done once per batch
+        assertTrue(this.batches.get() < NUMBER_OF_REQUESTS);
+        assertEquals(this.batches.get(), this.integrityChecks.get());
+        Mockito.verify(this.clientConnectionDAO, Mockito.never()).createNew(Mockito.any());
+        Mockito.verify(this.clientConnectionDAO, Mockito.times(this.batches.get())).evictConnectionTokenCache(1L);
+    }
+
+    @Test
+    public void testIntegrityViolationOnlyFailsRequestsOfTheExam() throws Exception {
+        mockCreateAll();
+        final SEBClientConnectionBatchService service = createService(true);
+
+        final List<Result<ClientConnection>> results = runConcurrent(
+                service,
+                i -> (i % 2 == 0) ? 1L : 2L,
+                connection -> {
+                    if (connection.examId == 2L) {
+                        throw new APIMessageException(ErrorMessage.ILLEGAL_API_ARGUMENT);
+                    }
+                });
+
+        for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+            final Result<ClientConnection> result = results.get(i);
+            if (i % 2 == 0) {
+                assertFalse(result.hasError());
+                assertEquals(Long.valueOf(1L), result.get().examId);
+            } else {
+                assertTrue(result.hasError());
+                assertTrue(result.getError() instanceof APIMessageException);
+            }
+        }
+    }
+
+    @Test
+    public void testFailedBatchFailsAllRequests() throws Exception {
+        Mockito.when(this.clientConnectionDAO.createAll(Mockito.any()))
+                .thenReturn(Result.ofError(new RuntimeException("Database not available")));
+        final SEBClientConnectionBatchService service = createService(true);
+
+        final List<Result<ClientConnection>> results = runConcurrent(service, i -> 1L, connection -> {
+        });
+
+        for (final Result<ClientConnection> result : results) {
+            assertTrue(result.hasError());
+            assertEquals("Database not available", result.getError().getMessage());
+        }
+    }
+
+    @Test
+    public void testDisabledBatching() {
+        Mockito.when(this.clientConnectionDAO.createNew(Mockito.any()))
+                .thenAnswer(invocation -> Result.of(withId(invocation.getArgument(0))));
+        final SEBClientConnectionBatchService service = createService(false);
+
+        final Result<ClientConnection> result = service.createNew(
+                connection(1L, "token"),
+                connection -> this.integrityChecks.incrementAndGet());
+
+        assertFalse(result.hasError());
+        assertEquals(1, this.integrityChecks.get());
+        Mockito.verify(this.clientConnectionDAO, Mockito.never()).createAll(Mockito.any());
+        Mockito.verify(this.clientIndicatorFactory).initializeDistributedCaches(result.get());
+        Mockito.verify(this.clientConnectionDAO).evictConnectionTokenCache(1L);
+    }
+
+    private SEBClientConnectionBatchService createService(final boolean enabled) {
+        return new SEBClientConnectionBatchService(
+                this.clientConnectionDAO,
+                this.clientIndicatorFactory,
+                enabled,
+                50,
+                200,
+                10000);
+    }
+
+    private void mockCreateAll() {
+        Mockito.when(this.clientConnectionDAO.createAll(Mockito.any())).thenAnswer(invocation -> {
+            this.batches.incrementAndGet();
+            final Collection<ClientConnection> data = invocation.getArgument(0);
+            // give the other requests time to queue up for the next batch
+            Thread.sleep(20);
+            return Result.of(data
+                    .stream()
+                    .map(this::withId)
+                    .collect(Collectors.toList()));
+        });
+    }
+
+    private List<Result<ClientConnection>> runConcurrent(
+            final SEBClientConnectionBatchService service,
+            final IntFunction<Long> examId,
+            final Consumer<ClientConnection> examIntegrityCheck) throws Exception {
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<Result<ClientConnection>>> futures = new ArrayList<>();
+        for (int i = 0; i < NUMBER_OF_REQUESTS; i++) {
+            final ClientConnection connection = connection(examId.apply(i), "token" + i);
+            final Callable<Result<ClientConnection>> request = () -> {
+                start.await();
+                return service.createNew(connection, examIntegrityCheck);
+            };
+            futures.add(this.executor.submit(request));
+        }
+
+        start.countDown();
+        final List<Result<ClientConnection>> results = new ArrayList<>();
+        for (final Future<Result<ClientConnection>> future : futures) {
+            results.add(future.get());
+        }
+        return results;
+    }
+
+    private ClientConnection withId(final ClientConnection data) {
+        return new ClientConnection(
+                this.ids.incrementAndGet(),
+                data.institutionId,
+                data.examId,
+                data.status,
+                data.connectionToken,
+                null, null, null, null, null, null, null);
+    }
+
+    private static ClientConnection connection(final Long examId, final String connectionToken) {
+        return new ClientConnection(
+                null,
+                1L,
+                examId,
+                ConnectionStatus.CONNECTION_REQUESTED,
+                connectionToken,
+                null, null, null, null, null, null, null);
+    }
+
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2024 ETH Zürich, IT Services
+ *
+ * This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/.
+ */
+
+package ch.ethz.seb.sebserver.webservice.servicelayer.session.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.MockitoAnnotations;
+
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientConnection.ConnectionStatus;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientEvent.EventType;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientNotification;
+import ch.ethz.seb.sebserver.gbl.model.session.ClientNotification.NotificationType;
+import ch.ethz.seb.sebserver.gbl.util.Result;
+import ch.ethz.seb.sebserver.webservice.WebserviceInfo;
+import ch.ethz.seb.sebserver.webservice.servicelayer.dao.ClientEventDAO;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.SEBClientInstructionService;
+import ch.ethz.seb.sebserver.webservice.servicelayer.session.impl.SEBClientNotificationServiceImpl.ExamNotificationIndex;
+
+public class SEBClientNotificationServiceImplTest {
+
+    @Mock
+    ClientEventDAO clientEventDAO;
+    @Mock
+    SEBClientInstructionService sebClientInstructionService;
+    @Mock
+    WebserviceInfo webserviceInfo;
+
+    @Before
+    public void init() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    public void testIndexIsLoadedOnceAndUpdatedIncrementally() {
+        mockPendingNotifications(pending(1L, 10L, 100L));
+        Mockito.when(this.clientEventDAO.createNewNotification(Mockito.any()))
+                .thenReturn(Result.of(notification(101L, 11L)));
+        final SEBClientNotificationServiceImpl service = createService(false);
+
+        assertTrue(service.hasAnyPendingNotification(connection(10L, 1L)));
+        assertFalse(service.hasAnyPendingNotification(connection(11L, 1L)));
+        assertEquals(1, service.getPendingNotificationCount(1L));
+
+        service.newNotification(notification(null, 11L), 1L);
+
+        assertTrue(service.hasAnyPendingNotification(connection(11L, 1L)));
+        assertEquals(2, service.getPendingNotificationCount(1L));
+        Mockito.verify(this.clientEventDAO, Mockito.times(1)).getPendingNotificationIds(Mockito.any());
+
+        // a loaded index is not reloaded by the sync in a non distributed setup
+        service.syncIndexes();
+        Mockito.verify(this.clientEventDAO, Mockito.times(1)).getPendingNotificationIds(Mockito.any());
+    }
+
+    @Test
+    public void testFailedLoadIsRetriedOnSync() {
+        Mockito.when(this.clientEventDAO.getPendingNotificationIds(Mockito.any()))
+                .thenReturn(Result.ofError(new RuntimeException("Database not available")))
+                .thenReturn(Result.of(pending(1L, 10L, 100L)));
+        final SEBClientNotificationServiceImpl service = createService(false);
+
+        assertEquals(0, service.getPendingNotificationCount(1L));
+        service.syncIndexes();
+        assertEquals(1, service.getPendingNotificationCount(1L));
+    }
+
+    @Test
+    public void testDistributedSyncLoadsAllIndexesWithOneQuery() {
+        final Map<Long, Map<Long, Set<Long>>> pending = pending(1L, 10L, 100L);
+        pending.putAll(pending(2L, 20L, 200L));
+        mockPendingNotifications(pending);
+        final SEBClientNotificationServiceImpl service = createService(true);
+
+        service.getPendingNotificationCount(1L);
+        service.getPendingNotificationCount(2L);
+        Mockito.reset(this.clientEventDAO);
+        pending.get(2L).put(21L, new HashSet<>(Arrays.asList(201L)));
+        mockPendingNotifications(pending);
+
+        service.syncIndexes();
+
+        Mockito.verify(this.clientEventDAO, Mockito.times(1))
+                .getPendingNotificationIds(Mockito.argThat(examIds -> examIds.size() == 2));
+        assertEquals(1, service.getPendingNotificationCount(1L));
+        assertEquals(2, service.getPendingNotificationCount(2L));
+    }
+
+    @Test
+    public void testIndexUpdatesAreIdempotent() {
+        final ExamNotificationIndex index = new ExamNotificationIndex();
+
+        index.add(1L, 100L);
+        index.add(1L, 100L);
+        index.add(1L, 101L);
+        assertEquals(1, index.numberOfConnections());
+
+        index.remove(1L, 100L);
+        index.remove(1L, 100L);
+        assertTrue(index.hasPending(1L));
+
+        index.remove(1L, 101L);
+        assertFalse(index.hasPending(1L));
+        assertEquals(0, index.numberOfConnections());
+    }
+
+    @Test
+    public void testUpdatesWhileLoadingAreNotLost() {
+        final ExamNotificationIndex index = new ExamNotificationIndex();
+        index.add(2L, 200L);
+
+        assertTrue(index.beginLoad());
+        // only one load at the time
+        assertFalse(index.beginLoad());
+
+        // a new notification that is not yet in the loaded data and a confirmation that is
+        index.add(1L, 100L);
+        index.remove(2L, 200L);
+
+        final Map<Long, Set<Long>> loaded = new HashMap<>();
+        loaded.put(2L, new HashSet<>(Arrays.asList(200L)));
+        loaded.put(3L, new HashSet<>(Arrays.asList(300L)));
+        index.endLoad(loaded);
+
+        assertTrue(index.hasPending(1L));
+        assertFalse(index.hasPending(2L));
+        assertTrue(index.hasPending(3L));
+        assertTrue(index.beginLoad());
+    }
+
+    private SEBClientNotificationServiceImpl createService(final boolean distributed) {
+        Mockito.when(this.webserviceInfo.isDistributed()).thenReturn(distributed);
+        return new SEBClientNotificationServiceImpl(
+                this.clientEventDAO,
+                this.sebClientInstructionService,
+                this.webserviceInfo,
+                60000);
+    }
+
+    private void mockPendingNotifications(final Map<Long, Map<Long, Set<Long>>> pending) {
+        Mockito.when(this.clientEventDAO.getPendingNotificationIds(Mockito.any()))
+                .thenAnswer(invocation -> {
+                    final Collection<Long> examIds = invocation.getArgument(0);
+                    final Map<Long, Map<Long, Set<Long>>> result = new HashMap<>(pending);
+                    result.keySet().retainAll(examIds);
+                    return Result.of(result);
+                });
+    }
+
+    private static Map<Long, Map<Long, Set<Long>>> pending(
+            final Long examId,
+            final Long connectionId,
+            final Long notificationId) {
+
+        final Map<Long, Set<Long>> connections = new HashMap<>();
+        connections.put(connectionId, new HashSet<>(Arrays.asList(notificationId)));
+        final Map<Long, Map<Long, Set<Long>>> result = new HashMap<>();
+        result.put(examId, connections);
+        return result;
+    }
+
+    private static ClientConnection connection(final Long id, final Long examId) {
+        return new ClientConnection(
+                id,
+                1L,
+                examId,
+                ConnectionStatus.ACTIVE,
+                "token" + id,
+                null, null, null, null, null, null, null);
+    }
+
+    private static ClientNotification notification(final Long id, final Long connectionId) {
+        return new ClientNotification(
+                id,
+                connectionId,
+                EventType.NOTIFICATION,
+                null,
+                null,
+                1.0,
+                "raise hand",
+                NotificationType.RAISE_HAND);
+    }
+
+}
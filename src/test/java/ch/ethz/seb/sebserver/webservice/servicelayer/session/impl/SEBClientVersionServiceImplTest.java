@@ -435,6 +435,47 @@ public class SEBClientVersionServiceImplTest {
                         "3.3.1 AE")));
     }
 
+    @Test
+    public void testVersionPolicy() {
+        final SEBVersionPolicy policy = SEBVersionPolicy.compile("Win.3.2.1.min,Mac.3.3.0,invalid,iOS.3.2.AE");
+
+        final SEBClientVersionServiceImpl clientVersionServiceMockup = getClientVersionServiceMockup();
+
+        assertFalse(policy.isEmpty());
+        assertTrue(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "Windows 10, Microsoft Windows NT 10.0.19043.0 (x64)",
+                        "3.3.1")));
+        assertFalse(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "Windows 10, Microsoft Windows NT 10.0.19043.0 (x64)",
+                        "3.2.0")));
+        assertTrue(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "macOS Version 12.6.4 (Build 21G521)",
+                        "3.3.0")));
+        assertFalse(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "macOS Version 12.6.4 (Build 21G521)",
+                        "3.2.1")));
+        assertTrue(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "iPhone (iOS 12.5.7)",
+                        "3.2 AE")));
+        assertFalse(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "iPhone (iOS 12.5.7)",
+                        "3.3.1")));
+        assertFalse(policy.isAllowed(
+                clientVersionServiceMockup.extractClientVersion(
+                        "Windows 10, Microsoft Windows NT 10.0.19043.0 (x64)",
+                        "3.3.1 BETA")));
+        assertFalse(policy.isAllowed(null));
+
+        assertTrue(SEBVersionPolicy.compile(null).isEmpty());
+        assertTrue(SEBVersionPolicy.compile("invalid").isEmpty());
+    }
+
     private SEBClientVersionServiceImpl getClientVersionServiceMockup() {
         return new SEBClientVersionServiceImpl(
                 null,
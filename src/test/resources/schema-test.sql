@@ -165,6 +165,7 @@ CREATE TABLE IF NOT EXISTS `client_connection` (
   `client_version_granted` TINYINT(1) UNSIGNED NULL,
   PRIMARY KEY (`id`),
   INDEX `connection_exam_ref_idx` (`exam_id` ASC),
+  INDEX `connectionExamStatus_idx` (`exam_id` ASC, `status` ASC),
   INDEX `clientConnectionInstitutionRef_idx` (`institution_id` ASC),
   INDEX `connectionTokenRef` (`connection_token` ASC),
   INDEX `clientConnectionProctorRoomRef_idx` (`remote_proctoring_room_id` ASC),
@@ -208,6 +209,9 @@ CREATE TABLE IF NOT EXISTS `client_event` (
   `text` VARCHAR(512) NULL,
   PRIMARY KEY (`id`),
   INDEX `eventConnectionRef_idx` (`client_connection_id` ASC),
+  INDEX `eventConnectionServerTime_idx` (`client_connection_id` ASC, `server_time` ASC),
+  INDEX `eventConnectionClientTime_idx` (`client_connection_id` ASC, `client_time` ASC),
+  INDEX `eventServerTime_idx` (`server_time` ASC),
   CONSTRAINT `eventConnectionRef`
     FOREIGN KEY (`client_connection_id`)
     REFERENCES `client_connection` (`id`)
@@ -216,6 +220,27 @@ CREATE TABLE IF NOT EXISTS `client_event` (
 ;
 
 
+-- -----------------------------------------------------
+-- Table `client_event_archive`
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `client_event_archive` ;
+
+CREATE TABLE IF NOT EXISTS `client_event_archive` (
+  `id` BIGINT UNSIGNED NOT NULL,
+  `exam_id` BIGINT UNSIGNED NOT NULL,
+  `institution_id` BIGINT UNSIGNED NOT NULL,
+  `client_connection_id` BIGINT UNSIGNED NOT NULL,
+  `type` INT(2) UNSIGNED NOT NULL,
+  `client_time` BIGINT UNSIGNED NOT NULL,
+  `server_time` BIGINT NOT NULL,
+  `numeric_value` DECIMAL(18,4) NULL,
+  `text` VARCHAR(512) NULL,
+  PRIMARY KEY (`id`, `exam_id`),
+  INDEX `archiveExamConnectionServerTime_idx` (`exam_id` ASC, `client_connection_id` ASC, `server_time` ASC),
+  INDEX `archiveExamServerTime_idx` (`exam_id` ASC, `server_time` ASC))
+;
+
+
 -- -----------------------------------------------------
 -- Table `indicator`
 -- -----------------------------------------------------
@@ -351,6 +376,28 @@ CREATE TABLE IF NOT EXISTS `configuration_value` (
 ;
 
 
+-- -----------------------------------------------------
+-- Table `configuration_value_delta`
+-- -----------------------------------------------------
+DROP TABLE IF EXISTS `configuration_value_delta` ;
+
+CREATE TABLE IF NOT EXISTS `configuration_value_delta` (
+  `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
+  `configuration_id` BIGINT UNSIGNED NOT NULL,
+  `configuration_attribute_id` BIGINT UNSIGNED NOT NULL,
+  `list_index` INT NOT NULL DEFAULT 0,
+  `value` VARCHAR(16000) NULL,
+  `removed` INT(1) NOT NULL DEFAULT 0,
+  PRIMARY KEY (`id`),
+  INDEX `configuration_value_delta_ref_idx` (`configuration_id` ASC),
+  CONSTRAINT `configuration_value_delta_ref`
+    FOREIGN KEY (`configuration_id`)
+    REFERENCES `configuration` (`id`)
+    ON DELETE NO ACTION
+    ON UPDATE NO ACTION)
+;
+
+
 -- -----------------------------------------------------
 -- Table `view`
 -- -----------------------------------------------------
@@ -811,7 +858,9 @@ CREATE TABLE IF NOT EXISTS `entity_privilege` (
   `entity_id` BIGINT UNSIGNED NOT NULL,
   `user_uuid` VARCHAR(255) NOT NULL,
   `privilege_type` TINYINT(1) NOT NULL,
-  PRIMARY KEY (`id`))
+  PRIMARY KEY (`id`),
+  INDEX `entityPrivilegeUser_idx` (`user_uuid` ASC, `entity_type` ASC, `entity_id` ASC, `privilege_type` ASC),
+  INDEX `entityPrivilegeEntity_idx` (`entity_type` ASC, `entity_id` ASC))
 ;
 
 
@@ -824,6 +873,7 @@ CREATE TABLE IF NOT EXISTS `feature_privilege` (
   `id` BIGINT UNSIGNED NOT NULL AUTO_INCREMENT,
   `feature_id` BIGINT UNSIGNED NOT NULL,
   `user_uuid` VARCHAR(255) NOT NULL,
-  PRIMARY KEY (`id`))
+  PRIMARY KEY (`id`),
+  INDEX `featurePrivilegeUser_idx` (`user_uuid` ASC))
 ;
 